@@ -5,6 +5,7 @@ import android.util.Log;
 import android.content.Context;
 import ai.intelliswarm.meetingmate.analytics.AppLogger;
 import ai.intelliswarm.meetingmate.analytics.CrashAnalytics;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 
 public class MeetingMateApplication extends Application {
@@ -37,6 +38,7 @@ public class MeetingMateApplication extends Application {
         super.onLowMemory();
         AppLogger.w(TAG, "Application received onLowMemory callback");
         AppLogger.lifecycle("Application", "onLowMemory");
+        HttpClientProvider.evictIdleConnections();
     }
     
     @Override
@@ -44,6 +46,11 @@ public class MeetingMateApplication extends Application {
         super.onTrimMemory(level);
         AppLogger.w(TAG, "Application memory trimmed, level: " + level);
         AppLogger.lifecycle("Application", "onTrimMemory(level=" + level + ")");
+        
+        // Keep pooled connections warm while we're visible or only briefly in the background
+        if (level >= TRIM_MEMORY_MODERATE) {
+            HttpClientProvider.evictIdleConnections();
+        }
     }
     
     @Override
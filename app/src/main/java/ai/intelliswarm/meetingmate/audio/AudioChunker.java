@@ -0,0 +1,350 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a recording into size-bounded chunks, cutting at the quietest point near each size limit
+ * so that words are not torn in half. Compressed samples are copied as-is (no re-encoding).
+ */
+public class AudioChunker {
+    
+    private static final String TAG = "AudioChunker";
+    
+    // Leave room for the MP4 container overhead of each chunk
+    private static final double SIZE_SAFETY_FACTOR = 0.92;
+    
+    // How far back from the size limit we look for a pause
+    private static final long SILENCE_SEARCH_WINDOW_US = 20_000_000L;
+    
+    // Granularity of the energy envelope used to find the pause
+    private static final int SILENCE_WINDOW_MS = 200;
+    
+    /**
+     * One chunk of the original recording
+     */
+    public static class Chunk {
+        public final int index;
+        public final File file;
+        public final double startSeconds;
+        public final double endSeconds;
+        
+        public Chunk(int index, File file, double startSeconds, double endSeconds) {
+            this.index = index;
+            this.file = file;
+            this.startSeconds = startSeconds;
+            this.endSeconds = endSeconds;
+        }
+        
+        public double getDurationSeconds() {
+            return endSeconds - startSeconds;
+        }
+    }
+    
+    /**
+     * Split the audio file so that every chunk stays below maxChunkBytes.
+     * If the file already fits, a single chunk pointing at the original file is returned.
+     */
+    public static List<Chunk> split(File audioFile, File outputDir, long maxChunkBytes) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        
+        if (audioFile.length() <= maxChunkBytes) {
+            chunks.add(new Chunk(0, audioFile, 0, Math.max(0, PcmDecoder.probe(audioFile).durationUs) / 1e6));
+            return chunks;
+        }
+        
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create chunk directory: " + outputDir.getAbsolutePath());
+        }
+        
+        SampleIndex index = SampleIndex.scan(audioFile);
+        long budget = (long) (maxChunkBytes * SIZE_SAFETY_FACTOR);
+        Log.d(TAG, "Splitting " + audioFile.getName() + " (" + audioFile.length() + " bytes, "
+            + index.count + " samples) into chunks of at most " + budget + " bytes");
+        
+        int start = 0;
+        while (start < index.count) {
+            int limit = index.lastSampleWithinBudget(start, budget);
+            int end;
+            
+            if (limit >= index.count) {
+                end = index.count;
+            } else {
+                long searchFromUs = Math.max(index.timeUs[start], index.timeUs[limit] - SILENCE_SEARCH_WINDOW_US);
+                long cutUs = findQuietestPoint(audioFile, searchFromUs, index.timeUs[limit]);
+                end = Math.max(start + 1, index.firstSampleAtOrAfter(cutUs, start, limit));
+            }
+            
+            File chunkFile = new File(outputDir, baseName(audioFile) + "_part" + chunks.size() + ".m4a");
+            writeChunk(audioFile, chunkFile, index, start, end);
+            
+            double startSeconds = index.timeUs[start] / 1e6;
+            double endSeconds = end < index.count ? index.timeUs[end] / 1e6 : index.endTimeUs() / 1e6;
+            chunks.add(new Chunk(chunks.size(), chunkFile, startSeconds, endSeconds));
+            Log.d(TAG, String.format("Chunk %d: %.1fs - %.1fs (%d bytes)",
+                chunks.size() - 1, startSeconds, endSeconds, chunkFile.length()));
+            
+            start = end;
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Delete chunk files created by split(), leaving the original recording untouched
+     */
+    public static void deleteChunks(List<Chunk> chunks, File originalFile) {
+        for (Chunk chunk : chunks) {
+            if (!chunk.file.equals(originalFile) && chunk.file.exists() && !chunk.file.delete()) {
+                Log.w(TAG, "Failed to delete chunk " + chunk.file.getName());
+            }
+        }
+    }
+    
+    /**
+     * Concatenate recordings of the same format into one MP4 file, the inverse of split().
+     * Each part starts where the previous one's track duration ends, so offsets computed from
+     * PcmDecoder.probe() durations line up with the joined file. Samples are copied as-is.
+     */
+    public static void join(List<File> parts, File target) throws IOException {
+        if (parts.isEmpty()) {
+            throw new IOException("Nothing to join");
+        }
+        MediaMuxer muxer = null;
+        boolean started = false;
+
+        try {
+            int outTrack = -1;
+            long baseUs = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+
+            for (File part : parts) {
+                MediaExtractor extractor = new MediaExtractor();
+                try {
+                    extractor.setDataSource(part.getAbsolutePath());
+                    int track = PcmDecoder.selectAudioTrack(extractor);
+                    extractor.selectTrack(track);
+                    MediaFormat format = extractor.getTrackFormat(track);
+
+                    if (muxer == null) {
+                        muxer = new MediaMuxer(target.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+                        outTrack = muxer.addTrack(format);
+                        muxer.start();
+                        started = true;
+                    }
+
+                    long endUs = 0;
+                    while (true) {
+                        int size = extractor.readSampleData(buffer, 0);
+                        if (size < 0) break;
+                        long sampleTime = extractor.getSampleTime();
+                        info.set(0, size, baseUs + sampleTime, extractor.getSampleFlags());
+                        muxer.writeSampleData(outTrack, buffer, info);
+                        endUs = sampleTime;
+                        extractor.advance();
+                    }
+
+                    long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+                    baseUs += Math.max(durationUs, endUs);
+                } finally {
+                    extractor.release();
+                }
+            }
+
+            muxer.stop();
+            started = false;
+            Log.d(TAG, "Joined " + parts.size() + " parts into " + target.getName() + " (" + target.length() + " bytes)");
+        } catch (IOException e) {
+            target.delete();
+            throw e;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            target.delete();
+            throw new IOException("Failed to join into " + target.getName() + ": " + e.getMessage(), e);
+        } finally {
+            if (muxer != null) {
+                if (started) {
+                    try {
+                        muxer.stop();
+                    } catch (IllegalStateException ignored) {
+                        // Already failed; release below
+                    }
+                }
+                muxer.release();
+            }
+        }
+    }
+
+    /**
+     * Decode the search window and return the centre of the quietest energy window
+     */
+    private static long findQuietestPoint(File audioFile, long fromUs, long toUs) throws IOException {
+        final long[] best = {toUs};
+        final double[] bestEnergy = {Double.MAX_VALUE};
+        
+        PcmDecoder.decode(audioFile, fromUs, toUs, new PcmDecoder.PcmConsumer() {
+            private double sum;
+            private int count;
+            private long windowStartUs = -1;
+            
+            @Override
+            public void onPcm(short[] samples, int sampleCount, long presentationTimeUs, int sampleRate) {
+                int windowSize = sampleRate * SILENCE_WINDOW_MS / 1000;
+                for (int i = 0; i < sampleCount; i++) {
+                    if (windowStartUs < 0) {
+                        windowStartUs = presentationTimeUs + i * 1000000L / sampleRate;
+                    }
+                    sum += (double) samples[i] * samples[i];
+                    if (++count == windowSize) {
+                        double energy = sum / count;
+                        long centreUs = windowStartUs + SILENCE_WINDOW_MS * 500L;
+                        if (energy < bestEnergy[0] && centreUs >= fromUs && centreUs < toUs) {
+                            bestEnergy[0] = energy;
+                            best[0] = centreUs;
+                        }
+                        sum = 0;
+                        count = 0;
+                        windowStartUs = -1;
+                    }
+                }
+            }
+        });
+        
+        return best[0];
+    }
+    
+    /**
+     * Copy samples [start, end) into a new MP4 file with timestamps rebased to zero
+     */
+    private static void writeChunk(File source, File target, SampleIndex index, int start, int end) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaMuxer muxer = null;
+        
+        try {
+            extractor.setDataSource(source.getAbsolutePath());
+            int track = PcmDecoder.selectAudioTrack(extractor);
+            extractor.selectTrack(track);
+            MediaFormat format = extractor.getTrackFormat(track);
+            
+            muxer = new MediaMuxer(target.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+            int outTrack = muxer.addTrack(format);
+            muxer.start();
+            
+            long baseUs = index.timeUs[start];
+            long endUs = end < index.count ? index.timeUs[end] : Long.MAX_VALUE;
+            extractor.seekTo(baseUs, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
+            
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(index.maxSampleSize, 64 * 1024));
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            
+            while (true) {
+                int size = extractor.readSampleData(buffer, 0);
+                long sampleTime = extractor.getSampleTime();
+                if (size < 0 || sampleTime >= endUs) break;
+                
+                if (sampleTime >= baseUs) {
+                    info.set(0, size, sampleTime - baseUs, extractor.getSampleFlags());
+                    muxer.writeSampleData(outTrack, buffer, info);
+                }
+                extractor.advance();
+            }
+            
+            muxer.stop();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            target.delete();
+            throw new IOException("Failed to write chunk " + target.getName() + ": " + e.getMessage(), e);
+        } finally {
+            if (muxer != null) {
+                muxer.release();
+            }
+            extractor.release();
+        }
+    }
+    
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+    
+    /**
+     * Timestamps and sizes of every compressed sample, collected without decoding
+     */
+    private static class SampleIndex {
+        long[] timeUs = new long[8192];
+        long[] cumulativeBytes = new long[8192];
+        int count;
+        int maxSampleSize;
+        long lastDurationUs;
+        
+        static SampleIndex scan(File audioFile) throws IOException {
+            SampleIndex index = new SampleIndex();
+            MediaExtractor extractor = new MediaExtractor();
+            
+            try {
+                extractor.setDataSource(audioFile.getAbsolutePath());
+                extractor.selectTrack(PcmDecoder.selectAudioTrack(extractor));
+                
+                long total = 0;
+                while (true) {
+                    long sampleTime = extractor.getSampleTime();
+                    long size = extractor.getSampleSize();
+                    if (sampleTime < 0 || size < 0) break;
+                    
+                    index.ensureCapacity(index.count + 1);
+                    total += size;
+                    index.timeUs[index.count] = sampleTime;
+                    index.cumulativeBytes[index.count] = total;
+                    index.maxSampleSize = (int) Math.max(index.maxSampleSize, size);
+                    index.count++;
+                    extractor.advance();
+                }
+            } finally {
+                extractor.release();
+            }
+            
+            if (index.count == 0) {
+                throw new IOException("Audio file contains no samples");
+            }
+            index.lastDurationUs = index.count > 1 ? index.timeUs[index.count - 1] - index.timeUs[index.count - 2] : 0;
+            return index;
+        }
+        
+        long endTimeUs() {
+            return timeUs[count - 1] + lastDurationUs;
+        }
+        
+        /**
+         * Exclusive end index of the longest run starting at start whose bytes fit the budget
+         */
+        int lastSampleWithinBudget(int start, long budget) {
+            long base = start > 0 ? cumulativeBytes[start - 1] : 0;
+            int pos = Arrays.binarySearch(cumulativeBytes, start, count, base + budget);
+            int end = pos >= 0 ? pos + 1 : -pos - 1;
+            return Math.max(end, start + 1);
+        }
+        
+        int firstSampleAtOrAfter(long targetUs, int from, int to) {
+            int pos = Arrays.binarySearch(timeUs, from, to, targetUs);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+        
+        private void ensureCapacity(int capacity) {
+            if (capacity > timeUs.length) {
+                int newLength = timeUs.length * 2;
+                timeUs = Arrays.copyOf(timeUs, newLength);
+                cumulativeBytes = Arrays.copyOf(cumulativeBytes, newLength);
+            }
+        }
+    }
+}
\ No newline at end of file
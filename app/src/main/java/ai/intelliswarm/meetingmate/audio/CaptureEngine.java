@@ -0,0 +1,279 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Captures 16-bit mono PCM from the microphone with AudioRecord into one PcmRingBuffer and runs
+ * every tap (encoder, voice activity, features) on its own thread with its own reader. The
+ * capture thread never waits for a tap: a tap that falls a whole ring behind loses audio, which
+ * shows up in its overrun counters instead of stalling the microphone.
+ */
+public class CaptureEngine {
+    
+    private static final String TAG = "CaptureEngine";
+    
+    // Samples read from AudioRecord per call, and copied per tap call: 20 ms at 44.1 kHz
+    private static final int BLOCK_SAMPLES = 882;
+    // How long an idle thread sleeps before looking again
+    private static final long POLL_NANOS = 5_000_000L;
+    
+    /**
+     * Consumer of the captured audio. Called on the tap's own thread, never concurrently.
+     */
+    public interface Tap {
+        void onPcm(short[] samples, int count) throws IOException;
+        
+        /**
+         * Called once after the last samples, when capture stops
+         */
+        default void finish() throws IOException {
+        }
+    }
+    
+    /**
+     * Told when a tap throws; called on that tap's thread, which then ends
+     */
+    public interface FailureListener {
+        void onTapFailed(String name, Exception error);
+    }
+    
+    /**
+     * Counters of one tap at the time of the call
+     */
+    public static class TapStats {
+        public final String name;
+        public final long samples;
+        public final long overruns;
+        public final long droppedSamples;
+        public final boolean failed;
+        
+        TapStats(String name, long samples, long overruns, long droppedSamples, boolean failed) {
+            this.name = name;
+            this.samples = samples;
+            this.overruns = overruns;
+            this.droppedSamples = droppedSamples;
+            this.failed = failed;
+        }
+        
+        @Override
+        public String toString() {
+            return name + ": " + samples + " samples, " + overruns + " overruns (" + droppedSamples + " dropped)"
+                + (failed ? ", failed" : "");
+        }
+    }
+    
+    private final int sampleRate;
+    private final PcmRingBuffer ring;
+    private final List<TapRunner> taps = new ArrayList<>();
+    private volatile FailureListener failureListener;
+    
+    private AudioRecord record;
+    private Thread captureThread;
+    private volatile boolean capturing;
+    // Set once the capture thread has written its last block
+    private volatile boolean captureDone;
+    private volatile boolean paused;
+    private volatile long readErrors;
+    
+    public CaptureEngine(int sampleRate, double bufferSeconds) {
+        this.sampleRate = sampleRate;
+        this.ring = new PcmRingBuffer((int) Math.ceil(sampleRate * bufferSeconds));
+    }
+    
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    
+    /**
+     * Register a tap; only before start()
+     */
+    public void addTap(String name, Tap tap) {
+        if (captureThread != null) {
+            throw new IllegalStateException("Taps must be added before start()");
+        }
+        taps.add(new TapRunner(name, tap));
+    }
+    
+    public void setFailureListener(FailureListener listener) {
+        this.failureListener = listener;
+    }
+    
+    /**
+     * Open the microphone and start the capture and tap threads. Needs RECORD_AUDIO.
+     */
+    public void start() throws IOException {
+        int minBuffer = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO,
+            AudioFormat.ENCODING_PCM_16BIT);
+        if (minBuffer <= 0) {
+            throw new IOException("Unsupported capture format: " + sampleRate + " Hz mono");
+        }
+        
+        try {
+            record = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT, Math.max(minBuffer, BLOCK_SAMPLES * 2 * 4));
+        } catch (SecurityException e) {
+            throw new IOException("Microphone permission missing", e);
+        }
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            record = null;
+            throw new IOException("Microphone could not be opened");
+        }
+        
+        capturing = true;
+        for (TapRunner tap : taps) {
+            tap.start();
+        }
+        captureThread = new Thread(this::capture, "PcmCapture");
+        captureThread.setPriority(Thread.MAX_PRIORITY);
+        captureThread.start();
+    }
+    
+    public void pause() {
+        paused = true;
+    }
+    
+    public void resume() {
+        paused = false;
+    }
+    
+    /**
+     * Stop capturing, let every tap read what is left and finish, and release the microphone.
+     * Blocks until all of that is done, so call it off the main thread.
+     */
+    public void stop() {
+        capturing = false;
+        joinQuietly(captureThread);
+        for (TapRunner tap : taps) {
+            joinQuietly(tap.thread);
+        }
+        Log.d(TAG, "Capture stopped: " + ring.position() + " samples, " + readErrors + " read errors");
+        for (TapStats stats : getStats()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+    
+    /**
+     * Samples captured so far, excluding paused time
+     */
+    public long getCapturedSamples() {
+        return ring.position();
+    }
+    
+    public long getReadErrors() {
+        return readErrors;
+    }
+    
+    public List<TapStats> getStats() {
+        List<TapStats> stats = new ArrayList<>(taps.size());
+        for (TapRunner tap : taps) {
+            stats.add(new TapStats(tap.name, tap.samples, tap.reader.getOverruns(), tap.reader.getDroppedSamples(),
+                tap.failed));
+        }
+        return stats;
+    }
+    
+    private void capture() {
+        PcmRingBuffer.Source source = record::read;
+        boolean recording = false;
+        try {
+            while (capturing) {
+                if (paused) {
+                    if (recording) {
+                        record.stop();
+                        recording = false;
+                    }
+                    LockSupport.parkNanos(POLL_NANOS);
+                    continue;
+                }
+                if (!recording) {
+                    record.startRecording();
+                    recording = true;
+                }
+                
+                int read = ring.write(source, BLOCK_SAMPLES);
+                if (read < 0) {
+                    readErrors++;
+                    Log.w(TAG, "AudioRecord read failed: " + read);
+                    if (read == AudioRecord.ERROR_DEAD_OBJECT || read == AudioRecord.ERROR_INVALID_OPERATION) {
+                        break; // The microphone is gone; the taps finish with what they have
+                    }
+                }
+            }
+        } finally {
+            capturing = false;
+            if (recording) {
+                record.stop();
+            }
+            record.release();
+            captureDone = true;
+        }
+    }
+    
+    private static void joinQuietly(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Runs one tap: reads its share of the ring until capture stops and nothing is left
+     */
+    private class TapRunner {
+        final String name;
+        final Tap tap;
+        final PcmRingBuffer.Reader reader = ring.newReader();
+        final short[] block = new short[BLOCK_SAMPLES * 4];
+        Thread thread;
+        volatile long samples;
+        volatile boolean failed;
+        
+        TapRunner(String name, Tap tap) {
+            this.name = name;
+            this.tap = tap;
+        }
+        
+        void start() {
+            thread = new Thread(this::run, "PcmTap-" + name);
+            thread.start();
+        }
+        
+        private void run() {
+            try {
+                while (true) {
+                    int count = reader.read(block, 0, block.length);
+                    if (count > 0) {
+                        tap.onPcm(block, count);
+                        samples += count;
+                    } else if (captureDone && reader.available() == 0) {
+                        break;
+                    } else {
+                        LockSupport.parkNanos(POLL_NANOS);
+                    }
+                }
+                tap.finish();
+            } catch (IOException | RuntimeException e) {
+                // The other taps and the capture carry on; the listener decides if the recording should
+                failed = true;
+                Log.e(TAG, "Tap " + name + " failed", e);
+                FailureListener listener = failureListener;
+                if (listener != null) {
+                    listener.onTapFailed(name, e);
+                }
+            }
+        }
+    }
+}
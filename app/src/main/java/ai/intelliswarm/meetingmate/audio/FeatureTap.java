@@ -0,0 +1,80 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Capture tap that resamples the live signal to 16 kHz and runs the SpeechFeatureEngine over
+ * consecutive windows, for speaker features while the meeting is still going on. Windows
+ * without voiced frames are not reported, and while nobody wants features the audio is skipped
+ * without being analysed.
+ */
+public class FeatureTap implements CaptureEngine.Tap {
+    
+    public static final int FEATURE_SAMPLE_RATE = 16000;
+    public static final double WINDOW_SECONDS = 1.0;
+    
+    /**
+     * Receives the averages of each voiced window, on the tap's thread. The result is reused
+     * for the next window.
+     */
+    public interface Listener {
+        void onFeatures(double startSeconds, SpeechFeatureEngine.Result features);
+    }
+    
+    private final int sourceRate;
+    private final Resampler resampler;
+    private final SpeechFeatureEngine engine;
+    private final SpeechFeatureEngine.Result result;
+    private final Listener listener;
+    private final BooleanSupplier active;
+    private final short[] window = new short[(int) (FEATURE_SAMPLE_RATE * WINDOW_SECONDS)];
+    private int windowFill;
+    // 16 kHz samples since capture started, skipped ones included, so window times stay on the recording's clock
+    private long collected;
+    private long sourceSamples;
+    
+    public FeatureTap(int sourceRate, int coefficientCount, Listener listener) {
+        this(sourceRate, coefficientCount, listener, () -> true);
+    }
+    
+    /**
+     * @param active checked for every block of audio; while it is false the block is skipped
+     */
+    public FeatureTap(int sourceRate, int coefficientCount, Listener listener, BooleanSupplier active) {
+        this.sourceRate = sourceRate;
+        this.active = active;
+        this.engine = new SpeechFeatureEngine(FEATURE_SAMPLE_RATE, coefficientCount);
+        this.result = new SpeechFeatureEngine.Result(coefficientCount);
+        this.listener = listener;
+        this.resampler = new Resampler(FEATURE_SAMPLE_RATE, this::collect);
+    }
+    
+    @Override
+    public void onPcm(short[] samples, int count) {
+        sourceSamples += count;
+        if (!active.getAsBoolean()) {
+            windowFill = 0;
+            collected = sourceSamples * FEATURE_SAMPLE_RATE / sourceRate;
+            return;
+        }
+        resampler.onPcm(samples, count, 0, sourceRate);
+    }
+    
+    private void collect(short[] samples, int count) {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, window.length - windowFill);
+            System.arraycopy(samples, offset, window, windowFill, n);
+            windowFill += n;
+            collected += n;
+            offset += n;
+            if (windowFill == window.length) {
+                engine.analyze(window, 0, window.length, result);
+                if (result.voicedFrameCount > 0) {
+                    listener.onFeatures((double) (collected - window.length) / FEATURE_SAMPLE_RATE, result);
+                }
+                windowFill = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ai.intelliswarm.meetingmate.audio;
+
+/**
+ * In-place iterative radix-2 FFT. Twiddle factors and the bit-reversal permutation are
+ * computed once per size, so transforms allocate nothing. Instances hold scratch space
+ * for real-input transforms and must not be shared between threads.
+ */
+public final class Fft {
+    
+    private final int size;
+    private final int[] bitReverse;
+    private final float[] cos;
+    private final float[] sin;
+    
+    // Real-input transforms run as a complex FFT of half the size
+    private Fft half;
+    private float[] halfRe;
+    private float[] halfIm;
+    
+    public Fft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        
+        int bits = Integer.numberOfTrailingZeros(size);
+        bitReverse = new int[size];
+        for (int i = 0; i < size; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        
+        cos = new float[size / 2];
+        sin = new float[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            cos[i] = (float) Math.cos(angle);
+            sin[i] = (float) Math.sin(angle);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Forward transform of (re, im), both of length size(), in place
+     */
+    public void transform(float[] re, float[] im) {
+        for (int i = 0; i < size; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                float t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        
+        for (int half = 1; half < size; half <<= 1) {
+            int stride = size / (half << 1);
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * stride];
+                    float wi = sin[k * stride];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Inverse transform in place, scaled by 1/size
+     */
+    public void inverse(float[] re, float[] im) {
+        // IFFT(x) = conj(FFT(conj(x))) / n
+        for (int i = 0; i < size; i++) {
+            im[i] = -im[i];
+        }
+        transform(re, im);
+        float scale = 1f / size;
+        for (int i = 0; i < size; i++) {
+            re[i] *= scale;
+            im[i] = -im[i] * scale;
+        }
+    }
+    
+    /**
+     * Squared magnitudes of bins 0..size/2 of an already transformed frame
+     */
+    public void powerSpectrum(float[] re, float[] im, float[] power) {
+        for (int k = 0; k <= size / 2; k++) {
+            power[k] = re[k] * re[k] + im[k] * im[k];
+        }
+    }
+    
+    /**
+     * Squared magnitudes of bins 0..size/2 of a real frame of length size(). Packs even and
+     * odd samples into one complex FFT of half the size, so it costs about half of transform().
+     */
+    public void realPowerSpectrum(float[] input, float[] power) {
+        int m = size / 2;
+        if (half == null) {
+            half = new Fft(m);
+            halfRe = new float[m];
+            halfIm = new float[m];
+        }
+        
+        for (int k = 0; k < m; k++) {
+            halfRe[k] = input[2 * k];
+            halfIm[k] = input[2 * k + 1];
+        }
+        half.transform(halfRe, halfIm);
+        
+        float dc = halfRe[0] + halfIm[0];
+        float nyquist = halfRe[0] - halfIm[0];
+        power[0] = dc * dc;
+        power[m] = nyquist * nyquist;
+        
+        // X[k] = E[k] + W^k O[k], with E and O recovered from Z[k] and conj(Z[m - k])
+        for (int k = 1; k < m; k++) {
+            float zr = halfRe[k];
+            float zi = halfIm[k];
+            float cr = halfRe[m - k];
+            float ci = halfIm[m - k];
+            float evenRe = 0.5f * (zr + cr);
+            float evenIm = 0.5f * (zi - ci);
+            float oddRe = 0.5f * (zi + ci);
+            float oddIm = -0.5f * (zr - cr);
+            float xr = evenRe + cos[k] * oddRe - sin[k] * oddIm;
+            float xi = evenIm + cos[k] * oddIm + sin[k] * oddRe;
+            power[k] = xr * xr + xi * xi;
+        }
+    }
+}
\ No newline at end of file
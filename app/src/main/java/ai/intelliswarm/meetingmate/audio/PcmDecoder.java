@@ -0,0 +1,206 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * Decodes compressed recordings (AAC/M4A etc.) into 16-bit mono PCM using MediaCodec.
+ * Samples are pushed to a consumer in blocks, so callers never need the whole recording in memory.
+ */
+public final class PcmDecoder {
+    
+    private static final String TAG = "PcmDecoder";
+    private static final long TIMEOUT_US = 10000;
+    
+    private PcmDecoder() {
+    }
+    
+    /**
+     * Receives decoded mono PCM blocks. The samples array is reused between calls.
+     */
+    public interface PcmConsumer {
+        void onPcm(short[] samples, int count, long presentationTimeUs, int sampleRate);
+    }
+    
+    /**
+     * Basic information about an audio track
+     */
+    public static class AudioInfo {
+        public final String mime;
+        public final int sampleRate;
+        public final int channelCount;
+        public final long durationUs;
+        
+        AudioInfo(String mime, int sampleRate, int channelCount, long durationUs) {
+            this.mime = mime;
+            this.sampleRate = sampleRate;
+            this.channelCount = channelCount;
+            this.durationUs = durationUs;
+        }
+    }
+    
+    /**
+     * Read track information without decoding anything
+     */
+    public static AudioInfo probe(File audioFile) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(audioFile.getAbsolutePath());
+            int track = selectAudioTrack(extractor);
+            return toAudioInfo(extractor.getTrackFormat(track));
+        } finally {
+            extractor.release();
+        }
+    }
+    
+    /**
+     * Decode the whole file
+     */
+    public static AudioInfo decode(File audioFile, PcmConsumer consumer) throws IOException {
+        return decode(audioFile, 0, -1, consumer);
+    }
+    
+    /**
+     * Decode the range [startUs, endUs) of the file. Pass endUs < 0 to decode to the end.
+     */
+    public static AudioInfo decode(File audioFile, long startUs, long endUs, PcmConsumer consumer) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        
+        try {
+            extractor.setDataSource(audioFile.getAbsolutePath());
+            int track = selectAudioTrack(extractor);
+            MediaFormat format = extractor.getTrackFormat(track);
+            extractor.selectTrack(track);
+            
+            if (startUs > 0) {
+                extractor.seekTo(startUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+            }
+            
+            AudioInfo info = toAudioInfo(format);
+            int channelCount = info.channelCount;
+            int sampleRate = info.sampleRate;
+            
+            codec = MediaCodec.createDecoderByType(info.mime);
+            codec.configure(format, null, null, 0);
+            codec.start();
+            
+            MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+            short[] mono = new short[4096];
+            boolean inputDone = false;
+            boolean outputDone = false;
+            
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer inputBuffer = codec.getInputBuffer(inputIndex);
+                        int size = extractor.readSampleData(inputBuffer, 0);
+                        long sampleTime = extractor.getSampleTime();
+                        
+                        if (size < 0 || (endUs >= 0 && sampleTime >= endUs)) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size, sampleTime, 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+                
+                int outputIndex = codec.dequeueOutputBuffer(bufferInfo, TIMEOUT_US);
+                if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    channelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                    sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                } else if (outputIndex >= 0) {
+                    if (bufferInfo.size > 0) {
+                        ByteBuffer outputBuffer = codec.getOutputBuffer(outputIndex);
+                        outputBuffer.position(bufferInfo.offset);
+                        outputBuffer.limit(bufferInfo.offset + bufferInfo.size);
+                        ShortBuffer pcm = outputBuffer.order(ByteOrder.nativeOrder()).asShortBuffer();
+                        
+                        int frames = pcm.remaining() / channelCount;
+                        if (mono.length < frames) {
+                            mono = new short[frames];
+                        }
+                        downmix(pcm, channelCount, mono, frames);
+                        
+                        // Skip decoder warm-up output that precedes the requested range
+                        long blockEndUs = bufferInfo.presentationTimeUs + frames * 1000000L / sampleRate;
+                        if (blockEndUs > startUs) {
+                            consumer.onPcm(mono, frames, bufferInfo.presentationTimeUs, sampleRate);
+                        }
+                    }
+                    
+                    codec.releaseOutputBuffer(outputIndex, false);
+                    if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        outputDone = true;
+                    }
+                }
+            }
+            
+            return new AudioInfo(info.mime, sampleRate, channelCount, info.durationUs);
+        
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Decoder failed for " + audioFile.getName(), e);
+            throw new IOException("Audio decoding failed: " + e.getMessage(), e);
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignored) {
+                    // Codec never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+    
+    /**
+     * Find the first audio track of the extractor
+     */
+    static int selectAudioTrack(MediaExtractor extractor) throws IOException {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                return i;
+            }
+        }
+        throw new IOException("No audio track found");
+    }
+    
+    private static AudioInfo toAudioInfo(MediaFormat format) {
+        long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : -1;
+        return new AudioInfo(
+            format.getString(MediaFormat.KEY_MIME),
+            format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+            format.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+            durationUs
+        );
+    }
+    
+    private static void downmix(ShortBuffer pcm, int channelCount, short[] mono, int frames) {
+        if (channelCount == 1) {
+            pcm.get(mono, 0, frames);
+            return;
+        }
+        
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int c = 0; c < channelCount; c++) {
+                sum += pcm.get();
+            }
+            mono[i] = (short) (sum / channelCount);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring of 16-bit samples with one writer and any number of readers, none of which
+ * take a lock or wait for each other. The writer never blocks: a reader that falls more than
+ * one ring behind loses the oldest samples, which is counted as an overrun on that reader.
+ * Positions are absolute sample counts, so they never wrap.
+ *
+ * Readers copy samples without knowing whether the writer is overwriting them, then check
+ * claimed to see whether it might have been, as a seqlock does. That check only means something
+ * if the copy is ordered before it, and a plain array read may otherwise be reordered after a
+ * volatile read. The writer likewise claims a region before it overwrites it.
+ */
+public final class PcmRingBuffer {
+    
+    /**
+     * Fills array[offset, offset + count) and returns how many samples it wrote, or a negative
+     * error code. AudioRecord::read has this shape, so capture writes straight into the ring.
+     */
+    public interface Source {
+        int read(short[] array, int offset, int count);
+    }
+    
+    private final short[] data;
+    private final int mask;
+    
+    // End of the samples the writer may be overwriting, and end of the samples readers may read.
+    // claimed >= published; everything before claimed - capacity may already be overwritten.
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    
+    public PcmRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        data = new short[capacity];
+        mask = capacity - 1;
+    }
+    
+    public int capacity() {
+        return data.length;
+    }
+    
+    /**
+     * Total samples written so far
+     */
+    public long position() {
+        return published.get();
+    }
+    
+    /**
+     * Writer only. Let source fill up to max samples in place, without wrapping; a write that
+     * reaches the end of the array stops there and the next one continues at the start.
+     * Returns what the source returned.
+     */
+    public int write(Source source, int max) {
+        long head = published.get();
+        int offset = (int) (head & mask);
+        int count = Math.min(Math.min(max, data.length), data.length - offset);
+        
+        // getAndSet also acts as an acquire: the writes below cannot be reordered before the claim
+        claimed.getAndSet(head + count);
+        int written = source.read(data, offset, count);
+        if (written > 0) {
+            published.set(head + written);
+        }
+        return written;
+    }
+    
+    /**
+     * Writer only. Copy samples[offset, offset + count) into the ring.
+     */
+    public void write(short[] samples, int offset, int count) {
+        while (count > 0) {
+            int from = offset;
+            int written = write((array, at, n) -> {
+                System.arraycopy(samples, from, array, at, n);
+                return n;
+            }, count);
+            offset += written;
+            count -= written;
+        }
+    }
+    
+    /**
+     * A reader that starts at the newest sample. Each reader is used by one thread.
+     */
+    public Reader newReader() {
+        return new Reader(published.get());
+    }
+    
+    public final class Reader {
+        // Volatile for the store in read() that orders the copy before the re-check of claimed
+        private volatile long position;
+        private volatile long overruns;
+        private volatile long droppedSamples;
+        
+        Reader(long position) {
+            this.position = position;
+        }
+        
+        /**
+         * Samples waiting to be read, capped at the ring size
+         */
+        public int available() {
+            return (int) Math.min(data.length, published.get() - position);
+        }
+        
+        /**
+         * Copy up to max of the oldest unread samples into dst and return how many were copied;
+         * 0 when there is nothing new. Samples the writer overwrote before they could be copied
+         * are skipped and counted.
+         */
+        public int read(short[] dst, int offset, int max) {
+            long head = published.get();
+            long start = position;
+            long oldest = claimed.get() - data.length;
+            if (start < oldest) {
+                drop(oldest - start);
+                start = oldest;
+            }
+            
+            int count = (int) Math.min(max, head - start);
+            if (count <= 0) {
+                position = start;
+                return 0;
+            }
+            
+            int from = (int) (start & mask);
+            int first = Math.min(count, data.length - from);
+            System.arraycopy(data, from, dst, offset, first);
+            if (first < count) {
+                System.arraycopy(data, 0, dst, offset + first, count - first);
+            }
+            
+            // Release point: the copy cannot move past this volatile store, and the volatile load
+            // of claimed below cannot move ahead of it. Without it the copy could read samples the
+            // writer overwrote after the re-check said they were intact.
+            position = start + count;
+            
+            // The writer may have lapped us while we copied; whatever it reached is torn
+            long lapped = claimed.get() - data.length;
+            if (lapped > start) {
+                long torn = Math.min(count, lapped - start);
+                drop(torn);
+                int kept = count - (int) torn;
+                System.arraycopy(dst, offset + (int) torn, dst, offset, kept);
+                position = Math.max(start + count, lapped);
+                return kept;
+            }
+            return count;
+        }
+        
+        public long position() {
+            return position;
+        }
+        
+        /**
+         * Times this reader fell more than one ring behind
+         */
+        public long getOverruns() {
+            return overruns;
+        }
+        
+        public long getDroppedSamples() {
+            return droppedSamples;
+        }
+        
+        private void drop(long samples) {
+            overruns++;
+            droppedSamples += samples;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A whole recording decoded once to mono PCM at a fixed sample rate. The samples live in a
+ * memory-mapped scratch file rather than on the heap, so an hour-long meeting (about 115 MB
+ * at 16 kHz) can be sliced by sample index without decoding or seeking again.
+ */
+public class PcmTrack implements Closeable {
+    
+    private static final String TAG = "PcmTrack";
+    
+    private final File file;
+    private final int sampleRate;
+    private final int length;
+    private ShortBuffer samples;
+    
+    private PcmTrack(File file, int sampleRate, int length, ShortBuffer samples) {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.length = length;
+        this.samples = samples;
+    }
+    
+    /**
+     * Decode, downmix and resample the audio file in one sequential pass
+     */
+    public static PcmTrack decode(File audioFile, int sampleRate) throws IOException {
+        return decode(audioFile, sampleRate, () -> false);
+    }
+    
+    /**
+     * Decode like decode(File, int), checking stop after every decoded block and abandoning the
+     * pass with an InterruptedIOException once it returns true
+     */
+    public static PcmTrack decode(File audioFile, int sampleRate, BooleanSupplier stop) throws IOException {
+        File scratch = File.createTempFile("pcm_", ".raw");
+        long started = System.currentTimeMillis();
+        
+        try {
+            ScratchWriter writer = new ScratchWriter(scratch);
+            try {
+                Resampler resampler = new Resampler(sampleRate, writer);
+                PcmDecoder.decode(audioFile, (samples, count, presentationTimeUs, rate) -> {
+                    if (stop.getAsBoolean()) {
+                        // The decoder releases its codec on the way out
+                        throw new Stopped(presentationTimeUs);
+                    }
+                    resampler.onPcm(samples, count, presentationTimeUs, rate);
+                });
+                resampler.flush();
+            } catch (Stopped e) {
+                throw new InterruptedIOException("Stopped decoding " + audioFile.getName() + " at "
+                    + e.presentationTimeUs / 1000 + "ms");
+            } finally {
+                writer.close();
+            }
+            if (writer.failure != null) {
+                throw writer.failure;
+            }
+            
+            PcmTrack track = map(scratch, sampleRate);
+            Log.d(TAG, "Decoded " + audioFile.getName() + " to " + track.length + " samples in "
+                + (System.currentTimeMillis() - started) + "ms");
+            return track;
+            
+        } catch (IOException | RuntimeException e) {
+            scratch.delete();
+            throw e;
+        }
+    }
+    
+    private static PcmTrack map(File scratch, int sampleRate) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(scratch, "r")) {
+            long bytes = raf.length();
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IOException("Recording too long to map (" + bytes + " bytes of PCM)");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            ShortBuffer view = mapped.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            return new PcmTrack(scratch, sampleRate, view.capacity(), view);
+        }
+    }
+    
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    
+    /**
+     * Number of samples in the track
+     */
+    public int length() {
+        return length;
+    }
+    
+    public double getDurationSeconds() {
+        return (double) length / sampleRate;
+    }
+    
+    /**
+     * Sample index for a time in seconds, clamped to [0, length]
+     */
+    public int indexOf(double seconds) {
+        long index = Math.round(seconds * sampleRate);
+        return (int) Math.max(0, Math.min(length, index));
+    }
+    
+    /**
+     * Read-only view of the samples [from, to). No data is copied.
+     */
+    public ShortBuffer slice(int from, int to) {
+        if (samples == null) {
+            throw new IllegalStateException("PcmTrack is closed");
+        }
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("slice(" + from + ", " + to + ") of " + length);
+        }
+        ShortBuffer view = samples.duplicate();
+        view.limit(to);
+        view.position(from);
+        return view.slice();
+    }
+    
+    /**
+     * Drop the mapping reference and delete the scratch file
+     */
+    @Override
+    public void close() {
+        samples = null;
+        if (!file.delete() && file.exists()) {
+            Log.w(TAG, "Could not delete scratch file " + file.getName());
+        }
+    }
+    
+    /**
+     * Unwinds the decoder from inside its consumer, which cannot throw checked exceptions
+     */
+    private static class Stopped extends RuntimeException {
+        final long presentationTimeUs;
+        
+        Stopped(long presentationTimeUs) {
+            super(null, null, false, false);
+            this.presentationTimeUs = presentationTimeUs;
+        }
+    }
+    
+    /**
+     * Streams resampled blocks to the scratch file as little-endian 16-bit PCM
+     */
+    private static class ScratchWriter implements Resampler.Sink {
+        private final OutputStream out;
+        private byte[] bytes = new byte[16384];
+        private IOException failure;
+        
+        ScratchWriter(File file) throws IOException {
+            this.out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        }
+        
+        @Override
+        public void write(short[] samples, int count) {
+            if (failure != null) return;
+            if (bytes.length < count * 2) {
+                bytes = new byte[count * 2];
+            }
+            for (int i = 0; i < count; i++) {
+                bytes[2 * i] = (byte) samples[i];
+                bytes[2 * i + 1] = (byte) (samples[i] >> 8);
+            }
+            try {
+                out.write(bytes, 0, count * 2);
+            } catch (IOException e) {
+                failure = e; // Usually a full disk; reported once decoding returns
+            }
+        }
+        
+        void close() throws IOException {
+            out.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.util.Arrays;
+
+/**
+ * Frame-based YIN pitch tracker. Produces an F0 contour with a voicing confidence every 10 ms.
+ * The input is decimated to about 8 kHz (plenty for F0 up to 400 Hz). Each 20 ms frame is two
+ * 10 ms blocks, and the lag products of every block are computed once and shared by the two
+ * frames that overlap it. Silent frames are skipped outright. Not thread-safe.
+ */
+public class PitchTracker {
+    
+    public static final double MIN_F0_HZ = 50;
+    public static final double MAX_F0_HZ = 400;
+    public static final double HOP_SECONDS = 0.01;
+    
+    private static final int ANALYSIS_RATE = 8000;
+    // Dips of the normalized difference below this count as periodic (YIN paper uses 0.1-0.15)
+    private static final float YIN_THRESHOLD = 0.15f;
+    // Frames below this RMS (16-bit scale) are treated as silence, about -50 dBFS
+    private static final double SILENCE_RMS = 100;
+    
+    private final int decimation;
+    private final double analysisRate;
+    private final int minLag;
+    private final int maxLag;
+    private final int hop;    // One block
+    private final int window; // Two blocks
+    private final int span;
+    
+    // Scratch
+    private float[] decimated = new float[ANALYSIS_RATE];
+    private double[] energyPrefix = new double[ANALYSIS_RATE + 1];
+    // Lag products of the two most recent blocks, indexed by block parity
+    private final float[][] blockProducts;
+    private final int[] blockIndex = {-1, -1};
+    private final float[] cmnd;
+    private float[] voicedScratch = new float[256];
+    
+    /**
+     * Per-frame pitch of one tracking call. Reuse it across calls.
+     */
+    public static class Contour {
+        public float[] f0 = new float[256];         // Hz, 0 when unvoiced
+        public float[] confidence = new float[256]; // 0..1, 1 - the YIN dip depth
+        public int frameCount;
+        public double hopSeconds;
+        
+        void ensureCapacity(int frames) {
+            if (f0.length < frames) {
+                int capacity = Math.max(frames, f0.length * 2);
+                f0 = Arrays.copyOf(f0, capacity);
+                confidence = Arrays.copyOf(confidence, capacity);
+            }
+        }
+        
+        public int voicedCount() {
+            int voiced = 0;
+            for (int i = 0; i < frameCount; i++) {
+                if (f0[i] > 0) voiced++;
+            }
+            return voiced;
+        }
+    }
+    
+    public PitchTracker(int sampleRate) {
+        decimation = Math.max(1, sampleRate / ANALYSIS_RATE);
+        analysisRate = (double) sampleRate / decimation;
+        minLag = (int) Math.floor(analysisRate / MAX_F0_HZ);
+        maxLag = (int) Math.ceil(analysisRate / MIN_F0_HZ);
+        hop = (int) Math.round(analysisRate * HOP_SECONDS);
+        window = 2 * hop; // Covers one period at MIN_F0_HZ
+        span = window + maxLag;
+        
+        blockProducts = new float[2][maxLag + 1];
+        cmnd = new float[maxLag + 2];
+    }
+    
+    /**
+     * Track samples[offset, offset + count) into contour. Input shorter than one analysis span
+     * (about 40 ms) yields no frames.
+     */
+    public void track(short[] samples, int offset, int count, Contour contour) {
+        contour.hopSeconds = hop / analysisRate;
+        int n = decimate(samples, offset, count);
+        int frames = n < span ? 0 : 1 + (n - span) / hop;
+        contour.ensureCapacity(frames);
+        contour.frameCount = frames;
+        blockIndex[0] = blockIndex[1] = -1;
+        
+        if (energyPrefix.length < n + 1) {
+            energyPrefix = new double[Math.max(n + 1, energyPrefix.length * 2)];
+        }
+        for (int j = 0; j < n; j++) {
+            double x = decimated[j];
+            energyPrefix[j + 1] = energyPrefix[j] + x * x;
+        }
+        
+        for (int f = 0; f < frames; f++) {
+            analyzeFrame(f, contour);
+        }
+    }
+    
+    /**
+     * Median F0 of the voiced frames, or 0 when nothing is voiced
+     */
+    public float medianVoicedF0(Contour contour) {
+        if (voicedScratch.length < contour.frameCount) {
+            voicedScratch = new float[contour.frameCount];
+        }
+        int voiced = 0;
+        for (int i = 0; i < contour.frameCount; i++) {
+            if (contour.f0[i] > 0) {
+                voicedScratch[voiced++] = contour.f0[i];
+            }
+        }
+        if (voiced == 0) {
+            return 0;
+        }
+        Arrays.sort(voicedScratch, 0, voiced);
+        return voiced % 2 == 1
+            ? voicedScratch[voiced / 2]
+            : 0.5f * (voicedScratch[voiced / 2 - 1] + voicedScratch[voiced / 2]);
+    }
+    
+    /**
+     * Box-filter and downsample into the scratch buffer; returns the decimated length
+     */
+    private int decimate(short[] samples, int offset, int count) {
+        int n = count / decimation;
+        if (decimated.length < n) {
+            decimated = new float[Math.max(n, decimated.length * 2)];
+        }
+        if (decimation == 1) {
+            for (int i = 0; i < n; i++) {
+                decimated[i] = samples[offset + i];
+            }
+            return n;
+        }
+        float scale = 1f / decimation;
+        for (int i = 0, j = offset; i < n; i++) {
+            float sum = 0;
+            for (int k = 0; k < decimation; k++) {
+                sum += samples[j++];
+            }
+            decimated[i] = sum * scale;
+        }
+        return n;
+    }
+    
+    private void analyzeFrame(int frame, Contour contour) {
+        int start = frame * hop;
+        double energy = energyPrefix[start + window] - energyPrefix[start];
+        if (energy < SILENCE_RMS * SILENCE_RMS * window) {
+            contour.f0[frame] = 0;
+            contour.confidence[frame] = 0;
+            return;
+        }
+        
+        float[] first = blockProducts(frame);
+        float[] second = blockProducts(frame + 1);
+        
+        // Cumulative mean normalized difference d'(tau), with
+        // d(tau) = energy(x[0, W)) + energy(x[tau, tau + W)) - 2 * sum x[j] * x[j + tau]
+        cmnd[0] = 1;
+        double runningSum = 0;
+        for (int tau = 1; tau <= maxLag; tau++) {
+            double lagged = energyPrefix[start + tau + window] - energyPrefix[start + tau];
+            double difference = Math.max(0, energy + lagged - 2.0 * (first[tau] + second[tau]));
+            runningSum += difference;
+            cmnd[tau] = runningSum > 0 ? (float) (difference * tau / runningSum) : 1;
+        }
+        
+        // First dip under the threshold, followed down to its local minimum
+        int best = -1;
+        for (int tau = minLag; tau <= maxLag; tau++) {
+            if (cmnd[tau] < YIN_THRESHOLD) {
+                while (tau < maxLag && cmnd[tau + 1] < cmnd[tau]) {
+                    tau++;
+                }
+                best = tau;
+                break;
+            }
+        }
+        
+        if (best < 0) {
+            float deepest = 1;
+            for (int tau = minLag; tau <= maxLag; tau++) {
+                deepest = Math.min(deepest, cmnd[tau]);
+            }
+            contour.f0[frame] = 0;
+            contour.confidence[frame] = Math.max(0, 1 - deepest);
+            return;
+        }
+        
+        contour.f0[frame] = (float) (analysisRate / interpolateLag(best));
+        contour.confidence[frame] = Math.max(0, Math.min(1, 1 - cmnd[best]));
+    }
+    
+    /**
+     * products[tau] = sum of x[j] * x[j + tau] over the block's hop samples, for tau in
+     * [0, maxLag]. Frames f and f + 1 both use block f + 1, so each block is computed once.
+     */
+    private float[] blockProducts(int block) {
+        int slot = block & 1;
+        float[] products = blockProducts[slot];
+        if (blockIndex[slot] == block) {
+            return products;
+        }
+        
+        int start = block * hop;
+        for (int tau = 0; tau <= maxLag; tau++) {
+            float sum = 0;
+            for (int j = start, end = start + hop; j < end; j++) {
+                sum += decimated[j] * decimated[j + tau];
+            }
+            products[tau] = sum;
+        }
+        blockIndex[slot] = block;
+        return products;
+    }
+    
+    /**
+     * Parabolic interpolation of the dip around tau, for sub-sample lag precision
+     */
+    private double interpolateLag(int tau) {
+        if (tau <= 1 || tau >= maxLag) {
+            return tau;
+        }
+        double left = cmnd[tau - 1];
+        double center = cmnd[tau];
+        double right = cmnd[tau + 1];
+        double denominator = left - 2 * center + right;
+        if (denominator <= 0) {
+            return tau;
+        }
+        return tau + 0.5 * (left - right) / denominator;
+    }
+}
\ No newline at end of file
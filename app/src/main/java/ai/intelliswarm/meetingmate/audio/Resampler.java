@@ -0,0 +1,101 @@
+package ai.intelliswarm.meetingmate.audio;
+
+/**
+ * Low-pass filters and linearly resamples mono PCM to a fixed target rate
+ */
+public class Resampler implements PcmDecoder.PcmConsumer {
+    
+    // Anti-aliasing filter applied before decimating
+    private static final int FILTER_TAPS = 31;
+    private static final double CUTOFF_FRACTION = 0.45; // Of the target rate, 7200 Hz at 16 kHz
+    
+    /**
+     * Receives resampled blocks. The samples array is reused between calls.
+     */
+    public interface Sink {
+        void write(short[] samples, int count);
+    }
+    
+    private final int targetRate;
+    private final Sink sink;
+    private final short[] out = new short[8192];
+    private double[] taps;
+    private final double[] history = new double[FILTER_TAPS];
+    private int historyPos;
+    private int sourceRate;
+    private double step;
+    private double position; // Fractional read position relative to the current input sample
+    private double previous;
+    private int outCount;
+    
+    public Resampler(int targetRate, Sink sink) {
+        this.targetRate = targetRate;
+        this.sink = sink;
+    }
+    
+    @Override
+    public void onPcm(short[] samples, int count, long presentationTimeUs, int sampleRate) {
+        if (taps == null || sampleRate != sourceRate) {
+            sourceRate = sampleRate;
+            step = (double) sampleRate / targetRate;
+            taps = sampleRate > targetRate ? designLowPass(sampleRate, targetRate * CUTOFF_FRACTION) : null;
+        }
+        
+        for (int i = 0; i < count; i++) {
+            double current = taps != null ? filter(samples[i]) : samples[i];
+            
+            // Emit every output sample that falls between the previous and the current input sample
+            while (position <= 1.0) {
+                double value = previous + (current - previous) * position;
+                out[outCount++] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+                if (outCount == out.length) {
+                    sink.write(out, outCount);
+                    outCount = 0;
+                }
+                position += step;
+            }
+            position -= 1.0;
+            previous = current;
+        }
+    }
+    
+    /**
+     * Hand any buffered output to the sink; call once after the last block
+     */
+    public void flush() {
+        if (outCount > 0) {
+            sink.write(out, outCount);
+            outCount = 0;
+        }
+    }
+    
+    private double filter(short sample) {
+        history[historyPos] = sample;
+        double acc = 0;
+        int idx = historyPos;
+        for (double tap : taps) {
+            acc += tap * history[idx];
+            idx = idx == 0 ? FILTER_TAPS - 1 : idx - 1;
+        }
+        historyPos = (historyPos + 1) % FILTER_TAPS;
+        return acc;
+    }
+    
+    private static double[] designLowPass(int sampleRate, double cutoffHz) {
+        double[] coefficients = new double[FILTER_TAPS];
+        double fc = cutoffHz / sampleRate;
+        int mid = FILTER_TAPS / 2;
+        double sum = 0;
+        for (int n = 0; n < FILTER_TAPS; n++) {
+            int k = n - mid;
+            double sinc = k == 0 ? 2 * fc : Math.sin(2 * Math.PI * fc * k) / (Math.PI * k);
+            double window = 0.54 - 0.46 * Math.cos(2 * Math.PI * n / (FILTER_TAPS - 1)); // Hamming
+            coefficients[n] = sinc * window;
+            sum += coefficients[n];
+        }
+        for (int n = 0; n < FILTER_TAPS; n++) {
+            coefficients[n] /= sum;
+        }
+        return coefficients;
+    }
+}
\ No newline at end of file
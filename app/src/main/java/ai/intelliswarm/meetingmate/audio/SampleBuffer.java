@@ -0,0 +1,60 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable buffer of 16-bit samples backed by a primitive array. Meant to be cleared and
+ * refilled for every word or frame, so steady-state analysis allocates nothing and never
+ * boxes a sample.
+ */
+public final class SampleBuffer {
+    
+    private short[] data;
+    private int size;
+    
+    public SampleBuffer(int initialCapacity) {
+        data = new short[Math.max(16, initialCapacity)];
+    }
+    
+    /**
+     * Backing array; only [0, size()) is valid. It is replaced when the buffer grows.
+     */
+    public short[] array() {
+        return data;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return data.length;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, Math.max(capacity, data.length + (data.length >> 1)));
+        }
+    }
+    
+    public void append(short[] samples, int offset, int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(samples, offset, data, size, count);
+        size += count;
+    }
+    
+    /**
+     * Append the remaining samples of source, consuming it
+     */
+    public void append(ShortBuffer source) {
+        int count = source.remaining();
+        ensureCapacity(size + count);
+        source.get(data, size, count);
+        size += count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,191 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Capture tap that encodes PCM to AAC and writes it into MP4 segments of a fixed length. The
+ * encoder runs continuously; at a segment boundary only the muxer is swapped, so segments join
+ * back together without a gap. Every AAC frame is a sync frame, so each segment plays on its own.
+ */
+public class SegmentEncoder implements CaptureEngine.Tap {
+    
+    private static final String TAG = "SegmentEncoder";
+    private static final String MIME = MediaFormat.MIMETYPE_AUDIO_AAC;
+    private static final long TIMEOUT_US = 10_000;
+    
+    /**
+     * Supplies segment files and is told when one is complete; called on the encoder's thread
+     */
+    public interface Output {
+        File nextSegmentFile();
+        
+        void onSegmentClosed(File segmentFile);
+    }
+    
+    private final int sampleRate;
+    private final long segmentUs;
+    private final Output output;
+    private final MediaCodec encoder;
+    private final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+    
+    private MediaFormat outputFormat;
+    private MediaMuxer muxer;
+    private File segmentFile;
+    private int track;
+    private long segmentStartUs;
+    private long samplesQueued;
+    
+    public SegmentEncoder(int sampleRate, int bitRate, int segmentSeconds, Output output) throws IOException {
+        this.sampleRate = sampleRate;
+        this.segmentUs = segmentSeconds * 1_000_000L;
+        this.output = output;
+        
+        encoder = MediaCodec.createEncoderByType(MIME);
+        try {
+            MediaFormat format = MediaFormat.createAudioFormat(MIME, sampleRate, 1);
+            format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+            format.setInteger(MediaFormat.KEY_BIT_RATE, bitRate);
+            format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16384);
+            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            encoder.start();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            encoder.release();
+            throw new IOException("AAC encoder unavailable: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void onPcm(short[] samples, int count) throws IOException {
+        try {
+            int offset = 0;
+            while (offset < count) {
+                int index = encoder.dequeueInputBuffer(TIMEOUT_US);
+                if (index < 0) {
+                    drain(false);
+                    continue;
+                }
+                
+                ByteBuffer input = encoder.getInputBuffer(index);
+                input.clear();
+                int n = Math.min(count - offset, input.remaining() / 2);
+                input.order(ByteOrder.nativeOrder()).asShortBuffer().put(samples, offset, n);
+                encoder.queueInputBuffer(index, 0, n * 2, samplesQueued * 1_000_000L / sampleRate, 0);
+                samplesQueued += n;
+                offset += n;
+                drain(false);
+            }
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            release();
+            throw new IOException("Encoding failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Flush the encoder and close the last segment
+     */
+    @Override
+    public void finish() throws IOException {
+        try {
+            int index;
+            while ((index = encoder.dequeueInputBuffer(TIMEOUT_US)) < 0) {
+                drain(false);
+            }
+            encoder.queueInputBuffer(index, 0, 0, samplesQueued * 1_000_000L / sampleRate,
+                MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            drain(true);
+            closeSegment();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Encoding failed: " + e.getMessage(), e);
+        } finally {
+            release();
+        }
+    }
+    
+    private void drain(boolean untilEndOfStream) throws IOException {
+        while (true) {
+            int index = encoder.dequeueOutputBuffer(info, TIMEOUT_US);
+            if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!untilEndOfStream) return;
+            } else if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                outputFormat = encoder.getOutputFormat();
+            } else if (index >= 0) {
+                ByteBuffer encoded = encoder.getOutputBuffer(index);
+                boolean codecConfig = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                if (info.size > 0 && !codecConfig) {
+                    writeFrame(encoded);
+                }
+                encoder.releaseOutputBuffer(index, false);
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void writeFrame(ByteBuffer encoded) throws IOException {
+        long ptsUs = info.presentationTimeUs;
+        if (muxer != null && ptsUs - segmentStartUs >= segmentUs) {
+            closeSegment();
+        }
+        if (muxer == null) {
+            openSegment(ptsUs);
+        }
+        
+        encoded.position(info.offset);
+        encoded.limit(info.offset + info.size);
+        info.presentationTimeUs = ptsUs - segmentStartUs;
+        muxer.writeSampleData(track, encoded, info);
+    }
+    
+    /**
+     * Muxers are opened with the first frame that goes in them, so none is ever left empty
+     */
+    private void openSegment(long startUs) throws IOException {
+        if (outputFormat == null) {
+            throw new IOException("Encoder produced audio before its format");
+        }
+        segmentFile = output.nextSegmentFile();
+        muxer = new MediaMuxer(segmentFile.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+        track = muxer.addTrack(outputFormat);
+        muxer.start();
+        segmentStartUs = startUs;
+    }
+    
+    private void closeSegment() {
+        if (muxer == null) {
+            return;
+        }
+        muxer.stop();
+        muxer.release();
+        muxer = null;
+        Log.d(TAG, "Closed " + segmentFile.getName() + " (" + segmentFile.length() + " bytes)");
+        output.onSegmentClosed(segmentFile);
+    }
+    
+    private void release() {
+        if (muxer != null) {
+            try {
+                muxer.stop();
+            } catch (IllegalStateException ignored) {
+                // Already failed; release below
+            }
+            muxer.release();
+            muxer = null;
+        }
+        try {
+            encoder.stop();
+        } catch (IllegalStateException ignored) {
+            // Already stopped
+        }
+        encoder.release();
+    }
+}
@@ -0,0 +1,140 @@
+package ai.intelliswarm.meetingmate.audio;
+
+/**
+ * Streaming filter between the resampler and the encoder that drops long stretches of
+ * non-speech. Pauses shorter than MIN_GAP_SECONDS pass through untouched; in longer ones only
+ * PAD_SECONDS on either side are kept, so words are never clipped and the transcriber still
+ * hears a pause. Every cut is recorded in a TimeRemap. Buffers at most MIN_GAP_SECONDS of audio.
+ */
+public class SilenceTrimmer implements Resampler.Sink {
+    
+    public static final double MIN_GAP_SECONDS = 3.0;
+    public static final double PAD_SECONDS = 0.5;
+    
+    private final Resampler.Sink sink;
+    private final VoiceActivityDetector detector;
+    private final TimeRemap remap;
+    private final int pad;
+    private final int minGap;
+    
+    // Samples waiting to fill a frame
+    private final short[] frame;
+    private int frameFill;
+    
+    // Non-speech after the first pad of the current pause, newest last (a ring once full)
+    private final short[] held;
+    private final short[] scratch;
+    private int heldEnd;
+    private int heldCount;
+    
+    private long consumed; // Input samples classified so far
+    private long emitted;  // Samples handed to the sink
+    private long pauseSamples;
+    private long speechFrames;
+    
+    public SilenceTrimmer(int sampleRate, Resampler.Sink sink) {
+        this.sink = sink;
+        this.detector = new VoiceActivityDetector(sampleRate);
+        this.remap = new TimeRemap(sampleRate);
+        this.pad = (int) Math.round(sampleRate * PAD_SECONDS);
+        this.minGap = (int) Math.round(sampleRate * MIN_GAP_SECONDS);
+        this.frame = new short[detector.frameSize()];
+        this.held = new short[minGap - pad];
+        this.scratch = new short[held.length];
+    }
+    
+    @Override
+    public void write(short[] samples, int count) {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, frame.length - frameFill);
+            System.arraycopy(samples, offset, frame, frameFill, n);
+            frameFill += n;
+            offset += n;
+            if (frameFill == frame.length) {
+                if (detector.isSpeech(frame, 0)) {
+                    speech(frame, frame.length);
+                } else {
+                    pause(frame, frame.length);
+                }
+                frameFill = 0;
+            }
+        }
+    }
+    
+    /**
+     * Pass on what remains. A pause running to the end is trimmed like any other, keeping only
+     * its first pad. Call once after the last write.
+     */
+    public void finish() {
+        if (frameFill > 0) {
+            pause(frame, frameFill);
+            frameFill = 0;
+        }
+        if (pauseSamples <= minGap) {
+            emitHeld(heldCount);
+        }
+        heldCount = 0;
+    }
+    
+    public TimeRemap getTimeRemap() {
+        return remap;
+    }
+    
+    /**
+     * Fraction of frames classified as speech
+     */
+    public double speechRatio() {
+        long frames = consumed / frame.length;
+        return frames > 0 ? (double) speechFrames / frames : 0;
+    }
+    
+    private void speech(short[] samples, int count) {
+        if (pauseSamples > minGap) {
+            // Long pause: keep its last pad, which ends where this frame starts
+            int tail = Math.min(pad, heldCount);
+            remap.addSpan(emitted, consumed - tail);
+            emitHeld(tail);
+        } else {
+            emitHeld(heldCount);
+        }
+        heldCount = 0;
+        pauseSamples = 0;
+        speechFrames++;
+        emit(samples, count);
+        consumed += count;
+    }
+    
+    private void pause(short[] samples, int count) {
+        int direct = (int) Math.max(0, Math.min(count, pad - pauseSamples));
+        if (direct > 0) {
+            emit(samples, direct);
+        }
+        for (int i = direct; i < count; i++) {
+            held[heldEnd] = samples[i];
+            heldEnd = (heldEnd + 1) % held.length;
+        }
+        heldCount = Math.min(heldCount + count - direct, held.length);
+        pauseSamples += count;
+        consumed += count;
+    }
+    
+    private void emit(short[] samples, int count) {
+        sink.write(samples, count);
+        emitted += count;
+    }
+    
+    /**
+     * Emit the newest count held samples, oldest first
+     */
+    private void emitHeld(int count) {
+        if (count == 0) {
+            return;
+        }
+        int start = Math.floorMod(heldEnd - count, held.length);
+        int first = Math.min(count, held.length - start);
+        System.arraycopy(held, start, scratch, 0, first);
+        System.arraycopy(held, 0, scratch, first, count - first);
+        emit(scratch, count);
+    }
+}
\ No newline at end of file
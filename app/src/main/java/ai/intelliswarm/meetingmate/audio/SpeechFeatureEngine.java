@@ -0,0 +1,309 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.util.Arrays;
+
+/**
+ * Frame-based spectral features for speaker analysis: MFCCs, spectral centroid and LPC formants.
+ * The window, mel filterbank and DCT matrix are built once per sample rate, and all per-frame
+ * work happens in scratch arrays owned by the engine, so analysis allocates nothing.
+ * Not thread-safe; use one engine per worker.
+ */
+public class SpeechFeatureEngine {
+    
+    public static final int FRAME_SIZE = 512; // 32 ms at 16 kHz
+    public static final int HOP_SIZE = 160;   // 10 ms at 16 kHz
+    public static final int FORMANT_COUNT = 3;
+    
+    private static final int MEL_FILTERS = 26;
+    private static final double MIN_MEL_HZ = 20;
+    private static final float PRE_EMPHASIS = 0.97f;
+    private static final float LOG_FLOOR = 1e-10f;
+    
+    private static final int LPC_ORDER = 18; // 2 + kHz of the sample rate, the usual rule for speech
+    private static final double MIN_FORMANT_HZ = 200;
+    private static final double MAX_FORMANT_HZ = 5000;
+    // Frames quieter than this (RMS, full scale = 1) are too noisy for formant peaks
+    private static final float FORMANT_MIN_RMS = 0.01f;
+    
+    private final int sampleRate;
+    private final int coefficientCount;
+    private final Fft fft = new Fft(FRAME_SIZE);
+    private final float[] window = new float[FRAME_SIZE];
+    
+    // Filter m covers bins [filterStart[m], filterStart[m] + filterWeights[m].length)
+    private final int[] filterStart = new int[MEL_FILTERS];
+    private final float[][] filterWeights = new float[MEL_FILTERS][];
+    private final float[] dct; // coefficientCount x MEL_FILTERS, row-major
+    private final float[] binHz = new float[FRAME_SIZE / 2 + 1];
+    
+    // Scratch
+    private final float[] frame = new float[FRAME_SIZE];
+    private final float[] windowed = new float[FRAME_SIZE];
+    private final float[] power = new float[FRAME_SIZE / 2 + 1];
+    private final float[] logMel = new float[MEL_FILTERS];
+    private final double[] autocorrelation = new double[LPC_ORDER + 1];
+    private final double[] lpc = new double[LPC_ORDER + 1];
+    private final double[] lpcScratch = new double[LPC_ORDER + 1];
+    private final double[] frameFormants = new double[FORMANT_COUNT];
+    
+    /**
+     * Averages over all frames of one analysis call. Reuse it across calls.
+     */
+    public static class Result {
+        public final double[] mfcc;
+        public final double[] formants = new double[FORMANT_COUNT];
+        public double spectralCentroid;
+        public int frameCount;
+        public int voicedFrameCount;
+        
+        public Result(int coefficientCount) {
+            this.mfcc = new double[coefficientCount];
+        }
+        
+        void reset() {
+            Arrays.fill(mfcc, 0);
+            Arrays.fill(formants, 0);
+            spectralCentroid = 0;
+            frameCount = 0;
+            voicedFrameCount = 0;
+        }
+    }
+    
+    public SpeechFeatureEngine(int sampleRate, int coefficientCount) {
+        this.sampleRate = sampleRate;
+        this.coefficientCount = coefficientCount;
+        
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            window[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_SIZE - 1))); // Hamming
+        }
+        for (int k = 0; k < binHz.length; k++) {
+            binHz[k] = (float) k * sampleRate / FRAME_SIZE;
+        }
+        
+        buildMelFilterbank();
+        dct = buildDct(coefficientCount, MEL_FILTERS);
+    }
+    
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    
+    /**
+     * Analyze samples[offset, offset + count) frame by frame and store the averages in result.
+     * Input shorter than one frame is zero-padded to a single frame. Returns the frame count.
+     */
+    public int analyze(short[] samples, int offset, int count, Result result) {
+        result.reset();
+        if (count <= 0) {
+            return 0;
+        }
+        
+        int frames = count <= FRAME_SIZE ? 1 : 1 + (count - FRAME_SIZE) / HOP_SIZE;
+        double centroidSum = 0;
+        for (int f = 0; f < frames; f++) {
+            int start = offset + f * HOP_SIZE;
+            int n = Math.min(FRAME_SIZE, offset + count - start);
+            loadFrame(samples, start, n);
+            
+            float rms = frameRms(n);
+            centroidSum += analyzeSpectrum(result.mfcc);
+            
+            if (rms >= FORMANT_MIN_RMS && estimateFrameFormants()) {
+                for (int i = 0; i < FORMANT_COUNT; i++) {
+                    result.formants[i] += frameFormants[i];
+                }
+                result.voicedFrameCount++;
+            }
+        }
+        
+        for (int c = 0; c < coefficientCount; c++) {
+            result.mfcc[c] /= frames;
+        }
+        if (result.voicedFrameCount > 0) {
+            for (int i = 0; i < FORMANT_COUNT; i++) {
+                result.formants[i] /= result.voicedFrameCount;
+            }
+        }
+        result.spectralCentroid = centroidSum / frames;
+        result.frameCount = frames;
+        return frames;
+    }
+    
+    /**
+     * Copy one frame, scaled to [-1, 1] and pre-emphasized; zero-pads short frames
+     */
+    private void loadFrame(short[] samples, int start, int n) {
+        float previous = start > 0 ? samples[start - 1] / 32768f : 0;
+        for (int i = 0; i < n; i++) {
+            float x = samples[start + i] / 32768f;
+            frame[i] = x - PRE_EMPHASIS * previous;
+            previous = x;
+        }
+        for (int i = n; i < FRAME_SIZE; i++) {
+            frame[i] = 0;
+        }
+    }
+    
+    private float frameRms(int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += frame[i] * frame[i];
+        }
+        return (float) Math.sqrt(sum / n);
+    }
+    
+    /**
+     * FFT the windowed frame, add its cepstrum to mfccSum and return its spectral centroid
+     */
+    private double analyzeSpectrum(double[] mfccSum) {
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            windowed[i] = frame[i] * window[i];
+        }
+        fft.realPowerSpectrum(windowed, power);
+        
+        double weighted = 0;
+        double total = 0;
+        for (int k = 0; k < power.length; k++) {
+            double magnitude = Math.sqrt(power[k]);
+            weighted += binHz[k] * magnitude;
+            total += magnitude;
+        }
+        
+        for (int m = 0; m < MEL_FILTERS; m++) {
+            float[] weights = filterWeights[m];
+            int base = filterStart[m];
+            float energy = 0;
+            for (int j = 0; j < weights.length; j++) {
+                energy += weights[j] * power[base + j];
+            }
+            logMel[m] = (float) Math.log(Math.max(energy, LOG_FLOOR));
+        }
+        
+        for (int c = 0; c < coefficientCount; c++) {
+            int row = c * MEL_FILTERS;
+            float sum = 0;
+            for (int m = 0; m < MEL_FILTERS; m++) {
+                sum += dct[row + m] * logMel[m];
+            }
+            mfccSum[c] += sum;
+        }
+        
+        return total > 0 ? weighted / total : 0;
+    }
+    
+    /**
+     * Formants as the first peaks of the LPC spectral envelope 1/|A(f)|^2. Evaluating A on the
+     * FFT grid avoids polynomial root finding; 31 Hz bins are plenty for speaker comparison.
+     */
+    private boolean estimateFrameFormants() {
+        for (int lag = 0; lag <= LPC_ORDER; lag++) {
+            double sum = 0;
+            for (int i = lag; i < FRAME_SIZE; i++) {
+                sum += windowed[i] * windowed[i - lag];
+            }
+            autocorrelation[lag] = sum;
+        }
+        if (autocorrelation[0] <= 0 || !levinsonDurbin()) {
+            return false;
+        }
+        
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            windowed[i] = i <= LPC_ORDER ? (float) lpc[i] : 0;
+        }
+        fft.realPowerSpectrum(windowed, power); // |A(f)|^2; envelope peaks are its minima
+        
+        int found = 0;
+        for (int k = 1; k < power.length - 1 && found < FORMANT_COUNT; k++) {
+            if (binHz[k] < MIN_FORMANT_HZ) continue;
+            if (binHz[k] > MAX_FORMANT_HZ) break;
+            if (power[k] < power[k - 1] && power[k] <= power[k + 1]) {
+                frameFormants[found++] = binHz[k];
+            }
+        }
+        return found == FORMANT_COUNT;
+    }
+    
+    /**
+     * Solve for the predictor A(z) = 1 + a1 z^-1 + ... from the autocorrelation
+     */
+    private boolean levinsonDurbin() {
+        Arrays.fill(lpc, 0);
+        lpc[0] = 1;
+        double error = autocorrelation[0];
+        
+        for (int i = 1; i <= LPC_ORDER; i++) {
+            double acc = autocorrelation[i];
+            for (int j = 1; j < i; j++) {
+                acc += lpc[j] * autocorrelation[i - j];
+            }
+            double reflection = -acc / error;
+            
+            System.arraycopy(lpc, 0, lpcScratch, 0, i);
+            for (int j = 1; j < i; j++) {
+                lpc[j] = lpcScratch[j] + reflection * lpcScratch[i - j];
+            }
+            lpc[i] = reflection;
+            
+            error *= 1 - reflection * reflection;
+            if (error <= 0) {
+                return false; // Numerically unstable frame
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Triangular filters spaced evenly on the mel scale up to Nyquist
+     */
+    private void buildMelFilterbank() {
+        double minMel = hzToMel(MIN_MEL_HZ);
+        double maxMel = hzToMel(sampleRate / 2.0);
+        double[] edgesHz = new double[MEL_FILTERS + 2];
+        for (int i = 0; i < edgesHz.length; i++) {
+            edgesHz[i] = melToHz(minMel + (maxMel - minMel) * i / (MEL_FILTERS + 1));
+        }
+        
+        for (int m = 0; m < MEL_FILTERS; m++) {
+            double left = edgesHz[m];
+            double center = edgesHz[m + 1];
+            double right = edgesHz[m + 2];
+            
+            int first = Math.max(0, (int) Math.ceil(left * FRAME_SIZE / sampleRate));
+            int last = Math.min(FRAME_SIZE / 2, (int) Math.floor(right * FRAME_SIZE / sampleRate));
+            if (last < first) {
+                last = first; // Narrow low filters still get one bin
+            }
+            
+            float[] weights = new float[last - first + 1];
+            for (int k = first; k <= last; k++) {
+                double hz = (double) k * sampleRate / FRAME_SIZE;
+                double w = hz <= center ? (hz - left) / (center - left) : (right - hz) / (right - center);
+                weights[k - first] = (float) Math.max(0, w);
+            }
+            filterStart[m] = first;
+            filterWeights[m] = weights;
+        }
+    }
+    
+    /**
+     * Orthonormal DCT-II matrix
+     */
+    private static float[] buildDct(int rows, int columns) {
+        float[] matrix = new float[rows * columns];
+        for (int c = 0; c < rows; c++) {
+            double scale = Math.sqrt((c == 0 ? 1.0 : 2.0) / columns);
+            for (int m = 0; m < columns; m++) {
+                matrix[c * columns + m] = (float) (scale * Math.cos(Math.PI * c * (m + 0.5) / columns));
+            }
+        }
+        return matrix;
+    }
+    
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700);
+    }
+    
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Re-encodes recordings to a speech-grade format (16 kHz mono AAC-LC, 32 kbps) before upload.
+ * Transcription APIs resample to 16 kHz internally, so the extra bandwidth of the
+ * 44.1 kHz / 128 kbps recording only costs upload time. Long silences are cut on the way
+ * (see SilenceTrimmer); the TimeRemap saved next to the copy maps its times back to the
+ * recording.
+ */
+public class SpeechTranscoder {
+    
+    private static final String TAG = "SpeechTranscoder";
+    
+    public static final int TARGET_SAMPLE_RATE = 16000;
+    public static final int TARGET_BIT_RATE = 32000;
+    private static final String SPEECH_SUFFIX = "_speech.m4a";
+    private static final String REMAP_SUFFIX = "_speech.remap";
+    private static final String ENCODER_MIME = MediaFormat.MIMETYPE_AUDIO_AAC;
+    private static final long TIMEOUT_US = 10000;
+    
+    /**
+     * Location of the speech-optimized copy, stored next to the original recording
+     */
+    public static File speechCopyFor(File original) {
+        String name = original.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(original.getParentFile(), base + SPEECH_SUFFIX);
+    }
+    
+    /**
+     * Location of the time remap of a speech copy
+     */
+    private static File remapFileFor(File speechCopy) {
+        String name = speechCopy.getName();
+        String base = name.endsWith(SPEECH_SUFFIX) ? name.substring(0, name.length() - SPEECH_SUFFIX.length()) : name;
+        return new File(speechCopy.getParentFile(), base + REMAP_SUFFIX);
+    }
+    
+    /**
+     * Map from times in a file returned by prepareForUpload to times in the recording. The
+     * identity unless silences were cut from it.
+     */
+    public static TimeRemap timeRemapFor(File uploadFile) {
+        if (!uploadFile.getName().endsWith(SPEECH_SUFFIX)) {
+            return TimeRemap.identity();
+        }
+        File remapFile = remapFileFor(uploadFile);
+        if (!remapFile.exists()) {
+            return TimeRemap.identity();
+        }
+        try {
+            return TimeRemap.read(remapFile);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read time remap, timestamps will follow the trimmed audio", e);
+            return TimeRemap.identity();
+        }
+    }
+    
+    /**
+     * Return the file that should be uploaded for this recording: the cached speech copy when it
+     * is up to date, a freshly transcoded one otherwise, or the original if transcoding is not
+     * possible or would not make the file smaller.
+     */
+    public static File prepareForUpload(File original) {
+        if (original.getName().endsWith(SPEECH_SUFFIX)) {
+            return original;
+        }
+        
+        File speechCopy = speechCopyFor(original);
+        if (speechCopy.exists() && speechCopy.length() > 0 && speechCopy.lastModified() >= original.lastModified()) {
+            Log.d(TAG, "Using cached speech copy " + speechCopy.getName());
+            return speechCopy;
+        }
+        
+        try {
+            PcmDecoder.AudioInfo info = PcmDecoder.probe(original);
+            if (info.sampleRate <= TARGET_SAMPLE_RATE && info.channelCount == 1
+                && info.durationUs > 0 && original.length() * 8_000_000L / info.durationUs <= TARGET_BIT_RATE * 1.2) {
+                return original; // Already speech-grade
+            }
+            
+            long started = System.currentTimeMillis();
+            transcode(original, speechCopy);
+            Log.d(TAG, "Transcoded " + original.getName() + " in " + (System.currentTimeMillis() - started) + "ms: "
+                + original.length() + " -> " + speechCopy.length() + " bytes");
+            
+            if (speechCopy.length() == 0 || speechCopy.length() >= original.length()) {
+                speechCopy.delete();
+                remapFileFor(speechCopy).delete();
+                return original;
+            }
+            return speechCopy;
+        
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Speech transcoding failed, uploading original recording", e);
+            speechCopy.delete();
+            remapFileFor(speechCopy).delete();
+            return original;
+        }
+    }
+    
+    /**
+     * Decode source, downmix/resample to 16 kHz mono, cut long silences and encode to AAC in an
+     * MP4 container. The time remap is written next to target when anything was cut.
+     */
+    public static void transcode(File source, File target) throws IOException {
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        MediaCodec encoder = MediaCodec.createEncoderByType(ENCODER_MIME);
+        MediaMuxer muxer = null;
+        
+        try {
+            MediaFormat format = MediaFormat.createAudioFormat(ENCODER_MIME, TARGET_SAMPLE_RATE, 1);
+            format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+            format.setInteger(MediaFormat.KEY_BIT_RATE, TARGET_BIT_RATE);
+            format.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, 16384);
+            encoder.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            encoder.start();
+            
+            muxer = new MediaMuxer(temp.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+            EncoderSink sink = new EncoderSink(encoder, muxer);
+            SilenceTrimmer trimmer = new SilenceTrimmer(TARGET_SAMPLE_RATE, sink);
+            Resampler resampler = new Resampler(TARGET_SAMPLE_RATE, trimmer);
+            
+            PcmDecoder.decode(source, resampler);
+            resampler.flush();
+            trimmer.finish();
+            sink.finish();
+            
+            muxer.stop();
+            muxer.release();
+            muxer = null;
+            
+            TimeRemap remap = trimmer.getTimeRemap();
+            File remapFile = remapFileFor(target);
+            if (remap.isIdentity()) {
+                remapFile.delete();
+            } else {
+                remap.writeTo(remapFile);
+            }
+            Log.d(TAG, String.format("Speech in %.0f%% of frames, %d silences cut (%.1f s)",
+                trimmer.speechRatio() * 100, remap.cutCount(), remap.removedSeconds()));
+            
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not move transcoded file into place");
+            }
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Transcoding failed: " + e.getMessage(), e);
+        } finally {
+            try {
+                encoder.stop();
+            } catch (IllegalStateException ignored) {
+                // Encoder never started
+            }
+            encoder.release();
+            if (muxer != null) {
+                try {
+                    muxer.release();
+                } catch (IllegalStateException ignored) {
+                    // Muxer never started
+                }
+            }
+            temp.delete();
+        }
+    }
+    
+    /**
+     * Feeds PCM into the AAC encoder and drains encoded frames into the muxer
+     */
+    private static class EncoderSink implements Resampler.Sink {
+        private final MediaCodec encoder;
+        private final MediaMuxer muxer;
+        private final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        private int track = -1;
+        private long samplesWritten;
+        
+        EncoderSink(MediaCodec encoder, MediaMuxer muxer) {
+            this.encoder = encoder;
+            this.muxer = muxer;
+        }
+        
+        @Override
+        public void write(short[] samples, int count) {
+            int offset = 0;
+            while (offset < count) {
+                int index = encoder.dequeueInputBuffer(TIMEOUT_US);
+                if (index < 0) {
+                    drain(false);
+                    continue;
+                }
+                
+                ByteBuffer input = encoder.getInputBuffer(index);
+                input.clear();
+                int n = Math.min(count - offset, input.remaining() / 2);
+                input.order(ByteOrder.nativeOrder()).asShortBuffer().put(samples, offset, n);
+                
+                long ptsUs = samplesWritten * 1000000L / TARGET_SAMPLE_RATE;
+                encoder.queueInputBuffer(index, 0, n * 2, ptsUs, 0);
+                samplesWritten += n;
+                offset += n;
+                drain(false);
+            }
+        }
+        
+        void finish() {
+            int index;
+            while ((index = encoder.dequeueInputBuffer(TIMEOUT_US)) < 0) {
+                drain(false);
+            }
+            encoder.queueInputBuffer(index, 0, 0, samplesWritten * 1000000L / TARGET_SAMPLE_RATE,
+                MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+            drain(true);
+        }
+        
+        private void drain(boolean untilEndOfStream) {
+            while (true) {
+                int index = encoder.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                    if (!untilEndOfStream) return;
+                } else if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    track = muxer.addTrack(encoder.getOutputFormat());
+                    muxer.start();
+                } else if (index >= 0) {
+                    ByteBuffer output = encoder.getOutputBuffer(index);
+                    boolean codecConfig = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                    if (info.size > 0 && !codecConfig && track >= 0) {
+                        output.position(info.offset);
+                        output.limit(info.offset + info.size);
+                        muxer.writeSampleData(track, output, info);
+                    }
+                    encoder.releaseOutputBuffer(index, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
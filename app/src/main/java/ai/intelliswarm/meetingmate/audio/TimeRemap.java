@@ -0,0 +1,143 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Maps times in an audio file with regions cut out back to times in the original recording.
+ * Kept as a list of spans: from outputStart[i] on, output sample t came from original sample
+ * t - outputStart[i] + originalStart[i]. An empty list is the identity.
+ */
+public final class TimeRemap {
+    
+    private static final int MAGIC = 0x4D52544D; // "MTRM"
+    private static final int VERSION = 1;
+    
+    private final int sampleRate;
+    private long[] outputStart = new long[16];
+    private long[] originalStart = new long[16];
+    private int count;
+    
+    public TimeRemap(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+    
+    public static TimeRemap identity() {
+        return new TimeRemap(SpeechTranscoder.TARGET_SAMPLE_RATE);
+    }
+    
+    /**
+     * Start a new span: output sample outputSample comes from original sample originalSample.
+     * Spans must be added in increasing output order.
+     */
+    void addSpan(long outputSample, long originalSample) {
+        if (count == outputStart.length) {
+            outputStart = Arrays.copyOf(outputStart, count * 2);
+            originalStart = Arrays.copyOf(originalStart, count * 2);
+        }
+        outputStart[count] = outputSample;
+        originalStart[count] = originalSample;
+        count++;
+    }
+    
+    public boolean isIdentity() {
+        return count == 0;
+    }
+    
+    /**
+     * Number of cuts, i.e. places where the output jumps ahead in the original
+     */
+    public int cutCount() {
+        return count;
+    }
+    
+    /**
+     * Original time removed by all cuts before the last span
+     */
+    public double removedSeconds() {
+        return count == 0 ? 0 : (double) (originalStart[count - 1] - outputStart[count - 1]) / sampleRate;
+    }
+    
+    /**
+     * Original time of a start time (segment or word start) in the output. A time exactly on a
+     * cut belongs to the span after it.
+     */
+    public double toOriginalSeconds(double outputSeconds) {
+        return map(outputSeconds, false);
+    }
+    
+    /**
+     * Original time of an end time in the output. A time exactly on a cut belongs to the span
+     * before it, so an end never jumps across the removed region.
+     */
+    public double toOriginalEndSeconds(double outputSeconds) {
+        return map(outputSeconds, true);
+    }
+    
+    private double map(double outputSeconds, boolean end) {
+        if (count == 0) {
+            return outputSeconds;
+        }
+        double sample = outputSeconds * sampleRate;
+        // Last span starting at (or, for ends, strictly before) the sample
+        int lo = 0;
+        int hi = count - 1;
+        int span = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            boolean starts = end ? outputStart[mid] < sample : outputStart[mid] <= sample;
+            if (starts) {
+                span = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (span < 0) {
+            return outputSeconds; // Before the first cut
+        }
+        return (sample - outputStart[span] + originalStart[span]) / sampleRate;
+    }
+    
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sampleRate);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(outputStart[i]);
+                out.writeLong(originalStart[i]);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not move time remap into place: " + file);
+        }
+    }
+    
+    public static TimeRemap read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a time remap file: " + file);
+            }
+            TimeRemap remap = new TimeRemap(in.readInt());
+            int count = in.readInt();
+            if (remap.sampleRate <= 0 || count < 0 || count * 16L != file.length() - 16) {
+                throw new IOException("Corrupt time remap: " + file);
+            }
+            for (int i = 0; i < count; i++) {
+                remap.addSpan(in.readLong(), in.readLong());
+            }
+            return remap;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package ai.intelliswarm.meetingmate.audio;
+
+import java.util.Arrays;
+
+/**
+ * Frame-by-frame speech/non-speech decision for streaming 16-bit mono PCM. A frame counts as
+ * speech when it is clearly louder than the background and either sounds periodic (flat
+ * spectrum and low zero-crossing rate rule that out for noise) or is loud enough to be a
+ * fricative or a plosive. The background level follows the quietest frames of the last few
+ * seconds, so fans, traffic or a noisy room do not count as speech. Not thread-safe.
+ */
+public class VoiceActivityDetector {
+    
+    public static final double FRAME_SECONDS = 0.02;
+    
+    // Frames must be this far above the background level...
+    private static final double SPEECH_MARGIN_DB = 9;
+    // ...and this loud in absolute terms (16-bit scale, about -60 dBFS)
+    private static final double MIN_SPEECH_DB = 30;
+    // Unvoiced frames count as speech only this far above the background
+    private static final double UNVOICED_MARGIN_DB = 15;
+    // Voiced speech has a peaky spectrum; white noise scores about 0.56
+    private static final double MAX_VOICED_FLATNESS = 0.3;
+    private static final double MAX_VOICED_ZCR = 0.35;
+    // Speech band the flatness is measured over
+    private static final double FLATNESS_LOW_HZ = 300;
+    private static final double FLATNESS_HIGH_HZ = 4000;
+    // Background level is the minimum over this many one-second blocks
+    private static final int FLOOR_BLOCKS = 5;
+    // Assumed background until the blocks have filled: a quiet room, so speech at the very start
+    // is never taken for background (a noisy room is learned within FLOOR_BLOCKS seconds)
+    private static final double INITIAL_FLOOR_DB = 20;
+    
+    private final int frameSize;
+    private final Fft fft;
+    private final float[] frame;
+    private final float[] power;
+    private final int lowBin;
+    private final int highBin;
+    
+    private final double[] blockMinimum = new double[FLOOR_BLOCKS];
+    private final int framesPerBlock;
+    private int blockFrames;
+    private int block;
+    
+    // Features of the last frame, for logging and tests
+    private double energyDb;
+    private double zeroCrossingRate;
+    private double spectralFlatness;
+    
+    public VoiceActivityDetector(int sampleRate) {
+        frameSize = (int) Math.round(sampleRate * FRAME_SECONDS);
+        int fftSize = Integer.highestOneBit(frameSize - 1) << 1;
+        fft = new Fft(fftSize);
+        frame = new float[fftSize];
+        power = new float[fftSize / 2 + 1];
+        lowBin = (int) Math.ceil(FLATNESS_LOW_HZ * fftSize / sampleRate);
+        highBin = Math.min(fftSize / 2, (int) Math.floor(FLATNESS_HIGH_HZ * fftSize / sampleRate));
+        framesPerBlock = (int) Math.round(1 / FRAME_SECONDS);
+        Arrays.fill(blockMinimum, INITIAL_FLOOR_DB);
+    }
+    
+    /**
+     * Samples per frame; isSpeech expects exactly this many
+     */
+    public int frameSize() {
+        return frameSize;
+    }
+    
+    /**
+     * Classify samples[offset, offset + frameSize()) and update the background level
+     */
+    public boolean isSpeech(short[] samples, int offset) {
+        double sumSquares = 0;
+        int crossings = 0;
+        for (int i = 0; i < frameSize; i++) {
+            short sample = samples[offset + i];
+            sumSquares += sample * sample;
+            if (i > 0 && (samples[offset + i - 1] >= 0) != (sample >= 0)) {
+                crossings++;
+            }
+            frame[i] = sample;
+        }
+        energyDb = 10 * Math.log10(sumSquares / frameSize + 1e-9);
+        zeroCrossingRate = (double) crossings / frameSize;
+        
+        double floor = updateBackground(energyDb);
+        if (energyDb < floor + SPEECH_MARGIN_DB || energyDb < MIN_SPEECH_DB) {
+            spectralFlatness = 1;
+            return false;
+        }
+        
+        spectralFlatness = spectralFlatness();
+        boolean voiced = spectralFlatness < MAX_VOICED_FLATNESS && zeroCrossingRate < MAX_VOICED_ZCR;
+        return voiced || energyDb >= floor + UNVOICED_MARGIN_DB;
+    }
+    
+    public double lastEnergyDb() {
+        return energyDb;
+    }
+    
+    public double lastZeroCrossingRate() {
+        return zeroCrossingRate;
+    }
+    
+    public double lastSpectralFlatness() {
+        return spectralFlatness;
+    }
+    
+    /**
+     * Track per-block minima and return the lowest of the recent blocks
+     */
+    private double updateBackground(double db) {
+        if (blockFrames == framesPerBlock) {
+            block = (block + 1) % FLOOR_BLOCKS;
+            blockMinimum[block] = db;
+            blockFrames = 0;
+        }
+        blockMinimum[block] = Math.min(blockMinimum[block], db);
+        blockFrames++;
+        
+        double floor = blockMinimum[0];
+        for (int b = 1; b < FLOOR_BLOCKS; b++) {
+            floor = Math.min(floor, blockMinimum[b]);
+        }
+        return floor;
+    }
+    
+    /**
+     * Geometric over arithmetic mean of the power spectrum in the speech band, 0 (pure tone)
+     * to 1 (white noise). The frame is zero-padded to the FFT size.
+     */
+    private double spectralFlatness() {
+        Arrays.fill(frame, frameSize, frame.length, 0f);
+        fft.realPowerSpectrum(frame, power);
+        double logSum = 0;
+        double sum = 0;
+        for (int k = lowBin; k <= highBin; k++) {
+            double p = power[k] + 1e-3;
+            logSum += Math.log(p);
+            sum += p;
+        }
+        int bins = highBin - lowBin + 1;
+        return Math.exp(logSum / bins) / (sum / bins);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package ai.intelliswarm.meetingmate.audio;
+
+/**
+ * Capture tap that runs the VoiceActivityDetector over the live microphone signal and keeps the
+ * latest input level, for level meters and speech indicators while recording. The getters may
+ * be called from any thread.
+ */
+public class VoiceActivityTap implements CaptureEngine.Tap {
+    
+    // 16-bit full scale in the detector's dB scale
+    private static final double FULL_SCALE_DB = 20 * Math.log10(Short.MAX_VALUE);
+    // Keep reporting speech this long after the last speech frame, so short pauses do not flicker
+    private static final double HANGOVER_SECONDS = 0.3;
+    
+    private final VoiceActivityDetector detector;
+    private final short[] frame;
+    private final int hangoverFrames;
+    private int frameFill;
+    private int framesSinceSpeech = Integer.MAX_VALUE;
+    
+    private volatile double levelDbfs = -FULL_SCALE_DB;
+    private volatile boolean speaking;
+    private volatile long frames;
+    private volatile long speechFrames;
+    
+    public VoiceActivityTap(int sampleRate) {
+        detector = new VoiceActivityDetector(sampleRate);
+        frame = new short[detector.frameSize()];
+        hangoverFrames = (int) Math.round(HANGOVER_SECONDS / VoiceActivityDetector.FRAME_SECONDS);
+    }
+    
+    @Override
+    public void onPcm(short[] samples, int count) {
+        int offset = 0;
+        while (offset < count) {
+            int n = Math.min(count - offset, frame.length - frameFill);
+            System.arraycopy(samples, offset, frame, frameFill, n);
+            frameFill += n;
+            offset += n;
+            if (frameFill == frame.length) {
+                classify();
+                frameFill = 0;
+            }
+        }
+    }
+    
+    private void classify() {
+        boolean speech = detector.isSpeech(frame, 0);
+        levelDbfs = detector.lastEnergyDb() - FULL_SCALE_DB;
+        frames++;
+        if (speech) {
+            speechFrames++;
+            framesSinceSpeech = 0;
+        } else if (framesSinceSpeech < Integer.MAX_VALUE) {
+            framesSinceSpeech++;
+        }
+        speaking = framesSinceSpeech <= hangoverFrames;
+    }
+    
+    /**
+     * RMS level of the latest 20 ms frame, in dB below full scale
+     */
+    public double getLevelDbfs() {
+        return levelDbfs;
+    }
+    
+    public boolean isSpeaking() {
+        return speaking;
+    }
+    
+    /**
+     * Share of the frames so far that held speech
+     */
+    public double getSpeechRatio() {
+        long total = frames;
+        return total == 0 ? 0 : (double) speechFrames / total;
+    }
+}
@@ -0,0 +1,239 @@
+package ai.intelliswarm.meetingmate.data;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small size-bounded key/value store on disk. One file per entry, with the access order kept in
+ * memory and in an append-only journal next to the entries, so least recently used entries are
+ * evicted first without depending on file times. Keys must be filesystem-safe (e.g. hex digests).
+ */
+public class DiskLruCache {
+    
+    private static final String TAG = "DiskLruCache";
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String JOURNAL_FILE = "journal";
+    // Journal lines: the key when it is used, or REMOVED and the key when it is gone
+    private static final String REMOVED = "-";
+    // Rewrite the journal once it holds this many lines beyond one per entry
+    private static final int MAX_REDUNDANT_LINES = 500;
+    
+    private final File directory;
+    private final long maxBytes;
+    private final File journal;
+    
+    // Key to entry size, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private int journalLines;
+    
+    public DiskLruCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.journal = new File(directory, JOURNAL_FILE);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create cache directory " + directory.getAbsolutePath());
+        }
+        load();
+    }
+    
+    /**
+     * Return the stored value or null, marking the entry as recently used
+     */
+    public synchronized String get(String key) {
+        if (!entries.containsKey(key)) {
+            return null;
+        }
+        
+        File file = entryFile(key);
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            entries.get(key);
+            record(key);
+            return new String(data, 0, read, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read cache entry " + key, e);
+            remove(key);
+            return null;
+        }
+    }
+    
+    /**
+     * Store a value, then evict old entries until the cache fits its size bound
+     */
+    public synchronized void put(String key, String value) {
+        File file = entryFile(key);
+        File temp = new File(directory, key + ".tmp");
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write cache entry " + key, e);
+            temp.delete();
+            return;
+        }
+        
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Failed to commit cache entry " + key);
+            temp.delete();
+            return;
+        }
+        
+        Long previous = entries.put(key, (long) data.length);
+        totalBytes += data.length - (previous != null ? previous : 0);
+        record(key);
+        trimToSize();
+    }
+    
+    public synchronized void remove(String key) {
+        entryFile(key).delete();
+        Long length = entries.remove(key);
+        if (length != null) {
+            totalBytes -= length;
+            record(REMOVED + key);
+        }
+    }
+    
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        entries.clear();
+        totalBytes = 0;
+        journalLines = 0;
+    }
+    
+    /**
+     * Total size of all entries in bytes
+     */
+    public synchronized long size() {
+        return totalBytes;
+    }
+    
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> oldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            entryFile(entry.getKey()).delete();
+            totalBytes -= entry.getValue();
+            oldest.remove();
+            record(REMOVED + entry.getKey());
+            Log.d(TAG, "Evicted " + entry.getKey());
+        }
+    }
+    
+    /**
+     * Rebuild the access order from the journal. Entries the journal does not know, such as those
+     * written before it existed, count as older than every journalled one, oldest file first.
+     */
+    private void load() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Map<String, File> onDisk = new LinkedHashMap<>();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String name = file.getName();
+            onDisk.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), file);
+        }
+        
+        LinkedHashMap<String, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+        for (String key : onDisk.keySet()) {
+            order.put(key, Boolean.TRUE);
+        }
+        if (journal.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(journal))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(REMOVED)) {
+                        order.remove(line.substring(REMOVED.length()));
+                    } else if (onDisk.containsKey(line)) {
+                        order.put(line, Boolean.TRUE);
+                    }
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to read journal, falling back to file times", e);
+            }
+        }
+        
+        for (String key : order.keySet()) {
+            long length = onDisk.get(key).length();
+            entries.put(key, length);
+            totalBytes += length;
+        }
+        // Entries the journal saw removed but whose file survived, e.g. after a crash mid-eviction
+        for (Map.Entry<String, File> file : onDisk.entrySet()) {
+            if (!entries.containsKey(file.getKey())) {
+                file.getValue().delete();
+            }
+        }
+        rewriteJournal();
+    }
+    
+    private void record(String line) {
+        if (journalLines - entries.size() > MAX_REDUNDANT_LINES) {
+            rewriteJournal();
+            return;
+        }
+        try (Writer writer = new FileWriter(journal, true)) {
+            writer.write(line);
+            writer.write('\n');
+            journalLines++;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to append to journal", e);
+        }
+    }
+    
+    /**
+     * Replace the journal with one line per entry in access order
+     */
+    private void rewriteJournal() {
+        File temp = new File(directory, JOURNAL_FILE + ".tmp");
+        try (Writer writer = new FileWriter(temp)) {
+            for (String key : entries.keySet()) {
+                writer.write(key);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write journal", e);
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(journal)) {
+            journalLines = entries.size();
+        } else {
+            temp.delete();
+        }
+    }
+    
+    private File entryFile(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+}
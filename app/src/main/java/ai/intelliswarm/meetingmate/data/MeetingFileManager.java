@@ -2,7 +2,9 @@ package ai.intelliswarm.meetingmate.data;
 
 import android.content.Context;
 import android.os.Environment;
+import android.os.Process;
 import android.util.Log;
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.BufferedReader;
@@ -24,6 +26,7 @@ public class MeetingFileManager {
     private static final String AUDIO_FOLDER = "Audio";
     private static final String TRANSCRIPTS_FOLDER = "Transcripts";
     private static final String SUMMARIES_FOLDER = "Summaries";
+    private static final String SEGMENTS_FOLDER = "Audio/Segments";
     
     private Context context;
     private File rootDirectory;
@@ -175,6 +178,72 @@ public class MeetingFileManager {
         }
     }
     
+    // Start the manifest of a recording made in segments; the segments go in manifest.directory
+    public RecordingManifest startSegmentedRecording(String recordingId, File outputFile) throws IOException {
+        File directory = new File(rootDirectory, SEGMENTS_FOLDER + "/" + recordingId);
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create segment folder " + directory.getAbsolutePath());
+        }
+        RecordingManifest manifest = new RecordingManifest(directory, recordingId, outputFile.getAbsolutePath(),
+            System.currentTimeMillis(), Process.myPid());
+        manifest.save();
+        return manifest;
+    }
+    
+    // Recordings whose process died before the segments were joined. Leftovers of finished
+    // recordings are deleted on the way.
+    public List<RecordingManifest> getInterruptedRecordings() {
+        List<RecordingManifest> interrupted = new ArrayList<>();
+        File[] directories = new File(rootDirectory, SEGMENTS_FOLDER).listFiles(File::isDirectory);
+        if (directories == null) {
+            return interrupted;
+        }
+        
+        for (File directory : directories) {
+            RecordingManifest manifest;
+            try {
+                manifest = RecordingManifest.read(directory);
+            } catch (IOException e) {
+                Log.w(TAG, "Skipping unreadable segment folder " + directory.getName(), e);
+                continue;
+            }
+            if (manifest != null && manifest.pid == Process.myPid()) {
+                continue; // Still being recorded or transcribed by this process
+            }
+            if (manifest == null || manifest.isComplete() || manifest.getSegments().isEmpty()) {
+                deleteDirectory(directory);
+                continue;
+            }
+            interrupted.add(manifest);
+        }
+        return interrupted;
+    }
+    
+    // Join the closed segments of an interrupted recording into its output file
+    public File recoverRecording(RecordingManifest manifest) throws IOException {
+        File output = new File(manifest.outputPath);
+        AudioChunker.join(manifest.getSegmentFiles(), output);
+        Log.d(TAG, "Recovered " + manifest.getSegments().size() + " segments ("
+            + Math.round(manifest.getEndSeconds()) + "s) into " + output.getAbsolutePath());
+        deleteSegments(manifest);
+        return output;
+    }
+    
+    // Delete the segments and manifest of a recording
+    public void deleteSegments(RecordingManifest manifest) {
+        deleteDirectory(manifest.directory);
+    }
+    
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+    
     // Save transcript
     public boolean saveTranscript(String meetingId, String title, String transcript, Date meetingDate) {
         Log.d(TAG, "Saving transcript for meeting: " + meetingId + ", title: " + title);
@@ -206,6 +275,38 @@ public class MeetingFileManager {
         }
     }
     
+    // Save segment/word timeline next to the transcript
+    public boolean saveTimeline(String meetingId, TranscriptTimeline timeline) {
+        try {
+            File timelineFile = getTimelineFile(meetingId);
+            timeline.writeTo(timelineFile);
+            Log.d(TAG, "Timeline saved: " + timeline.segmentCount + " segments, " + timeline.wordCount + " words, "
+                + timeline.speakerCount + " speakers (" + timelineFile.length() + " bytes)");
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save timeline", e);
+            return false;
+        }
+    }
+    
+    // Get timeline for a meeting, or null if none was saved
+    public TranscriptTimeline getTimeline(String meetingId) {
+        File timelineFile = getTimelineFile(meetingId);
+        if (!timelineFile.exists()) {
+            return null;
+        }
+        try {
+            return TranscriptTimeline.read(timelineFile);
+        } catch (IOException e) {
+            Log.w(TAG, "Unreadable timeline for " + meetingId, e);
+            return null;
+        }
+    }
+    
+    private File getTimelineFile(String meetingId) {
+        return new File(rootDirectory, TRANSCRIPTS_FOLDER + "/" + meetingId + "_timeline.bin");
+    }
+    
     // Save summary
     public boolean saveSummary(String meetingId, String title, String summary, Date meetingDate) {
         try {
@@ -0,0 +1,174 @@
+package ai.intelliswarm.meetingmate.data;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Record of a recording made in segments: where the joined recording goes and which segments
+ * are complete. It is rewritten each time a segment closes, so after a crash every segment it
+ * lists can still be read; only the segment being written at the time is lost.
+ */
+public class RecordingManifest {
+    
+    static final String FILE_NAME = "manifest.json";
+    
+    /**
+     * One closed segment, with its position in the joined recording
+     */
+    public static class Segment {
+        public final String fileName;
+        public final double startSeconds;
+        public final double endSeconds;
+        
+        Segment(String fileName, double startSeconds, double endSeconds) {
+            this.fileName = fileName;
+            this.startSeconds = startSeconds;
+            this.endSeconds = endSeconds;
+        }
+    }
+    
+    public final File directory;
+    public final String recordingId;
+    public final String outputPath;
+    public final long startedAt;
+    // Process that writes the segments; a manifest left by another process was interrupted
+    public final int pid;
+    private final List<Segment> segments = new ArrayList<>();
+    private boolean complete;
+    
+    RecordingManifest(File directory, String recordingId, String outputPath, long startedAt, int pid) {
+        this.directory = directory;
+        this.recordingId = recordingId;
+        this.outputPath = outputPath;
+        this.startedAt = startedAt;
+        this.pid = pid;
+    }
+    
+    public synchronized List<Segment> getSegments() {
+        return Collections.unmodifiableList(new ArrayList<>(segments));
+    }
+    
+    public synchronized List<File> getSegmentFiles() {
+        List<File> files = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            files.add(new File(directory, segment.fileName));
+        }
+        return files;
+    }
+    
+    /**
+     * End of the last closed segment, which is where the next one starts
+     */
+    public synchronized double getEndSeconds() {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).endSeconds;
+    }
+    
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+    
+    /**
+     * Record a closed segment and persist the manifest
+     */
+    public synchronized Segment addSegment(File segmentFile, double durationSeconds) throws IOException {
+        double start = getEndSeconds();
+        Segment segment = new Segment(segmentFile.getName(), start, start + durationSeconds);
+        segments.add(segment);
+        save();
+        return segment;
+    }
+    
+    /**
+     * Mark the recording as joined into outputPath; the segments are no longer needed for recovery
+     */
+    public synchronized void markComplete() throws IOException {
+        complete = true;
+        save();
+    }
+    
+    /**
+     * Write through a temporary file and a rename, so a crash never leaves half a manifest
+     */
+    synchronized void save() throws IOException {
+        byte[] bytes;
+        try {
+            bytes = toJson().toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IOException("Could not encode manifest", e);
+        }
+        
+        File file = new File(directory, FILE_NAME);
+        File temp = new File(directory, FILE_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not move manifest into place: " + file);
+        }
+    }
+    
+    private JSONObject toJson() throws JSONException {
+        JSONArray list = new JSONArray();
+        for (Segment segment : segments) {
+            list.put(new JSONObject()
+                .put("file", segment.fileName)
+                .put("start", segment.startSeconds)
+                .put("end", segment.endSeconds));
+        }
+        return new JSONObject()
+            .put("recordingId", recordingId)
+            .put("outputPath", outputPath)
+            .put("startedAt", startedAt)
+            .put("pid", pid)
+            .put("complete", complete)
+            .put("segments", list);
+    }
+    
+    /**
+     * Load the manifest of a segment directory, or null when it has none
+     */
+    static RecordingManifest read(File directory) throws IOException {
+        File file = new File(directory, FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+        }
+        
+        try {
+            JSONObject json = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+            RecordingManifest manifest = new RecordingManifest(directory, json.getString("recordingId"),
+                json.getString("outputPath"), json.getLong("startedAt"), json.getInt("pid"));
+            manifest.complete = json.optBoolean("complete", false);
+            JSONArray list = json.getJSONArray("segments");
+            for (int i = 0; i < list.length(); i++) {
+                JSONObject segment = list.getJSONObject(i);
+                manifest.segments.add(new Segment(segment.getString("file"),
+                    segment.getDouble("start"), segment.getDouble("end")));
+            }
+            return manifest;
+        } catch (JSONException e) {
+            throw new IOException("Corrupt manifest in " + directory.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package ai.intelliswarm.meetingmate.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Segments, words and speakers of one meeting in columnar form: float start/end arrays, int
+ * speaker ids, and text as ids into a pool of interned UTF-8 strings that are only decoded when
+ * read. Saved next to the transcript in a small binary format that loads with a fixed number
+ * of array allocations, however long the meeting.
+ *
+ * File layout (little-endian): magic, version, string count, pool bytes, speaker count,
+ * segment count, word count; then the pool offsets (count + 1), the pool bytes padded to 4,
+ * speaker name ids, segment start/end/speaker/text/first word (count + 1), and word
+ * start/end/text.
+ */
+public final class TranscriptTimeline {
+    
+    private static final int MAGIC = 0x4C544D4D; // "MMTL" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 7 * 4;
+    
+    public final int segmentCount;
+    public final float[] segmentStart;   // Seconds
+    public final float[] segmentEnd;
+    public final int[] segmentSpeaker;   // 1-based, 0 when unknown
+    public final int[] segmentText;      // String ids
+    
+    public final int wordCount;
+    public final float[] wordStart;
+    public final float[] wordEnd;
+    public final int[] wordText;
+    
+    public final int speakerCount;
+    private final int[] speakerName;     // String id of speaker s at s - 1
+    
+    // Words of segment i are [segmentFirstWord[i], segmentFirstWord[i + 1])
+    private final int[] segmentFirstWord;
+    
+    // String i is the UTF-8 bytes pool[poolOffset[i], poolOffset[i + 1])
+    private final byte[] pool;
+    private final int[] poolOffset;
+    
+    private TranscriptTimeline(int segmentCount, float[] segmentStart, float[] segmentEnd, int[] segmentSpeaker,
+                               int[] segmentText, int[] segmentFirstWord, int wordCount, float[] wordStart,
+                               float[] wordEnd, int[] wordText, int speakerCount, int[] speakerName,
+                               byte[] pool, int[] poolOffset) {
+        this.segmentCount = segmentCount;
+        this.segmentStart = segmentStart;
+        this.segmentEnd = segmentEnd;
+        this.segmentSpeaker = segmentSpeaker;
+        this.segmentText = segmentText;
+        this.segmentFirstWord = segmentFirstWord;
+        this.wordCount = wordCount;
+        this.wordStart = wordStart;
+        this.wordEnd = wordEnd;
+        this.wordText = wordText;
+        this.speakerCount = speakerCount;
+        this.speakerName = speakerName;
+        this.pool = pool;
+        this.poolOffset = poolOffset;
+    }
+    
+    public int stringCount() {
+        return poolOffset.length - 1;
+    }
+    
+    public String string(int id) {
+        return new String(pool, poolOffset[id], poolOffset[id + 1] - poolOffset[id], StandardCharsets.UTF_8);
+    }
+    
+    public String segmentText(int segment) {
+        return string(segmentText[segment]);
+    }
+    
+    public String wordText(int word) {
+        return string(wordText[word]);
+    }
+    
+    /**
+     * Display name of a 1-based speaker id, or null for 0
+     */
+    public String speakerName(int speaker) {
+        return speaker > 0 ? string(speakerName[speaker - 1]) : null;
+    }
+    
+    public int firstWordOfSegment(int segment) {
+        return segmentFirstWord[segment];
+    }
+    
+    public int endWordOfSegment(int segment) {
+        return segmentFirstWord[segment + 1];
+    }
+    
+    public boolean hasSpeakers() {
+        return speakerCount > 0;
+    }
+    
+    /**
+     * Write to file through a temporary file and a rename, so readers never see half a timeline
+     */
+    public void writeTo(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(toBytes());
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not move timeline into place: " + file);
+        }
+    }
+    
+    /**
+     * The timeline in the file format, for storing it somewhere other than a file of its own
+     */
+    public byte[] toBytes() throws IOException {
+        int strings = stringCount();
+        long size = HEADER_BYTES
+            + 4L * (strings + 1) + padded(pool.length)
+            + 4L * speakerCount
+            + 4L * segmentCount * 4 + 4L * (segmentCount + 1)
+            + 4L * wordCount * 3;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Timeline too large: " + size + " bytes");
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(strings).putInt(pool.length)
+            .putInt(speakerCount).putInt(segmentCount).putInt(wordCount);
+        putInts(buffer, poolOffset, strings + 1);
+        buffer.put(pool);
+        buffer.position(buffer.position() + padded(pool.length) - pool.length);
+        putInts(buffer, speakerName, speakerCount);
+        putFloats(buffer, segmentStart, segmentCount);
+        putFloats(buffer, segmentEnd, segmentCount);
+        putInts(buffer, segmentSpeaker, segmentCount);
+        putInts(buffer, segmentText, segmentCount);
+        putInts(buffer, segmentFirstWord, segmentCount + 1);
+        putFloats(buffer, wordStart, wordCount);
+        putFloats(buffer, wordEnd, wordCount);
+        putInts(buffer, wordText, wordCount);
+        return buffer.array();
+    }
+    
+    /**
+     * Load a timeline written by writeTo. The file is memory-mapped and each column is copied
+     * out in one bulk read.
+     */
+    public static TranscriptTimeline read(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Truncated timeline: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(mapped, size, file.toString());
+        }
+    }
+    
+    /**
+     * Load a timeline from bytes made by toBytes
+     */
+    public static TranscriptTimeline fromBytes(byte[] data) throws IOException {
+        if (data.length < HEADER_BYTES) {
+            throw new IOException("Truncated timeline bytes");
+        }
+        return decode(ByteBuffer.wrap(data), data.length, "timeline bytes");
+    }
+    
+    private static TranscriptTimeline decode(ByteBuffer data, long size, String source) throws IOException {
+        ByteBuffer buffer = data.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a timeline file: " + source);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported timeline version " + version);
+        }
+        int strings = buffer.getInt();
+        int poolBytes = buffer.getInt();
+        int speakers = buffer.getInt();
+        int segments = buffer.getInt();
+        int words = buffer.getInt();
+        
+        long expected = HEADER_BYTES + 4L * (strings + 1) + padded(poolBytes) + 4L * speakers
+            + 4L * segments * 4 + 4L * (segments + 1) + 4L * words * 3;
+        if (strings < 0 || poolBytes < 0 || speakers < 0 || segments < 0 || words < 0 || expected != size) {
+            throw new IOException("Corrupt timeline: " + source);
+        }
+        
+        int[] poolOffset = getInts(buffer, strings + 1);
+        byte[] pool = new byte[poolBytes];
+        buffer.get(pool);
+        buffer.position(buffer.position() + padded(poolBytes) - poolBytes);
+        int[] speakerName = getInts(buffer, speakers);
+        float[] segmentStart = getFloats(buffer, segments);
+        float[] segmentEnd = getFloats(buffer, segments);
+        int[] segmentSpeaker = getInts(buffer, segments);
+        int[] segmentText = getInts(buffer, segments);
+        int[] segmentFirstWord = getInts(buffer, segments + 1);
+        float[] wordStart = getFloats(buffer, words);
+        float[] wordEnd = getFloats(buffer, words);
+        int[] wordText = getInts(buffer, words);
+        
+        return new TranscriptTimeline(segments, segmentStart, segmentEnd, segmentSpeaker, segmentText,
+            segmentFirstWord, words, wordStart, wordEnd, wordText, speakers, speakerName, pool, poolOffset);
+    }
+    
+    private static int padded(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+    
+    private static void putInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+    
+    private static void putFloats(ByteBuffer buffer, float[] values, int count) {
+        buffer.asFloatBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + 4 * count);
+    }
+    
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+    
+    private static float[] getFloats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+    
+    /**
+     * Collects a timeline segment by segment; each segment's words follow it. Repeated strings
+     * (words, speaker names) are stored once.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> interned = new HashMap<>();
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream(4096);
+        private int[] poolOffset = new int[257];
+        private int stringCount;
+        
+        private int speakerCount;
+        private int[] speakerName = new int[8];
+        
+        private int segmentCount;
+        private float[] segmentStart = new float[64];
+        private float[] segmentEnd = new float[64];
+        private int[] segmentSpeaker = new int[64];
+        private int[] segmentText = new int[64];
+        private int[] segmentFirstWord = new int[65];
+        
+        private int wordCount;
+        private float[] wordStart = new float[256];
+        private float[] wordEnd = new float[256];
+        private int[] wordText = new int[256];
+        
+        /**
+         * Name the next speaker; speakers are numbered 1, 2, ... in the order they are added
+         *
+         * @return the speaker's id
+         */
+        public int addSpeaker(String name) {
+            if (speakerCount == speakerName.length) {
+                speakerName = Arrays.copyOf(speakerName, speakerCount * 2);
+            }
+            speakerName[speakerCount++] = intern(name);
+            return speakerCount;
+        }
+        
+        public Builder addSegment(float start, float end, int speaker, String text) {
+            if (segmentCount == segmentStart.length) {
+                int capacity = segmentCount * 2;
+                segmentStart = Arrays.copyOf(segmentStart, capacity);
+                segmentEnd = Arrays.copyOf(segmentEnd, capacity);
+                segmentSpeaker = Arrays.copyOf(segmentSpeaker, capacity);
+                segmentText = Arrays.copyOf(segmentText, capacity);
+                segmentFirstWord = Arrays.copyOf(segmentFirstWord, capacity + 1);
+            }
+            segmentStart[segmentCount] = start;
+            segmentEnd[segmentCount] = end;
+            segmentSpeaker[segmentCount] = speaker;
+            segmentText[segmentCount] = intern(text);
+            segmentFirstWord[segmentCount] = wordCount;
+            segmentCount++;
+            return this;
+        }
+        
+        /**
+         * Add a word to the most recently added segment
+         */
+        public Builder addWord(float start, float end, String text) {
+            if (wordCount == wordStart.length) {
+                int capacity = wordCount * 2;
+                wordStart = Arrays.copyOf(wordStart, capacity);
+                wordEnd = Arrays.copyOf(wordEnd, capacity);
+                wordText = Arrays.copyOf(wordText, capacity);
+            }
+            wordStart[wordCount] = start;
+            wordEnd[wordCount] = end;
+            wordText[wordCount] = intern(text);
+            wordCount++;
+            return this;
+        }
+        
+        private int intern(String value) {
+            if (value == null) value = "";
+            Integer id = interned.get(value);
+            if (id != null) {
+                return id;
+            }
+            
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            pool.write(bytes, 0, bytes.length);
+            if (stringCount + 2 > poolOffset.length) {
+                poolOffset = Arrays.copyOf(poolOffset, poolOffset.length * 2);
+            }
+            poolOffset[stringCount + 1] = pool.size();
+            interned.put(value, stringCount);
+            return stringCount++;
+        }
+        
+        public TranscriptTimeline build() {
+            int[] firstWord = Arrays.copyOf(segmentFirstWord, segmentCount + 1);
+            firstWord[segmentCount] = wordCount;
+            return new TranscriptTimeline(segmentCount,
+                Arrays.copyOf(segmentStart, segmentCount), Arrays.copyOf(segmentEnd, segmentCount),
+                Arrays.copyOf(segmentSpeaker, segmentCount), Arrays.copyOf(segmentText, segmentCount), firstWord,
+                wordCount, Arrays.copyOf(wordStart, wordCount), Arrays.copyOf(wordEnd, wordCount),
+                Arrays.copyOf(wordText, wordCount), speakerCount, Arrays.copyOf(speakerName, speakerCount),
+                pool.toByteArray(), Arrays.copyOf(poolOffset, stringCount + 1));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package ai.intelliswarm.meetingmate.data;
+
+import android.content.Context;
+import android.util.Log;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of transcription results, keyed by the audio content hash plus
+ * provider, language, model and how speakers are named. Re-transcribing the same recording with the same
+ * settings returns the stored transcript without touching the network.
+ */
+public class TranscriptionCache {
+    
+    private static final String TAG = "TranscriptionCache";
+    private static final String CACHE_FOLDER = "transcription_cache";
+    private static final long MAX_CACHE_BYTES = 50L * 1024 * 1024;
+    
+    private static TranscriptionCache instance;
+    
+    private final DiskLruCache store;
+    
+    // Content hashes of files we've already read, invalidated when the file changes
+    private final Map<String, String> hashMemo = new ConcurrentHashMap<>();
+    
+    /**
+     * A cached transcription result
+     */
+    public static class Entry {
+        public final String transcript;
+        public final String segments;
+        // Null for results stored without one
+        public final TranscriptTimeline timeline;
+        
+        public Entry(String transcript, String segments, TranscriptTimeline timeline) {
+            this.transcript = transcript;
+            this.segments = segments;
+            this.timeline = timeline;
+        }
+    }
+    
+    public TranscriptionCache(File directory, long maxBytes) {
+        this.store = new DiskLruCache(directory, maxBytes);
+    }
+    
+    public static synchronized TranscriptionCache getInstance(Context context) {
+        if (instance == null) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), CACHE_FOLDER);
+            instance = new TranscriptionCache(directory, MAX_CACHE_BYTES);
+        }
+        return instance;
+    }
+    
+    /**
+     * Build the cache key for a transcription request whose result has no speaker labels.
+     * Reads the whole file the first time, so call it off the main thread.
+     */
+    public String keyFor(File audioFile, String provider, String language, String model) throws IOException {
+        return keyFor(audioFile, provider, language, model, "none");
+    }
+    
+    /**
+     * As above, for results with speaker labels: speakerNaming stands for whatever decides the
+     * labels (whether voices are remembered, and the names given to them)
+     */
+    public String keyFor(File audioFile, String provider, String language, String model,
+                         String speakerNaming) throws IOException {
+        String contentHash = contentHash(audioFile);
+        String normalizedLanguage = language == null || language.isEmpty() ? "auto" : language;
+        return sha256(contentHash + '|' + provider + '|' + normalizedLanguage + '|' + model + '|' + speakerNaming);
+    }
+    
+    public Entry get(String key) {
+        String raw = store.get(key);
+        if (raw == null) {
+            return null;
+        }
+        
+        try {
+            JSONObject json = new JSONObject(raw);
+            Log.d(TAG, "Cache hit " + key.substring(0, 12));
+            TranscriptTimeline timeline = json.has("timeline")
+                ? TranscriptTimeline.fromBytes(Base64.getDecoder().decode(json.getString("timeline")))
+                : null;
+            return new Entry(json.getString("transcript"), json.optString("segments", null), timeline);
+        } catch (JSONException | IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Corrupt cache entry, discarding", e);
+            store.remove(key);
+            return null;
+        }
+    }
+    
+    public void put(String key, String transcript, String segments) {
+        put(key, transcript, segments, null);
+    }
+    
+    /**
+     * Store a result, with the timeline the provider made for it when there is one
+     */
+    public void put(String key, String transcript, String segments, TranscriptTimeline timeline) {
+        if (transcript == null || transcript.trim().isEmpty()) {
+            return; // Never cache empty results, the next attempt might succeed
+        }
+        
+        try {
+            JSONObject json = new JSONObject();
+            json.put("transcript", transcript);
+            if (segments != null) {
+                json.put("segments", segments);
+            }
+            if (timeline != null) {
+                json.put("timeline", Base64.getEncoder().encodeToString(timeline.toBytes()));
+            }
+            json.put("created_at", System.currentTimeMillis());
+            store.put(key, json.toString());
+        } catch (JSONException | IOException e) {
+            Log.w(TAG, "Failed to serialize cache entry", e);
+        }
+    }
+    
+    public void clear() {
+        store.clear();
+        hashMemo.clear();
+    }
+    
+    private String contentHash(File file) throws IOException {
+        String memoKey = file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified();
+        String cached = hashMemo.get(memoKey);
+        if (cached != null) {
+            return cached;
+        }
+        
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        
+        String hash = toHex(digest.digest());
+        hashMemo.put(memoKey, hash);
+        return hash;
+    }
+    
+    public static String sha256(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import androidx.core.content.FileProvider;
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfWriter;
 // Apache POI disabled for Android 15 compatibility
@@ -33,8 +34,20 @@ public class TranscriptExporter {
      * Export transcript (simplified version for TranscriptViewerActivity)
      */
     public boolean exportTranscript(String meetingId, String meetingTitle, String transcript, Date meetingDate) {
+        return exportTranscript(meetingId, meetingTitle, transcript, meetingDate, null);
+    }
+    
+    /**
+     * Export transcript, plus SRT subtitles when the meeting has a stored timeline
+     */
+    public boolean exportTranscript(String meetingId, String meetingTitle, String transcript, Date meetingDate,
+                                    TranscriptTimeline timeline) {
         try {
-            File exportedFile = exportToTXT(transcript, meetingTitle != null ? meetingTitle : "Untitled Meeting");
+            String title = meetingTitle != null ? meetingTitle : "Untitled Meeting";
+            File exportedFile = exportToTXT(transcript, title);
+            if (timeline != null && timeline.segmentCount > 0) {
+                exportToSRT(transcript, title, new TranscriptSegments(timeline));
+            }
             return exportedFile != null && exportedFile.exists();
         } catch (Exception e) {
             return false;
@@ -86,15 +99,15 @@ public class TranscriptExporter {
         
         // Add transcript with speaker formatting
         if (segments != null && segments.hasSegments()) {
-            for (TranscriptSegments.Segment segment : segments.getSegments()) {
+            for (int i = 0; i < segments.size(); i++) {
                 // Speaker label
                 Font speakerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-                Paragraph speaker = new Paragraph(segment.getSpeakerLabel() + ":", speakerFont);
+                Paragraph speaker = new Paragraph(segments.getSpeakerLabel(i) + ":", speakerFont);
                 document.add(speaker);
                 
                 // Transcript text
                 Font textFont = FontFactory.getFont(FontFactory.HELVETICA, 11);
-                Paragraph text = new Paragraph(segment.getText(), textFont);
+                Paragraph text = new Paragraph(segments.getText(i), textFont);
                 text.setIndentationLeft(20);
                 document.add(text);
                 document.add(new Paragraph("\n"));
@@ -143,18 +156,18 @@ public class TranscriptExporter {
         try (FileWriter writer = new FileWriter(file)) {
             if (segments != null && segments.hasTimestamps()) {
                 int counter = 1;
-                for (TranscriptSegments.Segment segment : segments.getSegments()) {
+                for (int i = 0; i < segments.size(); i++) {
                     // Subtitle number
                     writer.write(counter + "\n");
                     
                     // Timestamp (format: 00:00:00,000 --> 00:00:05,000)
-                    writer.write(formatSRTTime(segment.getStartTime()) + " --> " + 
-                               formatSRTTime(segment.getEndTime()) + "\n");
+                    writer.write(formatSRTTime(segments.getStartTime(i)) + " --> " + 
+                               formatSRTTime(segments.getEndTime(i)) + "\n");
                     
                     // Text (with speaker if available)
-                    String text = segment.hasSpeaker() ? 
-                        "[" + segment.getSpeakerLabel() + "] " + segment.getText() : 
-                        segment.getText();
+                    String text = segments.hasSpeaker(i) ? 
+                        "[" + segments.getSpeakerLabel(i) + "] " + segments.getText(i) : 
+                        segments.getText(i);
                     writer.write(text + "\n\n");
                     
                     counter++;
@@ -188,17 +201,17 @@ public class TranscriptExporter {
             writer.write("WEBVTT\n\n");
             
             if (segments != null && segments.hasTimestamps()) {
-                for (TranscriptSegments.Segment segment : segments.getSegments()) {
+                for (int i = 0; i < segments.size(); i++) {
                     // Timestamp
-                    writer.write(formatVTTTime(segment.getStartTime()) + " --> " + 
-                               formatVTTTime(segment.getEndTime()) + "\n");
+                    writer.write(formatVTTTime(segments.getStartTime(i)) + " --> " + 
+                               formatVTTTime(segments.getEndTime(i)) + "\n");
                     
                     // Text with speaker
-                    if (segment.hasSpeaker()) {
-                        writer.write("<v " + segment.getSpeakerLabel() + ">");
+                    if (segments.hasSpeaker(i)) {
+                        writer.write("<v " + segments.getSpeakerLabel(i) + ">");
                     }
-                    writer.write(segment.getText());
-                    if (segment.hasSpeaker()) {
+                    writer.write(segments.getText(i));
+                    if (segments.hasSpeaker(i)) {
                         writer.write("</v>");
                     }
                     writer.write("\n\n");
@@ -236,9 +249,9 @@ public class TranscriptExporter {
             writer.write("## Transcript\n\n");
             
             if (segments != null && segments.hasSegments()) {
-                for (TranscriptSegments.Segment segment : segments.getSegments()) {
-                    writer.write("**" + segment.getSpeakerLabel() + ":** ");
-                    writer.write(segment.getText() + "\n\n");
+                for (int i = 0; i < segments.size(); i++) {
+                    writer.write("**" + segments.getSpeakerLabel(i) + ":** ");
+                    writer.write(segments.getText(i) + "\n\n");
                 }
             } else {
                 writer.write(transcript + "\n");
@@ -317,25 +330,74 @@ public class TranscriptExporter {
     }
     
     /**
-     * Data class for transcript segments
+     * Data class for transcript segments. Either a list of Segment objects, or a view over a
+     * stored TranscriptTimeline whose columns are read directly.
      */
     public static class TranscriptSegments {
         private java.util.List<Segment> segments = new java.util.ArrayList<>();
+        private final TranscriptTimeline timeline;
+        
+        public TranscriptSegments() {
+            this.timeline = null;
+        }
+        
+        public TranscriptSegments(TranscriptTimeline timeline) {
+            this.timeline = timeline;
+        }
         
         public void addSegment(Segment segment) {
+            if (timeline != null) {
+                throw new UnsupportedOperationException("Timeline-backed segments are read-only");
+            }
             segments.add(segment);
         }
         
+        /**
+         * Segments as objects; for a timeline view these are created on every call
+         */
         public java.util.List<Segment> getSegments() {
-            return segments;
+            if (timeline == null) {
+                return segments;
+            }
+            java.util.List<Segment> copy = new java.util.ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                copy.add(new Segment(getText(i), hasSpeaker(i) ? getSpeakerLabel(i) : null, getStartTime(i), getEndTime(i)));
+            }
+            return copy;
+        }
+        
+        public int size() {
+            return timeline != null ? timeline.segmentCount : segments.size();
+        }
+        
+        public String getText(int i) {
+            return timeline != null ? timeline.segmentText(i) : segments.get(i).getText();
+        }
+        
+        public String getSpeakerLabel(int i) {
+            if (timeline == null) return segments.get(i).getSpeakerLabel();
+            String name = timeline.speakerName(timeline.segmentSpeaker[i]);
+            return name != null ? name : "Speaker";
+        }
+        
+        public boolean hasSpeaker(int i) {
+            return timeline != null ? timeline.segmentSpeaker[i] > 0 : segments.get(i).hasSpeaker();
+        }
+        
+        public long getStartTime(int i) {
+            return timeline != null ? Math.round(timeline.segmentStart[i] * 1000.0) : segments.get(i).getStartTime();
+        }
+        
+        public long getEndTime(int i) {
+            return timeline != null ? Math.round(timeline.segmentEnd[i] * 1000.0) : segments.get(i).getEndTime();
         }
         
         public boolean hasSegments() {
-            return !segments.isEmpty();
+            return size() > 0;
         }
         
         public boolean hasTimestamps() {
-            return hasSegments() && segments.get(0).hasTimestamp();
+            return hasSegments() && getEndTime(0) > 0;
         }
         
         public static class Segment {
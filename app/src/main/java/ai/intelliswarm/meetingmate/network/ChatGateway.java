@@ -0,0 +1,433 @@
+package ai.intelliswarm.meetingmate.network;
+
+import android.util.Log;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.transcription.TokenCounter;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one way chat completions leave the app. Every call waits for its model's request and
+ * token budgets (token buckets refilled at the per-minute limits, which the API's rate limit
+ * headers keep up to date), is retried with jittered exponential backoff on 429 and 5xx
+ * responses, honouring Retry-After, and identical requests already in flight share one call.
+ * Attempts that fail give their reservation back, and a successful call gives back whatever
+ * its estimate reserved beyond the usage the API reports.
+ */
+public final class ChatGateway {
+    
+    private static final String TAG = "ChatGateway";
+    private static final String CHAT_URL = "https://api.openai.com/v1/chat/completions";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BACKOFF_BASE_MS = 500;
+    private static final long BACKOFF_CAP_MS = 30_000;
+    // Spread of the wait after a Retry-After, so paused callers do not all come back at once
+    private static final long RETRY_AFTER_JITTER_MS = 250;
+    // A server asking for a longer wait than this is not worth blocking a thread for
+    private static final long MAX_RETRY_AFTER_MS = 60_000;
+    // Buckets hold ten seconds of the per-minute limit, so a burst cannot use a whole minute at once
+    private static final double BURST_SECONDS = 10;
+    private static final int ASYNC_THREADS = 4;
+    
+    // Limits assumed until the API reports the account's own
+    private static final int DEFAULT_REQUESTS_PER_MINUTE = 500;
+    private static final int DEFAULT_TOKENS_PER_MINUTE = 200_000;
+    
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+    
+    /**
+     * Result of an asynchronous call, delivered on one of the gateway's threads
+     */
+    public interface ResultCallback {
+        void onResponse(String responseBody);
+        void onFailure(IOException e);
+    }
+    
+    /**
+     * Where calls get their HTTP client, HttpClientProvider unless a test supplies its own
+     */
+    public interface ClientSource {
+        OkHttpClient get(HttpClientProvider.Profile profile);
+    }
+    
+    /**
+     * The API answered with an error status
+     */
+    public static class ApiException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        public final int code;
+        public final String body;
+        
+        ApiException(int code, String body) {
+            super("API Error: " + code);
+            this.code = code;
+            this.body = body;
+        }
+    }
+    
+    private static ChatGateway instance;
+    
+    private final Map<String, ModelLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService asyncPool;
+    private final ClientSource clients;
+    
+    private ChatGateway() {
+        this(HttpClientProvider::get);
+    }
+    
+    public ChatGateway(ClientSource clients) {
+        this.clients = clients;
+        AtomicInteger threads = new AtomicInteger();
+        asyncPool = Executors.newFixedThreadPool(ASYNC_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "ChatGateway-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public static synchronized ChatGateway getInstance() {
+        if (instance == null) {
+            instance = new ChatGateway();
+        }
+        return instance;
+    }
+    
+    /**
+     * Send a chat completion and return the response body. Blocks through rate limit waits and
+     * retries; a request identical to one in flight waits for that one's answer instead.
+     */
+    public String complete(String apiKey, JSONObject body, HttpClientProvider.Profile profile) throws IOException {
+        return complete(apiKey, body, profile, MAX_ATTEMPTS);
+    }
+    
+    public String complete(String apiKey, JSONObject body, HttpClientProvider.Profile profile, int maxAttempts)
+            throws IOException {
+        String payload = body.toString();
+        String key = apiKey + '\n' + maxAttempts + '\n' + payload;
+        
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            Log.d(TAG, "Joining identical request in flight");
+            return await(running);
+        }
+        
+        try {
+            String result;
+            try (Response response = send(apiKey, body, payload, profile, maxAttempts)) {
+                result = response.body() != null ? response.body().string() : "";
+            }
+            limiterFor(body).settle(estimateTokens(body), usedTokens(result));
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+    
+    /**
+     * Send a streamed chat completion and return the response once its headers are in; the caller
+     * reads and closes it, then calls settle(). Retried like complete() up to that point, but never
+     * shared.
+     */
+    public Response stream(String apiKey, JSONObject body, HttpClientProvider.Profile profile) throws IOException {
+        return send(apiKey, body, body.toString(), profile, MAX_ATTEMPTS);
+    }
+    
+    /**
+     * Give back what a stream() call reserved beyond what it used, once the caller has read the
+     * reply. usedTokens is the total_tokens of the usage the stream ended with, or -1 if it sent none.
+     */
+    public void settle(JSONObject body, int usedTokens) {
+        limiterFor(body).settle(estimateTokens(body), usedTokens);
+    }
+    
+    /**
+     * complete() on a gateway thread
+     */
+    public void enqueue(String apiKey, JSONObject body, HttpClientProvider.Profile profile, ResultCallback callback) {
+        enqueue(apiKey, body, profile, MAX_ATTEMPTS, callback);
+    }
+    
+    public void enqueue(String apiKey, JSONObject body, HttpClientProvider.Profile profile, int maxAttempts,
+                        ResultCallback callback) {
+        asyncPool.execute(() -> {
+            String result;
+            try {
+                result = complete(apiKey, body, profile, maxAttempts);
+            } catch (IOException e) {
+                callback.onFailure(e);
+                return;
+            }
+            callback.onResponse(result);
+        });
+    }
+    
+    private static String await(CompletableFuture<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted");
+        }
+    }
+    
+    /**
+     * Wait for the budget, send, and retry until a successful response or a final failure
+     */
+    private Response send(String apiKey, JSONObject body, String payload, HttpClientProvider.Profile profile,
+                          int maxAttempts) throws IOException {
+        OkHttpClient client = clients.get(profile);
+        ModelLimiter limiter = limiterFor(body);
+        int tokens = estimateTokens(body);
+        Request request = new Request.Builder()
+            .url(CHAT_URL)
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Content-Type", "application/json")
+            .post(RequestBody.create(payload, JSON))
+            .build();
+        
+        for (int attempt = 1; ; attempt++) {
+            sleep(limiter.acquire(tokens));
+            
+            long retryAfterMs = -1;
+            IOException failure;
+            Response response = null;
+            boolean succeeded = false;
+            try {
+                response = client.newCall(request).execute();
+                limiter.adopt(response);
+                if (response.isSuccessful()) {
+                    succeeded = true;
+                    return response;
+                }
+                
+                String errorBody = response.body() != null ? response.body().string() : "";
+                failure = new ApiException(response.code(), errorBody);
+                Log.w(TAG, limiter.model + " answered " + response.code() + " (attempt " + attempt + "): " + errorBody);
+                if (!isRetryable(response.code(), errorBody)) {
+                    throw failure;
+                }
+                retryAfterMs = retryAfterMs(response);
+            } catch (ApiException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
+                Log.w(TAG, limiter.model + " request failed (attempt " + attempt + "): " + e.getMessage());
+            } finally {
+                if (!succeeded) {
+                    // The next attempt reserves again
+                    limiter.release(tokens);
+                    if (response != null) {
+                        response.close();
+                    }
+                }
+            }
+            
+            if (attempt >= maxAttempts) {
+                throw failure;
+            }
+            if (retryAfterMs > MAX_RETRY_AFTER_MS) {
+                Log.w(TAG, limiter.model + " asked to wait " + retryAfterMs + "ms, giving up");
+                throw failure;
+            }
+            
+            long delay;
+            if (retryAfterMs >= 0) {
+                delay = retryAfterMs + ThreadLocalRandom.current().nextLong(RETRY_AFTER_JITTER_MS);
+                // Everyone else calling this model waits too, rather than collect 429s of their own
+                limiter.pauseFor(delay);
+            } else {
+                // Full jitter: anywhere up to the exponential step
+                long step = Math.min(BACKOFF_CAP_MS, BACKOFF_BASE_MS << Math.min(attempt - 1, 16));
+                delay = ThreadLocalRandom.current().nextLong(step + 1);
+            }
+            Log.d(TAG, "Retrying " + limiter.model + " in " + delay + "ms");
+            sleep(delay);
+        }
+    }
+    
+    /**
+     * Rate limits and server errors pass; an exhausted quota or a bad request will not
+     */
+    public static boolean isRetryable(int code, String errorBody) {
+        if (code == 429) {
+            return !errorBody.contains("insufficient_quota");
+        }
+        return code == 408 || code == 409 || code >= 500;
+    }
+    
+    /**
+     * Wait the server asks for, from retry-after-ms or Retry-After (seconds or an HTTP date); -1 if none
+     */
+    public static long retryAfterMs(Response response) {
+        String millis = response.header("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Math.max(0, (long) Double.parseDouble(millis.trim()));
+            } catch (NumberFormatException ignored) {
+                // Fall through to Retry-After
+            }
+        }
+        
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, ZonedDateTime.parse(value.trim(), HTTP_DATE).toInstant().toEpochMilli()
+                    - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+    
+    private ModelLimiter limiterFor(JSONObject body) {
+        String model = body.optString("model", "unknown");
+        return limiters.computeIfAbsent(model, ModelLimiter::new);
+    }
+    
+    /**
+     * What the API counts against the token limit: the prompt, as TokenCounter estimates it with
+     * the chat format's few tokens per message, plus max_tokens
+     */
+    static int estimateTokens(JSONObject body) {
+        TokenCounter counter = TokenCounter.getInstance();
+        int tokens = 0;
+        JSONArray messages = body.optJSONArray("messages");
+        if (messages != null) {
+            for (int i = 0; i < messages.length(); i++) {
+                JSONObject message = messages.optJSONObject(i);
+                if (message != null) {
+                    tokens += counter.count(message.optString("content", "")) + 4;
+                }
+            }
+        }
+        return tokens + body.optInt("max_tokens", 0);
+    }
+    
+    private static int usedTokens(String responseBody) {
+        try {
+            JSONObject usage = new JSONObject(responseBody).optJSONObject("usage");
+            return usage != null ? usage.optInt("total_tokens", -1) : -1;
+        } catch (JSONException e) {
+            return -1;
+        }
+    }
+    
+    private static void sleep(long millis) throws IOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted");
+        }
+    }
+    
+    /**
+     * Request and token budgets of one model
+     */
+    static final class ModelLimiter {
+        final String model;
+        final TokenBucket requests;
+        final TokenBucket tokens;
+        private volatile long pausedUntil;
+        
+        ModelLimiter(String model) {
+            this.model = model;
+            long now = System.currentTimeMillis();
+            this.requests = new TokenBucket(DEFAULT_REQUESTS_PER_MINUTE, BURST_SECONDS, now);
+            this.tokens = new TokenBucket(DEFAULT_TOKENS_PER_MINUTE, BURST_SECONDS, now);
+        }
+        
+        /**
+         * Reserve one request and the given tokens; returns how long to wait before sending
+         */
+        long acquire(int tokenCount) {
+            long now = System.currentTimeMillis();
+            long wait = Math.max(requests.reserve(1, now), tokens.reserve(tokenCount, now));
+            return Math.max(wait, pausedUntil - now);
+        }
+        
+        /**
+         * Give back the reservation of an attempt that failed
+         */
+        void release(int tokenCount) {
+            requests.refund(1);
+            tokens.refund(tokenCount);
+        }
+        
+        void pauseFor(long millis) {
+            pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + millis);
+        }
+        
+        /**
+         * Give back what the estimate reserved beyond what the call used
+         */
+        void settle(int estimated, int used) {
+            if (used >= 0) {
+                tokens.refund(estimated - used);
+            }
+        }
+        
+        /**
+         * Take the account's limits from the response headers when they are sent
+         */
+        void adopt(Response response) {
+            int requestLimit = parseLimit(response.header("x-ratelimit-limit-requests"));
+            int tokenLimit = parseLimit(response.header("x-ratelimit-limit-tokens"));
+            if (requestLimit > 0) {
+                requests.setPerMinute(requestLimit);
+            }
+            if (tokenLimit > 0) {
+                tokens.setPerMinute(tokenLimit);
+            }
+        }
+        
+        private static int parseLimit(String value) {
+            if (value == null) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ai.intelliswarm.meetingmate.network;
+
+import android.util.Log;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * App-wide HTTP layer. Every API caller gets a client derived from one shared base client,
+ * so they all share the same connection pool, dispatcher, TLS sessions and DNS cache.
+ * Only the timeouts differ between endpoint profiles.
+ */
+public final class HttpClientProvider {
+    
+    private static final String TAG = "HttpClientProvider";
+    
+    // Connection pool sized for parallel chunk uploads plus summary/title calls
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final long DNS_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    
+    /**
+     * Timeout profiles for the kinds of endpoints we call
+     */
+    public enum Profile {
+        // Large multipart audio uploads and long server-side processing
+        TRANSCRIPTION_UPLOAD(30, 120, 300),
+        // Chat completions (summaries) that may take a while to generate
+        CHAT_COMPLETION(30, 30, 120),
+        // Small requests: titles, key validation, status polling
+        SHORT_REQUEST(15, 30, 60);
+        
+        final long connectSeconds;
+        final long writeSeconds;
+        final long readSeconds;
+        
+        Profile(long connectSeconds, long writeSeconds, long readSeconds) {
+            this.connectSeconds = connectSeconds;
+            this.writeSeconds = writeSeconds;
+            this.readSeconds = readSeconds;
+        }
+    }
+    
+    private static final Map<Profile, OkHttpClient> CLIENTS = new ConcurrentHashMap<>();
+    
+    private HttpClientProvider() {
+    }
+    
+    private static class BaseHolder {
+        static final OkHttpClient BASE = createBaseClient();
+    }
+    
+    private static OkHttpClient createBaseClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        
+        Log.d(TAG, "Creating shared HTTP client");
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(dispatcher)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .dns(new CachingDns(DNS_TTL_MS))
+            .retryOnConnectionFailure(true)
+            .build();
+    }
+    
+    /**
+     * Get the shared client configured for the given endpoint profile
+     */
+    public static OkHttpClient get(Profile profile) {
+        return CLIENTS.computeIfAbsent(profile, p -> BaseHolder.BASE.newBuilder()
+            .connectTimeout(p.connectSeconds, TimeUnit.SECONDS)
+            .writeTimeout(p.writeSeconds, TimeUnit.SECONDS)
+            .readTimeout(p.readSeconds, TimeUnit.SECONDS)
+            .build());
+    }
+    
+    /**
+     * Close idle connections, e.g. when the system asks us to trim memory
+     */
+    public static void evictIdleConnections() {
+        BaseHolder.BASE.connectionPool().evictAll();
+    }
+    
+    /**
+     * DNS resolver that remembers lookups for a while and falls back to the last
+     * known addresses when a lookup fails (flaky mobile networks)
+     */
+    private static class CachingDns implements Dns {
+        private final long ttlMs;
+        private final Map<String, CachedLookup> cache = new ConcurrentHashMap<>();
+        
+        CachingDns(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+        
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            long now = System.currentTimeMillis();
+            CachedLookup cached = cache.get(hostname);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.addresses;
+            }
+            
+            try {
+                List<InetAddress> addresses = Dns.SYSTEM.lookup(hostname);
+                cache.put(hostname, new CachedLookup(addresses, now + ttlMs));
+                return addresses;
+            } catch (UnknownHostException e) {
+                if (cached != null) {
+                    Log.w(TAG, "DNS lookup failed for " + hostname + ", using stale addresses");
+                    return cached.addresses;
+                }
+                throw e;
+            }
+        }
+    }
+    
+    private static class CachedLookup {
+        final List<InetAddress> addresses;
+        final long expiresAt;
+        
+        CachedLookup(List<InetAddress> addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
\ No newline at end of file
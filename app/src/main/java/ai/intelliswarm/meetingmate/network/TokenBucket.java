@@ -0,0 +1,58 @@
+package ai.intelliswarm.meetingmate.network;
+
+/**
+ * Token bucket refilled at a per-minute rate that lends: a reservation always succeeds, and the
+ * caller waits until the bucket would have refilled enough to cover it, so waits queue up in
+ * the order they were reserved.
+ */
+public final class TokenBucket {
+    
+    private final double burstSeconds;
+    private double perMs;
+    private double capacity;
+    private double available;
+    private long updatedAt;
+    
+    /**
+     * @param burstSeconds how many seconds of the rate a full bucket holds
+     */
+    public TokenBucket(int perMinute, double burstSeconds, long now) {
+        this.burstSeconds = burstSeconds;
+        setPerMinute(perMinute);
+        this.available = capacity;
+        this.updatedAt = now;
+    }
+    
+    public synchronized void setPerMinute(int perMinute) {
+        perMs = perMinute / 60_000.0;
+        capacity = Math.max(1, perMinute * burstSeconds / 60);
+        available = Math.min(available, capacity);
+    }
+    
+    /**
+     * Take amount (at most a full bucket) and return the wait in ms until it is covered
+     */
+    public synchronized long reserve(double amount, long now) {
+        refill(now);
+        available -= Math.min(amount, capacity);
+        return available >= 0 ? 0 : (long) Math.ceil(-available / perMs);
+    }
+    
+    /**
+     * Give back part of a reservation that turned out not to be needed
+     */
+    public synchronized void refund(double amount) {
+        available = Math.min(capacity, available + amount);
+    }
+    
+    public synchronized double getCapacity() {
+        return capacity;
+    }
+    
+    private void refill(long now) {
+        if (now > updatedAt) {
+            available = Math.min(capacity, available + (now - updatedAt) * perMs);
+            updatedAt = now;
+        }
+    }
+}
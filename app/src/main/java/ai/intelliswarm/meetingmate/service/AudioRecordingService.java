@@ -6,35 +6,83 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
-import android.media.MediaRecorder;
 import android.os.Binder;
 import android.os.Build;
 import android.os.IBinder;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import ai.intelliswarm.meetingmate.MainActivity;
 import ai.intelliswarm.meetingmate.R;
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
+import ai.intelliswarm.meetingmate.audio.CaptureEngine;
+import ai.intelliswarm.meetingmate.audio.FeatureTap;
+import ai.intelliswarm.meetingmate.audio.PcmDecoder;
+import ai.intelliswarm.meetingmate.audio.SegmentEncoder;
+import ai.intelliswarm.meetingmate.audio.SpeechFeatureEngine;
+import ai.intelliswarm.meetingmate.audio.VoiceActivityTap;
+import ai.intelliswarm.meetingmate.data.MeetingFileManager;
+import ai.intelliswarm.meetingmate.data.RecordingManifest;
+import ai.intelliswarm.meetingmate.transcription.ProgressiveTranscriber;
+import ai.intelliswarm.meetingmate.transcription.TranscriptionManager;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AudioRecordingService extends Service {
     private static final String CHANNEL_ID = "MeetingMateRecording";
+    private static final String TAG = "AudioRecordingService";
     private static final int NOTIFICATION_ID = 1;
     
-    private MediaRecorder mediaRecorder;
+    private static final int SAMPLE_RATE = 44100;
+    private static final int AUDIO_BIT_RATE = 128000;
+    // Audio the slowest tap may fall behind before it loses samples
+    private static final double CAPTURE_BUFFER_SECONDS = 4;
+    private static final int FEATURE_COEFFICIENTS = 13;
+    
+    // Audio is recorded in segments of this length, each transcribed as soon as it closes
+    private static final int SEGMENT_SECONDS = 5 * 60;
+    
+    private CaptureEngine captureEngine;
+    private VoiceActivityTap voiceActivity;
     private String currentFilePath;
-    private boolean isRecording = false;
+    private volatile boolean isRecording = false;
+    // Between stopRecording() and the joined file being ready
+    private volatile boolean isFinishing = false;
     private long recordingStartTime;
+    // Why the current (or last) recording stopped on its own; null when it was stopped by the user
+    private volatile String captureError;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    
+    // Segments of the current recording, joined into currentFilePath when it stops. The manifest
+    // lists the closed ones, so a crash loses at most the segment being written.
+    private MeetingFileManager fileManager;
+    private RecordingManifest manifest;
+    private int segmentCount;
+    private ProgressiveTranscriber progressiveTranscriber;
+    private final List<SegmentListener> segmentListeners = new CopyOnWriteArrayList<>();
+    private final List<FeatureTap.Listener> featureListeners = new CopyOnWriteArrayList<>();
     
-    // Store last recording info for backup access
-    private String lastRecordingPath;
-    private long lastRecordingDuration;
+    // Store last recording info for backup access; null from stopRecording() until the join is done
+    private volatile String lastRecordingPath;
+    private volatile long lastRecordingDuration;
     
     private final IBinder binder = new LocalBinder();
     
+    /**
+     * Notified on the encoder thread each time a segment of the current recording is complete
+     */
+    public interface SegmentListener {
+        void onSegmentClosed(File segmentFile, double startSeconds, double endSeconds);
+    }
+    
     public class LocalBinder extends Binder {
         public AudioRecordingService getService() {
             return AudioRecordingService.this;
@@ -45,6 +93,7 @@ public class AudioRecordingService extends Service {
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
+        fileManager = new MeetingFileManager(this);
     }
     
     @Override
@@ -107,7 +156,7 @@ public class AudioRecordingService extends Service {
     }
     
     public void startRecording() {
-        if (isRecording) {
+        if (isRecording || isFinishing) {
             return;
         }
         
@@ -126,18 +175,44 @@ public class AudioRecordingService extends Service {
         String timestamp = sdf.format(new Date());
         currentFilePath = new File(audioDir, "recording_" + timestamp + ".m4a").getAbsolutePath();
         
-        // Setup MediaRecorder
-        mediaRecorder = new MediaRecorder();
-        mediaRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-        mediaRecorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
-        mediaRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
-        mediaRecorder.setAudioEncodingBitRate(128000);
-        mediaRecorder.setAudioSamplingRate(44100);
-        mediaRecorder.setOutputFile(currentFilePath);
+        try {
+            manifest = fileManager.startSegmentedRecording("recording_" + timestamp, new File(currentFilePath));
+        } catch (IOException e) {
+            e.printStackTrace();
+            stopForeground(true);
+            return;
+        }
+        segmentCount = 0;
+        
+        // One capture feeds the encoder, which writes the segments, and the live analysis taps
+        CaptureEngine engine = new CaptureEngine(SAMPLE_RATE, CAPTURE_BUFFER_SECONDS);
+        engine.setFailureListener((name, error) -> tapFailed(engine, name, error));
+        captureError = null;
+        voiceActivity = new VoiceActivityTap(SAMPLE_RATE);
         
+        SegmentEncoder encoder = null;
         try {
-            mediaRecorder.prepare();
-            mediaRecorder.start();
+            encoder = new SegmentEncoder(SAMPLE_RATE, AUDIO_BIT_RATE, SEGMENT_SECONDS,
+                new SegmentEncoder.Output() {
+                    @Override
+                    public File nextSegmentFile() {
+                        return AudioRecordingService.this.nextSegmentFile();
+                    }
+                    
+                    @Override
+                    public void onSegmentClosed(File segmentFile) {
+                        segmentClosed(segmentFile);
+                    }
+                });
+            engine.addTap("encoder", encoder);
+            engine.addTap("vad", voiceActivity);
+            // Listeners may come and go during the recording; with none, the tap skips the analysis
+            engine.addTap("features", new FeatureTap(SAMPLE_RATE, FEATURE_COEFFICIENTS, this::dispatchFeatures,
+                () -> !featureListeners.isEmpty()));
+            
+            progressiveTranscriber = new TranscriptionManager(this).startProgressive();
+            engine.start();
+            captureEngine = engine;
             isRecording = true;
             recordingStartTime = System.currentTimeMillis();
             
@@ -148,52 +223,165 @@ public class AudioRecordingService extends Service {
             
         } catch (IOException e) {
             e.printStackTrace();
+            if (encoder != null) {
+                try {
+                    encoder.finish(); // Never fed, so this only releases the codec
+                } catch (IOException ignored) {
+                    // Released regardless
+                }
+            }
+            deleteSegments();
             stopForeground(true);
         }
     }
     
+    /**
+     * Without the encoder nothing more is written, so the recording stops and keeps the segments
+     * closed so far. The analysis taps are only live extras; their failure shows in the stats.
+     */
+    private void tapFailed(CaptureEngine engine, String name, Exception error) {
+        if (!"encoder".equals(name)) {
+            return;
+        }
+        // Recording state is only changed on the main thread, as by the stop action
+        mainHandler.post(() -> {
+            if (captureEngine == engine) {
+                captureError = "Audio encoding failed: " + error.getMessage();
+                stopRecording();
+            }
+        });
+    }
+    
+    private File nextSegmentFile() {
+        return new File(manifest.directory, String.format(Locale.US, "segment_%03d.m4a", segmentCount++));
+    }
+    
+    private void dispatchFeatures(double startSeconds, SpeechFeatureEngine.Result features) {
+        for (FeatureTap.Listener listener : featureListeners) {
+            listener.onFeatures(startSeconds, features);
+        }
+    }
+    
+    /**
+     * Record a complete segment in the manifest, placed after the previous ones, and hand it to
+     * the progressive transcriber and the segment listeners
+     */
+    private void segmentClosed(File segment) {
+        RecordingManifest.Segment closed;
+        try {
+            closed = manifest.addSegment(segment, Math.max(0, PcmDecoder.probe(segment).durationUs) / 1e6);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not record segment " + segment.getName() + ": " + e.getMessage());
+            return;
+        }
+        if (progressiveTranscriber != null) {
+            progressiveTranscriber.addSegment(segment, closed.startSeconds, closed.endSeconds);
+        }
+        for (SegmentListener listener : segmentListeners) {
+            listener.onSegmentClosed(segment, closed.startSeconds, closed.endSeconds);
+        }
+    }
+    
+    private synchronized void deleteSegments() {
+        if (progressiveTranscriber != null) {
+            progressiveTranscriber.cancel();
+            progressiveTranscriber = null;
+        }
+        if (manifest != null) {
+            fileManager.deleteSegments(manifest);
+        }
+    }
+    
+    /**
+     * Receive speech features of the live signal about once a second, on the feature tap's thread
+     */
+    public void addFeatureListener(FeatureTap.Listener listener) {
+        featureListeners.add(listener);
+    }
+    
+    public void removeFeatureListener(FeatureTap.Listener listener) {
+        featureListeners.remove(listener);
+    }
+    
+    public void addSegmentListener(SegmentListener listener) {
+        segmentListeners.add(listener);
+    }
+    
+    public void removeSegmentListener(SegmentListener listener) {
+        segmentListeners.remove(listener);
+    }
+    
     public void stopRecording() {
-        if (!isRecording || mediaRecorder == null) {
+        if (!isRecording || captureEngine == null) {
             return;
         }
         
-        try {
-            mediaRecorder.stop();
-            mediaRecorder.release();
-            mediaRecorder = null;
-            isRecording = false;
-            
-            long recordingDuration = System.currentTimeMillis() - recordingStartTime;
-            
-            // Store last recording info for backup access
-            lastRecordingPath = currentFilePath;
-            lastRecordingDuration = recordingDuration;
-            
-            // Broadcast recording stopped
-            Intent intent = new Intent("RECORDING_STATE_CHANGED");
-            intent.putExtra("isRecording", false);
-            intent.putExtra("filePath", currentFilePath);
-            intent.putExtra("duration", recordingDuration);
-            sendBroadcast(intent);
-            
-        } catch (RuntimeException e) {
-            e.printStackTrace();
-            // Delete corrupted file
-            if (currentFilePath != null) {
-                File file = new File(currentFilePath);
-                if (file.exists()) {
-                    file.delete();
+        CaptureEngine engine = captureEngine;
+        captureEngine = null;
+        isFinishing = true;
+        isRecording = false;
+        lastRecordingPath = null;
+        
+        long recordingDuration = System.currentTimeMillis() - recordingStartTime;
+        RecordingManifest finished = manifest;
+        File recording = new File(currentFilePath);
+        
+        // Draining the taps and joining the segments run off the main thread
+        new Thread(() -> {
+            try {
+                // The encoder closes the last segment, so only that one is left to transcribe
+                engine.stop();
+                if (finished.getSegments().isEmpty()) {
+                    deleteSegments();
+                    isFinishing = false;
+                    broadcastStopped(null, recordingDuration);
+                    return;
+                }
+                
+                AudioChunker.join(finished.getSegmentFiles(), recording);
+                finished.markComplete();
+                if (progressiveTranscriber == null) {
+                    fileManager.deleteSegments(finished);
                 }
+                
+                // Store last recording info for backup access
+                lastRecordingPath = currentFilePath;
+                lastRecordingDuration = recordingDuration;
+                isFinishing = false;
+                broadcastStopped(currentFilePath, recordingDuration);
+                
+            } catch (IOException e) {
+                // The segments stay in place for recovery on the next start
+                Log.e(TAG, "Failed to join recording segments", e);
+                isFinishing = false;
+                ProgressiveTranscriber transcriber = takeProgressiveTranscriber();
+                if (transcriber != null) {
+                    transcriber.cancel();
+                }
+                broadcastStopped(null, recordingDuration);
+            } finally {
+                isFinishing = false;
+                stopForeground(true);
+                stopSelf();
             }
-        } finally {
-            stopForeground(true);
-            stopSelf();
-        }
+        }).start();
+    }
+    
+    /**
+     * Broadcast recording stopped; filePath is null when there is no recording to process
+     */
+    private void broadcastStopped(String filePath, long duration) {
+        Intent intent = new Intent("RECORDING_STATE_CHANGED");
+        intent.putExtra("isRecording", false);
+        intent.putExtra("filePath", filePath);
+        intent.putExtra("duration", duration);
+        intent.putExtra("error", captureError);
+        sendBroadcast(intent);
     }
     
     public void pauseRecording() {
-        if (isRecording && mediaRecorder != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            mediaRecorder.pause();
+        if (isRecording && captureEngine != null) {
+            captureEngine.pause();
             
             // Update notification
             NotificationManager manager = getSystemService(NotificationManager.class);
@@ -204,8 +392,8 @@ public class AudioRecordingService extends Service {
     }
     
     public void resumeRecording() {
-        if (isRecording && mediaRecorder != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            mediaRecorder.resume();
+        if (isRecording && captureEngine != null) {
+            captureEngine.resume();
             
             // Update notification
             NotificationManager manager = getSystemService(NotificationManager.class);
@@ -219,10 +407,46 @@ public class AudioRecordingService extends Service {
         return isRecording;
     }
     
+    /**
+     * True from stopRecording() until the recording file is joined (or given up on)
+     */
+    public boolean isFinishing() {
+        return isFinishing;
+    }
+    
     public String getCurrentFilePath() {
         return currentFilePath;
     }
     
+    /**
+     * Level of the microphone signal in dB below full scale, for a level meter
+     */
+    public double getInputLevelDbfs() {
+        VoiceActivityTap tap = voiceActivity;
+        return isRecording && tap != null ? tap.getLevelDbfs() : Double.NEGATIVE_INFINITY;
+    }
+    
+    public boolean isSpeechDetected() {
+        VoiceActivityTap tap = voiceActivity;
+        return isRecording && tap != null && tap.isSpeaking();
+    }
+    
+    /**
+     * Per-tap sample and overrun counters of the current recording; empty when not recording
+     */
+    public List<CaptureEngine.TapStats> getCaptureStats() {
+        CaptureEngine engine = captureEngine;
+        return engine != null ? engine.getStats() : Collections.emptyList();
+    }
+    
+    /**
+     * Why the last recording stopped without being asked to, e.g. the encoder failed; null when
+     * it did not
+     */
+    public String getCaptureError() {
+        return captureError;
+    }
+    
     public long getRecordingDuration() {
         if (isRecording) {
             return System.currentTimeMillis() - recordingStartTime;
@@ -230,6 +454,19 @@ public class AudioRecordingService extends Service {
         return 0;
     }
     
+    /**
+     * Take over the transcription of the segments of the last recording, or null when it was not
+     * transcribed progressively. The caller finishes it (or cancels it) and deletes the segments.
+     */
+    public synchronized ProgressiveTranscriber takeProgressiveTranscriber() {
+        if (isRecording || isFinishing) {
+            return null;
+        }
+        ProgressiveTranscriber transcriber = progressiveTranscriber;
+        progressiveTranscriber = null;
+        return transcriber;
+    }
+    
     // Methods for backup access to last recording info
     public String getLastRecordingPath() {
         return lastRecordingPath;
@@ -243,6 +480,9 @@ public class AudioRecordingService extends Service {
     public void onDestroy() {
         if (isRecording) {
             stopRecording();
+        } else if (progressiveTranscriber != null) {
+            // Never picked up: nobody will finish it
+            deleteSegments();
         }
         super.onDestroy();
     }
@@ -5,28 +5,52 @@ import okhttp3.*;
 import org.json.JSONObject;
 import org.json.JSONArray;
 import org.json.JSONException;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
+import ai.intelliswarm.meetingmate.network.ChatGateway;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
+import ai.intelliswarm.meetingmate.transcription.PromptBudgetPlanner;
+import ai.intelliswarm.meetingmate.transcription.SummaryGenerator;
+import ai.intelliswarm.meetingmate.transcription.TokenCounter;
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 public class OpenAIService {
     private static final String TAG = "OpenAIService";
     private static final String WHISPER_API_URL = "https://api.openai.com/v1/audio/transcriptions";
-    private static final String CHAT_API_URL = "https://api.openai.com/v1/chat/completions";
-    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String WHISPER_MODEL = "whisper-1";
+    private static final String CHAT_MODEL = "gpt-4o-mini";
+    // gpt-4o-mini's context window; its tokenizer is close enough to cl100k for budgeting
+    private static final int CHAT_CONTEXT_TOKENS = 128_000;
+    private static final int SUMMARY_MAX_TOKENS = 1000;
+    // Role markers and separators the API adds around the messages
+    private static final int CHAT_FORMAT_TOKENS = 11;
+    private static final String SUMMARY_SYSTEM_PROMPT = "You are a professional meeting assistant. Create concise, well-structured meeting summaries with key points, action items, and decisions made.";
     
-    private final OkHttpClient client;
+    private final OkHttpClient uploadClient;
+    private final ChatGateway gateway;
     private final String apiKey;
+    private final TranscriptionCache transcriptionCache;
+    private final PromptBudgetPlanner summaryPlanner;
+    // Summarizes in parts what does not fit in one request; null leaves such transcripts unsummarized
+    private final SummaryGenerator longTranscripts;
     
     public OpenAIService(String apiKey) {
+        this(apiKey, null);
+    }
+    
+    public OpenAIService(String apiKey, TranscriptionCache transcriptionCache) {
+        this(apiKey, transcriptionCache, null);
+    }
+    
+    public OpenAIService(String apiKey, TranscriptionCache transcriptionCache, SummaryGenerator longTranscripts) {
         this.apiKey = apiKey;
+        this.transcriptionCache = transcriptionCache;
+        this.longTranscripts = longTranscripts;
+        this.summaryPlanner = new PromptBudgetPlanner(TokenCounter.getInstance(), CHAT_CONTEXT_TOKENS, SUMMARY_MAX_TOKENS);
         Log.d(TAG, "OpenAIService created with API key: " + (apiKey != null && !apiKey.isEmpty() ? 
             apiKey.substring(0, Math.min(8, apiKey.length())) + "..." : "EMPTY"));
-        this.client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .build();
+        this.uploadClient = HttpClientProvider.get(HttpClientProvider.Profile.TRANSCRIPTION_UPLOAD);
+        this.gateway = ChatGateway.getInstance();
     }
     
     // Transcribe audio using Whisper API (defaults to auto-detect language)
@@ -36,12 +60,37 @@ public class OpenAIService {
     
     // Transcribe audio using Whisper API with specified language
     public void transcribeAudio(File audioFile, String language, TranscriptionCallback callback) {
+        if (transcriptionCache == null) {
+            sendTranscriptionRequest(audioFile, language, null, callback);
+            return;
+        }
+        
+        // Hashing the recording reads the whole file, keep it off the caller's thread
+        new Thread(() -> {
+            String cacheKey = null;
+            try {
+                cacheKey = transcriptionCache.keyFor(audioFile, "openai_service", language, WHISPER_MODEL);
+                TranscriptionCache.Entry cached = transcriptionCache.get(cacheKey);
+                if (cached != null) {
+                    Log.d(TAG, "Using cached transcription for " + audioFile.getName());
+                    JSONArray segments = cached.segments != null ? new JSONArray(cached.segments) : null;
+                    callback.onSuccess(cached.transcript, segments);
+                    return;
+                }
+            } catch (IOException | JSONException e) {
+                Log.w(TAG, "Transcription cache unavailable: " + e.getMessage());
+            }
+            sendTranscriptionRequest(audioFile, language, cacheKey, callback);
+        }).start();
+    }
+    
+    private void sendTranscriptionRequest(File audioFile, String language, String cacheKey, TranscriptionCallback callback) {
         Log.d(TAG, "Starting audio transcription for file: " + audioFile.getName() + " (size: " + audioFile.length() + " bytes)");
         Log.d(TAG, "Language setting: " + (language != null ? language : "auto-detect"));
         
         MultipartBody.Builder requestBodyBuilder = new MultipartBody.Builder()
             .setType(MultipartBody.FORM)
-            .addFormDataPart("model", "whisper-1")
+            .addFormDataPart("model", WHISPER_MODEL)
             .addFormDataPart("file", audioFile.getName(),
                 RequestBody.create(audioFile, MediaType.parse("audio/mpeg")))
             .addFormDataPart("response_format", "verbose_json");
@@ -61,7 +110,7 @@ public class OpenAIService {
             
         Log.d(TAG, "Sending transcription request to OpenAI API");
         
-        client.newCall(request).enqueue(new Callback() {
+        uploadClient.newCall(request).enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 Log.e(TAG, "Transcription request failed: " + e.getMessage(), e);
@@ -84,6 +133,9 @@ public class OpenAIService {
                         // Get segments if available for timestamps
                         JSONArray segments = json.optJSONArray("segments");
                         
+                        if (cacheKey != null) {
+                            transcriptionCache.put(cacheKey, transcript, segments != null ? segments.toString() : null);
+                        }
                         callback.onSuccess(transcript, segments);
                     } catch (JSONException e) {
                         Log.e(TAG, "Failed to parse transcription JSON response", e);
@@ -113,73 +165,89 @@ public class OpenAIService {
     
     // Generate meeting summary using GPT
     public void generateSummary(String transcript, String meetingTitle, SummaryCallback callback) {
+        // Counting tokens walks the whole transcript, keep it off the caller's thread
+        new Thread(() -> {
+            // Check the budget before uploading: a transcript the model cannot take would only fail server-side
+            String instructions = summaryInstructions(meetingTitle);
+            TokenCounter counter = summaryPlanner.getCounter();
+            PromptBudgetPlanner.Plan plan = summaryPlanner.plan(transcript,
+                counter.count(SUMMARY_SYSTEM_PROMPT) + counter.count(instructions) + CHAT_FORMAT_TOKENS);
+            Log.d(TAG, "Summary plan: " + plan);
+            if (plan.strategy != PromptBudgetPlanner.Strategy.CHUNK) {
+                sendSummaryRequest(instructions + plan.text, callback);
+            } else if (longTranscripts != null) {
+                summarizeInParts(transcript, meetingTitle, callback);
+            } else {
+                callback.onError("Transcript is too long to summarize in one request (" + plan.tokens
+                    + " tokens, limit " + plan.budget + ")");
+            }
+        }).start();
+    }
+    
+    private void summarizeInParts(String transcript, String meetingTitle, SummaryCallback callback) {
+        longTranscripts.generateSummary(transcript, meetingTitle, new SummaryGenerator.SummaryCallback() {
+            @Override
+            public void onSuccess(SummaryGenerator.MeetingSummary summary) {
+                callback.onSuccess(summary.toText());
+            }
+            
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+    
+    private void sendSummaryRequest(String prompt, SummaryCallback callback) {
         try {
             JSONObject requestJson = new JSONObject();
-            requestJson.put("model", "gpt-4o-mini");
+            requestJson.put("model", CHAT_MODEL);
             
             JSONArray messages = new JSONArray();
             
             // System message
             JSONObject systemMessage = new JSONObject();
             systemMessage.put("role", "system");
-            systemMessage.put("content", "You are a professional meeting assistant. Create concise, well-structured meeting summaries with key points, action items, and decisions made.");
+            systemMessage.put("content", SUMMARY_SYSTEM_PROMPT);
             messages.put(systemMessage);
             
             // User message with transcript
             JSONObject userMessage = new JSONObject();
             userMessage.put("role", "user");
-            userMessage.put("content", "Please create a comprehensive meeting summary for the following transcript. " +
-                "Meeting Title: " + meetingTitle + "\n\n" +
-                "Format the summary with:\n" +
-                "1. **Overview** - Brief meeting overview (2-3 sentences)\n" +
-                "2. **Key Discussion Points** - Main topics discussed\n" +
-                "3. **Decisions Made** - Any decisions reached\n" +
-                "4. **Action Items** - Tasks assigned with owners if mentioned\n" +
-                "5. **Next Steps** - Follow-up actions or future meetings\n\n" +
-                "Transcript:\n" + transcript);
+            userMessage.put("content", prompt);
             messages.put(userMessage);
             
             requestJson.put("messages", messages);
             requestJson.put("temperature", 0.7);
-            requestJson.put("max_tokens", 1000);
-            
-            RequestBody body = RequestBody.create(requestJson.toString(), JSON);
+            requestJson.put("max_tokens", SUMMARY_MAX_TOKENS);
             
-            Request request = new Request.Builder()
-                .url(CHAT_API_URL)
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .post(body)
-                .build();
-            
-            client.newCall(request).enqueue(new Callback() {
+            gateway.enqueue(apiKey, requestJson, HttpClientProvider.Profile.CHAT_COMPLETION, new ChatGateway.ResultCallback() {
                 @Override
-                public void onFailure(Call call, IOException e) {
-                    callback.onError("Summary generation failed: " + e.getMessage());
+                public void onFailure(IOException e) {
+                    if (e instanceof ChatGateway.ApiException) {
+                        callback.onError("Summary generation failed with code: " + ((ChatGateway.ApiException) e).code);
+                    } else {
+                        callback.onError("Summary generation failed: " + e.getMessage());
+                    }
                 }
                 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    if (response.isSuccessful()) {
-                        try {
-                            String responseBody = response.body().string();
-                            JSONObject json = new JSONObject(responseBody);
-                            JSONArray choices = json.getJSONArray("choices");
+                public void onResponse(String responseBody) {
+                    try {
+                        JSONObject json = new JSONObject(responseBody);
+                        JSONArray choices = json.getJSONArray("choices");
+                        
+                        if (choices.length() > 0) {
+                            JSONObject choice = choices.getJSONObject(0);
+                            JSONObject message = choice.getJSONObject("message");
+                            String summary = message.getString("content");
                             
-                            if (choices.length() > 0) {
-                                JSONObject choice = choices.getJSONObject(0);
-                                JSONObject message = choice.getJSONObject("message");
-                                String summary = message.getString("content");
-                                
-                                callback.onSuccess(summary);
-                            } else {
-                                callback.onError("No summary generated");
-                            }
-                        } catch (JSONException e) {
-                            callback.onError("Failed to parse summary response: " + e.getMessage());
+                            callback.onSuccess(summary);
+                        } else {
+                            callback.onError("No summary generated");
                         }
-                    } else {
-                        callback.onError("Summary generation failed with code: " + response.code());
+                    } catch (JSONException e) {
+                        callback.onError("Failed to parse summary response: " + e.getMessage());
                     }
                 }
             });
@@ -189,11 +257,23 @@ public class OpenAIService {
         }
     }
     
+    private static String summaryInstructions(String meetingTitle) {
+        return "Please create a comprehensive meeting summary for the following transcript. " +
+            "Meeting Title: " + meetingTitle + "\n\n" +
+            "Format the summary with:\n" +
+            "1. **Overview** - Brief meeting overview (2-3 sentences)\n" +
+            "2. **Key Discussion Points** - Main topics discussed\n" +
+            "3. **Decisions Made** - Any decisions reached\n" +
+            "4. **Action Items** - Tasks assigned with owners if mentioned\n" +
+            "5. **Next Steps** - Follow-up actions or future meetings\n\n" +
+            "Transcript:\n";
+    }
+    
     // Generate meeting title from transcript
     public void generateTitle(String transcriptSnippet, TitleCallback callback) {
         try {
             JSONObject requestJson = new JSONObject();
-            requestJson.put("model", "gpt-4o-mini");
+            requestJson.put("model", CHAT_MODEL);
             
             JSONArray messages = new JSONArray();
             
@@ -211,46 +291,36 @@ public class OpenAIService {
             requestJson.put("temperature", 0.5);
             requestJson.put("max_tokens", 20);
             
-            RequestBody body = RequestBody.create(requestJson.toString(), JSON);
-            
-            Request request = new Request.Builder()
-                .url(CHAT_API_URL)
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .post(body)
-                .build();
-            
-            client.newCall(request).enqueue(new Callback() {
+            gateway.enqueue(apiKey, requestJson, HttpClientProvider.Profile.SHORT_REQUEST, new ChatGateway.ResultCallback() {
                 @Override
-                public void onFailure(Call call, IOException e) {
-                    callback.onError("Title generation failed: " + e.getMessage());
+                public void onFailure(IOException e) {
+                    if (e instanceof ChatGateway.ApiException) {
+                        callback.onError("Title generation failed with code: " + ((ChatGateway.ApiException) e).code);
+                    } else {
+                        callback.onError("Title generation failed: " + e.getMessage());
+                    }
                 }
                 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    if (response.isSuccessful()) {
-                        try {
-                            String responseBody = response.body().string();
-                            JSONObject json = new JSONObject(responseBody);
-                            JSONArray choices = json.getJSONArray("choices");
+                public void onResponse(String responseBody) {
+                    try {
+                        JSONObject json = new JSONObject(responseBody);
+                        JSONArray choices = json.getJSONArray("choices");
+                        
+                        if (choices.length() > 0) {
+                            JSONObject choice = choices.getJSONObject(0);
+                            JSONObject message = choice.getJSONObject("message");
+                            String title = message.getString("content").trim();
+                            
+                            // Remove quotes if present
+                            title = title.replaceAll("^\"|\"$", "");
                             
-                            if (choices.length() > 0) {
-                                JSONObject choice = choices.getJSONObject(0);
-                                JSONObject message = choice.getJSONObject("message");
-                                String title = message.getString("content").trim();
-                                
-                                // Remove quotes if present
-                                title = title.replaceAll("^\"|\"$", "");
-                                
-                                callback.onSuccess(title);
-                            } else {
-                                callback.onError("No title generated");
-                            }
-                        } catch (JSONException e) {
-                            callback.onError("Failed to parse title response: " + e.getMessage());
+                            callback.onSuccess(title);
+                        } else {
+                            callback.onError("No title generated");
                         }
-                    } else {
-                        callback.onError("Title generation failed with code: " + response.code());
+                    } catch (JSONException e) {
+                        callback.onError("Failed to parse title response: " + e.getMessage());
                     }
                 }
             });
@@ -265,7 +335,7 @@ public class OpenAIService {
         Log.d(TAG, "Starting API key validation");
         try {
             JSONObject requestJson = new JSONObject();
-            requestJson.put("model", "gpt-4o-mini");
+            requestJson.put("model", CHAT_MODEL);
             
             JSONArray messages = new JSONArray();
             JSONObject userMessage = new JSONObject();
@@ -276,57 +346,45 @@ public class OpenAIService {
             requestJson.put("messages", messages);
             requestJson.put("max_tokens", 1);
             
-            RequestBody body = RequestBody.create(requestJson.toString(), JSON);
-            
-            Request request = new Request.Builder()
-                .url(CHAT_API_URL)
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .post(body)
-                .build();
-                
             Log.d(TAG, "Sending API key validation request to OpenAI");
             
-            client.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(Call call, IOException e) {
-                    Log.e(TAG, "API key validation request failed: " + e.getMessage(), e);
-                    callback.onValidationResult(false, "Network error: " + e.getMessage());
-                }
-                
+            // One attempt: a 429 already proves the key, there is nothing to wait for
+            gateway.enqueue(apiKey, requestJson, HttpClientProvider.Profile.SHORT_REQUEST, 1, new ChatGateway.ResultCallback() {
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    Log.d(TAG, "API key validation response received with code: " + response.code());
+                public void onFailure(IOException e) {
+                    if (!(e instanceof ChatGateway.ApiException)) {
+                        Log.e(TAG, "API key validation request failed: " + e.getMessage(), e);
+                        callback.onValidationResult(false, "Network error: " + e.getMessage());
+                        return;
+                    }
                     
-                    if (response.isSuccessful()) {
-                        Log.d(TAG, "API key validation successful");
-                        callback.onValidationResult(true, "API key is valid");
+                    int code = ((ChatGateway.ApiException) e).code;
+                    Log.d(TAG, "API key validation response received with code: " + code);
+                    String errorMessage;
+                    if (code == 401) {
+                        errorMessage = "Invalid API key";
+                        Log.e(TAG, "API key validation failed - 401 Unauthorized");
+                    } else if (code == 429) {
+                        errorMessage = "API key is valid but rate limited";
+                        Log.w(TAG, "API key validation rate limited but key is valid");
+                        callback.onValidationResult(true, errorMessage);
+                        return;
                     } else {
-                        String errorMessage;
-                        if (response.code() == 401) {
-                            errorMessage = "Invalid API key";
-                            Log.e(TAG, "API key validation failed - 401 Unauthorized");
-                        } else if (response.code() == 429) {
-                            errorMessage = "API key is valid but rate limited";
-                            Log.w(TAG, "API key validation rate limited but key is valid");
-                            callback.onValidationResult(true, errorMessage);
-                            return;
-                        } else {
-                            errorMessage = "API error (code: " + response.code() + ")";
-                            Log.e(TAG, "API key validation failed with code: " + response.code());
-                        }
-                        
-                        try {
-                            String errorBody = response.body().string();
-                            if (!errorBody.isEmpty()) {
-                                Log.e(TAG, "API key validation error body: " + errorBody);
-                            }
-                        } catch (Exception e) {
-                            Log.w(TAG, "Could not read validation error body", e);
-                        }
-                        
-                        callback.onValidationResult(false, errorMessage);
+                        errorMessage = "API error (code: " + code + ")";
+                        Log.e(TAG, "API key validation failed with code: " + code);
+                    }
+                    
+                    String errorBody = ((ChatGateway.ApiException) e).body;
+                    if (errorBody != null && !errorBody.isEmpty()) {
+                        Log.e(TAG, "API key validation error body: " + errorBody);
                     }
+                    callback.onValidationResult(false, errorMessage);
+                }
+                
+                @Override
+                public void onResponse(String responseBody) {
+                    Log.d(TAG, "API key validation successful");
+                    callback.onValidationResult(true, "API key is valid");
                 }
             });
             
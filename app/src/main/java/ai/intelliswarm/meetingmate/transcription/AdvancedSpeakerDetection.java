@@ -3,9 +3,6 @@ package ai.intelliswarm.meetingmate.transcription;
 import android.content.Context;
 import android.util.Log;
 import okhttp3.*;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,6 +22,8 @@ public class AdvancedSpeakerDetection {
     // Configuration for voice-based clustering
     private static final double VOICE_EMBEDDING_THRESHOLD = 0.7; // Similarity threshold for same speaker
     private static final int MIN_SEGMENTS_FOR_PROFILE = 3; // Minimum segments to create speaker profile
+    private static final double SPEAKER_MERGE_THRESHOLD = 0.85; // Profiles this similar are the same voice
+    private static final double PROFILE_DECAY = 0.98; // Profiles follow about the last 50 segments of a voice
     
     /**
      * Enhanced speaker segment with voice features
@@ -76,45 +75,43 @@ public class AdvancedSpeakerDetection {
     }
     
     /**
-     * Speaker profile with accumulated voice characteristics
+     * Speaker profile with accumulated voice characteristics. The average is kept as running
+     * statistics weighted toward recent segments, and no segment is retained, so adding one
+     * costs the same at minute 90 as at minute 1 and the profile follows a voice that drifts.
      */
     private static class SpeakerProfile {
+        private static final int FEATURE_DIMENSIONS = 5;
+        
         public String speakerId;
         public String speakerName;
-        public List<VoiceFeatures> voiceHistory;
         public VoiceFeatures averageFeatures;
-        public int segmentCount;
+        private final RunningStats stats = new RunningStats(FEATURE_DIMENSIONS, PROFILE_DECAY);
+        private final double[] vector = new double[FEATURE_DIMENSIONS];
         
         public SpeakerProfile(String id, String languageCode) {
             this.speakerId = id;
             this.speakerName = SpeakerLabels.formatSpeakerLabel(languageCode, Integer.parseInt(id));
-            this.voiceHistory = new ArrayList<>();
-            this.segmentCount = 0;
         }
         
         public void addVoiceFeatures(VoiceFeatures features) {
-            voiceHistory.add(features);
-            segmentCount++;
+            vector[0] = features.pitch;
+            vector[1] = features.energy;
+            vector[2] = features.speakingRate;
+            vector[3] = features.pauseRatio;
+            vector[4] = features.spectralCentroid;
+            stats.add(vector);
             updateAverageFeatures();
         }
         
         private void updateAverageFeatures() {
-            if (voiceHistory.isEmpty()) return;
-            
-            double avgPitch = 0, avgEnergy = 0, avgRate = 0, avgPause = 0;
-            for (VoiceFeatures vf : voiceHistory) {
-                avgPitch += vf.pitch;
-                avgEnergy += vf.energy;
-                avgRate += vf.speakingRate;
-                avgPause += vf.pauseRatio;
+            if (averageFeatures == null) {
+                averageFeatures = new VoiceFeatures();
             }
-            
-            int count = voiceHistory.size();
-            averageFeatures = new VoiceFeatures();
-            averageFeatures.pitch = avgPitch / count;
-            averageFeatures.energy = avgEnergy / count;
-            averageFeatures.speakingRate = avgRate / count;
-            averageFeatures.pauseRatio = avgPause / count;
+            averageFeatures.pitch = stats.mean(0);
+            averageFeatures.energy = stats.mean(1);
+            averageFeatures.speakingRate = stats.mean(2);
+            averageFeatures.pauseRatio = stats.mean(3);
+            averageFeatures.spectralCentroid = stats.mean(4);
         }
         
         public double matchProbability(VoiceFeatures features) {
@@ -136,93 +133,158 @@ public class AdvancedSpeakerDetection {
      * Process audio segments with advanced speaker diarization with language support
      */
     public static List<EnhancedSpeakerSegment> detectSpeakersAdvanced(String segmentsJson, Context context, String languageCode) {
+        try {
+            return detectSpeakersAdvanced(WhisperTranscript.parseSegments(segmentsJson), context, languageCode);
+        } catch (IOException e) {
+            Log.e(TAG, "Error in advanced speaker detection", e);
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Process an already decoded transcript with advanced speaker diarization
+     */
+    public static List<EnhancedSpeakerSegment> detectSpeakersAdvanced(WhisperTranscript transcript, Context context, String languageCode) {
         List<EnhancedSpeakerSegment> enhancedSegments = new ArrayList<>();
-        Map<String, SpeakerProfile> speakerProfiles = new HashMap<>();
         
-        try {
-            JSONArray segments = new JSONArray(segmentsJson);
-            if (segments.length() == 0) {
-                return enhancedSegments;
+        if (transcript.segmentCount == 0) {
+            return enhancedSegments;
+        }
+        
+        int[] speakerOf = new int[transcript.segmentCount];
+        double[] confidence = new double[transcript.segmentCount];
+        VoiceFeatures[] features = new VoiceFeatures[transcript.segmentCount];
+        List<SpeakerProfile> speakerProfiles = assignSpeakers(transcript, languageCode, speakerOf, confidence, features,
+            DiarizationPipeline.Deadline.none());
+        
+        for (int i = 0; i < transcript.segmentCount; i++) {
+            if (speakerOf[i] == 0) continue;
+            SpeakerProfile profile = speakerProfiles.get(speakerOf[i] - 1);
+            enhancedSegments.add(new EnhancedSpeakerSegment(
+                profile.speakerId, profile.speakerName, transcript.segmentStart[i], transcript.segmentEnd[i],
+                transcript.segmentText[i], features[i], confidence[i]
+            ));
+        }
+        
+        // Post-process to merge similar speakers if needed
+        Map<String, VoiceFeatures> averages = new HashMap<>();
+        for (SpeakerProfile profile : speakerProfiles) {
+            averages.put(profile.speakerId, profile.averageFeatures);
+        }
+        int speakerCount = mergeSimilarSpeakers(enhancedSegments, averages);
+        if (speakerCount < speakerProfiles.size()) {
+            Log.d(TAG, "Merged " + speakerProfiles.size() + " speakers into " + speakerCount);
+        }
+        
+        return enhancedSegments;
+    }
+    
+    /**
+     * Diarization stage: voice-profile matching per segment, then merging of similar profiles
+     */
+    public static boolean annotate(Diarization diarization, DiarizationPipeline.Deadline deadline) {
+        WhisperTranscript transcript = diarization.transcript;
+        int[] speakerOf = new int[transcript.segmentCount];
+        double[] confidence = new double[transcript.segmentCount];
+        List<SpeakerProfile> speakerProfiles = assignSpeakers(transcript, diarization.languageCode, speakerOf, confidence,
+            null, deadline);
+        if (speakerProfiles == null || speakerProfiles.isEmpty()) {
+            return false;
+        }
+        
+        VoiceFeatures[] averages = new VoiceFeatures[speakerProfiles.size()];
+        int[] parent = new int[averages.length];
+        for (int p = 0; p < averages.length; p++) {
+            averages[p] = speakerProfiles.get(p).averageFeatures;
+            parent[p] = p;
+        }
+        unionSimilar(averages, parent);
+        
+        for (int i = 0; i < speakerOf.length; i++) {
+            diarization.segmentSpeaker[i] = speakerOf[i] > 0 ? find(parent, speakerOf[i] - 1) + 1 : 0;
+            diarization.segmentConfidence[i] = (float) confidence[i];
+        }
+        diarization.clearWordSpeakers();
+        diarization.clearVoiceprints();
+        diarization.renumberSpeakers();
+        return true;
+    }
+    
+    /**
+     * Greedily match every non-empty segment to the closest speaker profile, or start a new
+     * one. speakerOf receives 1-based profile numbers (0 for skipped segments), numbered in
+     * order of first appearance.
+     *
+     * @param features receives each segment's voice features, may be null
+     * @return the profiles, indexed by number - 1, or null when the deadline passed
+     */
+    private static List<SpeakerProfile> assignSpeakers(WhisperTranscript transcript, String languageCode, int[] speakerOf,
+                                                       double[] confidence, VoiceFeatures[] features,
+                                                       DiarizationPipeline.Deadline deadline) {
+        List<SpeakerProfile> speakerProfiles = new ArrayList<>();
+        
+        Log.d(TAG, "Starting advanced speaker detection for " + transcript.segmentCount + " segments");
+        
+        for (int i = 0; i < transcript.segmentCount; i++) {
+            double startTime = transcript.segmentStart[i];
+            double endTime = transcript.segmentEnd[i];
+            String text = transcript.segmentText[i];
+            
+            if (text.isEmpty()) continue;
+            if (deadline.isExpired()) {
+                Log.w(TAG, "Out of time after " + i + " of " + transcript.segmentCount + " segments");
+                return null;
             }
             
-            Log.d(TAG, "Starting advanced speaker detection for " + segments.length() + " segments");
+            // Extract voice features from segment
+            VoiceFeatures segmentFeatures = extractVoiceFeatures(text, endTime - startTime, transcript.segmentAvgLogprob[i]);
+            if (features != null) {
+                features[i] = segmentFeatures;
+            }
             
-            int nextSpeakerId = 1;
+            // Find best matching speaker
+            int bestMatch = -1;
+            double bestScore = 0;
             
-            for (int i = 0; i < segments.length(); i++) {
-                JSONObject segment = segments.getJSONObject(i);
-                
-                double startTime = segment.getDouble("start");
-                double endTime = segment.getDouble("end");
-                String text = segment.getString("text").trim();
-                
-                if (text.isEmpty()) continue;
-                
-                // Extract voice features from segment
-                VoiceFeatures features = extractVoiceFeatures(segment);
-                
-                // Find best matching speaker
-                String bestMatchId = null;
-                double bestScore = 0;
-                
-                for (SpeakerProfile profile : speakerProfiles.values()) {
-                    double score = profile.matchProbability(features);
-                    if (score > bestScore && score > VOICE_EMBEDDING_THRESHOLD) {
-                        bestScore = score;
-                        bestMatchId = profile.speakerId;
-                    }
+            for (int p = 0; p < speakerProfiles.size(); p++) {
+                double score = speakerProfiles.get(p).matchProbability(segmentFeatures);
+                if (score > bestScore && score > VOICE_EMBEDDING_THRESHOLD) {
+                    bestScore = score;
+                    bestMatch = p;
                 }
+            }
+            
+            if (bestMatch >= 0) {
+                // Existing speaker
+                SpeakerProfile profile = speakerProfiles.get(bestMatch);
+                profile.addVoiceFeatures(segmentFeatures);
                 
-                String speakerId;
-                String speakerLabel;
-                
-                if (bestMatchId != null) {
-                    // Existing speaker
-                    speakerId = bestMatchId;
-                    SpeakerProfile profile = speakerProfiles.get(speakerId);
-                    profile.addVoiceFeatures(features);
-                    speakerLabel = profile.speakerName;
-                    
-                    Log.d(TAG, "Segment " + i + " matched to " + speakerLabel + " (confidence: " + 
-                          String.format("%.2f", bestScore) + ")");
-                } else {
-                    // New speaker
-                    speakerId = String.valueOf(nextSpeakerId++);
-                    SpeakerProfile newProfile = new SpeakerProfile(speakerId, languageCode);
-                    newProfile.addVoiceFeatures(features);
-                    speakerProfiles.put(speakerId, newProfile);
-                    speakerLabel = newProfile.speakerName;
-                    
-                    Log.d(TAG, "Segment " + i + " identified as new " + speakerLabel);
-                }
+                Log.d(TAG, "Segment " + i + " matched to " + profile.speakerName + " (confidence: " + 
+                      String.format("%.2f", bestScore) + ")");
+            } else {
+                // New speaker
+                SpeakerProfile newProfile = new SpeakerProfile(String.valueOf(speakerProfiles.size() + 1), languageCode);
+                newProfile.addVoiceFeatures(segmentFeatures);
+                speakerProfiles.add(newProfile);
+                bestMatch = speakerProfiles.size() - 1;
                 
-                enhancedSegments.add(new EnhancedSpeakerSegment(
-                    speakerId, speakerLabel, startTime, endTime, text, features, bestScore
-                ));
+                Log.d(TAG, "Segment " + i + " identified as new " + newProfile.speakerName);
             }
             
-            Log.d(TAG, "Advanced detection complete: " + speakerProfiles.size() + " unique speakers identified");
-            
-            // Post-process to merge similar speakers if needed
-            mergeSimliarSpeakers(enhancedSegments, speakerProfiles);
-            
-        } catch (JSONException e) {
-            Log.e(TAG, "Error in advanced speaker detection", e);
+            speakerOf[i] = bestMatch + 1;
+            confidence[i] = bestScore;
         }
         
-        return enhancedSegments;
+        Log.d(TAG, "Advanced detection complete: " + speakerProfiles.size() + " unique speakers identified");
+        return speakerProfiles;
     }
     
     /**
      * Extract voice features from a segment
      */
-    private static VoiceFeatures extractVoiceFeatures(JSONObject segment) throws JSONException {
+    private static VoiceFeatures extractVoiceFeatures(String text, double duration, double avgLogprob) {
         VoiceFeatures features = new VoiceFeatures();
         
-        String text = segment.getString("text").trim();
-        double duration = segment.getDouble("end") - segment.getDouble("start");
-        double avgLogprob = segment.optDouble("avg_logprob", 0);
-        
         // Basic features we can extract from Whisper output
         int wordCount = text.split("\\s+").length;
         features.speakingRate = wordCount / Math.max(0.1, duration);
@@ -245,36 +307,93 @@ public class AdvancedSpeakerDetection {
     }
     
     /**
-     * Merge similar speaker profiles that might be the same person
+     * Merge speakers whose average voices are very similar and might be the same person.
+     * Similar pairs are joined in a disjoint set, so chains (A ~ B, B ~ C) end up as one
+     * speaker, and the segments are then relabelled in a single sweep. Each group keeps the id
+     * and label of its earliest speaker.
+     *
+     * @param averages average voice features per speaker id
+     * @return number of speakers left
      */
-    private static void mergeSimliarSpeakers(List<EnhancedSpeakerSegment> segments, 
-                                            Map<String, SpeakerProfile> profiles) {
-        // Check if any speaker profiles are too similar and should be merged
-        List<String> profileIds = new ArrayList<>(profiles.keySet());
+    public static int mergeSimilarSpeakers(List<EnhancedSpeakerSegment> segments,
+                                           Map<String, VoiceFeatures> averages) {
+        // Speakers in order of first appearance, each with its first segment
+        Map<String, Integer> indexOf = new HashMap<>();
+        List<EnhancedSpeakerSegment> firstSegments = new ArrayList<>();
+        int[] speakerOf = new int[segments.size()];
+        for (int s = 0; s < speakerOf.length; s++) {
+            EnhancedSpeakerSegment segment = segments.get(s);
+            Integer index = indexOf.get(segment.speakerId);
+            if (index == null) {
+                index = firstSegments.size();
+                indexOf.put(segment.speakerId, index);
+                firstSegments.add(segment);
+            }
+            speakerOf[s] = index;
+        }
+        
+        int speakers = firstSegments.size();
+        VoiceFeatures[] features = new VoiceFeatures[speakers];
+        int[] parent = new int[speakers];
+        for (int i = 0; i < speakers; i++) {
+            features[i] = averages.get(firstSegments.get(i).speakerId);
+            parent[i] = i;
+        }
+        
+        int groups = unionSimilar(features, parent);
         
-        for (int i = 0; i < profileIds.size() - 1; i++) {
-            for (int j = i + 1; j < profileIds.size(); j++) {
-                SpeakerProfile p1 = profiles.get(profileIds.get(i));
-                SpeakerProfile p2 = profiles.get(profileIds.get(j));
+        if (groups == speakers) {
+            return speakers;
+        }
+        
+        // Roots are the earliest speaker of each group, and their first segments are never relabelled
+        EnhancedSpeakerSegment[] survivorOf = new EnhancedSpeakerSegment[speakers];
+        for (int i = 0; i < speakers; i++) {
+            survivorOf[i] = firstSegments.get(find(parent, i));
+        }
+        for (int s = 0; s < speakerOf.length; s++) {
+            EnhancedSpeakerSegment segment = segments.get(s);
+            EnhancedSpeakerSegment survivor = survivorOf[speakerOf[s]];
+            if (survivor != segment) {
+                segment.speakerId = survivor.speakerId;
+                segment.speakerLabel = survivor.speakerLabel;
+            }
+        }
+        return groups;
+    }
+    
+    /**
+     * Join every pair of speakers whose features are similar enough; each set is rooted at its
+     * lowest index
+     *
+     * @return number of sets
+     */
+    private static int unionSimilar(VoiceFeatures[] features, int[] parent) {
+        int groups = features.length;
+        for (int i = 0; i < features.length - 1; i++) {
+            if (features[i] == null) continue;
+            for (int j = i + 1; j < features.length; j++) {
+                if (features[j] == null) continue;
                 
-                if (p1.averageFeatures != null && p2.averageFeatures != null) {
-                    double similarity = p1.averageFeatures.calculateSimilarity(p2.averageFeatures);
-                    
-                    if (similarity > 0.85) { // Very similar voices
-                        // Merge p2 into p1
-                        Log.d(TAG, "Merging " + p2.speakerName + " into " + p1.speakerName + 
-                              " (similarity: " + String.format("%.2f", similarity) + ")");
-                        
-                        for (EnhancedSpeakerSegment segment : segments) {
-                            if (segment.speakerId.equals(p2.speakerId)) {
-                                segment.speakerId = p1.speakerId;
-                                segment.speakerLabel = p1.speakerName;
-                            }
-                        }
+                if (features[i].calculateSimilarity(features[j]) > SPEAKER_MERGE_THRESHOLD) {
+                    int rootI = find(parent, i);
+                    int rootJ = find(parent, j);
+                    if (rootI != rootJ) {
+                        parent[Math.max(rootI, rootJ)] = Math.min(rootI, rootJ);
+                        groups--;
                     }
                 }
             }
         }
+        return groups;
+    }
+    
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
     }
     
     /**
@@ -6,11 +6,17 @@ import okhttp3.*;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.audio.PcmDecoder;
+import ai.intelliswarm.meetingmate.audio.SpeechTranscoder;
+import ai.intelliswarm.meetingmate.audio.TimeRemap;
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * AssemblyAI provider with real speaker diarization
@@ -24,15 +30,15 @@ public class AssemblyAIProvider implements TranscriptionProvider {
     
     private final Context context;
     private final OkHttpClient client;
-    private Call currentCall;
+    private final OkHttpClient pollClient;
+    private volatile Call currentCall;
+    private volatile TranscriptionJobEngine.Job currentJob;
+    private volatile boolean cancelled;
     
     public AssemblyAIProvider(Context context) {
         this.context = context;
-        this.client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(300, TimeUnit.SECONDS) // 5 minutes for processing
-            .build();
+        this.client = HttpClientProvider.get(HttpClientProvider.Profile.TRANSCRIPTION_UPLOAD);
+        this.pollClient = HttpClientProvider.get(HttpClientProvider.Profile.SHORT_REQUEST);
     }
     
     @Override
@@ -62,36 +68,59 @@ public class AssemblyAIProvider implements TranscriptionProvider {
         }
         
         Log.d(TAG, "Starting AssemblyAI transcription with speaker diarization");
+        cancelled = false;
         
+        // Upload and job creation run here; this thread ends once the job is handed to the poller
         new Thread(() -> {
             try {
-                // Step 1: Upload audio file
+                // Step 1: Upload a speech-optimized copy of the audio file
+                callback.onProgress(5);
+                File uploadFile = SpeechTranscoder.prepareForUpload(audioFile);
+                TimeRemap remap = SpeechTranscoder.timeRemapFor(uploadFile);
+                long audioDurationMs = probeDurationMs(uploadFile);
+                if (cancelled) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
                 callback.onProgress(10);
-                String uploadUrl = uploadAudio(audioFile, apiKey);
+                String uploadUrl = uploadAudio(uploadFile, apiKey);
                 
                 // Step 2: Request transcription with speaker diarization
+                if (cancelled) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
                 callback.onProgress(20);
                 String transcriptId = requestTranscription(uploadUrl, apiKey);
                 
-                // Step 3: Poll for completion
+                // Step 3: Poll for completion on the shared job engine
+                if (cancelled) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
                 callback.onProgress(30);
-                JSONObject result = pollForResult(transcriptId, apiKey, callback);
-                
-                // Step 4: Format the response with speakers
-                callback.onProgress(90);
-                String formattedTranscript = formatSpeakerTranscript(result);
-                String segments = extractSegments(result);
-                
-                callback.onProgress(100);
-                callback.onSuccess(formattedTranscript, segments);
+                pollForResult(transcriptId, apiKey, audioDurationMs, remap, callback);
                 
             } catch (Exception e) {
+                if (cancelled) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
                 Log.e(TAG, "AssemblyAI transcription failed", e);
                 callback.onError("Transcription failed: " + e.getMessage());
             }
         }).start();
     }
     
+    private long probeDurationMs(File audioFile) {
+        try {
+            return Math.max(0, PcmDecoder.probe(audioFile).durationUs / 1000);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read audio duration, polling without ETA");
+            return 0;
+        }
+    }
+    
     private String uploadAudio(File audioFile, String apiKey) throws IOException {
         Log.d(TAG, "Uploading audio file: " + audioFile.getName());
         
@@ -168,58 +197,85 @@ public class AssemblyAIProvider implements TranscriptionProvider {
         }
     }
     
-    private JSONObject pollForResult(String transcriptId, String apiKey, TranscriptionCallback callback) 
-            throws IOException, JSONException {
+    private void pollForResult(String transcriptId, String apiKey, long audioDurationMs, TimeRemap remap,
+                               TranscriptionCallback callback) {
         Log.d(TAG, "Polling for transcription completion");
         
-        String url = TRANSCRIPT_URL + "/" + transcriptId;
         Request request = new Request.Builder()
-            .url(url)
+            .url(TRANSCRIPT_URL + "/" + transcriptId)
             .header("authorization", apiKey)
             .get()
             .build();
         
-        int progressStep = 30;
-        
-        // Poll for up to 10 minutes
-        for (int attempt = 0; attempt < 120; attempt++) {
-            currentCall = client.newCall(request);
-            try (Response response = currentCall.execute()) {
-                if (!response.isSuccessful()) {
-                    throw new IOException("Polling failed: " + response.code());
+        currentJob = TranscriptionJobEngine.getInstance().submit(transcriptId, pollClient, request, audioDurationMs,
+            new TranscriptionJobEngine.Listener() {
+                @Override
+                public void onProgress(int percent) {
+                    callback.onProgress(percent);
                 }
                 
-                String responseBody = response.body().string();
-                JSONObject json = new JSONObject(responseBody);
-                String status = json.getString("status");
-                
-                Log.d(TAG, "Status: " + status + " (attempt " + (attempt + 1) + ")");
-                
-                if ("completed".equals(status)) {
-                    Log.d(TAG, "Transcription completed successfully");
-                    return json;
-                } else if ("error".equals(status)) {
-                    String error = json.optString("error", "Unknown error");
-                    throw new IOException("Transcription failed: " + error);
-                }
-                
-                // Update progress during processing
-                if (progressStep < 85 && attempt % 10 == 0) {
-                    progressStep += 5;
-                    callback.onProgress(progressStep);
+                @Override
+                public void onCompleted(JSONObject result) {
+                    try {
+                        // Step 4: Format the response with speakers, on the recording's timeline
+                        callback.onProgress(90);
+                        remapTimestamps(result, remap);
+                        String formattedTranscript = formatSpeakerTranscript(result);
+                        String segments = extractSegments(result);
+                        TranscriptTimeline timeline = buildTimeline(result);
+                        if (timeline != null) {
+                            callback.onTimeline(timeline);
+                        }
+                        
+                        callback.onProgress(100);
+                        callback.onSuccess(formattedTranscript, segments);
+                    } catch (JSONException e) {
+                        Log.e(TAG, "Failed to parse AssemblyAI result", e);
+                        callback.onError("Transcription failed: " + e.getMessage());
+                    }
                 }
                 
-                // Wait 5 seconds before next poll
-                try {
-                    Thread.sleep(5000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("Polling interrupted");
+                @Override
+                public void onFailed(String error) {
+                    callback.onError(error);
                 }
+            });
+        
+        if (cancelled) {
+            currentJob.cancel();
+        }
+    }
+    
+    /**
+     * Map utterance and word times (milliseconds) from the trimmed upload back to the recording
+     */
+    private static void remapTimestamps(JSONObject result, TimeRemap remap) throws JSONException {
+        if (remap.isIdentity()) {
+            return;
+        }
+        remapTimestamps(result.optJSONArray("words"), remap);
+        JSONArray utterances = result.optJSONArray("utterances");
+        if (utterances != null) {
+            remapTimestamps(utterances, remap);
+            for (int i = 0; i < utterances.length(); i++) {
+                remapTimestamps(utterances.getJSONObject(i).optJSONArray("words"), remap);
+            }
+        }
+    }
+    
+    private static void remapTimestamps(JSONArray items, TimeRemap remap) throws JSONException {
+        if (items == null) {
+            return;
+        }
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            if (item.has("start")) {
+                item.put("start", Math.round(remap.toOriginalSeconds(item.getLong("start") / 1000.0) * 1000));
+            }
+            if (item.has("end")) {
+                item.put("end", Math.round(remap.toOriginalEndSeconds(item.getLong("end") / 1000.0) * 1000));
             }
         }
-        
-        throw new IOException("Transcription timeout - processing took too long");
     }
     
     private String formatSpeakerTranscript(JSONObject result) throws JSONException {
@@ -272,6 +328,39 @@ public class AssemblyAIProvider implements TranscriptionProvider {
         return transcript.toString();
     }
     
+    /**
+     * One timeline segment per utterance, with its words and speaker, or null without utterances
+     */
+    private TranscriptTimeline buildTimeline(JSONObject result) throws JSONException {
+        JSONArray utterances = result.optJSONArray("utterances");
+        if (utterances == null) {
+            return null;
+        }
+        String language = SettingsManager.getInstance(context).getTranscriptLanguage();
+        if (language == null) language = "en";
+        
+        TranscriptTimeline.Builder builder = new TranscriptTimeline.Builder();
+        Map<String, Integer> speakers = new HashMap<>();
+        for (int i = 0; i < utterances.length(); i++) {
+            JSONObject utterance = utterances.getJSONObject(i);
+            String speakerId = utterance.getString("speaker");
+            Integer speaker = speakers.get(speakerId);
+            if (speaker == null) {
+                speaker = builder.addSpeaker(formatSpeakerLabel(speakerId, language));
+                speakers.put(speakerId, speaker);
+            }
+            builder.addSegment(utterance.getLong("start") / 1000f, utterance.getLong("end") / 1000f, speaker,
+                utterance.getString("text").trim());
+            
+            JSONArray words = utterance.optJSONArray("words");
+            for (int w = 0; words != null && w < words.length(); w++) {
+                JSONObject word = words.getJSONObject(w);
+                builder.addWord(word.getLong("start") / 1000f, word.getLong("end") / 1000f, word.getString("text"));
+            }
+        }
+        return builder.build();
+    }
+    
     private String extractSegments(JSONObject result) throws JSONException {
         // Return the utterances as segments for compatibility
         JSONArray utterances = result.optJSONArray("utterances");
@@ -340,8 +429,14 @@ public class AssemblyAIProvider implements TranscriptionProvider {
     
     @Override
     public void cancel() {
-        if (currentCall != null && !currentCall.isCanceled()) {
-            currentCall.cancel();
+        cancelled = true;
+        Call call = currentCall;
+        if (call != null && !call.isCanceled()) {
+            call.cancel();
+        }
+        TranscriptionJobEngine.Job job = currentJob;
+        if (job != null) {
+            job.cancel();
         }
     }
 }
\ No newline at end of file
@@ -1,16 +1,16 @@
 package ai.intelliswarm.meetingmate.transcription;
 
 import android.content.Context;
-import android.media.MediaExtractor;
-import android.media.MediaFormat;
+import android.os.Debug;
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.audio.PcmTrack;
+import ai.intelliswarm.meetingmate.audio.PitchTracker;
+import ai.intelliswarm.meetingmate.audio.SampleBuffer;
+import ai.intelliswarm.meetingmate.audio.SpeechFeatureEngine;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.InterruptedIOException;
 import java.util.*;
 
 /**
@@ -23,9 +23,26 @@ public class AudioSpeakerAnalyzer {
     
     // Audio feature extraction parameters
     private static final int SAMPLE_RATE = 16000; // 16kHz for speech
-    private static final int FRAME_SIZE = 512; // ~32ms frames
     private static final int MFCC_COEFFICIENTS = 13; // Standard for speech
     
+    // Speaker clustering parameters
+    private static final int CLUSTER_DIMENSIONS = (MFCC_COEFFICIENTS - 1) + 1 + 3 + 1; // MFCC 1-12, pitch, F1-F3, centroid
+    private static final int PITCH_DIMENSION = MFCC_COEFFICIENTS - 1;
+    private static final double PITCH_WEIGHT = 2.0; // Pitch separates voices better than any single cepstral term
+    private static final int MAX_CLUSTER_SEGMENTS = 2000; // 8 MB distance matrix
+    private static final double TURN_PAUSE_SECONDS = 1.0;
+    private static final int MAX_SPEAKERS = 8;
+    private static final float MIN_RELATIVE_GAP = 0.5f;
+    
+    // Fixed per-dimension scale of voiceprints (same layout as the clustering features), chosen
+    // so a typical difference between two voices is about 1 in each dimension
+    private static final double[] VOICEPRINT_SCALE = {
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, // MFCC 1-12
+        4,                                  // log pitch
+        1 / 200.0, 1 / 200.0, 1 / 200.0,    // F1-F3 in Hz
+        1 / 500.0                           // Spectral centroid in Hz
+    };
+    
     /**
      * Word-level speaker information
      */
@@ -62,9 +79,10 @@ public class AudioSpeakerAnalyzer {
             
             double distance = 0;
             
-            // MFCC distance (most important for speaker identification)
+            // MFCC distance (most important for speaker identification).
+            // c0 is overall loudness, which the energy term already covers.
             if (mfcc != null && other.mfcc != null) {
-                for (int i = 0; i < Math.min(mfcc.length, other.mfcc.length); i++) {
+                for (int i = 1; i < Math.min(mfcc.length, other.mfcc.length); i++) {
                     distance += Math.pow(mfcc[i] - other.mfcc[i], 2);
                 }
             }
@@ -86,70 +104,6 @@ public class AudioSpeakerAnalyzer {
         }
     }
     
-    /**
-     * Speaker model for clustering
-     */
-    private static class SpeakerModel {
-        public String speakerId;
-        public List<AudioFeatures> featureHistory;
-        public AudioFeatures centroid;
-        public int sampleCount;
-        
-        public SpeakerModel(String id) {
-            this.speakerId = id;
-            this.featureHistory = new ArrayList<>();
-            this.sampleCount = 0;
-        }
-        
-        public void addFeatures(AudioFeatures features) {
-            featureHistory.add(features);
-            sampleCount++;
-            updateCentroid();
-        }
-        
-        private void updateCentroid() {
-            if (featureHistory.isEmpty()) return;
-            
-            centroid = new AudioFeatures();
-            centroid.mfcc = new double[MFCC_COEFFICIENTS];
-            centroid.formants = new double[3];
-            
-            for (AudioFeatures f : featureHistory) {
-                if (f.mfcc != null) {
-                    for (int i = 0; i < f.mfcc.length; i++) {
-                        centroid.mfcc[i] += f.mfcc[i];
-                    }
-                }
-                centroid.pitch += f.pitch;
-                centroid.energy += f.energy;
-                centroid.zcr += f.zcr;
-                centroid.spectralCentroid += f.spectralCentroid;
-                if (f.formants != null) {
-                    for (int i = 0; i < f.formants.length; i++) {
-                        centroid.formants[i] += f.formants[i];
-                    }
-                }
-            }
-            
-            int count = featureHistory.size();
-            for (int i = 0; i < centroid.mfcc.length; i++) {
-                centroid.mfcc[i] /= count;
-            }
-            centroid.pitch /= count;
-            centroid.energy /= count;
-            centroid.zcr /= count;
-            centroid.spectralCentroid /= count;
-            for (int i = 0; i < centroid.formants.length; i++) {
-                centroid.formants[i] /= count;
-            }
-        }
-        
-        public double distanceToFeatures(AudioFeatures features) {
-            if (centroid == null) return Double.MAX_VALUE;
-            return centroid.calculateDistance(features);
-        }
-    }
-    
     /**
      * Analyze audio file and detect speakers for each word
      * @param audioFile The audio file to analyze
@@ -158,31 +112,45 @@ public class AudioSpeakerAnalyzer {
      * @return List of words with speaker information
      */
     public static List<WordSpeakerInfo> analyzeWordLevelSpeakers(File audioFile, String whisperSegments, String languageCode) {
+        try {
+            return analyzeWordLevelSpeakers(audioFile, WhisperTranscript.parseSegments(whisperSegments), languageCode);
+        } catch (IOException e) {
+            Log.e(TAG, "Error parsing Whisper segments", e);
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Analyze audio file and detect speakers for each word of an already decoded transcript
+     */
+    public static List<WordSpeakerInfo> analyzeWordLevelSpeakers(File audioFile, WhisperTranscript transcript, String languageCode) {
         List<WordSpeakerInfo> wordSpeakers = new ArrayList<>();
         
         try {
             // Parse Whisper word-level timestamps
-            List<WordTiming> wordTimings = parseWhisperWords(whisperSegments);
+            List<WordTiming> wordTimings = parseWhisperWords(transcript);
             if (wordTimings.isEmpty()) {
                 Log.w(TAG, "No word timings found in Whisper output");
                 return wordSpeakers;
             }
             
-            // Extract audio features for each word
-            Map<WordTiming, AudioFeatures> wordFeatures = extractWordFeatures(audioFile, wordTimings);
+            // Extract audio features for each word, in transcript order
+            AudioFeatures[] wordFeatures = extractWordFeatures(audioFile, wordTimings, DiarizationPipeline.Deadline.none());
+            if (wordFeatures == null) {
+                return wordSpeakers;
+            }
             
             // Cluster words by speaker using audio features
-            Map<WordTiming, String> speakerAssignments = clusterSpeakers(wordFeatures, languageCode);
+            int[] speakerAssignments = clusterSpeakers(wordTimings, wordFeatures);
             
             // Create final word-speaker list
-            for (WordTiming word : wordTimings) {
-                String speaker = speakerAssignments.getOrDefault(word, 
-                    SpeakerLabels.formatSpeakerLabel(languageCode, 1));
-                
+            for (int i = 0; i < wordTimings.size(); i++) {
+                WordTiming word = wordTimings.get(i);
+                String speaker = SpeakerLabels.formatSpeakerLabel(languageCode, speakerAssignments[i] + 1);
                 WordSpeakerInfo info = new WordSpeakerInfo(
                     word.word, word.start, word.end, speaker, word.confidence
                 );
-                info.features = wordFeatures.get(word);
+                info.features = wordFeatures[i];
                 wordSpeakers.add(info);
             }
             
@@ -196,37 +164,120 @@ public class AudioSpeakerAnalyzer {
     }
     
     /**
-     * Parse word-level timestamps from Whisper output
+     * Diarization stage: clusters every word by its acoustic features and assigns each segment
+     * the speaker of most of its words. Needs word timestamps; gives up when the recording
+     * cannot be decoded or yields no features, or when the deadline passes while decoding or
+     * during feature extraction.
      */
-    private static List<WordTiming> parseWhisperWords(String segmentsJson) throws JSONException {
-        List<WordTiming> words = new ArrayList<>();
+    public static boolean annotate(File audioFile, Diarization diarization, DiarizationPipeline.Deadline deadline) {
+        WhisperTranscript transcript = diarization.transcript;
+        if (!transcript.hasWords() || audioFile == null || !audioFile.exists()) {
+            return false;
+        }
+        
+        List<WordTiming> wordTimings = new ArrayList<>(transcript.wordCount);
+        for (int j = 0; j < transcript.wordCount; j++) {
+            WordTiming word = new WordTiming();
+            word.word = transcript.words[j];
+            word.start = transcript.wordStart[j];
+            word.end = transcript.wordEnd[j];
+            word.confidence = Float.isNaN(transcript.wordProbability[j]) ? 0.8 : transcript.wordProbability[j];
+            wordTimings.add(word);
+        }
+        
+        AudioFeatures[] wordFeatures = extractWordFeatures(audioFile, wordTimings, deadline);
+        if (wordFeatures == null) {
+            return false;
+        }
+        int[] labels = clusterSpeakers(wordTimings, wordFeatures);
+        
+        for (int j = 0; j < transcript.wordCount; j++) {
+            diarization.wordSpeaker[j] = labels[j] + 1;
+            diarization.wordConfidence[j] = (float) wordTimings.get(j).confidence;
+        }
+        
+        // Majority speaker per segment, with the share of its words as confidence
+        int[] votes = new int[MAX_SPEAKERS + 1];
+        for (int s = 0; s < transcript.segmentCount; s++) {
+            int from = transcript.firstWordOfSegment(s);
+            int to = transcript.endWordOfSegment(s);
+            Arrays.fill(votes, 0);
+            int best = 0;
+            for (int j = from; j < to; j++) {
+                int speaker = diarization.wordSpeaker[j];
+                if (++votes[speaker] > votes[best]) {
+                    best = speaker;
+                }
+            }
+            diarization.segmentSpeaker[s] = to > from ? best : 0;
+            diarization.segmentConfidence[s] = to > from ? (float) votes[best] / (to - from) : 0;
+        }
+        diarization.renumberSpeakers();
+        setVoiceprints(diarization, wordFeatures);
+        return true;
+    }
+    
+    /**
+     * Per-speaker voiceprints: the mean of each clustering feature over the speaker's words.
+     * Unlike the clustering input these are on a fixed scale rather than standardized per
+     * meeting, so they compare across meetings. Speakers missing any feature (no voiced words)
+     * get no voiceprint, recorded as 0 words.
+     */
+    private static void setVoiceprints(Diarization diarization, AudioFeatures[] wordFeatures) {
+        int speakers = diarization.speakerCount;
+        double[] sums = new double[speakers * CLUSTER_DIMENSIONS];
+        int[] counts = new int[speakers * CLUSTER_DIMENSIONS];
+        for (int j = 0; j < wordFeatures.length; j++) {
+            int speaker = diarization.wordSpeaker[j];
+            if (speaker > 0) {
+                accumulateClusterFeatures(wordFeatures[j], (speaker - 1) * CLUSTER_DIMENSIONS, sums, counts);
+            }
+        }
         
-        JSONArray segments = new JSONArray(segmentsJson);
+        float[] voiceprints = new float[speakers * CLUSTER_DIMENSIONS];
+        int[] words = new int[speakers];
+        for (int s = 0; s < speakers; s++) {
+            int base = s * CLUSTER_DIMENSIONS;
+            boolean complete = true;
+            for (int d = 0; d < CLUSTER_DIMENSIONS; d++) {
+                complete &= counts[base + d] > 0;
+            }
+            if (!complete) continue;
+            
+            words[s] = counts[base]; // Words with MFCCs
+            for (int d = 0; d < CLUSTER_DIMENSIONS; d++) {
+                voiceprints[base + d] = (float) (sums[base + d] / counts[base + d] * VOICEPRINT_SCALE[d]);
+            }
+        }
+        diarization.voiceprints = voiceprints;
+        diarization.voiceprintWords = words;
+    }
+    
+    /**
+     * Collect word-level timestamps from Whisper output
+     */
+    private static List<WordTiming> parseWhisperWords(WhisperTranscript transcript) {
+        List<WordTiming> words = new ArrayList<>();
         
-        for (int i = 0; i < segments.length(); i++) {
-            JSONObject segment = segments.getJSONObject(i);
+        for (int i = 0; i < transcript.segmentCount; i++) {
+            int from = transcript.firstWordOfSegment(i);
+            int to = transcript.endWordOfSegment(i);
             
             // Check if segment has word-level timestamps
-            JSONArray wordArray = segment.optJSONArray("words");
-            if (wordArray != null) {
-                for (int j = 0; j < wordArray.length(); j++) {
-                    JSONObject wordObj = wordArray.getJSONObject(j);
-                    
+            if (to > from) {
+                for (int j = from; j < to; j++) {
                     WordTiming word = new WordTiming();
-                    word.word = wordObj.getString("word").trim();
-                    word.start = wordObj.getDouble("start");
-                    word.end = wordObj.getDouble("end");
-                    word.confidence = wordObj.optDouble("probability", 0.8);
-                    
-                    if (!word.word.isEmpty()) {
-                        words.add(word);
-                    }
+                    word.word = transcript.words[j];
+                    word.start = transcript.wordStart[j];
+                    word.end = transcript.wordEnd[j];
+                    word.confidence = Float.isNaN(transcript.wordProbability[j]) ? 0.8 : transcript.wordProbability[j];
+                    words.add(word);
                 }
             } else {
                 // Fallback: estimate word timings from segment
-                String text = segment.getString("text").trim();
-                double segmentStart = segment.getDouble("start");
-                double segmentEnd = segment.getDouble("end");
+                String text = transcript.segmentText[i];
+                double segmentStart = transcript.segmentStart[i];
+                double segmentEnd = transcript.segmentEnd[i];
                 
                 String[] segmentWords = text.split("\\s+");
                 if (segmentWords.length > 0) {
@@ -237,7 +288,7 @@ public class AudioSpeakerAnalyzer {
                         word.word = segmentWords[j];
                         word.start = segmentStart + (j * wordDuration);
                         word.end = word.start + wordDuration;
-                        word.confidence = segment.optDouble("avg_logprob", 0) + 1; // Normalize
+                        word.confidence = transcript.segmentAvgLogprob[i] + 1; // Normalize
                         
                         if (!word.word.isEmpty()) {
                             words.add(word);
@@ -251,272 +302,267 @@ public class AudioSpeakerAnalyzer {
     }
     
     /**
-     * Extract audio features for each word
+     * Extract audio features for each word. The recording is decoded once into a PCM track
+     * and every word is a slice of it, so the cost is one sequential decode regardless of
+     * the number of words.
+     *
+     * @return features per word, or null when decoding failed, the deadline passed or no word
+     *         yielded any features
      */
-    private static Map<WordTiming, AudioFeatures> extractWordFeatures(File audioFile, List<WordTiming> words) {
-        Map<WordTiming, AudioFeatures> features = new HashMap<>();
-        
-        try {
-            // Use MediaExtractor to read audio
-            MediaExtractor extractor = new MediaExtractor();
-            extractor.setDataSource(audioFile.getAbsolutePath());
-            
-            // Find audio track
-            int audioTrackIndex = -1;
-            for (int i = 0; i < extractor.getTrackCount(); i++) {
-                MediaFormat format = extractor.getTrackFormat(i);
-                String mime = format.getString(MediaFormat.KEY_MIME);
-                if (mime != null && mime.startsWith("audio/")) {
-                    audioTrackIndex = i;
-                    break;
+    private static AudioFeatures[] extractWordFeatures(File audioFile, List<WordTiming> words,
+                                                      DiarizationPipeline.Deadline deadline) {
+        AudioFeatures[] features = new AudioFeatures[words.size()];
+        
+        try (PcmTrack track = PcmTrack.decode(audioFile, SAMPLE_RATE, deadline::isExpired)) {
+            FeatureScratch scratch = new FeatureScratch(track.getSampleRate());
+            long started = System.currentTimeMillis();
+            String gcBefore = Debug.getRuntimeStat("art.gc.gc-count");
+            int frames = 0;
+            
+            for (int i = 0; i < features.length; i++) {
+                if (deadline.isExpired()) {
+                    Log.w(TAG, "Out of time after " + i + " of " + features.length + " words");
+                    return null;
                 }
+                WordTiming word = words.get(i);
+                features[i] = extractFeaturesForTimeRange(track, word.start, word.end, scratch);
+                frames += scratch.spectral.frameCount;
             }
             
-            if (audioTrackIndex < 0) {
-                Log.e(TAG, "No audio track found");
-                return features;
-            }
-            
-            extractor.selectTrack(audioTrackIndex);
-            MediaFormat format = extractor.getTrackFormat(audioTrackIndex);
-            int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
-            
-            // Process each word
-            for (WordTiming word : words) {
-                AudioFeatures wordFeatures = extractFeaturesForTimeRange(
-                    extractor, word.start, word.end, sampleRate
-                );
-                features.put(word, wordFeatures);
+            long elapsed = Math.max(1, System.currentTimeMillis() - started);
+            Log.d(TAG, "Analyzed " + frames + " frames in " + elapsed + "ms (" + (frames * 1000L / elapsed) + " frames/s), "
+                + "GC count " + gcBefore + " -> " + Debug.getRuntimeStat("art.gc.gc-count")
+                + ", sample buffer " + scratch.samples.capacity() + " samples");
+            if (frames == 0) {
+                // Clustering nothing would put every word on one speaker and hide the failure from the pipeline
+                Log.w(TAG, "No word yielded audio features");
+                return null;
             }
-            
-            extractor.release();
-            
-        } catch (IOException e) {
+        } catch (InterruptedIOException e) {
+            Log.w(TAG, "Out of time while decoding: " + e.getMessage());
+            return null;
+        } catch (IOException | RuntimeException e) {
             Log.e(TAG, "Error extracting audio features", e);
+            return null;
         }
         
         return features;
     }
     
     /**
-     * Extract features for a specific time range
+     * Extract features for a specific time range of the decoded track
      */
-    private static AudioFeatures extractFeaturesForTimeRange(MediaExtractor extractor, 
-                                                            double startTime, double endTime, int sampleRate) {
-        AudioFeatures features = new AudioFeatures();
-        
-        try {
-            // Seek to start time
-            long startUs = (long)(startTime * 1000000);
-            extractor.seekTo(startUs, MediaExtractor.SEEK_TO_CLOSEST_SYNC);
-            
-            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024); // 1MB buffer
-            List<Short> audioSamples = new ArrayList<>();
-            
-            // Read audio data for the time range
-            while (true) {
-                int sampleSize = extractor.readSampleData(buffer, 0);
-                if (sampleSize < 0) break;
-                
-                long sampleTime = extractor.getSampleTime();
-                if (sampleTime > endTime * 1000000) break;
-                
-                // Convert bytes to samples
-                buffer.rewind();
-                while (buffer.hasRemaining() && buffer.remaining() >= 2) {
-                    audioSamples.add(buffer.getShort());
-                }
-                
-                extractor.advance();
-            }
-            
-            if (!audioSamples.isEmpty()) {
-                // Calculate audio features
-                short[] samples = new short[audioSamples.size()];
-                for (int i = 0; i < audioSamples.size(); i++) {
-                    samples[i] = audioSamples.get(i);
-                }
-                
-                features = calculateAudioFeatures(samples, sampleRate);
-            }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting features for time range", e);
+    private static AudioFeatures extractFeaturesForTimeRange(PcmTrack track, double startTime, double endTime,
+                                                            FeatureScratch scratch) {
+        int from = track.indexOf(startTime);
+        int to = track.indexOf(endTime);
+        if (to <= from) {
+            scratch.spectral.frameCount = 0;
+            return new AudioFeatures();
         }
         
-        return features;
+        scratch.samples.clear();
+        scratch.samples.append(track.slice(from, to));
+        return calculateAudioFeatures(scratch.samples.array(), scratch.samples.size(), scratch);
     }
     
     /**
-     * Calculate audio features from samples
+     * Calculate audio features from samples[0, count)
      */
-    private static AudioFeatures calculateAudioFeatures(short[] samples, int sampleRate) {
+    private static AudioFeatures calculateAudioFeatures(short[] samples, int count, FeatureScratch scratch) {
         AudioFeatures features = new AudioFeatures();
         
         // Calculate RMS energy
         double sumSquares = 0;
-        for (short sample : samples) {
-            sumSquares += sample * sample;
+        for (int i = 0; i < count; i++) {
+            sumSquares += samples[i] * samples[i];
         }
-        features.energy = Math.sqrt(sumSquares / samples.length) / 32768.0; // Normalize
+        features.energy = Math.sqrt(sumSquares / count) / 32768.0; // Normalize
         
         // Calculate zero crossing rate
         int zeroCrossings = 0;
-        for (int i = 1; i < samples.length; i++) {
+        for (int i = 1; i < count; i++) {
             if ((samples[i-1] >= 0) != (samples[i] >= 0)) {
                 zeroCrossings++;
             }
         }
-        features.zcr = (double)zeroCrossings / samples.length;
+        features.zcr = (double)zeroCrossings / count;
         
-        // Estimate pitch using autocorrelation
-        features.pitch = estimatePitch(samples, sampleRate);
+        // Median F0 of the voiced 10 ms frames; 0 for words with no voiced frame
+        scratch.pitchTracker.track(samples, 0, count, scratch.pitchContour);
+        features.pitch = scratch.pitchTracker.medianVoicedF0(scratch.pitchContour);
         
-        // Calculate spectral centroid
-        features.spectralCentroid = calculateSpectralCentroid(samples, sampleRate);
-        
-        // Estimate formants (simplified)
-        features.formants = estimateFormants(samples, sampleRate);
-        
-        // Calculate simplified MFCC (would need proper FFT library for full implementation)
-        features.mfcc = calculateSimplifiedMFCC(samples, sampleRate);
+        // MFCCs, spectral centroid and LPC formants, averaged over 32 ms frames
+        SpeechFeatureEngine.Result spectral = scratch.spectral;
+        scratch.engine.analyze(samples, 0, count, spectral);
+        features.mfcc = spectral.mfcc.clone();
+        features.spectralCentroid = spectral.spectralCentroid;
+        features.formants = spectral.formants.clone();
         
         return features;
     }
     
     /**
-     * Estimate pitch using autocorrelation
+     * Cluster words by speaker using audio features. Consecutive words are pooled into short
+     * segments (never across a pause), each segment becomes one standardized feature vector,
+     * and the segments are clustered with Ward agglomerative clustering.
+     *
+     * @return 0-based speaker per word, numbered in order of first appearance
      */
-    private static double estimatePitch(short[] samples, int sampleRate) {
-        // Simplified pitch detection
-        int minPeriod = sampleRate / 400; // 400 Hz max
-        int maxPeriod = sampleRate / 50;  // 50 Hz min
-        
-        double maxCorr = 0;
-        int bestPeriod = 0;
-        
-        for (int period = minPeriod; period < Math.min(maxPeriod, samples.length / 2); period++) {
-            double corr = 0;
-            for (int i = 0; i < samples.length - period; i++) {
-                corr += samples[i] * samples[i + period];
-            }
-            
-            if (corr > maxCorr) {
-                maxCorr = corr;
-                bestPeriod = period;
+    private static int[] clusterSpeakers(List<WordTiming> words, AudioFeatures[] wordFeatures) {
+        int n = words.size();
+        int[] assignments = new int[n];
+        if (n == 0) {
+            return assignments;
+        }
+        
+        int[] segmentOfWord = new int[n];
+        int segmentCount = segmentWords(words, segmentOfWord);
+        
+        // Mean of each feature over the words of a segment that have it
+        double[] sums = new double[segmentCount * CLUSTER_DIMENSIONS];
+        int[] counts = new int[segmentCount * CLUSTER_DIMENSIONS];
+        for (int i = 0; i < n; i++) {
+            accumulateClusterFeatures(wordFeatures[i], segmentOfWord[i] * CLUSTER_DIMENSIONS, sums, counts);
+        }
+        
+        // Segments without any audio features take the speaker of their neighbor
+        int[] clusterIndex = new int[segmentCount];
+        int clusterItems = 0;
+        for (int s = 0; s < segmentCount; s++) {
+            clusterIndex[s] = counts[s * CLUSTER_DIMENSIONS] > 0 ? clusterItems++ : -1;
+        }
+        
+        int[] labels = new int[clusterItems];
+        if (clusterItems > 0) {
+            float[] points = standardize(sums, counts, clusterIndex, clusterItems);
+            labels = SpeakerClustering.cluster(points, CLUSTER_DIMENSIONS, MAX_SPEAKERS, MIN_RELATIVE_GAP);
+        }
+        
+        int[] segmentLabel = new int[segmentCount];
+        int last = clusterItems > 0 ? labels[0] : 0;
+        for (int s = 0; s < segmentCount; s++) {
+            if (clusterIndex[s] >= 0) {
+                last = labels[clusterIndex[s]];
             }
+            segmentLabel[s] = last;
         }
         
-        return bestPeriod > 0 ? (double)sampleRate / bestPeriod : 0;
-    }
-    
-    /**
-     * Calculate spectral centroid
-     */
-    private static double calculateSpectralCentroid(short[] samples, int sampleRate) {
-        // Simplified spectral centroid (would need FFT for accurate calculation)
-        double weightedSum = 0;
-        double magnitudeSum = 0;
-        
-        for (int i = 0; i < samples.length; i++) {
-            double magnitude = Math.abs(samples[i]);
-            double frequency = (i * sampleRate) / (2.0 * samples.length);
-            weightedSum += frequency * magnitude;
-            magnitudeSum += magnitude;
+        int speakerCount = 0;
+        for (int i = 0; i < n; i++) {
+            int label = segmentLabel[segmentOfWord[i]];
+            speakerCount = Math.max(speakerCount, label + 1);
+            assignments[i] = label;
         }
         
-        return magnitudeSum > 0 ? weightedSum / magnitudeSum : 0;
+        Log.d(TAG, "Clustered " + n + " words in " + segmentCount + " segments into " + speakerCount + " speakers");
+        
+        return assignments;
     }
     
     /**
-     * Estimate formant frequencies
+     * Group consecutive words into segments of up to wordsPerSegment words, breaking at pauses.
+     * The segment size doubles until the segment count fits MAX_CLUSTER_SEGMENTS, which keeps
+     * the clustering distance matrix bounded on long meetings.
      */
-    private static double[] estimateFormants(short[] samples, int sampleRate) {
-        // Very simplified formant estimation
-        // Real implementation would use LPC analysis
-        double[] formants = new double[3];
-        
-        // Typical formant ranges for speech
-        formants[0] = 700 + (Math.random() * 200);  // F1: 600-900 Hz
-        formants[1] = 1500 + (Math.random() * 300); // F2: 1200-1800 Hz
-        formants[2] = 2500 + (Math.random() * 400); // F3: 2100-2900 Hz
-        
-        return formants;
+    private static int segmentWords(List<WordTiming> words, int[] segmentOfWord) {
+        int n = words.size();
+        int wordsPerSegment = Math.max(1, (n + MAX_CLUSTER_SEGMENTS - 1) / MAX_CLUSTER_SEGMENTS);
+        while (true) {
+            int segment = 0;
+            int inSegment = 0;
+            for (int i = 0; i < n; i++) {
+                boolean pause = i > 0 && words.get(i).start - words.get(i - 1).end > TURN_PAUSE_SECONDS;
+                if (i > 0 && (inSegment == wordsPerSegment || pause)) {
+                    segment++;
+                    inSegment = 0;
+                }
+                segmentOfWord[i] = segment;
+                inSegment++;
+            }
+            if (segment + 1 <= MAX_CLUSTER_SEGMENTS || wordsPerSegment >= n) {
+                return segment + 1;
+            }
+            wordsPerSegment *= 2;
+        }
     }
     
     /**
-     * Calculate simplified MFCC
+     * Add one word's clustering features (MFCC 1-12, log pitch, F1-F3, spectral centroid)
+     * at offset in sums/counts. Unvoiced words contribute no pitch or formants.
      */
-    private static double[] calculateSimplifiedMFCC(short[] samples, int sampleRate) {
-        double[] mfcc = new double[MFCC_COEFFICIENTS];
-        
-        // Very simplified MFCC (real implementation needs FFT and DCT)
-        for (int i = 0; i < MFCC_COEFFICIENTS; i++) {
-            double sum = 0;
-            int step = samples.length / MFCC_COEFFICIENTS;
-            int start = i * step;
-            int end = Math.min(start + step, samples.length);
-            
-            for (int j = start; j < end; j++) {
-                sum += Math.abs(samples[j]);
+    private static void accumulateClusterFeatures(AudioFeatures features, int offset, double[] sums, int[] counts) {
+        if (features == null || features.mfcc == null) {
+            return;
+        }
+        int d = offset;
+        for (int c = 1; c < MFCC_COEFFICIENTS; c++, d++) {
+            sums[d] += features.mfcc[c];
+            counts[d]++;
+        }
+        if (features.pitch > 0) {
+            sums[d] += Math.log(features.pitch);
+            counts[d]++;
+        }
+        d++;
+        if (features.formants != null && features.formants[0] > 0) {
+            for (int f = 0; f < 3; f++) {
+                sums[d + f] += features.formants[f];
+                counts[d + f]++;
             }
-            
-            mfcc[i] = Math.log(1 + sum / (end - start)) / 32768.0;
         }
-        
-        return mfcc;
+        d += 3;
+        sums[d] += features.spectralCentroid;
+        counts[d]++;
     }
     
     /**
-     * Cluster words by speaker using audio features
+     * Segment means scaled to zero mean and unit variance per dimension. Missing values become
+     * the dimension mean (0 after scaling).
      */
-    private static Map<WordTiming, String> clusterSpeakers(Map<WordTiming, AudioFeatures> wordFeatures, 
-                                                          String languageCode) {
-        Map<WordTiming, String> assignments = new HashMap<>();
-        List<SpeakerModel> speakers = new ArrayList<>();
-        
-        // Threshold for creating new speaker
-        double NEW_SPEAKER_THRESHOLD = 5.0;
-        
-        for (Map.Entry<WordTiming, AudioFeatures> entry : wordFeatures.entrySet()) {
-            WordTiming word = entry.getKey();
-            AudioFeatures features = entry.getValue();
-            
-            if (features == null) {
-                assignments.put(word, SpeakerLabels.formatSpeakerLabel(languageCode, 1));
-                continue;
+    private static float[] standardize(double[] sums, int[] counts, int[] clusterIndex, int items) {
+        float[] points = new float[items * CLUSTER_DIMENSIONS];
+        double[] value = new double[1];
+        for (int d = 0; d < CLUSTER_DIMENSIONS; d++) {
+            // Welford's update rather than a sum of squares, which cancels when the spread is small next to the mean
+            RunningStats stats = new RunningStats(1);
+            for (int s = 0; s < clusterIndex.length; s++) {
+                int at = s * CLUSTER_DIMENSIONS + d;
+                if (clusterIndex[s] < 0 || counts[at] == 0) continue;
+                value[0] = sums[at] / counts[at];
+                stats.add(value);
             }
+            if (stats.count() == 0) continue;
             
-            // Find closest speaker
-            SpeakerModel closestSpeaker = null;
-            double minDistance = Double.MAX_VALUE;
+            double mean = stats.mean(0);
+            double std = stats.standardDeviation(0);
+            double weight = d == PITCH_DIMENSION ? PITCH_WEIGHT : 1;
+            double scale = std > 1e-9 ? weight / std : 0;
             
-            for (SpeakerModel speaker : speakers) {
-                double distance = speaker.distanceToFeatures(features);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestSpeaker = speaker;
-                }
-            }
-            
-            if (closestSpeaker != null && minDistance < NEW_SPEAKER_THRESHOLD) {
-                // Assign to existing speaker
-                closestSpeaker.addFeatures(features);
-                assignments.put(word, closestSpeaker.speakerId);
-            } else {
-                // Create new speaker
-                int speakerNum = speakers.size() + 1;
-                String speakerId = SpeakerLabels.formatSpeakerLabel(languageCode, speakerNum);
-                SpeakerModel newSpeaker = new SpeakerModel(speakerId);
-                newSpeaker.addFeatures(features);
-                speakers.add(newSpeaker);
-                assignments.put(word, speakerId);
+            for (int s = 0; s < clusterIndex.length; s++) {
+                int at = s * CLUSTER_DIMENSIONS + d;
+                if (clusterIndex[s] < 0 || counts[at] == 0) continue;
+                points[clusterIndex[s] * CLUSTER_DIMENSIONS + d] = (float) ((sums[at] / counts[at] - mean) * scale);
             }
         }
-        
-        Log.d(TAG, "Clustered into " + speakers.size() + " speakers");
-        
-        return assignments;
+        return points;
+    }
+    
+    /**
+     * Per-analysis working state, reused for every word so the word loop allocates only results
+     */
+    private static class FeatureScratch {
+        final SpeechFeatureEngine engine;
+        final SpeechFeatureEngine.Result spectral = new SpeechFeatureEngine.Result(MFCC_COEFFICIENTS);
+        final PitchTracker pitchTracker;
+        final PitchTracker.Contour pitchContour = new PitchTracker.Contour();
+        final SampleBuffer samples;
+        
+        FeatureScratch(int sampleRate) {
+            engine = new SpeechFeatureEngine(sampleRate, MFCC_COEFFICIENTS);
+            pitchTracker = new PitchTracker(sampleRate);
+            samples = new SampleBuffer(sampleRate); // One second; long words grow it once
+        }
     }
     
     /**
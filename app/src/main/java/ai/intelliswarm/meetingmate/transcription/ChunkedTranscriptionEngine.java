@@ -0,0 +1,169 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.util.Log;
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transcribes audio chunks concurrently (bounded number of uploads in flight)
+ * and merges the verbose_json results back onto the original recording timeline.
+ */
+public class ChunkedTranscriptionEngine {
+    
+    private static final String TAG = "ChunkedTranscription";
+    
+    // Whisper word timestamps can overlap slightly at a cut; anything earlier than this is a duplicate
+    private static final float WORD_OVERLAP_TOLERANCE = 0.05f;
+    
+    /**
+     * Uploads a single chunk and returns the provider's decoded verbose_json response
+     */
+    public interface ChunkTranscriber {
+        WhisperTranscript transcribeChunk(AudioChunker.Chunk chunk) throws IOException;
+    }
+    
+    public interface ProgressListener {
+        void onChunkCompleted(int completed, int total);
+    }
+    
+    private final int maxInFlight;
+    private volatile ExecutorService executor;
+    
+    public ChunkedTranscriptionEngine(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+    
+    /**
+     * Transcribe all chunks and return a single merged transcript.
+     * Blocks the calling thread until every chunk is done or one of them fails.
+     */
+    public WhisperTranscript transcribe(List<AudioChunker.Chunk> chunks, ChunkTranscriber transcriber,
+                                 ProgressListener listener) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxInFlight, chunks.size()));
+        executor = pool;
+        AtomicInteger completed = new AtomicInteger();
+        
+        try {
+            List<Future<WhisperTranscript>> futures = new ArrayList<>();
+            for (AudioChunker.Chunk chunk : chunks) {
+                futures.add(pool.submit(() -> {
+                    long started = System.currentTimeMillis();
+                    WhisperTranscript result = transcribeWithRetry(transcriber, chunk);
+                    Log.d(TAG, "Chunk " + chunk.index + " transcribed in " + (System.currentTimeMillis() - started) + "ms");
+                    if (listener != null) {
+                        listener.onChunkCompleted(completed.incrementAndGet(), chunks.size());
+                    }
+                    return result;
+                }));
+            }
+            
+            List<WhisperTranscript> results = new ArrayList<>();
+            for (Future<WhisperTranscript> future : futures) {
+                results.add(future.get());
+            }
+            
+            return mergeResults(chunks, results);
+        
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause
+                : new IOException("Chunk transcription failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Chunked transcription interrupted");
+        } catch (CancellationException e) {
+            throw new IOException("Transcription cancelled");
+        } finally {
+            pool.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Stop all pending chunk uploads. Calls already on the wire must be cancelled by the transcriber.
+     */
+    public void cancel() {
+        ExecutorService pool = executor;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static WhisperTranscript transcribeWithRetry(ChunkTranscriber transcriber, AudioChunker.Chunk chunk)
+            throws IOException {
+        try {
+            return transcriber.transcribeChunk(chunk);
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) throw e;
+            // One retry per chunk: a single flaky upload should not fail a 90 minute meeting
+            Log.w(TAG, "Chunk " + chunk.index + " failed, retrying: " + e.getMessage());
+            return transcriber.transcribeChunk(chunk);
+        }
+    }
+    
+    /**
+     * Merge per-chunk results: shift timestamps by each chunk's offset and drop words
+     * duplicated across a cut.
+     */
+    public static WhisperTranscript mergeResults(List<AudioChunker.Chunk> chunks, List<WhisperTranscript> results) {
+        WhisperTranscript.Builder merged = new WhisperTranscript.Builder();
+        StringBuilder text = new StringBuilder();
+        String language = null;
+        
+        for (int c = 0; c < results.size(); c++) {
+            WhisperTranscript result = results.get(c);
+            float offset = (float) chunks.get(c).startSeconds;
+            
+            if (!result.text.isEmpty()) {
+                if (text.length() > 0) text.append(' ');
+                text.append(result.text);
+            }
+            
+            if (language == null) {
+                language = result.language;
+            }
+            
+            for (int i = 0; i < result.segmentCount; i++) {
+                merged.addSegment(result.segmentStart[i] + offset, result.segmentEnd[i] + offset, result.segmentText[i],
+                    result.segmentAvgLogprob[i], result.segmentNoSpeechProb[i]);
+            }
+            
+            for (int i = 0; i < result.wordCount; i++) {
+                float lastWordEnd = merged.lastWordEnd();
+                float start = result.wordStart[i] + offset;
+                float end = result.wordEnd[i] + offset;
+                
+                if (start < lastWordEnd - WORD_OVERLAP_TOLERANCE) {
+                    continue; // Already emitted by the previous chunk
+                }
+                
+                merged.addWord(result.words[i], Math.max(start, lastWordEnd), Math.max(end, lastWordEnd),
+                    result.wordProbability[i]);
+            }
+        }
+        
+        merged.setText(text.toString()).setLanguage(language);
+        if (!chunks.isEmpty()) {
+            merged.setDuration(chunks.get(chunks.size() - 1).endSeconds);
+        }
+        
+        return merged.build();
+    }
+    
+    /**
+     * Scratch directory for chunk files of a recording
+     */
+    public static File chunkDirectory(File cacheDir, File audioFile) {
+        return new File(cacheDir, "transcription_chunks/" + audioFile.getName().replaceAll("[^a-zA-Z0-9_\\-]", "_"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+
+import java.util.Arrays;
+
+/**
+ * Speaker annotations over one decoded transcript. Stages of a DiarizationPipeline write
+ * speaker numbers and confidences straight into these columns, so the transcript is parsed
+ * once and no per-segment objects are created between stages.
+ */
+public final class Diarization {
+    
+    public final WhisperTranscript transcript;
+    public final String languageCode;
+    
+    // 1-based speaker numbers, 0 where no speaker was assigned
+    public final int[] segmentSpeaker;
+    public final float[] segmentConfidence;
+    public final int[] wordSpeaker;
+    public final float[] wordConfidence;
+    
+    public int speakerCount;
+    public String method; // Stage whose labels are in place, null before any stage applied
+    
+    // Acoustic voiceprint per speaker (speakerCount x VoiceprintRegistry.DIMENSIONS) and the
+    // number of words behind it, from an audio stage; null otherwise
+    public float[] voiceprints;
+    public int[] voiceprintWords;
+    // Names of speakers recognised from earlier meetings; null entries keep the numbered label
+    public String[] speakerNames;
+    
+    public Diarization(WhisperTranscript transcript, String languageCode) {
+        this.transcript = transcript;
+        this.languageCode = languageCode;
+        this.segmentSpeaker = new int[transcript.segmentCount];
+        this.segmentConfidence = new float[transcript.segmentCount];
+        this.wordSpeaker = new int[transcript.wordCount];
+        this.wordConfidence = new float[transcript.wordCount];
+    }
+    
+    public boolean hasSpeakers() {
+        return speakerCount > 0;
+    }
+    
+    /**
+     * True when a word-level stage has assigned speakers to individual words
+     */
+    public boolean hasWordSpeakers() {
+        for (int speaker : wordSpeaker) {
+            if (speaker > 0) return true;
+        }
+        return false;
+    }
+    
+    public void clearWordSpeakers() {
+        Arrays.fill(wordSpeaker, 0);
+        Arrays.fill(wordConfidence, 0);
+    }
+    
+    public boolean hasVoiceprints() {
+        return voiceprints != null && speakerCount > 0;
+    }
+    
+    /**
+     * Drop voiceprints and names, for stages that reassign speakers without audio
+     */
+    public void clearVoiceprints() {
+        voiceprints = null;
+        voiceprintWords = null;
+        speakerNames = null;
+    }
+    
+    public String speakerLabel(int speaker) {
+        if (speakerNames != null && speaker > 0 && speaker <= speakerNames.length && speakerNames[speaker - 1] != null) {
+            return speakerNames[speaker - 1];
+        }
+        return SpeakerLabels.formatSpeakerLabel(languageCode, speaker);
+    }
+    
+    /**
+     * Renumber speakers 1, 2, ... in order of first appearance (segments first, then words)
+     * and update speakerCount. Stages call this after merging, which can leave gaps.
+     */
+    public void renumberSpeakers() {
+        int max = 0;
+        for (int speaker : segmentSpeaker) max = Math.max(max, speaker);
+        for (int speaker : wordSpeaker) max = Math.max(max, speaker);
+        
+        int[] number = new int[max + 1];
+        int next = 1;
+        for (int speaker : segmentSpeaker) {
+            if (speaker > 0 && number[speaker] == 0) number[speaker] = next++;
+        }
+        for (int speaker : wordSpeaker) {
+            if (speaker > 0 && number[speaker] == 0) number[speaker] = next++;
+        }
+        for (int i = 0; i < segmentSpeaker.length; i++) {
+            segmentSpeaker[i] = number[segmentSpeaker[i]];
+        }
+        for (int i = 0; i < wordSpeaker.length; i++) {
+            wordSpeaker[i] = number[wordSpeaker[i]];
+        }
+        speakerCount = next - 1;
+        
+        if (voiceprints != null) {
+            int dimensions = VoiceprintRegistry.DIMENSIONS;
+            float[] renumbered = new float[speakerCount * dimensions];
+            int[] words = new int[speakerCount];
+            for (int old = 1; old < number.length && old <= voiceprintWords.length; old++) {
+                if (number[old] == 0) continue;
+                System.arraycopy(voiceprints, (old - 1) * dimensions, renumbered, (number[old] - 1) * dimensions, dimensions);
+                words[number[old] - 1] = voiceprintWords[old - 1];
+            }
+            voiceprints = renumbered;
+            voiceprintWords = words;
+        }
+        if (speakerNames != null) {
+            String[] names = new String[speakerCount];
+            for (int old = 1; old < number.length && old <= speakerNames.length; old++) {
+                if (number[old] > 0) names[number[old] - 1] = speakerNames[old - 1];
+            }
+            speakerNames = names;
+        }
+    }
+    
+    /**
+     * Columnar copy of the segments, words and segment speakers for storage next to the meeting
+     */
+    public TranscriptTimeline toTimeline() {
+        TranscriptTimeline.Builder builder = new TranscriptTimeline.Builder();
+        for (int speaker = 1; speaker <= speakerCount; speaker++) {
+            builder.addSpeaker(speakerLabel(speaker));
+        }
+        for (int s = 0; s < transcript.segmentCount; s++) {
+            builder.addSegment(transcript.segmentStart[s], transcript.segmentEnd[s], segmentSpeaker[s],
+                transcript.segmentText[s]);
+            for (int w = transcript.firstWordOfSegment(s); w < transcript.endWordOfSegment(s); w++) {
+                builder.addWord(transcript.wordStart[w], transcript.wordEnd[w], transcript.words[w]);
+            }
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Readable transcript with a labelled paragraph per speaker turn. Uses word-level speakers
+     * when a stage assigned them, segment speakers otherwise. Text without a speaker joins the
+     * turn before it.
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder(transcript.text.length() + 64 * transcript.segmentCount);
+        int current = 0;
+        
+        if (hasWordSpeakers()) {
+            int w = 0;
+            while (w < transcript.wordCount) {
+                int speaker = wordSpeaker[w] > 0 ? wordSpeaker[w] : Math.max(current, 1);
+                int end = w + 1;
+                while (end < transcript.wordCount && (wordSpeaker[end] == speaker || wordSpeaker[end] == 0)) {
+                    end++;
+                }
+                
+                float confidence = 0;
+                for (int i = w; i < end; i++) {
+                    confidence += wordConfidence[i];
+                }
+                double duration = transcript.wordEnd[end - 1] - transcript.wordStart[w];
+                if (speaker != current) {
+                    appendTurnHeader(out, speaker, transcript.wordStart[w], confidence / (end - w),
+                        (end - w) / Math.max(0.1, duration));
+                    current = speaker;
+                } else {
+                    out.append(' ');
+                }
+                for (int i = w; i < end; i++) {
+                    if (i > w) out.append(' ');
+                    out.append(transcript.words[i]);
+                }
+                w = end;
+            }
+            return out.toString();
+        }
+        
+        for (int s = 0; s < transcript.segmentCount; s++) {
+            String text = transcript.segmentText[s];
+            if (text.isEmpty()) continue;
+            
+            int speaker = segmentSpeaker[s] > 0 ? segmentSpeaker[s] : Math.max(current, 1);
+            if (speaker != current) {
+                double duration = transcript.segmentEnd[s] - transcript.segmentStart[s];
+                appendTurnHeader(out, speaker, transcript.segmentStart[s], segmentConfidence[s],
+                    text.split("\\s+").length / Math.max(0.1, duration));
+                current = speaker;
+            } else {
+                out.append(' ');
+            }
+            out.append(text);
+        }
+        return out.toString();
+    }
+    
+    private void appendTurnHeader(StringBuilder out, int speaker, double startTime, double confidence, double wordsPerSecond) {
+        if (out.length() > 0) {
+            out.append("\n\n");
+        }
+        
+        // Confidence indicator
+        String confidenceIcon = confidence > 0.8 ? "🎯" :
+                               confidence > 0.6 ? "🗣️" : "❓";
+        
+        int minutes = (int) (startTime / 60);
+        int seconds = (int) (startTime % 60);
+        out.append(confidenceIcon).append(" **")
+           .append(speakerLabel(speaker))
+           .append("** [").append(String.format("%02d:%02d", minutes, seconds)).append("]")
+           .append(" (").append(SpeakerLabels.formatRateLabel(languageCode, wordsPerSecond)).append(")")
+           .append("\n");
+    }
+}
\ No newline at end of file
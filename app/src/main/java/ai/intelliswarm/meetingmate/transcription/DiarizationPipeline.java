@@ -0,0 +1,113 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs speaker detection stages in order over one Diarization. Each stage annotates the
+ * shared columns in place and gets its own time budget; stages check the deadline between
+ * units of work and give up (leaving the annotations untouched) once it has passed, so a slow
+ * audio pass can never hold up delivery of the transcript.
+ */
+public final class DiarizationPipeline {
+    
+    private static final String TAG = "DiarizationPipeline";
+    
+    /**
+     * One speaker detection pass
+     */
+    public interface Stage {
+        /**
+         * Annotate diarization in place. Write results only once they are complete, and return
+         * false without writing when the stage does not apply or the deadline passes.
+         */
+        boolean annotate(Diarization diarization, Deadline deadline);
+    }
+    
+    /**
+     * Point in time by which a stage should have finished
+     */
+    public static final class Deadline {
+        private final long endNanos;
+        
+        private Deadline(long endNanos) {
+            this.endNanos = endNanos;
+        }
+        
+        public static Deadline after(long millis) {
+            return new Deadline(System.nanoTime() + millis * 1_000_000L);
+        }
+        
+        public static Deadline none() {
+            return new Deadline(Long.MAX_VALUE);
+        }
+        
+        public boolean isExpired() {
+            return endNanos != Long.MAX_VALUE && System.nanoTime() - endNanos > 0;
+        }
+    }
+    
+    private static class Step {
+        final String name;
+        final long budgetMs;
+        final Stage stage;
+        final boolean fallback;
+        
+        Step(String name, long budgetMs, Stage stage, boolean fallback) {
+            this.name = name;
+            this.budgetMs = budgetMs;
+            this.stage = stage;
+            this.fallback = fallback;
+        }
+    }
+    
+    private final List<Step> steps = new ArrayList<>();
+    
+    /**
+     * Add a stage that always runs, refining whatever earlier stages produced
+     */
+    public DiarizationPipeline addStage(String name, long budgetMs, Stage stage) {
+        steps.add(new Step(name, budgetMs, stage, false));
+        return this;
+    }
+    
+    /**
+     * Add a stage that only runs when no earlier stage has assigned speakers
+     */
+    public DiarizationPipeline addFallback(String name, long budgetMs, Stage stage) {
+        steps.add(new Step(name, budgetMs, stage, true));
+        return this;
+    }
+    
+    public Diarization run(WhisperTranscript transcript, String languageCode) {
+        Diarization diarization = new Diarization(transcript, languageCode);
+        if (transcript.segmentCount == 0) {
+            return diarization;
+        }
+        
+        for (Step step : steps) {
+            if (step.fallback && diarization.hasSpeakers()) {
+                continue;
+            }
+            
+            long started = System.nanoTime();
+            boolean applied;
+            try {
+                applied = step.stage.annotate(diarization, Deadline.after(step.budgetMs));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Stage " + step.name + " failed", e);
+                applied = false;
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            
+            if (applied) {
+                diarization.method = step.name;
+            }
+            Log.d(TAG, "Stage " + step.name + (applied ? " applied" : " skipped") + " in " + elapsedMs
+                + "ms (budget " + step.budgetMs + "ms), " + diarization.speakerCount + " speakers");
+        }
+        return diarization;
+    }
+}
\ No newline at end of file
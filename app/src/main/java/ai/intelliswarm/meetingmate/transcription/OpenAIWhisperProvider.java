@@ -3,29 +3,41 @@ package ai.intelliswarm.meetingmate.transcription;
 import android.content.Context;
 import okhttp3.*;
 import org.json.JSONObject;
-import org.json.JSONArray;
 import org.json.JSONException;
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
+import ai.intelliswarm.meetingmate.audio.SpeechTranscoder;
+import ai.intelliswarm.meetingmate.audio.TimeRemap;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class OpenAIWhisperProvider implements TranscriptionProvider {
+public class OpenAIWhisperProvider implements TranscriptionProvider, ProgressiveTranscriber.SegmentTranscriber {
     
     private static final String WHISPER_API_URL = "https://api.openai.com/v1/audio/transcriptions";
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String WHISPER_MODEL = "whisper-1";
+    private static final int MAX_PARALLEL_UPLOADS = 3;
+    // Time allowed to each speaker detection stage before the plain transcript is delivered
+    private static final long VOICE_AUDIO_BUDGET_MS = 20000;
+    private static final long VOICE_PROFILE_BUDGET_MS = 2000;
+    private static final long VOICE_PATTERN_BUDGET_MS = 1000;
     
     private final Context context;
     private final OkHttpClient client;
-    private Call currentCall;
+    private volatile Call currentCall;
+    // Chunk and segment uploads on the wire
+    private final Set<Call> chunkCalls = ConcurrentHashMap.newKeySet();
+    private volatile ChunkedTranscriptionEngine chunkEngine;
+    // Set by cancel() and cleared only when the next transcription starts
+    private volatile boolean cancelled;
     
     public OpenAIWhisperProvider(Context context) {
         this.context = context;
-        this.client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .build();
+        this.client = HttpClientProvider.get(HttpClientProvider.Profile.TRANSCRIPTION_UPLOAD);
     }
     
     @Override
@@ -33,6 +45,11 @@ public class OpenAIWhisperProvider implements TranscriptionProvider {
         return ProviderType.OPENAI_WHISPER;
     }
     
+    @Override
+    public String getModelId() {
+        return WHISPER_MODEL;
+    }
+    
     @Override
     public boolean isConfigured() {
         SettingsManager settings = SettingsManager.getInstance(context);
@@ -53,12 +70,173 @@ public class OpenAIWhisperProvider implements TranscriptionProvider {
             callback.onError("OpenAI API key not configured");
             return;
         }
+        cancelled = false;
         
-        callback.onProgress(10); // Starting upload
+        // Transcoding and chunking do file I/O, so everything after this point runs off the caller's thread
+        new Thread(() -> {
+            callback.onProgress(5); // Preparing audio
+            File uploadFile = SpeechTranscoder.prepareForUpload(audioFile);
+            // Long silences may have been cut from the upload; timestamps are mapped back
+            TimeRemap remap = SpeechTranscoder.timeRemapFor(uploadFile);
+            if (cancelled) {
+                callback.onError("Transcription cancelled");
+                return;
+            }
+            
+            // Recordings above the upload limit are split at pauses and uploaded in parallel
+            if (uploadFile.length() > getMaxFileSizeMB() * 1024L * 1024L) {
+                transcribeChunked(uploadFile, audioFile, remap, apiKey, settings.getTranscriptLanguage(), callback);
+                return;
+            }
+            
+            callback.onProgress(10); // Starting upload
+            
+            Request request = buildTranscriptionRequest(uploadFile, apiKey, settings.getTranscriptLanguage());
+            
+            callback.onProgress(30); // Upload started
+            
+            Call upload = client.newCall(request);
+            currentCall = upload;
+            // Published before the check, so a cancel() either sees the call or is seen here
+            if (cancelled) {
+                callback.onError("Transcription cancelled");
+                return;
+            }
+            upload.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    if (call.isCanceled()) {
+                        callback.onError("Transcription cancelled");
+                    } else {
+                        callback.onError("Network error: " + e.getMessage());
+                    }
+                }
+                
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    callback.onProgress(80); // Processing response
+                    
+                    if (response.isSuccessful()) {
+                        WhisperTranscript result;
+                        try (ResponseBody body = response.body()) {
+                            // Decode straight from the socket, never holding the body as a String
+                            result = WhisperTranscript.parse(body.charStream());
+                        } catch (IOException e) {
+                            callback.onError("Failed to parse response: " + e.getMessage());
+                            return;
+                        }
+                        // Speaker detection decodes the whole recording; keep it off OkHttp's dispatcher
+                        WhisperTranscript remapped = result.remapTimes(remap);
+                        new Thread(() -> deliverResult(remapped, audioFile, callback), "SpeakerDetection").start();
+                    } else {
+                        callback.onError(describeError(response));
+                    }
+                }
+            });
+        }).start();
+    }
+    
+    /**
+     * Split a long recording into chunks below the upload limit and transcribe them concurrently
+     *
+     * @param audioFile the file to upload
+     * @param recording the original recording, which remap maps the upload's times onto
+     */
+    private void transcribeChunked(File audioFile, File recording, TimeRemap remap, String apiKey, String language,
+                                   TranscriptionCallback callback) {
+        List<AudioChunker.Chunk> chunks = null;
         
+        try {
+            if (cancelled) {
+                throw new IOException("Transcription cancelled");
+            }
+            File chunkDir = ChunkedTranscriptionEngine.chunkDirectory(context.getCacheDir(), audioFile);
+            chunks = AudioChunker.split(audioFile, chunkDir, getMaxFileSizeMB() * 1024L * 1024L);
+            android.util.Log.d("OpenAIWhisperProvider", "Transcribing " + audioFile.getName() + " in " + chunks.size() + " chunks");
+            callback.onProgress(15);
+            
+            ChunkedTranscriptionEngine engine = new ChunkedTranscriptionEngine(MAX_PARALLEL_UPLOADS);
+            chunkEngine = engine;
+            // Published before the check, so a cancel() either sees the engine or is seen here
+            if (cancelled) {
+                throw new IOException("Transcription cancelled");
+            }
+            
+            WhisperTranscript merged = engine.transcribe(chunks, chunk -> {
+                Call call = client.newCall(buildTranscriptionRequest(chunk.file, apiKey, language));
+                chunkCalls.add(call);
+                try {
+                    // Added before the check, so a cancel() either cancels this call or is seen here
+                    if (cancelled) {
+                        throw new IOException("Transcription cancelled");
+                    }
+                    try (Response response = call.execute()) {
+                        if (!response.isSuccessful()) {
+                            throw new IOException(describeError(response));
+                        }
+                        return WhisperTranscript.parse(response.body().charStream());
+                    }
+                } finally {
+                    chunkCalls.remove(call);
+                }
+            }, (completed, total) -> callback.onProgress(15 + (65 * completed) / total));
+            
+            callback.onProgress(80);
+            deliverResult(merged.remapTimes(remap), recording, callback);
+            
+        } catch (IOException e) {
+            callback.onError(cancelled ? "Transcription cancelled" : "Transcription failed: " + e.getMessage());
+        } finally {
+            chunkEngine = null;
+            if (chunks != null) {
+                AudioChunker.deleteChunks(chunks, audioFile);
+            }
+        }
+    }
+    
+    @Override
+    public WhisperTranscript transcribeSegment(File segmentFile) throws IOException {
+        SettingsManager settings = SettingsManager.getInstance(context);
+        String apiKey = settings.getOpenAIApiKey();
+        if (apiKey.isEmpty()) {
+            throw new IOException("OpenAI API key not configured");
+        }
+        
+        if (cancelled) {
+            throw new IOException("Transcription cancelled");
+        }
+        
+        // Segments are a few minutes long, well below the upload limit
+        File uploadFile = SpeechTranscoder.prepareForUpload(segmentFile);
+        TimeRemap remap = SpeechTranscoder.timeRemapFor(uploadFile);
+        Request request = buildTranscriptionRequest(uploadFile, apiKey, settings.getTranscriptLanguage());
+        Call call = client.newCall(request);
+        chunkCalls.add(call);
+        try {
+            // Added before the check, so a cancel() either cancels this call or is seen here
+            if (cancelled) {
+                throw new IOException("Transcription cancelled");
+            }
+            try (Response response = call.execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException(describeError(response));
+                }
+                return WhisperTranscript.parse(response.body().charStream()).remapTimes(remap);
+            }
+        } finally {
+            chunkCalls.remove(call);
+        }
+    }
+    
+    @Override
+    public void deliverStitched(WhisperTranscript transcript, File recording, TranscriptionCallback callback) {
+        deliverResult(transcript, recording, callback);
+    }
+    
+    private Request buildTranscriptionRequest(File audioFile, String apiKey, String language) {
         MultipartBody.Builder requestBodyBuilder = new MultipartBody.Builder()
             .setType(MultipartBody.FORM)
-            .addFormDataPart("model", "whisper-1")
+            .addFormDataPart("model", WHISPER_MODEL)
             .addFormDataPart("file", audioFile.getName(),
                 RequestBody.create(audioFile, MediaType.parse("audio/mpeg")))
             .addFormDataPart("response_format", "verbose_json")
@@ -66,101 +244,77 @@ public class OpenAIWhisperProvider implements TranscriptionProvider {
             .addFormDataPart("timestamp_granularities[]", "word");
         
         // Add language parameter only if not auto-detect
-        String language = settings.getTranscriptLanguage();
         if (language != null && !language.isEmpty() && !language.equals("auto")) {
             requestBodyBuilder.addFormDataPart("language", language);
         }
         
-        RequestBody requestBody = requestBodyBuilder.build();
-        
-        Request request = new Request.Builder()
+        return new Request.Builder()
             .url(WHISPER_API_URL)
             .header("Authorization", "Bearer " + apiKey)
-            .post(requestBody)
+            .post(requestBodyBuilder.build())
             .build();
+    }
+    
+    /**
+     * Apply speaker detection to a decoded result and hand it to the callback
+     */
+    private void deliverResult(WhisperTranscript result, File audioFile, TranscriptionCallback callback) {
+        String transcript = result.text;
         
-        callback.onProgress(30); // Upload started
-        
-        currentCall = client.newCall(request);
-        currentCall.enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                if (call.isCanceled()) {
-                    callback.onError("Transcription cancelled");
-                } else {
-                    callback.onError("Network error: " + e.getMessage());
-                }
-            }
+        // Get segments for timestamps and speaker detection
+        String segments = "";
+        if (result.segmentCount > 0) {
+            segments = result.toSegmentsJson();
             
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                callback.onProgress(80); // Processing response
+            // Acoustic speaker detection, then the text-based detectors when the audio pass
+            // cannot run or runs out of time
+            String transcriptLanguage = SettingsManager.getInstance(context).getTranscriptLanguage();
+            Diarization diarization;
+            try {
+                diarization = new DiarizationPipeline()
+                    .addStage("voice-audio", VOICE_AUDIO_BUDGET_MS,
+                        (d, deadline) -> AudioSpeakerAnalyzer.annotate(audioFile, d, deadline))
+                    .addFallback("voice-profile", VOICE_PROFILE_BUDGET_MS, AdvancedSpeakerDetection::annotate)
+                    .addFallback("voice-pattern", VOICE_PATTERN_BUDGET_MS, SpeakerDetection::annotate)
+                    .run(result, transcriptLanguage);
                 
-                if (response.isSuccessful()) {
-                    try {
-                        String responseBody = response.body().string();
-                        JSONObject json = new JSONObject(responseBody);
-                        String transcript = json.getString("text");
-                        
-                        // Get segments for timestamps and speaker detection
-                        String segments = "";
-                        JSONArray segmentsArray = json.optJSONArray("segments");
-                        if (segmentsArray != null) {
-                            segments = segmentsArray.toString();
-                            
-                            // Apply advanced word-level speaker detection with language support
-                            try {
-                                SettingsManager settingsManager = SettingsManager.getInstance(context);
-                                String transcriptLanguage = settingsManager.getTranscriptLanguage();
-                                
-                                // Use enhanced segment-based detection with language support
-                                java.util.List<AdvancedSpeakerDetection.EnhancedSpeakerSegment> enhancedSegments = 
-                                    AdvancedSpeakerDetection.detectSpeakersAdvanced(segments, context, transcriptLanguage);
-                                
-                                if (!enhancedSegments.isEmpty()) {
-                                    String enhancedTranscript = AdvancedSpeakerDetection.formatEnhancedTranscript(enhancedSegments, transcriptLanguage);
-                                    transcript = enhancedTranscript;
-                                    android.util.Log.d("OpenAIWhisperProvider", "Using enhanced speaker detection");
-                                } else {
-                                    // Fallback to basic detection with language support
-                                    java.util.List<SpeakerDetection.SpeakerSegment> speakerSegments = 
-                                        SpeakerDetection.detectSpeakers(segments, transcriptLanguage);
-                                    
-                                    if (!speakerSegments.isEmpty()) {
-                                        String speakerTranscript = SpeakerDetection.formatTranscriptWithSpeakers(speakerSegments, transcriptLanguage);
-                                        transcript = speakerTranscript;
-                                        android.util.Log.d("OpenAIWhisperProvider", "Using basic voice-based detection");
-                                    }
-                                }
-                            } catch (Exception e) {
-                                android.util.Log.w("OpenAIWhisperProvider", "Speaker detection failed, using plain transcript", e);
-                            }
-                        }
-                        
-                        callback.onProgress(100);
-                        callback.onSuccess(transcript, segments);
-                    } catch (JSONException e) {
-                        callback.onError("Failed to parse response: " + e.getMessage());
-                    }
-                } else {
-                    String errorBody = response.body() != null ? response.body().string() : "Unknown error";
-                    
-                    try {
-                        JSONObject error = new JSONObject(errorBody);
-                        JSONObject errorDetails = error.optJSONObject("error");
-                        if (errorDetails != null) {
-                            String message = errorDetails.optString("message", "API Error");
-                            String type = errorDetails.optString("type", "");
-                            callback.onError("OpenAI Error: " + message + " (" + type + ")");
-                        } else {
-                            callback.onError("API Error: " + response.code());
-                        }
-                    } catch (JSONException e) {
-                        callback.onError("API Error: " + response.code() + " - " + errorBody);
-                    }
+                // Put names on speakers heard in earlier meetings, if the user lets us keep voiceprints
+                if (diarization.hasVoiceprints() && SettingsManager.getInstance(context).isRememberVoicesEnabled()) {
+                    VoiceprintRegistry.getInstance(context).nameSpeakers(diarization);
+                }
+                
+                if (diarization.hasSpeakers()) {
+                    transcript = diarization.format();
+                    android.util.Log.d("OpenAIWhisperProvider", "Using " + diarization.method + " speaker detection");
                 }
+            } catch (Exception e) {
+                android.util.Log.w("OpenAIWhisperProvider", "Speaker detection failed, using plain transcript", e);
+                diarization = new Diarization(result, transcriptLanguage);
             }
-        });
+            
+            callback.onTimeline(diarization.toTimeline());
+        }
+        
+        callback.onProgress(100);
+        callback.onSuccess(transcript, segments);
+    }
+    
+    private String describeError(Response response) throws IOException {
+        String errorBody = response.body() != null ? response.body().string() : "Unknown error";
+        
+        try {
+            JSONObject error = new JSONObject(errorBody);
+            JSONObject errorDetails = error.optJSONObject("error");
+            if (errorDetails != null) {
+                String message = errorDetails.optString("message", "API Error");
+                String type = errorDetails.optString("type", "");
+                return "OpenAI Error: " + message + " (" + type + ")";
+            } else {
+                return "API Error: " + response.code();
+            }
+        } catch (JSONException e) {
+            return "API Error: " + response.code() + " - " + errorBody;
+        }
     }
     
     @Override
@@ -173,10 +327,25 @@ public class OpenAIWhisperProvider implements TranscriptionProvider {
         return 25; // OpenAI's limit
     }
     
+    @Override
+    public boolean supportsChunkedUpload() {
+        return true;
+    }
+    
     @Override
     public void cancel() {
-        if (currentCall != null && !currentCall.isCanceled()) {
-            currentCall.cancel();
+        cancelled = true;
+        Call upload = currentCall;
+        if (upload != null && !upload.isCanceled()) {
+            upload.cancel();
+        }
+        
+        ChunkedTranscriptionEngine engine = chunkEngine;
+        if (engine != null) {
+            engine.cancel();
+        }
+        for (Call call : chunkCalls) {
+            call.cancel();
         }
     }
 }
\ No newline at end of file
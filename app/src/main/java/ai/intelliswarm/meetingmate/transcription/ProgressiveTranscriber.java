@@ -0,0 +1,181 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.util.Log;
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Transcribes a recording while it is still going on. The recorder hands over each segment as
+ * it closes; segments are uploaded one at a time in the background, so when the meeting ends
+ * only the last few minutes are left to transcribe. The per-segment results are stitched with
+ * the same merge as chunked uploads, and speaker detection then runs once over the whole
+ * recording so speakers stay consistent across segments.
+ */
+public class ProgressiveTranscriber {
+    
+    private static final String TAG = "ProgressiveTranscriber";
+    
+    /**
+     * Providers that can transcribe a recording segment by segment
+     */
+    public interface SegmentTranscriber extends TranscriptionProvider {
+        /**
+         * Transcribe one closed segment, blocking the calling thread
+         */
+        WhisperTranscript transcribeSegment(File segmentFile) throws IOException;
+        
+        /**
+         * Run the end-of-recording steps (speaker detection over the whole recording) on a
+         * stitched transcript and hand the result to the callback
+         */
+        void deliverStitched(WhisperTranscript transcript, File recording,
+                             TranscriptionProvider.TranscriptionCallback callback);
+    }
+    
+    public interface ProgressListener {
+        void onSegmentsCompleted(int completed, int total);
+    }
+    
+    private final SegmentTranscriber transcriber;
+    // One upload at a time: segments close minutes apart, and order keeps the tail last
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<AudioChunker.Chunk> segments = new ArrayList<>();
+    private final List<Future<WhisperTranscript>> results = new ArrayList<>();
+    private volatile int completed;
+    private volatile boolean cancelled;
+    
+    public ProgressiveTranscriber(SegmentTranscriber transcriber) {
+        this.transcriber = transcriber;
+    }
+    
+    SegmentTranscriber getProvider() {
+        return transcriber;
+    }
+    
+    /**
+     * Queue a closed segment. Times are its position in the final recording. Segments live in
+     * a directory of their own, which must stay in place until await() returns.
+     */
+    public synchronized void addSegment(File segmentFile, double startSeconds, double endSeconds) {
+        if (cancelled) {
+            return;
+        }
+        AudioChunker.Chunk segment = new AudioChunker.Chunk(segments.size(), segmentFile, startSeconds, endSeconds);
+        segments.add(segment);
+        results.add(executor.submit(() -> {
+            long started = System.currentTimeMillis();
+            WhisperTranscript result = transcribeWithRetry(segment);
+            completed++;
+            Log.d(TAG, "Segment " + segment.index + " (" + Math.round(segment.getDurationSeconds()) + "s) transcribed in "
+                + (System.currentTimeMillis() - started) + "ms");
+            return result;
+        }));
+        Log.d(TAG, "Queued segment " + segment.index + " at " + Math.round(startSeconds) + "s");
+    }
+    
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Wait for every queued segment and return the stitched transcript. No segments may be
+     * added afterwards.
+     */
+    public WhisperTranscript await(ProgressListener listener) throws IOException {
+        List<AudioChunker.Chunk> chunks;
+        List<Future<WhisperTranscript>> futures;
+        synchronized (this) {
+            executor.shutdown();
+            chunks = new ArrayList<>(segments);
+            futures = new ArrayList<>(results);
+        }
+        if (cancelled) {
+            throw new IOException("Transcription cancelled");
+        }
+        if (chunks.isEmpty()) {
+            throw new IOException("No segments were recorded");
+        }
+        
+        try {
+            List<WhisperTranscript> transcripts = new ArrayList<>();
+            for (Future<WhisperTranscript> future : futures) {
+                transcripts.add(future.get());
+                if (cancelled) {
+                    throw new IOException("Transcription cancelled");
+                }
+                if (listener != null) {
+                    listener.onSegmentsCompleted(Math.max(completed, transcripts.size()), chunks.size());
+                }
+            }
+            return ChunkedTranscriptionEngine.mergeResults(chunks, transcripts);
+            
+        } catch (ExecutionException e) {
+            if (cancelled) {
+                throw new IOException("Transcription cancelled");
+            }
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause
+                : new IOException("Segment transcription failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Progressive transcription interrupted");
+        } catch (CancellationException e) {
+            throw new IOException("Transcription cancelled");
+        }
+    }
+    
+    /**
+     * Drop the segments not uploaded yet and cancel the one on the wire; await() then fails with
+     * "Transcription cancelled"
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            // Futures of tasks that never started would otherwise never complete
+            for (Future<WhisperTranscript> result : results) {
+                result.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+        transcriber.cancel();
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Delete the segment directory, with the speech copies made from the segments
+     */
+    public synchronized void deleteSegments() {
+        File dir = segments.isEmpty() ? null : segments.get(0).file.getParentFile();
+        File[] files = dir != null ? dir.listFiles() : null;
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            file.delete();
+        }
+        dir.delete();
+    }
+    
+    private WhisperTranscript transcribeWithRetry(AudioChunker.Chunk segment) throws IOException {
+        try {
+            return transcriber.transcribeSegment(segment.file);
+        } catch (IOException e) {
+            if (cancelled || Thread.currentThread().isInterrupted()) throw e;
+            // One retry per segment, as for chunks; after that the whole recording is transcribed instead
+            Log.w(TAG, "Segment " + segment.index + " failed, retrying: " + e.getMessage());
+            return transcriber.transcribeSegment(segment.file);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import java.util.regex.Pattern;
+
+/**
+ * Decides before anything is uploaded how a transcript fits into one model call: as it is,
+ * compressed (turn headers shortened, fillers dropped), or only in chunks.
+ */
+public class PromptBudgetPlanner {
+    
+    // Compression saves at most this much; anything further over the budget goes straight to chunks
+    private static final double COMPRESSIBLE_RATIO = 1.35;
+    // TokenCounter only estimates, and undercounts some text (other scripts, runs of punctuation),
+    // so only this share of what is left of the context is planned with
+    static final double SAFETY_MARGIN = 0.85;
+    
+    // "🎯 **Speaker 1** [01:23] (normal pace)" -> "Speaker 1:"
+    private static final Pattern TURN_HEADER = Pattern.compile(
+        "^[^\\n*]*\\*\\*([^*\\n]+)\\*\\*\\s*\\[[\\d:]+\\][^\\n]*\\n", Pattern.MULTILINE);
+    private static final Pattern FILLER = Pattern.compile(
+        "(?i)\\b(?:um+|uh+|erm+|hmm+|mhm)\\b[,.]?\\s*");
+    private static final Pattern SPACES = Pattern.compile("[ \\t]{2,}");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+    
+    public enum Strategy {
+        DIRECT,
+        COMPRESS,
+        CHUNK
+    }
+    
+    public static class Plan {
+        public final Strategy strategy;
+        // What to send: the transcript, or its compressed form
+        public final String text;
+        public final int tokens;
+        public final int budget;
+        
+        Plan(Strategy strategy, String text, int tokens, int budget) {
+            this.strategy = strategy;
+            this.text = text;
+            this.tokens = tokens;
+            this.budget = budget;
+        }
+        
+        @Override
+        public String toString() {
+            return strategy + " (" + tokens + " of " + budget + " tokens)";
+        }
+    }
+    
+    private final TokenCounter counter;
+    private final int contextTokens;
+    private final int replyTokens;
+    
+    /**
+     * @param contextTokens the model's context window
+     * @param replyTokens   tokens kept free for the reply (the request's max_tokens)
+     */
+    public PromptBudgetPlanner(TokenCounter counter, int contextTokens, int replyTokens) {
+        this.counter = counter;
+        this.contextTokens = contextTokens;
+        this.replyTokens = replyTokens;
+    }
+    
+    /**
+     * Plan for a transcript sent inside a prompt that, without it, has promptTokens tokens. The
+     * budget keeps a safety margin for estimation error.
+     */
+    public Plan plan(String transcript, int promptTokens) {
+        int budget = (int) (Math.max(0, contextTokens - replyTokens - promptTokens) * SAFETY_MARGIN);
+        int tokens = counter.count(transcript);
+        if (tokens <= budget) {
+            return new Plan(Strategy.DIRECT, transcript, tokens, budget);
+        }
+        
+        if (tokens <= budget * COMPRESSIBLE_RATIO) {
+            String compressed = compress(transcript);
+            int compressedTokens = counter.count(compressed);
+            if (compressedTokens <= budget) {
+                return new Plan(Strategy.COMPRESS, compressed, compressedTokens, budget);
+            }
+        }
+        return new Plan(Strategy.CHUNK, transcript, tokens, budget);
+    }
+    
+    public TokenCounter getCounter() {
+        return counter;
+    }
+    
+    /**
+     * Drop what a summary does not need: timestamps, confidence icons and pace labels on turn
+     * headers, filler words and runs of whitespace
+     */
+    public static String compress(String transcript) {
+        String text = TURN_HEADER.matcher(transcript).replaceAll("$1: ");
+        text = FILLER.matcher(text).replaceAll("");
+        text = SPACES.matcher(text).replaceAll(" ");
+        return BLANK_LINES.matcher(text).replaceAll("\n\n").trim();
+    }
+}
@@ -0,0 +1,75 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+/**
+ * Per-dimension running mean and variance of a stream of feature vectors, updated in constant
+ * time per sample with Welford's algorithm. With a decay below 1 older samples are weighted
+ * down exponentially, so the statistics follow a voice that drifts over a long meeting.
+ * Nothing is retained per sample.
+ */
+public final class RunningStats {
+    
+    private final int dimensions;
+    private final double decay;
+    private final double[] mean;
+    private final double[] m2;
+    private double weight;
+    private long count;
+    
+    /**
+     * Plain cumulative statistics, every sample weighted equally
+     */
+    public RunningStats(int dimensions) {
+        this(dimensions, 1.0);
+    }
+    
+    /**
+     * @param decay factor applied to the weight of everything seen so far on each new sample,
+     *              in (0, 1]; 1 is a plain average, 0.98 gives an effective window of about
+     *              50 samples
+     */
+    public RunningStats(int dimensions, double decay) {
+        if (decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("decay must be in (0, 1]: " + decay);
+        }
+        this.dimensions = dimensions;
+        this.decay = decay;
+        this.mean = new double[dimensions];
+        this.m2 = new double[dimensions];
+    }
+    
+    public void add(double[] sample) {
+        weight = weight * decay + 1;
+        count++;
+        for (int d = 0; d < dimensions; d++) {
+            double delta = sample[d] - mean[d];
+            mean[d] += delta / weight;
+            m2[d] = m2[d] * decay + delta * (sample[d] - mean[d]);
+        }
+    }
+    
+    public int dimensions() {
+        return dimensions;
+    }
+    
+    /**
+     * Number of samples added, regardless of decay
+     */
+    public long count() {
+        return count;
+    }
+    
+    public double mean(int dimension) {
+        return mean[dimension];
+    }
+    
+    /**
+     * Weighted population variance, 0 until two samples have been seen
+     */
+    public double variance(int dimension) {
+        return count < 2 ? 0 : Math.max(0, m2[dimension] / weight);
+    }
+    
+    public double standardDeviation(int dimension) {
+        return Math.sqrt(variance(dimension));
+    }
+}
\ No newline at end of file
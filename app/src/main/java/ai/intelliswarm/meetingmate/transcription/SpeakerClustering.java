@@ -0,0 +1,201 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import java.util.Arrays;
+
+/**
+ * Ward agglomerative clustering over fixed-length feature vectors, used to group speech
+ * segments by speaker. Pairwise distances live in one packed float triangle, merges are found
+ * with the nearest-neighbor chain algorithm (O(n^2) time, no per-pair objects), and the
+ * dendrogram is cut where the merge cost jumps the most. Ward is used rather than average
+ * linkage because merging two speakers costs in proportion to their sizes, which stands out
+ * clearly from stray segments joining their own speaker late. Ties are broken by index, so
+ * the same input always yields the same labels.
+ */
+public final class SpeakerClustering {
+    
+    private SpeakerClustering() {
+    }
+    
+    /**
+     * Cluster n = points.length / dimensions points.
+     *
+     * @param maxClusters upper bound on the number of speakers
+     * @param minRelativeGap a split is only made if the first rejected merge is at least this
+     *                       much farther (relatively) than the last one kept, e.g. 0.2
+     * @return cluster label per point, numbered 0, 1, ... in order of first appearance
+     */
+    public static int[] cluster(float[] points, int dimensions, int maxClusters, float minRelativeGap) {
+        int n = points.length / dimensions;
+        if (n <= 1) {
+            return new int[n];
+        }
+        
+        float[] distances = pairwiseDistances(points, dimensions, n);
+        int[] mergeA = new int[n - 1];
+        int[] mergeB = new int[n - 1];
+        float[] mergeDistance = new float[n - 1];
+        nearestNeighborChain(distances, n, mergeA, mergeB, mergeDistance);
+        
+        // Merges in ascending distance; ties keep chain order, which respects merge dependencies
+        long[] order = new long[n - 1];
+        for (int m = 0; m < n - 1; m++) {
+            order[m] = ((long) Float.floatToIntBits(mergeDistance[m]) << 32) | m;
+        }
+        Arrays.sort(order);
+        float[] sorted = new float[n - 1];
+        for (int m = 0; m < n - 1; m++) {
+            sorted[m] = mergeDistance[(int) order[m]];
+        }
+        
+        int clusters = chooseClusterCount(sorted, n, maxClusters, minRelativeGap);
+        
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (int m = 0; m < n - clusters; m++) {
+            int merge = (int) order[m];
+            int rootA = find(parent, mergeA[merge]);
+            int rootB = find(parent, mergeB[merge]);
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+        
+        int[] labels = new int[n];
+        int[] labelOfRoot = new int[n];
+        Arrays.fill(labelOfRoot, -1);
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (labelOfRoot[root] < 0) {
+                labelOfRoot[root] = next++;
+            }
+            labels[i] = labelOfRoot[root];
+        }
+        return labels;
+    }
+    
+    /**
+     * Pick K in [1, maxClusters] where the first rejected merge is relatively farthest from the
+     * last merge kept. K = 1 unless that jump clears minRelativeGap.
+     */
+    static int chooseClusterCount(float[] sortedMerges, int n, int maxClusters, float minRelativeGap) {
+        int best = 1;
+        float bestRatio = 1 + minRelativeGap;
+        for (int k = 2; k <= Math.min(maxClusters, n - 1); k++) {
+            float rejected = sortedMerges[n - k];     // Merge that would go from k to k - 1 clusters
+            float accepted = sortedMerges[n - k - 1]; // Last merge kept
+            float ratio = rejected / Math.max(accepted, 1e-6f);
+            if (ratio >= bestRatio) {
+                bestRatio = ratio;
+                best = k;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Upper triangle of squared Euclidean distances, scaled by 1/dimensions so thresholds do
+     * not depend on the vector length
+     */
+    private static float[] pairwiseDistances(float[] points, int dimensions, int n) {
+        float[] distances = new float[(int) ((long) n * (n - 1) / 2)];
+        float scale = 1f / dimensions;
+        int index = 0;
+        for (int i = 0; i < n; i++) {
+            int baseI = i * dimensions;
+            for (int j = i + 1; j < n; j++) {
+                int baseJ = j * dimensions;
+                float sum = 0;
+                for (int d = 0; d < dimensions; d++) {
+                    float diff = points[baseI + d] - points[baseJ + d];
+                    sum += diff * diff;
+                }
+                distances[index++] = sum * scale;
+            }
+        }
+        return distances;
+    }
+    
+    /**
+     * Run Ward linkage to a single cluster, recording each merge height. A merged cluster keeps
+     * the lower of its two indices; distances to it follow the Lance-Williams update.
+     */
+    private static void nearestNeighborChain(float[] distances, int n, int[] mergeA, int[] mergeB, float[] mergeDistance) {
+        int[] size = new int[n];
+        Arrays.fill(size, 1);
+        boolean[] active = new boolean[n];
+        Arrays.fill(active, true);
+        int[] chain = new int[n];
+        int chainLength = 0;
+        int merges = 0;
+        int firstActive = 0;
+        
+        while (merges < n - 1) {
+            if (chainLength == 0) {
+                while (!active[firstActive]) firstActive++;
+                chain[chainLength++] = firstActive;
+            }
+            
+            int current = chain[chainLength - 1];
+            int previous = chainLength >= 2 ? chain[chainLength - 2] : -1;
+            
+            // Nearest active neighbor; keeping the previous chain element on ties guarantees progress
+            int nearest = previous;
+            float nearestDistance = previous >= 0 ? distances[packedIndex(n, current, previous)] : Float.MAX_VALUE;
+            for (int k = 0; k < n; k++) {
+                if (!active[k] || k == current) continue;
+                float d = distances[packedIndex(n, current, k)];
+                if (d < nearestDistance) {
+                    nearestDistance = d;
+                    nearest = k;
+                }
+            }
+            
+            if (nearest != previous) {
+                chain[chainLength++] = nearest;
+                continue;
+            }
+            
+            // Reciprocal nearest neighbors: merge them
+            chainLength -= 2;
+            int keep = Math.min(current, previous);
+            int drop = Math.max(current, previous);
+            mergeA[merges] = keep;
+            mergeB[merges] = drop;
+            mergeDistance[merges] = (float) Math.sqrt(nearestDistance);
+            merges++;
+            
+            int sizeKeep = size[keep];
+            int sizeDrop = size[drop];
+            active[drop] = false;
+            for (int k = 0; k < n; k++) {
+                if (!active[k] || k == keep) continue;
+                int toKeep = packedIndex(n, keep, k);
+                int sizeK = size[k];
+                float merged = ((sizeK + sizeKeep) * distances[toKeep]
+                    + (sizeK + sizeDrop) * distances[packedIndex(n, drop, k)]
+                    - sizeK * nearestDistance) / (sizeK + sizeKeep + sizeDrop);
+                distances[toKeep] = merged;
+            }
+            size[keep] = sizeKeep + sizeDrop;
+        }
+    }
+    
+    /**
+     * Position of pair (i, j), i != j, in the packed upper triangle
+     */
+    static int packedIndex(int n, int i, int j) {
+        if (i > j) {
+            int t = i; i = j; j = t;
+        }
+        return (int) ((long) i * (2L * n - i - 1) / 2) + (j - i - 1);
+    }
+    
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
\ No newline at end of file
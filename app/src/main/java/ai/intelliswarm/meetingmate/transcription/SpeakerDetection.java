@@ -1,9 +1,7 @@
 package ai.intelliswarm.meetingmate.transcription;
 
 import android.util.Log;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,12 +45,8 @@ public class SpeakerDetection {
         int wordCount;
         double avgWordLength;
         
-        VoiceProfile(JSONObject segment) throws JSONException {
-            String text = segment.getString("text").trim();
-            double startTime = segment.getDouble("start");
-            double endTime = segment.getDouble("end");
-            
-            this.avgLogprob = segment.optDouble("avg_logprob", 0);
+        VoiceProfile(String text, double startTime, double endTime, double avgLogprob) {
+            this.avgLogprob = avgLogprob;
             this.segmentDuration = endTime - startTime;
             this.wordCount = text.split("\\s+").length;
             this.speakingRate = wordCount / Math.max(0.1, segmentDuration);
@@ -89,121 +83,177 @@ public class SpeakerDetection {
      * @return List of speaker segments with detected speakers
      */
     public static List<SpeakerSegment> detectSpeakers(String segmentsJson, String languageCode) {
+        try {
+            return detectSpeakers(WhisperTranscript.parseSegments(segmentsJson), languageCode);
+        } catch (IOException e) {
+            Log.e(TAG, "Error parsing segments for speaker detection", e);
+            // Fallback: create single speaker segment
+            List<SpeakerSegment> fallback = new ArrayList<>();
+            fallback.add(new SpeakerSegment("Speaker 1", 0, 0, "Transcription available (speaker detection failed)", 0.5));
+            return fallback;
+        }
+    }
+    
+    /**
+     * Process an already decoded transcript with language support
+     * @param transcript Decoded Whisper response
+     * @param languageCode Language code for labels
+     * @return List of speaker segments with detected speakers
+     */
+    public static List<SpeakerSegment> detectSpeakers(WhisperTranscript transcript, String languageCode) {
         List<SpeakerSegment> speakerSegments = new ArrayList<>();
         
-        try {
-            JSONArray segments = new JSONArray(segmentsJson);
-            if (segments.length() == 0) {
-                return speakerSegments;
-            }
+        if (transcript.segmentCount == 0) {
+            return speakerSegments;
+        }
+        
+        int[] speakerOf = new int[transcript.segmentCount];
+        double[] confidence = new double[transcript.segmentCount];
+        assignSpeakers(transcript, speakerOf, confidence, DiarizationPipeline.Deadline.none());
+        
+        for (int i = 0; i < transcript.segmentCount; i++) {
+            if (speakerOf[i] == 0) continue;
+            speakerSegments.add(new SpeakerSegment(
+                SpeakerLabels.formatSpeakerLabel(languageCode, speakerOf[i]),
+                transcript.segmentStart[i], transcript.segmentEnd[i], transcript.segmentText[i], confidence[i]
+            ));
+        }
+        
+        return speakerSegments;
+    }
+    
+    /**
+     * Diarization stage: speaker changes from pauses and voice pattern shifts between segments
+     */
+    public static boolean annotate(Diarization diarization, DiarizationPipeline.Deadline deadline) {
+        WhisperTranscript transcript = diarization.transcript;
+        int[] speakerOf = new int[transcript.segmentCount];
+        double[] confidence = new double[transcript.segmentCount];
+        if (assignSpeakers(transcript, speakerOf, confidence, deadline) <= 0) {
+            return false;
+        }
+        
+        for (int i = 0; i < speakerOf.length; i++) {
+            diarization.segmentSpeaker[i] = speakerOf[i];
+            diarization.segmentConfidence[i] = (float) confidence[i];
+        }
+        diarization.clearWordSpeakers();
+        diarization.clearVoiceprints();
+        diarization.renumberSpeakers();
+        return true;
+    }
+    
+    /**
+     * Walk the segments in order, starting a new speaker (or returning to an earlier one) when
+     * a pause coincides with a change in voice pattern. speakerOf receives 1-based speaker
+     * numbers, 0 for segments too short to judge.
+     *
+     * @return number of speakers, or -1 when the deadline passed
+     */
+    private static int assignSpeakers(WhisperTranscript transcript, int[] speakerOf, double[] confidences,
+                                      DiarizationPipeline.Deadline deadline) {
+        // Track voice profiles for each speaker
+        List<VoiceProfile> speakerProfiles = new ArrayList<>();
+        List<VoiceProfile> recentProfiles = new ArrayList<>();
+        
+        int currentSpeaker = 1;
+        int speakerCount = 1;
+        VoiceProfile currentSpeakerProfile = null;
+        double previousEndTime = 0;
+        
+        Log.d(TAG, "Processing " + transcript.segmentCount + " segments for voice-based speaker detection");
+        
+        for (int i = 0; i < transcript.segmentCount; i++) {
+            double startTime = transcript.segmentStart[i];
+            double endTime = transcript.segmentEnd[i];
+            String text = transcript.segmentText[i];
             
-            // Track voice profiles for each speaker
-            List<VoiceProfile> speakerProfiles = new ArrayList<>();
-            List<VoiceProfile> recentProfiles = new ArrayList<>();
+            if (text.isEmpty() || text.split("\\s+").length < 2) {
+                continue; // Skip very short segments
+            }
+            if (deadline.isExpired()) {
+                Log.w(TAG, "Out of time after " + i + " of " + transcript.segmentCount + " segments");
+                return -1;
+            }
             
-            String currentSpeaker = SpeakerLabels.formatSpeakerLabel(languageCode, 1);
-            int speakerCount = 1;
-            VoiceProfile currentSpeakerProfile = null;
-            double previousEndTime = 0;
+            // Create voice profile for current segment
+            VoiceProfile currentProfile = new VoiceProfile(text, startTime, endTime, transcript.segmentAvgLogprob[i]);
             
-            Log.d(TAG, "Processing " + segments.length() + " segments for voice-based speaker detection");
+            boolean speakerChange = false;
+            double pauseLength = startTime - previousEndTime;
             
-            for (int i = 0; i < segments.length(); i++) {
-                JSONObject segment = segments.getJSONObject(i);
+            if (i > 0 && currentSpeakerProfile != null) {
+                // Calculate voice similarity
+                double voiceSimilarity = currentProfile.calculateSimilarity(currentSpeakerProfile);
                 
-                double startTime = segment.getDouble("start");
-                double endTime = segment.getDouble("end");
-                String text = segment.getString("text").trim();
+                // Check if this matches any previous speaker
+                int matchingSpeaker = -1;
+                double bestMatch = Double.MAX_VALUE;
                 
-                if (text.isEmpty() || text.split("\\s+").length < 2) {
-                    continue; // Skip very short segments
+                for (int j = 0; j < speakerProfiles.size(); j++) {
+                    double similarity = currentProfile.calculateSimilarity(speakerProfiles.get(j));
+                    if (similarity < bestMatch) {
+                        bestMatch = similarity;
+                        matchingSpeaker = j;
+                    }
                 }
                 
-                // Create voice profile for current segment
-                VoiceProfile currentProfile = new VoiceProfile(segment);
-                
-                boolean speakerChange = false;
-                double pauseLength = startTime - previousEndTime;
-                
-                if (i > 0 && currentSpeakerProfile != null) {
-                    // Calculate voice similarity
-                    double voiceSimilarity = currentProfile.calculateSimilarity(currentSpeakerProfile);
-                    
-                    // Check if this matches any previous speaker
-                    int matchingSpeaker = -1;
-                    double bestMatch = Double.MAX_VALUE;
-                    
-                    for (int j = 0; j < speakerProfiles.size(); j++) {
-                        double similarity = currentProfile.calculateSimilarity(speakerProfiles.get(j));
-                        if (similarity < bestMatch) {
-                            bestMatch = similarity;
-                            matchingSpeaker = j;
-                        }
-                    }
-                    
-                    // Determine if speaker changed based on voice characteristics
-                    if (voiceSimilarity > VOICE_PATTERN_CHANGE_THRESHOLD && pauseLength > MIN_PAUSE_FOR_SPEAKER_CHANGE) {
-                        speakerChange = true;
-                        
-                        // Check if it's a returning speaker
-                        if (bestMatch < VOICE_PATTERN_CHANGE_THRESHOLD && matchingSpeaker >= 0) {
-                            currentSpeaker = SpeakerLabels.formatSpeakerLabel(languageCode, matchingSpeaker + 1);
-                            Log.d(TAG, "Returning speaker detected: " + currentSpeaker + " at " + formatTime(startTime));
-                        } else {
-                            // New speaker
-                            speakerCount++;
-                            currentSpeaker = SpeakerLabels.formatSpeakerLabel(languageCode, speakerCount);
-                            speakerProfiles.add(currentProfile);
-                            Log.d(TAG, "New speaker detected: " + currentSpeaker + " at " + formatTime(startTime) + 
-                                  " (voice similarity: " + String.format("%.2f", voiceSimilarity) + ")");
-                        }
-                    }
+                // Determine if speaker changed based on voice characteristics
+                if (voiceSimilarity > VOICE_PATTERN_CHANGE_THRESHOLD && pauseLength > MIN_PAUSE_FOR_SPEAKER_CHANGE) {
+                    speakerChange = true;
                     
-                    // Log voice characteristics for debugging
-                    if (i % 5 == 0) { // Log every 5th segment
-                        Log.d(TAG, String.format("Segment %d voice: rate=%.1f w/s, logprob=%.2f, similarity=%.2f", 
-                            i, currentProfile.speakingRate, currentProfile.avgLogprob, voiceSimilarity));
+                    // Check if it's a returning speaker
+                    if (bestMatch < VOICE_PATTERN_CHANGE_THRESHOLD && matchingSpeaker >= 0) {
+                        currentSpeaker = matchingSpeaker + 1;
+                        Log.d(TAG, "Returning speaker detected: #" + currentSpeaker + " at " + formatTime(startTime));
+                    } else {
+                        // New speaker
+                        speakerCount++;
+                        currentSpeaker = speakerCount;
+                        speakerProfiles.add(currentProfile);
+                        Log.d(TAG, "New speaker detected: #" + currentSpeaker + " at " + formatTime(startTime) + 
+                              " (voice similarity: " + String.format("%.2f", voiceSimilarity) + ")");
                     }
-                } else if (i == 0) {
-                    // First segment - establish baseline
-                    speakerProfiles.add(currentProfile);
-                    Log.d(TAG, "Initial speaker profile established");
                 }
                 
-                // Update current speaker profile with rolling average
-                if (!speakerChange) {
-                    recentProfiles.add(currentProfile);
-                    if (recentProfiles.size() > 3) {
-                        recentProfiles.remove(0);
-                    }
-                    // Calculate average profile from recent segments
-                    currentSpeakerProfile = calculateAverageProfile(recentProfiles);
-                } else {
-                    // Reset recent profiles for new speaker
-                    recentProfiles.clear();
-                    recentProfiles.add(currentProfile);
-                    currentSpeakerProfile = currentProfile;
+                // Log voice characteristics for debugging
+                if (i % 5 == 0) { // Log every 5th segment
+                    Log.d(TAG, String.format("Segment %d voice: rate=%.1f w/s, logprob=%.2f, similarity=%.2f", 
+                        i, currentProfile.speakingRate, currentProfile.avgLogprob, voiceSimilarity));
                 }
-                
-                // Calculate confidence based on voice consistency
-                double confidence = Math.max(0.3, Math.min(1, 1 - (currentProfile.avgLogprob + 1)));
-                
-                speakerSegments.add(new SpeakerSegment(
-                    currentSpeaker, startTime, endTime, text, confidence
-                ));
-                
-                previousEndTime = endTime;
+            } else if (i == 0) {
+                // First segment - establish baseline
+                speakerProfiles.add(currentProfile);
+                Log.d(TAG, "Initial speaker profile established");
+            }
+            
+            // Update current speaker profile with rolling average
+            if (!speakerChange) {
+                recentProfiles.add(currentProfile);
+                if (recentProfiles.size() > 3) {
+                    recentProfiles.remove(0);
+                }
+                // Calculate average profile from recent segments
+                currentSpeakerProfile = calculateAverageProfile(recentProfiles);
+            } else {
+                // Reset recent profiles for new speaker
+                recentProfiles.clear();
+                recentProfiles.add(currentProfile);
+                currentSpeakerProfile = currentProfile;
             }
             
-            Log.d(TAG, "Speaker detection complete. Found " + speakerCount + " speakers in " + segments.length() + " segments");
+            // Calculate confidence based on voice consistency
+            double confidence = Math.max(0.3, Math.min(1, 1 - (currentProfile.avgLogprob + 1)));
             
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing segments for speaker detection", e);
-            // Fallback: create single speaker segment
-            speakerSegments.add(new SpeakerSegment("Speaker 1", 0, 0, "Transcription available (speaker detection failed)", 0.5));
+            speakerOf[i] = currentSpeaker;
+            confidences[i] = confidence;
+            
+            previousEndTime = endTime;
         }
         
-        return speakerSegments;
+        Log.d(TAG, "Speaker detection complete. Found " + speakerCount + " speakers in " + transcript.segmentCount + " segments");
+        
+        return speakerCount;
     }
     
     /**
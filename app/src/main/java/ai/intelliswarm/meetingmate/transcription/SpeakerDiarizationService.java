@@ -6,12 +6,15 @@ import okhttp3.*;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.audio.PcmDecoder;
+import ai.intelliswarm.meetingmate.audio.SpeechTranscoder;
+import ai.intelliswarm.meetingmate.audio.TimeRemap;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Service for speaker diarization using various approaches
@@ -70,29 +73,29 @@ public class SpeakerDiarizationService {
         private static final String UPLOAD_URL = "https://api.assemblyai.com/v2/upload";
         private static final String TRANSCRIPT_URL = "https://api.assemblyai.com/v2/transcript";
         private final OkHttpClient client;
+        private final OkHttpClient pollClient;
         private final String apiKey;
         
         public AssemblyAIDiarization(String apiKey) {
             this.apiKey = apiKey;
-            this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(120, TimeUnit.SECONDS)
-                .build();
+            this.client = HttpClientProvider.get(HttpClientProvider.Profile.TRANSCRIPTION_UPLOAD);
+            this.pollClient = HttpClientProvider.get(HttpClientProvider.Profile.SHORT_REQUEST);
         }
         
         public List<SpeakerSegment> transcribeWithSpeakers(File audioFile, String languageCode) throws IOException, JSONException {
-            // Step 1: Upload audio file
-            String uploadUrl = uploadAudio(audioFile);
+            // Step 1: Upload a speech-optimized copy of the audio file
+            File uploadFile = SpeechTranscoder.prepareForUpload(audioFile);
+            TimeRemap remap = SpeechTranscoder.timeRemapFor(uploadFile);
+            String uploadUrl = uploadAudio(uploadFile);
             
             // Step 2: Request transcription with speaker diarization
             String transcriptId = requestTranscription(uploadUrl, languageCode);
             
             // Step 3: Poll for results
-            JSONObject result = pollForResult(transcriptId);
+            JSONObject result = pollForResult(transcriptId, PcmDecoder.probe(uploadFile).durationUs / 1000);
             
-            // Step 4: Parse speaker segments
-            return parseSpeakerSegments(result, languageCode);
+            // Step 4: Parse speaker segments, on the recording's timeline
+            return parseSpeakerSegments(result, languageCode, remap);
         }
         
         private String uploadAudio(File audioFile) throws IOException {
@@ -148,45 +151,23 @@ public class SpeakerDiarizationService {
             }
         }
         
-        private JSONObject pollForResult(String transcriptId) throws IOException, JSONException {
-            String url = TRANSCRIPT_URL + "/" + transcriptId;
-            
+        private JSONObject pollForResult(String transcriptId, long audioDurationMs) throws IOException {
             Request request = new Request.Builder()
-                .url(url)
+                .url(TRANSCRIPT_URL + "/" + transcriptId)
                 .header("authorization", apiKey)
                 .get()
                 .build();
             
-            // Poll for up to 5 minutes
-            for (int i = 0; i < 60; i++) {
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new IOException("Poll failed: " + response.code());
-                    }
-                    
-                    JSONObject json = new JSONObject(response.body().string());
-                    String status = json.getString("status");
-                    
-                    if ("completed".equals(status)) {
-                        return json;
-                    } else if ("error".equals(status)) {
-                        throw new IOException("Transcription failed: " + json.optString("error"));
-                    }
-                    
-                    // Wait 5 seconds before next poll
-                    try {
-                        Thread.sleep(5000);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new IOException("Polling interrupted");
-                    }
-                }
-            }
-            
-            throw new IOException("Transcription timeout");
+            // Polls run on the shared job engine; this thread only waits for the outcome
+            return TranscriptionJobEngine.getInstance()
+                .submit(transcriptId, pollClient, request, audioDurationMs, null)
+                .await();
         }
         
-        private List<SpeakerSegment> parseSpeakerSegments(JSONObject result, String languageCode) throws JSONException {
+        /**
+         * Utterance times (milliseconds) are on the trimmed upload; remap takes them back to the recording
+         */
+        private List<SpeakerSegment> parseSpeakerSegments(JSONObject result, String languageCode, TimeRemap remap) throws JSONException {
             List<SpeakerSegment> segments = new ArrayList<>();
             
             JSONArray utterances = result.optJSONArray("utterances");
@@ -194,7 +175,7 @@ public class SpeakerDiarizationService {
                 // Fallback to words with speaker labels
                 JSONArray words = result.optJSONArray("words");
                 if (words != null) {
-                    return parseWordsWithSpeakers(words, languageCode);
+                    return parseWordsWithSpeakers(words, languageCode, remap);
                 }
                 return segments;
             }
@@ -204,8 +185,8 @@ public class SpeakerDiarizationService {
                 
                 String speaker = utterance.getString("speaker");
                 String text = utterance.getString("text");
-                double start = utterance.getDouble("start") / 1000.0; // Convert ms to seconds
-                double end = utterance.getDouble("end") / 1000.0;
+                double start = remap.toOriginalSeconds(utterance.getDouble("start") / 1000.0); // Convert ms to seconds
+                double end = remap.toOriginalEndSeconds(utterance.getDouble("end") / 1000.0);
                 double confidence = utterance.optDouble("confidence", 0.8);
                 
                 // Format speaker label with language support
@@ -217,7 +198,7 @@ public class SpeakerDiarizationService {
             return segments;
         }
         
-        private List<SpeakerSegment> parseWordsWithSpeakers(JSONArray words, String languageCode) throws JSONException {
+        private List<SpeakerSegment> parseWordsWithSpeakers(JSONArray words, String languageCode, TimeRemap remap) throws JSONException {
             List<SpeakerSegment> segments = new ArrayList<>();
             
             if (words.length() == 0) return segments;
@@ -232,8 +213,8 @@ public class SpeakerDiarizationService {
                 
                 String speaker = word.optString("speaker", "A");
                 String text = word.getString("text");
-                double start = word.getDouble("start") / 1000.0;
-                double end = word.getDouble("end") / 1000.0;
+                double start = remap.toOriginalSeconds(word.getDouble("start") / 1000.0);
+                double end = remap.toOriginalEndSeconds(word.getDouble("end") / 1000.0);
                 
                 if (currentSpeaker == null) {
                     currentSpeaker = speaker;
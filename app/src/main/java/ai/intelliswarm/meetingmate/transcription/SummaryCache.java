@@ -0,0 +1,123 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.content.Context;
+import android.util.Log;
+import org.json.JSONException;
+import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.data.DiskLruCache;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Persistent cache of parsed meeting summaries, keyed by the transcript, meeting title, model
+ * and prompt template. Summarizing an unchanged transcript again returns the stored summary
+ * without a chat round trip. A cache opened with a different template drops every entry, since
+ * none of them can be hit any more.
+ */
+public class SummaryCache {
+    
+    private static final String TAG = "SummaryCache";
+    private static final String CACHE_FOLDER = "summary_cache";
+    private static final long MAX_CACHE_BYTES = 2L * 1024 * 1024;
+    // Sits next to the entries; DiskLruCache only counts and evicts *.entry files
+    private static final String TEMPLATE_FILE = "template";
+    
+    private static SummaryCache instance;
+    
+    private final DiskLruCache store;
+    private final String template;
+    private final File marker;
+    
+    /**
+     * @param template fingerprint of the prompts the summaries were made with
+     */
+    public SummaryCache(File directory, long maxBytes, String template) {
+        this.store = new DiskLruCache(directory, maxBytes);
+        this.template = template;
+        this.marker = new File(directory, TEMPLATE_FILE);
+        
+        if (!template.equals(readMarker())) {
+            Log.d(TAG, "Prompt template changed, clearing cached summaries");
+            clear();
+        }
+    }
+    
+    public static synchronized SummaryCache getInstance(Context context, String template) {
+        if (instance == null || !instance.template.equals(template)) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), CACHE_FOLDER);
+            instance = new SummaryCache(directory, MAX_CACHE_BYTES, template);
+        }
+        return instance;
+    }
+    
+    public String keyFor(String transcript, String meetingTitle, String model) {
+        String title = meetingTitle == null ? "" : meetingTitle.trim();
+        return TranscriptionCache.sha256(template + '|' + model + '|' + title + '|' + TranscriptionCache.sha256(transcript));
+    }
+    
+    public SummaryGenerator.MeetingSummary get(String key) {
+        String raw = store.get(key);
+        if (raw == null) {
+            return null;
+        }
+        
+        try {
+            JSONObject json = new JSONObject(raw);
+            SummaryGenerator.MeetingSummary summary = new SummaryGenerator.MeetingSummary();
+            summary.summary = json.optString("summary", null);
+            summary.keyPoints = json.optString("key_points", null);
+            summary.actionItems = json.optString("action_items", null);
+            summary.decisions = json.optString("decisions", null);
+            summary.nextSteps = json.optString("next_steps", null);
+            Log.d(TAG, "Cache hit " + key.substring(0, 12));
+            return summary;
+        } catch (JSONException e) {
+            Log.w(TAG, "Corrupt cache entry, discarding", e);
+            store.remove(key);
+            return null;
+        }
+    }
+    
+    public void put(String key, SummaryGenerator.MeetingSummary summary) {
+        if (summary == null || summary.isEmpty()) {
+            return; // Never cache empty results, the next attempt might succeed
+        }
+        
+        try {
+            JSONObject json = new JSONObject();
+            json.put("summary", summary.summary);
+            json.put("key_points", summary.keyPoints);
+            json.put("action_items", summary.actionItems);
+            json.put("decisions", summary.decisions);
+            json.put("next_steps", summary.nextSteps);
+            json.put("created_at", System.currentTimeMillis());
+            store.put(key, json.toString());
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to serialize cache entry", e);
+        }
+    }
+    
+    public void clear() {
+        store.clear();
+        try {
+            Files.write(marker.toPath(), template.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write template marker", e);
+        }
+    }
+    
+    private String readMarker() {
+        if (!marker.exists()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
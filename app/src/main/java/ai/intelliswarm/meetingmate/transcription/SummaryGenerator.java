@@ -3,12 +3,24 @@ package ai.intelliswarm.meetingmate.transcription;
 import android.content.Context;
 import android.util.Log;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import ai.intelliswarm.meetingmate.data.DiskLruCache;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
+import ai.intelliswarm.meetingmate.network.ChatGateway;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
+import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Generate meeting summaries, key points, and action items using OpenAI
@@ -16,18 +28,57 @@ import java.util.concurrent.TimeUnit;
 public class SummaryGenerator {
     
     private static final String TAG = "SummaryGenerator";
-    private static final String OPENAI_CHAT_URL = "https://api.openai.com/v1/chat/completions";
+    private static final String MODEL = "gpt-3.5-turbo";
+    private static final int SUMMARY_MAX_TOKENS = 1000;
+    
+    private static final String SYSTEM_PROMPT =
+        "You are a professional meeting assistant that creates concise, actionable meeting summaries.";
+    
+    // The model's context holds the prompt, the transcript and the reply; a transcript that does
+    // not fit is summarized in parts of CHUNK_TOKENS
+    private static final int CONTEXT_TOKENS = 4096;
+    // Role markers and separators the API adds around the two messages
+    private static final int CHAT_FORMAT_TOKENS = 11;
+    private static final int CHUNK_TOKENS = 2000;
+    private static final int NOTES_MAX_TOKENS = 400;
+    private static final int MAP_CONCURRENCY = 3;
+    // Between partial summaries while a reply streams in, unless a new section starts
+    private static final long PARTIAL_INTERVAL_MS = 150;
+    private static final int MAX_CONDENSE_ROUNDS = 3;
+    
+    // Notes on a part are cached by its text and the prompt; bump the version when a prompt changes
+    private static final int PROMPT_VERSION = 1;
+    private static final String CHUNK_CACHE_FOLDER = "summary_chunk_cache";
+    private static final long CHUNK_CACHE_BYTES = 5L * 1024 * 1024;
+    
+    private static final String NOTES_PROMPT =
+        "Below is one part of a longer meeting transcript. Take notes on this part only.";
+    private static final String CONDENSE_PROMPT =
+        "Below are notes on consecutive parts of one meeting. Merge them into one set of notes, "
+        + "keeping every action item, owner, due date and decision.";
+    private static final String NOTES_FORMAT =
+        "Answer in this exact format, and leave a section empty when nothing belongs in it:\n\n"
+        + "SUMMARY:\n\nKEY POINTS:\n\nACTION ITEMS:\n\nDECISIONS MADE:\n\nNEXT STEPS:\n";
+    
+    // Everything a summary depends on besides its inputs; a change to any prompt invalidates cached summaries
+    private static final String TEMPLATE_VERSION = TranscriptionCache.sha256(PROMPT_VERSION + "|" + CHUNK_TOKENS
+        + "|" + SYSTEM_PROMPT + "|" + NOTES_PROMPT + "|" + CONDENSE_PROMPT + "|" + NOTES_FORMAT
+        + "|" + createSummaryPrompt("", "") + "|" + createReducePrompt("", ""));
+    
+    private static DiskLruCache chunkCache;
     
     private final Context context;
-    private final OkHttpClient client;
+    private final ChatGateway gateway;
+    private final TokenCounter tokenCounter;
+    private final PromptBudgetPlanner planner;
+    private final SummaryCache summaryCache;
     
     public SummaryGenerator(Context context) {
         this.context = context;
-        this.client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .build();
+        this.gateway = ChatGateway.getInstance();
+        this.tokenCounter = TokenCounter.getInstance();
+        this.planner = new PromptBudgetPlanner(tokenCounter, CONTEXT_TOKENS, SUMMARY_MAX_TOKENS);
+        this.summaryCache = SummaryCache.getInstance(context, TEMPLATE_VERSION);
     }
     
     /**
@@ -45,10 +96,31 @@ public class SummaryGenerator {
                    (keyPoints == null || keyPoints.trim().isEmpty()) &&
                    (actionItems == null || actionItems.trim().isEmpty());
         }
+        
+        /**
+         * The sections that have text, under the same headers the model answers with
+         */
+        public String toText() {
+            StringBuilder text = new StringBuilder();
+            appendSection(text, "SUMMARY:", summary);
+            appendSection(text, "KEY POINTS:", keyPoints);
+            appendSection(text, "ACTION ITEMS:", actionItems);
+            appendSection(text, "DECISIONS MADE:", decisions);
+            appendSection(text, "NEXT STEPS:", nextSteps);
+            return text.toString().trim();
+        }
+        
+        private static void appendSection(StringBuilder text, String header, String body) {
+            if (body != null && !body.trim().isEmpty()) {
+                text.append(header).append('\n').append(body.trim()).append("\n\n");
+            }
+        }
     }
     
     /**
-     * Generate comprehensive meeting summary from transcript
+     * Generate comprehensive meeting summary from transcript, calling back from a background
+     * thread. A transcript too long for one request is summarized in parts first, see summarizeInParts.
+     * Summaries are cached on disk, so an unchanged transcript is only summarized once.
      */
     public void generateSummary(String transcript, String meetingTitle, SummaryCallback callback) {
         SettingsManager settings = SettingsManager.getInstance(context);
@@ -64,87 +136,311 @@ public class SummaryGenerator {
             return;
         }
         
-        // Create the prompt for summary generation
-        String prompt = createSummaryPrompt(transcript, meetingTitle);
-        
-        try {
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("model", "gpt-3.5-turbo");
-            requestBody.put("max_tokens", 1000);
-            requestBody.put("temperature", 0.3); // Lower temperature for more consistent summaries
-            
-            JSONArray messages = new JSONArray();
-            JSONObject systemMessage = new JSONObject();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", "You are a professional meeting assistant that creates concise, actionable meeting summaries.");
-            messages.put(systemMessage);
-            
-            JSONObject userMessage = new JSONObject();
-            userMessage.put("role", "user");
-            userMessage.put("content", prompt);
-            messages.put(userMessage);
-            
-            requestBody.put("messages", messages);
-            
-            RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-            );
-            
-            Request request = new Request.Builder()
-                .url(OPENAI_CHAT_URL)
-                .header("Authorization", "Bearer " + apiKey)
-                .header("Content-Type", "application/json")
-                .post(body)
-                .build();
+        // Hashing, disk reads and counting tokens: none of this belongs on the caller's thread
+        new Thread(() -> {
+            String cacheKey = summaryCache.keyFor(transcript, meetingTitle, MODEL);
+            MeetingSummary cached = summaryCache.get(cacheKey);
+            if (cached != null) {
+                Log.d(TAG, "Using cached summary");
+                callback.onSuccess(cached);
+                return;
+            }
             
-            client.newCall(request).enqueue(new Callback() {
+            summarize(apiKey, transcript, meetingTitle, new SummaryCallback() {
                 @Override
-                public void onFailure(Call call, IOException e) {
-                    Log.e(TAG, "Summary generation failed", e);
-                    callback.onError("Network error: " + e.getMessage());
+                public void onSuccess(MeetingSummary summary) {
+                    summaryCache.put(cacheKey, summary);
+                    callback.onSuccess(summary);
                 }
                 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    if (response.isSuccessful()) {
-                        try {
-                            String responseBody = response.body().string();
-                            JSONObject json = new JSONObject(responseBody);
-                            
-                            JSONArray choices = json.getJSONArray("choices");
-                            if (choices.length() > 0) {
-                                JSONObject choice = choices.getJSONObject(0);
-                                JSONObject message = choice.getJSONObject("message");
-                                String content = message.getString("content");
-                                
-                                MeetingSummary summary = parseSummaryResponse(content);
-                                callback.onSuccess(summary);
-                            } else {
-                                callback.onError("No summary generated");
-                            }
-                        } catch (JSONException e) {
-                            Log.e(TAG, "Error parsing summary response", e);
-                            callback.onError("Failed to parse response: " + e.getMessage());
-                        }
-                    } else {
-                        String errorBody = response.body() != null ? response.body().string() : "Unknown error";
-                        Log.e(TAG, "Summary API error: " + response.code() + " - " + errorBody);
-                        callback.onError("API Error: " + response.code());
-                    }
+                public void onError(String error) {
+                    callback.onError(error);
+                }
+                
+                @Override
+                public void onPartialSummary(MeetingSummary partial) {
+                    callback.onPartialSummary(partial);
                 }
             });
+        }, "SummaryGenerator").start();
+    }
+    
+    /**
+     * Send the transcript in one request when it fits the model, compressed when that makes it
+     * fit, and in parts otherwise
+     */
+    private void summarize(String apiKey, String transcript, String meetingTitle, SummaryCallback callback) {
+        PromptBudgetPlanner.Plan plan = planner.plan(transcript, promptTokens(createSummaryPrompt("", meetingTitle)));
+        Log.d(TAG, "Summary plan: " + plan);
+        if (plan.strategy == PromptBudgetPlanner.Strategy.CHUNK) {
+            summarizeInParts(apiKey, transcript, meetingTitle, callback);
+            return;
+        }
+        
+        try {
+            MeetingSummary summary = streamSummary(apiKey, createSummaryPrompt(plan.text, meetingTitle), callback);
+            callback.onSuccess(summary);
+        } catch (IOException e) {
+            Log.e(TAG, "Summary generation failed", e);
+            callback.onError(e.getMessage());
+        }
+    }
+    
+    /**
+     * Tokens a request takes besides the transcript: the system prompt, the user prompt around
+     * the transcript and the chat format
+     */
+    private int promptTokens(String promptWithoutTranscript) {
+        return tokenCounter.count(SYSTEM_PROMPT) + tokenCounter.count(promptWithoutTranscript) + CHAT_FORMAT_TOKENS;
+    }
+    
+    /**
+     * Map-reduce over a long transcript: notes on each part (in parallel, cached per part),
+     * condensed further while they are still too long together, then one summary of the notes.
+     * Runs on its own thread and calls back from it.
+     */
+    private void summarizeInParts(String apiKey, String transcript, String meetingTitle, SummaryCallback callback) {
+        long started = System.currentTimeMillis();
+        try {
+            List<String> chunks = TranscriptSplitter.split(transcript, CHUNK_TOKENS, tokenCounter::count);
+            List<String> notes = mapChunks(apiKey, chunks, NOTES_PROMPT);
+            String joined = joinNotes(notes);
+            int reducePromptTokens = promptTokens(createReducePrompt("", meetingTitle));
+            PromptBudgetPlanner.Plan plan = planner.plan(joined, reducePromptTokens);
+            
+            for (int round = 0; round < MAX_CONDENSE_ROUNDS && notes.size() > 1
+                    && plan.strategy == PromptBudgetPlanner.Strategy.CHUNK; round++) {
+                notes = mapChunks(apiKey, TranscriptSplitter.split(joined, CHUNK_TOKENS, tokenCounter::count),
+                    CONDENSE_PROMPT);
+                joined = joinNotes(notes);
+                plan = planner.plan(joined, reducePromptTokens);
+            }
+            
+            MeetingSummary summary = streamSummary(apiKey, createReducePrompt(plan.text, meetingTitle), callback);
+            Log.d(TAG, "Summarized " + chunks.size() + " parts in " + (System.currentTimeMillis() - started) + "ms");
+            callback.onSuccess(summary);
+        } catch (IOException e) {
+            Log.e(TAG, "Summary generation failed", e);
+            callback.onError(e.getMessage());
+        }
+    }
+    
+    /**
+     * Write notes on every chunk, at most MAP_CONCURRENCY requests at a time; notes already
+     * written for an identical chunk come from the cache
+     */
+    private List<String> mapChunks(String apiKey, List<String> chunks, String instruction) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(MAP_CONCURRENCY, chunks.size()));
+        DiskLruCache cache = getChunkCache(context);
+        AtomicInteger cached = new AtomicInteger();
+        
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String chunk : chunks) {
+                futures.add(pool.submit(() -> {
+                    String key = TranscriptionCache.sha256(PROMPT_VERSION + "|" + MODEL + "|" + instruction + "|" + chunk);
+                    String notes = cache.get(key);
+                    if (notes != null) {
+                        cached.incrementAndGet();
+                        return notes;
+                    }
+                    notes = complete(apiKey, instruction + "\n\n" + chunk + "\n\n" + NOTES_FORMAT, NOTES_MAX_TOKENS);
+                    cache.put(key, notes);
+                    return notes;
+                }));
+            }
+            
+            List<String> notes = new ArrayList<>();
+            for (Future<String> future : futures) {
+                notes.add(future.get());
+            }
+            Log.d(TAG, "Notes on " + chunks.size() + " parts, " + cached.get() + " from cache");
+            return notes;
             
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause
+                : new IOException("Failed to summarize part: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Summary generation interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static String joinNotes(List<String> notes) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : notes) {
+            if (joined.length() > 0) {
+                joined.append("\n\n");
+            }
+            joined.append(part.trim());
+        }
+        return joined.toString();
+    }
+    
+    /**
+     * One chat completion, on the calling thread; returns the reply text
+     */
+    private String complete(String apiKey, String prompt, int maxTokens) throws IOException {
+        JSONObject request;
+        try {
+            request = createChatRequest(prompt, maxTokens, false);
         } catch (JSONException e) {
-            Log.e(TAG, "Error creating summary request", e);
-            callback.onError("Failed to create request: " + e.getMessage());
+            throw new IOException("Failed to create request: " + e.getMessage(), e);
         }
+        
+        return contentOf(gateway.complete(apiKey, request, HttpClientProvider.Profile.CHAT_COMPLETION));
+    }
+    
+    /**
+     * The final summary call, on the calling thread, streamed like the single-call path
+     */
+    private MeetingSummary streamSummary(String apiKey, String prompt, SummaryCallback callback) throws IOException {
+        JSONObject request;
+        try {
+            request = createChatRequest(prompt, SUMMARY_MAX_TOKENS, true);
+        } catch (JSONException e) {
+            throw new IOException("Failed to create request: " + e.getMessage(), e);
+        }
+        
+        try (Response response = gateway.stream(apiKey, request, HttpClientProvider.Profile.CHAT_COMPLETION)) {
+            return readStream(request, response, callback);
+        }
+    }
+    
+    /**
+     * Read a server-sent-events reply delta by delta, passing the summary on to the callback as
+     * its sections fill: whenever a new section starts, and otherwise every PARTIAL_INTERVAL_MS.
+     * The usage the stream ends with settles the gateway's token reservation.
+     */
+    private MeetingSummary readStream(JSONObject request, Response response, SummaryCallback callback) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            throw new IOException("No summary generated");
+        }
+        MediaType type = body.contentType();
+        if (type == null || !"event-stream".equals(type.subtype())) {
+            // Answered in one piece after all
+            String whole = body.string();
+            gateway.settle(request, usedTokens(parseEvent(whole)));
+            return parseSummaryResponse(contentOf(whole));
+        }
+        
+        SummaryStreamParser parser = new SummaryStreamParser();
+        BufferedSource source = body.source();
+        int sectionsSent = 0;
+        long lastPartial = 0;
+        int used = -1;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (!line.startsWith("data:")) {
+                continue; // Blank separators and keep-alive comments
+            }
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+            
+            JSONObject event = parseEvent(data);
+            if (!event.isNull("usage")) {
+                used = usedTokens(event); // Only the last event has usage; the others send null
+            }
+            String delta = deltaOf(event);
+            if (delta.isEmpty()) {
+                continue;
+            }
+            parser.append(delta);
+            
+            long now = System.currentTimeMillis();
+            if (parser.getSectionsStarted() != sectionsSent || now - lastPartial >= PARTIAL_INTERVAL_MS) {
+                sectionsSent = parser.getSectionsStarted();
+                lastPartial = now;
+                callback.onPartialSummary(parser.snapshot());
+            }
+        }
+        gateway.settle(request, used);
+        return parser.finish();
+    }
+    
+    private static JSONObject parseEvent(String data) throws IOException {
+        try {
+            return new JSONObject(data);
+        } catch (JSONException e) {
+            throw new IOException("Failed to parse response: " + e.getMessage(), e);
+        }
+    }
+    
+    private static int usedTokens(JSONObject event) {
+        JSONObject usage = event.optJSONObject("usage");
+        return usage != null ? usage.optInt("total_tokens", -1) : -1;
+    }
+    
+    private static String deltaOf(JSONObject event) throws IOException {
+        try {
+            JSONArray choices = event.optJSONArray("choices");
+            if (choices == null || choices.length() == 0) {
+                return "";
+            }
+            JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+            return delta == null || delta.isNull("content") ? "" : delta.getString("content");
+        } catch (JSONException e) {
+            throw new IOException("Failed to parse response: " + e.getMessage(), e);
+        }
+    }
+    
+    private static String contentOf(String responseBody) throws IOException {
+        try {
+            JSONArray choices = new JSONObject(responseBody).getJSONArray("choices");
+            if (choices.length() == 0) {
+                throw new IOException("No summary generated");
+            }
+            return choices.getJSONObject(0).getJSONObject("message").getString("content");
+        } catch (JSONException e) {
+            throw new IOException("Failed to parse response: " + e.getMessage(), e);
+        }
+    }
+    
+    private JSONObject createChatRequest(String prompt, int maxTokens, boolean stream) throws JSONException {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", MODEL);
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("temperature", 0.3); // Lower temperature for more consistent summaries
+        if (stream) {
+            requestBody.put("stream", true);
+            // Ends the stream with a usage event, which settles the token reservation
+            requestBody.put("stream_options", new JSONObject().put("include_usage", true));
+        }
+        
+        JSONArray messages = new JSONArray();
+        JSONObject systemMessage = new JSONObject();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", SYSTEM_PROMPT);
+        messages.put(systemMessage);
+        
+        JSONObject userMessage = new JSONObject();
+        userMessage.put("role", "user");
+        userMessage.put("content", prompt);
+        messages.put(userMessage);
+        
+        requestBody.put("messages", messages);
+        return requestBody;
+    }
+    
+    private static synchronized DiskLruCache getChunkCache(Context context) {
+        if (chunkCache == null) {
+            chunkCache = new DiskLruCache(new File(context.getApplicationContext().getFilesDir(), CHUNK_CACHE_FOLDER),
+                CHUNK_CACHE_BYTES);
+        }
+        return chunkCache;
     }
     
     /**
      * Create the prompt for summary generation
      */
-    private String createSummaryPrompt(String transcript, String meetingTitle) {
+    private static String createSummaryPrompt(String transcript, String meetingTitle) {
         StringBuilder prompt = new StringBuilder();
         
         prompt.append("Please analyze the following meeting transcript and provide a comprehensive summary in the exact format below:\n\n");
@@ -157,6 +453,32 @@ public class SummaryGenerator {
         prompt.append(transcript);
         prompt.append("\n\n");
         
+        appendSummaryFormat(prompt);
+        return prompt.toString();
+    }
+    
+    /**
+     * Create the prompt that turns the notes on every part into the final summary
+     */
+    private static String createReducePrompt(String notes, String meetingTitle) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("The following notes were taken on consecutive parts of one meeting transcript. ");
+        prompt.append("Please combine them into a comprehensive summary of the whole meeting in the exact format below:\n\n");
+        
+        if (meetingTitle != null && !meetingTitle.trim().isEmpty()) {
+            prompt.append("Meeting: ").append(meetingTitle).append("\n\n");
+        }
+        
+        prompt.append("NOTES:\n");
+        prompt.append(notes);
+        prompt.append("\n\n");
+        
+        appendSummaryFormat(prompt);
+        return prompt.toString();
+    }
+    
+    private static void appendSummaryFormat(StringBuilder prompt) {
         prompt.append("Please provide the analysis in this exact format:\n\n");
         prompt.append("SUMMARY:\n");
         prompt.append("[Provide a concise 2-3 sentence summary of the meeting's main purpose and outcomes]\n\n");
@@ -181,8 +503,6 @@ public class SummaryGenerator {
         prompt.append("• [Next step 1]\n");
         prompt.append("• [Next step 2]\n");
         prompt.append("[Add more next steps as needed]\n");
-        
-        return prompt.toString();
     }
     
     /**
@@ -231,7 +551,14 @@ public class SummaryGenerator {
     private String extractSectionContent(String section, String header) {
         if (!section.startsWith(header)) return null;
         
-        String content = section.substring(header.length()).trim();
+        return cleanSectionContent(section.substring(header.length()));
+    }
+    
+    /**
+     * Strip placeholders and empty bullets from the text of one section
+     */
+    static String cleanSectionContent(String content) {
+        content = content.trim();
         
         // Remove placeholder text in brackets
         content = content.replaceAll("\\[.*?\\]", "").trim();
@@ -259,5 +586,12 @@ public class SummaryGenerator {
     public interface SummaryCallback {
         void onSuccess(MeetingSummary summary);
         void onError(String error);
+        
+        /**
+         * The summary so far while the reply streams in; sections not reached yet are null.
+         * Called on a background thread, each time with a new object.
+         */
+        default void onPartialSummary(MeetingSummary partial) {
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+/**
+ * Builds a MeetingSummary from a reply that arrives a few characters at a time. Whole lines
+ * are sorted into sections as they complete; the unfinished last line is shown in the current
+ * section unless it could still turn out to be the next header.
+ */
+public class SummaryStreamParser {
+    
+    private static final String[] HEADERS = {
+        "SUMMARY:", "KEY POINTS:", "ACTION ITEMS:", "DECISIONS MADE:", "NEXT STEPS:"
+    };
+    private static final int NONE = -1;
+    
+    private final StringBuilder content = new StringBuilder();
+    private final StringBuilder[] sections = new StringBuilder[HEADERS.length];
+    private final boolean[] seen = new boolean[HEADERS.length];
+    private final StringBuilder line = new StringBuilder();
+    private int current = NONE;
+    private int sectionsStarted;
+    
+    public SummaryStreamParser() {
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new StringBuilder();
+        }
+    }
+    
+    /**
+     * Feed the next piece of the reply
+     */
+    public void append(String delta) {
+        content.append(delta);
+        for (int i = 0; i < delta.length(); i++) {
+            char c = delta.charAt(i);
+            if (c == '\n') {
+                acceptLine(line.toString());
+                line.setLength(0);
+            } else {
+                line.append(c);
+            }
+        }
+    }
+    
+    /**
+     * Number of section headers seen so far
+     */
+    public int getSectionsStarted() {
+        return sectionsStarted;
+    }
+    
+    public String getContent() {
+        return content.toString();
+    }
+    
+    /**
+     * The summary as far as it has arrived; a new object on every call
+     */
+    public SummaryGenerator.MeetingSummary snapshot() {
+        String tail = line.toString();
+        int tailSection = current;
+        String tailText = tail;
+        int header = headerOf(tail);
+        if (header != NONE) {
+            tailSection = header;
+            tailText = afterHeader(tail, header);
+        } else if (couldBecomeHeader(tail)) {
+            tailText = "";
+        }
+        
+        SummaryGenerator.MeetingSummary summary = new SummaryGenerator.MeetingSummary();
+        for (int i = 0; i < sections.length; i++) {
+            String text = sections[i].toString();
+            if (i == tailSection && !tailText.isEmpty()) {
+                text = text.isEmpty() ? tailText : text + "\n" + tailText;
+            }
+            set(summary, i, seen[i] || i == tailSection ? SummaryGenerator.cleanSectionContent(text) : null);
+        }
+        return summary;
+    }
+    
+    /**
+     * The finished summary, once the whole reply is in
+     */
+    public SummaryGenerator.MeetingSummary finish() {
+        if (line.length() > 0) {
+            acceptLine(line.toString());
+            line.setLength(0);
+        }
+        
+        SummaryGenerator.MeetingSummary summary = snapshot();
+        if (summary.isEmpty()) {
+            // Same fallback as for a reply parsed in one piece: the reply did not follow the format
+            String text = content.toString().trim();
+            summary.summary = text.length() > 0 ? text : "Summary generation completed";
+        }
+        return summary;
+    }
+    
+    private void acceptLine(String text) {
+        int header = headerOf(text);
+        if (header != NONE) {
+            current = header;
+            seen[header] = true;
+            sectionsStarted++;
+            text = afterHeader(text, header);
+            if (text.isEmpty()) {
+                return;
+            }
+        }
+        if (current == NONE) {
+            return; // Preamble before the first header
+        }
+        
+        StringBuilder section = sections[current];
+        if (section.length() > 0) {
+            section.append('\n');
+        }
+        section.append(text);
+    }
+    
+    /**
+     * Index of the header the line starts with, allowing markdown such as "## " or "**"
+     */
+    private static int headerOf(String text) {
+        String stripped = stripMarkup(text);
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (stripped.regionMatches(true, 0, HEADERS[i], 0, HEADERS[i].length())) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+    
+    private static String afterHeader(String text, int header) {
+        String rest = stripMarkup(text).substring(HEADERS[header].length());
+        return rest.replaceFirst("^[*\\s]+", "").trim();
+    }
+    
+    private static boolean couldBecomeHeader(String text) {
+        String stripped = stripMarkup(text);
+        for (String header : HEADERS) {
+            if (stripped.length() < header.length() && header.regionMatches(true, 0, stripped, 0, stripped.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String stripMarkup(String text) {
+        return text.replaceFirst("^[\\s#*]+", "");
+    }
+    
+    private static void set(SummaryGenerator.MeetingSummary summary, int section, String text) {
+        switch (section) {
+            case 0: summary.summary = text; break;
+            case 1: summary.keyPoints = text; break;
+            case 2: summary.actionItems = text; break;
+            case 3: summary.decisions = text; break;
+            default: summary.nextSteps = text; break;
+        }
+    }
+}
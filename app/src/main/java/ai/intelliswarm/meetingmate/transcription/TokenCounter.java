@@ -0,0 +1,196 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates token counts for OpenAI's cl100k_base tokenizer: the text is cut into pieces as
+ * cl100k's pattern cuts it and each piece is counted from its length, which is close for English
+ * but not exact. No vocabulary ships with the app, so pieces are never byte-pair merged.
+ */
+public final class TokenCounter {
+    
+    // cl100k's pattern, which nextPiece follows; a regex engine takes most of the time budget
+    static final String PIECE_PATTERN = "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+        + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+";
+    
+    // Meetings repeat the same words; counts of pieces already seen are remembered up to this many
+    private static final int MAX_MEMO_PIECES = 50_000;
+    
+    private static TokenCounter instance;
+    
+    private final Map<String, Integer> memo = new ConcurrentHashMap<>();
+    
+    public static synchronized TokenCounter getInstance() {
+        if (instance == null) {
+            instance = new TokenCounter();
+        }
+        return instance;
+    }
+    
+    /**
+     * Estimated number of tokens in text
+     */
+    public int count(CharSequence text) {
+        int total = 0;
+        for (int start = 0, end; start < text.length(); start = end) {
+            end = nextPiece(text, start);
+            String piece = text.subSequence(start, end).toString();
+            Integer known = memo.get(piece);
+            if (known == null) {
+                known = estimatePiece(piece);
+                if (memo.size() >= MAX_MEMO_PIECES) {
+                    memo.clear();
+                }
+                memo.put(piece, known);
+            }
+            total += known;
+        }
+        return total;
+    }
+    
+    /**
+     * The pieces cl100k cuts text into before merging, in order
+     */
+    public static List<String> pieces(CharSequence text) {
+        List<String> pieces = new ArrayList<>();
+        for (int start = 0, end; start < text.length(); start = end) {
+            end = nextPiece(text, start);
+            pieces.add(text.subSequence(start, end).toString());
+        }
+        return pieces;
+    }
+    
+    /**
+     * End of the piece starting at i: the first alternative of PIECE_PATTERN that matches there,
+     * with the same greedy choices a regex engine makes
+     */
+    static int nextPiece(CharSequence s, int i) {
+        int length = s.length();
+        int c = Character.codePointAt(s, i);
+        int next = i + Character.charCount(c);
+        
+        // 's 't 're 've 'm 'll 'd
+        if (c == '\'' && next < length) {
+            char a = Character.toLowerCase(s.charAt(next));
+            if (a == 's' || a == 't' || a == 'm' || a == 'd') {
+                return next + 1;
+            }
+            if (next + 1 < length) {
+                char b = Character.toLowerCase(s.charAt(next + 1));
+                if ((a == 'r' && b == 'e') || (a == 'v' && b == 'e') || (a == 'l' && b == 'l')) {
+                    return next + 2;
+                }
+            }
+        }
+        
+        // [^\r\n\p{L}\p{N}]?\p{L}+
+        if (isLetter(c)) {
+            return skipLetters(s, next);
+        }
+        if (c != '\r' && c != '\n' && !isNumber(c) && next < length && isLetter(Character.codePointAt(s, next))) {
+            return skipLetters(s, next);
+        }
+        
+        // \p{N}{1,3}
+        if (isNumber(c)) {
+            int end = next;
+            for (int n = 1; n < 3 && end < length; n++) {
+                int d = Character.codePointAt(s, end);
+                if (!isNumber(d)) break;
+                end += Character.charCount(d);
+            }
+            return end;
+        }
+        
+        //  ?[^\s\p{L}\p{N}]+[\r\n]*
+        int other = c == ' ' && next < length && isOther(Character.codePointAt(s, next)) ? next : isOther(c) ? i : -1;
+        if (other >= 0) {
+            int end = other;
+            while (end < length) {
+                int o = Character.codePointAt(s, end);
+                if (!isOther(o)) break;
+                end += Character.charCount(o);
+            }
+            while (end < length && (s.charAt(end) == '\r' || s.charAt(end) == '\n')) {
+                end++;
+            }
+            return end;
+        }
+        
+        // Whitespace from here on
+        int runEnd = i;
+        int lastNewline = -1;
+        while (runEnd < length && isSpace(s.charAt(runEnd))) {
+            if (s.charAt(runEnd) == '\r' || s.charAt(runEnd) == '\n') {
+                lastNewline = runEnd;
+            }
+            runEnd++;
+        }
+        // \s*[\r\n]+
+        if (lastNewline >= 0) {
+            return lastNewline + 1;
+        }
+        // \s+(?!\S): all of it at the end of the text, otherwise all but the last character,
+        // which then starts the next piece
+        if (runEnd == length || runEnd - i < 2) {
+            return runEnd;
+        }
+        return runEnd - 1;
+    }
+    
+    private static int skipLetters(CharSequence s, int i) {
+        while (i < s.length()) {
+            int c = Character.codePointAt(s, i);
+            if (!isLetter(c)) break;
+            i += Character.charCount(c);
+        }
+        return i;
+    }
+    
+    private static boolean isLetter(int c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+        return Character.isLetter(c);
+    }
+    
+    private static boolean isNumber(int c) {
+        if (c < 0x80) {
+            return c >= '0' && c <= '9';
+        }
+        int type = Character.getType(c);
+        return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER
+            || type == Character.OTHER_NUMBER;
+    }
+    
+    // \s as Java regexes define it by default
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+    
+    private static boolean isOther(int c) {
+        return !isSpace(c) && !isLetter(c) && !isNumber(c);
+    }
+    
+    /**
+     * Length-based guess for one piece: English words are mostly one token and long ones two or
+     * three; other scripts take about one token per three UTF-8 bytes
+     */
+    static int estimatePiece(String piece) {
+        int utf8 = 0;
+        boolean ascii = true;
+        for (int i = 0; i < piece.length(); i++) {
+            char c = piece.charAt(i);
+            if (c < 0x80) {
+                utf8++;
+            } else {
+                ascii = false;
+                utf8 += c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+            }
+        }
+        return ascii ? 1 + Math.max(0, utf8 - 1) / 7 : Math.max(1, (utf8 + 2) / 3);
+    }
+}
@@ -0,0 +1,166 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cuts a transcript into pieces that each fit a token budget, for summarizing it part by part.
+ * Cuts fall between speaker turns; a turn too long for one piece is cut between sentences, and
+ * every piece of it keeps the turn's header so the speaker is never lost.
+ */
+public final class TranscriptSplitter {
+    
+    // Turn headers as the speaker detectors write them: "🎯 **Speaker 1** [01:23] (...)"
+    private static final Pattern TURN_HEADER = Pattern.compile(
+        "^[^\\n*]*\\*\\*[^*\\n]+\\*\\*\\s*\\[\\d{1,2}:\\d{2}(?::\\d{2})?\\][^\\n]*$", Pattern.MULTILINE);
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?…])\\s+");
+    private static final String SEPARATOR = "\n\n";
+    
+    private TranscriptSplitter() {
+    }
+    
+    /**
+     * Rough token count for English text: about four characters per token
+     */
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + 3) / 4;
+    }
+    
+    /**
+     * Split the transcript into pieces of at most maxTokens each (by estimateTokens), in order
+     */
+    public static List<String> split(String transcript, int maxTokens) {
+        return split(transcript, maxTokens, TranscriptSplitter::estimateTokens);
+    }
+    
+    /**
+     * Split the transcript into pieces of at most maxTokens each by the given counter, in order.
+     * Turns and sentences are counted once each and their counts added up.
+     */
+    public static List<String> split(String transcript, int maxTokens, ToIntFunction<CharSequence> counter) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        int separatorTokens = counter.applyAsInt(SEPARATOR);
+        
+        for (String turn : turns(transcript)) {
+            for (String piece : fit(turn, maxTokens, counter)) {
+                int pieceTokens = counter.applyAsInt(piece);
+                if (current.length() > 0 && currentTokens + separatorTokens + pieceTokens > maxTokens) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                if (current.length() > 0) {
+                    current.append(SEPARATOR);
+                    currentTokens += separatorTokens;
+                }
+                current.append(piece);
+                currentTokens += pieceTokens;
+            }
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+    
+    /**
+     * Speaker turns, header included; paragraphs when the transcript has no speakers
+     */
+    static List<String> turns(String transcript) {
+        List<String> turns = new ArrayList<>();
+        Matcher header = TURN_HEADER.matcher(transcript);
+        int start = 0;
+        while (header.find()) {
+            addTrimmed(turns, transcript.substring(start, header.start()));
+            start = header.start();
+        }
+        
+        if (start == 0) {
+            for (String paragraph : PARAGRAPH_BREAK.split(transcript)) {
+                addTrimmed(turns, paragraph);
+            }
+        } else {
+            addTrimmed(turns, transcript.substring(start));
+        }
+        return turns;
+    }
+    
+    /**
+     * The turn itself when it fits, otherwise its sentences packed into pieces that do
+     */
+    private static List<String> fit(String turn, int maxTokens, ToIntFunction<CharSequence> counter) {
+        List<String> pieces = new ArrayList<>();
+        if (counter.applyAsInt(turn) <= maxTokens) {
+            pieces.add(turn);
+            return pieces;
+        }
+        
+        String header = "";
+        String body = turn;
+        int newline = turn.indexOf('\n');
+        if (newline > 0 && TURN_HEADER.matcher(turn.substring(0, newline)).matches()) {
+            header = turn.substring(0, newline + 1);
+            body = turn.substring(newline + 1);
+        }
+        // Leave room for the header repeated on every piece
+        int budget = Math.max(1, maxTokens - counter.applyAsInt(header));
+        
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String sentence : SENTENCE_BREAK.split(body.trim())) {
+            for (String part : hardCut(sentence, budget, counter)) {
+                int partTokens = counter.applyAsInt(part);
+                if (current.length() > 0 && currentTokens + 1 + partTokens > budget) {
+                    pieces.add(header + current);
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                if (current.length() > 0) {
+                    current.append(' ');
+                    currentTokens++;
+                }
+                current.append(part);
+                currentTokens += partTokens;
+            }
+        }
+        if (current.length() > 0) {
+            pieces.add(header + current);
+        }
+        return pieces;
+    }
+    
+    /**
+     * Last resort for a sentence longer than the budget: halve it at the space nearest the
+     * middle until every part fits
+     */
+    private static List<String> hardCut(String sentence, int maxTokens, ToIntFunction<CharSequence> counter) {
+        List<String> parts = new ArrayList<>();
+        if (sentence.length() <= 1 || counter.applyAsInt(sentence) <= maxTokens) {
+            parts.add(sentence);
+            return parts;
+        }
+        
+        int middle = sentence.length() / 2;
+        int before = sentence.lastIndexOf(' ', middle);
+        int after = sentence.indexOf(' ', middle);
+        int cut = before > 0 && (after < 0 || middle - before <= after - middle) ? before : after > 0 ? after : middle;
+        int resume = sentence.charAt(cut) == ' ' ? cut + 1 : cut;
+        
+        parts.addAll(hardCut(sentence.substring(0, cut), maxTokens, counter));
+        parts.addAll(hardCut(sentence.substring(resume), maxTokens, counter));
+        return parts;
+    }
+    
+    private static void addTrimmed(List<String> list, String text) {
+        String trimmed = text.trim();
+        if (!trimmed.isEmpty()) {
+            list.add(trimmed);
+        }
+    }
+}
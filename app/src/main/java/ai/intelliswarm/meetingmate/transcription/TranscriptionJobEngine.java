@@ -0,0 +1,278 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.util.Log;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polls server-side transcription jobs (AssemblyAI-style status endpoints) without parking a
+ * thread per job. All jobs share one scheduler thread; status requests are sent asynchronously
+ * and the next poll is scheduled from the response, with a delay driven by the expected
+ * processing time of the audio.
+ */
+public class TranscriptionJobEngine {
+    
+    private static final String TAG = "TranscriptionJobEngine";
+    
+    // Servers typically finish well within this fraction of the audio duration
+    private static final double EXPECTED_PROCESSING_RATIO = 0.3;
+    private static final long MIN_EXPECTED_PROCESSING_MS = 15_000;
+    
+    public static final long FIRST_POLL_DELAY_MS = 3_000;
+    public static final long MIN_POLL_DELAY_MS = 2_000;
+    public static final long MAX_POLL_DELAY_MS = 30_000;
+    private static final double OVERDUE_BACKOFF = 1.5;
+    
+    // Give up after the larger of these, so long recordings aren't cut off by a fixed limit
+    private static final long MIN_TIMEOUT_MS = 10 * 60_000;
+    private static final int TIMEOUT_EXPECTED_MULTIPLIER = 4;
+    
+    private static final int MAX_CONSECUTIVE_POLL_FAILURES = 3;
+    
+    private static TranscriptionJobEngine instance;
+    
+    private final ScheduledThreadPoolExecutor scheduler;
+    
+    /**
+     * Receives the outcome of a job. A cancelled job fails with "Transcription cancelled".
+     */
+    public interface Listener {
+        void onProgress(int percent);
+        void onCompleted(JSONObject result);
+        void onFailed(String error);
+    }
+    
+    /**
+     * A submitted job; cancel() stops the schedule and aborts the request on the wire
+     */
+    public static class Job {
+        private final String id;
+        private final OkHttpClient client;
+        private final Request statusRequest;
+        private final Listener listener;
+        private final long expectedMs;
+        private final long deadline;
+        private final long startedAt;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        
+        private long lastDelayMs;
+        private int polls;
+        private int consecutiveFailures;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> pending;
+        private volatile Call inFlight;
+        private volatile JSONObject result;
+        private volatile String error;
+        
+        Job(String id, OkHttpClient client, Request statusRequest, long audioDurationMs, Listener listener) {
+            this.id = id;
+            this.client = client;
+            this.statusRequest = statusRequest;
+            this.listener = listener;
+            this.expectedMs = expectedProcessingMs(audioDurationMs);
+            this.startedAt = System.currentTimeMillis();
+            this.deadline = startedAt + timeoutMs(audioDurationMs);
+        }
+        
+        public String getId() {
+            return id;
+        }
+        
+        public boolean isDone() {
+            return done.get();
+        }
+        
+        public void cancel() {
+            if (!done.compareAndSet(false, true)) return;
+            cancelled = true;
+            ScheduledFuture<?> scheduled = pending;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            Call call = inFlight;
+            if (call != null) {
+                call.cancel();
+            }
+            error = "Transcription cancelled";
+            finished.countDown();
+            Log.d(TAG, "Job " + id + " cancelled after " + polls + " polls");
+            if (listener != null) listener.onFailed(error);
+        }
+        
+        /**
+         * Block until the job finishes. Interrupting the waiting thread cancels the job.
+         */
+        public JSONObject await() throws IOException {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IOException("Polling interrupted");
+            }
+            if (result == null) {
+                throw new IOException(error);
+            }
+            return result;
+        }
+        
+        private void complete(JSONObject json) {
+            if (!done.compareAndSet(false, true)) return;
+            result = json;
+            finished.countDown();
+            Log.d(TAG, "Job " + id + " completed after " + polls + " polls in "
+                + (System.currentTimeMillis() - startedAt) + "ms");
+            if (listener != null) listener.onCompleted(json);
+        }
+        
+        private void fail(String message) {
+            if (!done.compareAndSet(false, true)) return;
+            error = message;
+            finished.countDown();
+            Log.w(TAG, "Job " + id + " failed: " + message);
+            if (listener != null) listener.onFailed(message);
+        }
+        
+        private int estimatedProgress(int from, int to) {
+            double fraction = (System.currentTimeMillis() - startedAt) / (double) expectedMs;
+            // Stop short of 'to' so an overdue job never looks finished
+            return from + (int) ((to - from) * Math.min(0.95, fraction));
+        }
+    }
+    
+    TranscriptionJobEngine() {
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "transcription-jobs");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+    
+    public static synchronized TranscriptionJobEngine getInstance() {
+        if (instance == null) {
+            instance = new TranscriptionJobEngine();
+        }
+        return instance;
+    }
+    
+    /**
+     * Start polling a job. audioDurationMs seeds the schedule; pass 0 if unknown.
+     */
+    public Job submit(String jobId, OkHttpClient client, Request statusRequest, long audioDurationMs, Listener listener) {
+        Job job = new Job(jobId, client, statusRequest, audioDurationMs, listener);
+        Log.d(TAG, "Job " + jobId + " submitted, expected processing " + job.expectedMs + "ms");
+        schedule(job, FIRST_POLL_DELAY_MS);
+        return job;
+    }
+    
+    private void schedule(Job job, long delayMs) {
+        if (job.isDone()) return;
+        job.lastDelayMs = delayMs;
+        job.pending = scheduler.schedule(() -> poll(job), delayMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll(Job job) {
+        if (job.isDone()) return;
+        if (System.currentTimeMillis() > job.deadline) {
+            job.fail("Transcription timeout - processing took too long");
+            return;
+        }
+        
+        job.polls++;
+        Call call = job.client.newCall(job.statusRequest);
+        job.inFlight = call;
+        if (job.isDone()) {
+            call.cancel(); // Cancelled while we were creating the call
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                job.inFlight = null;
+                if (job.cancelled) return;
+                retryOrFail(job, "Polling failed: " + e.getMessage());
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                job.inFlight = null;
+                try (Response r = response) {
+                    if (job.cancelled) return;
+                    
+                    if (!r.isSuccessful()) {
+                        // Throttling and server hiccups are worth another try, other errors are final
+                        if (r.code() == 429 || r.code() >= 500) {
+                            retryOrFail(job, "Polling failed: " + r.code());
+                        } else {
+                            job.fail("Polling failed: " + r.code());
+                        }
+                        return;
+                    }
+                    
+                    JSONObject json = new JSONObject(r.body().string());
+                    String status = json.getString("status");
+                    job.consecutiveFailures = 0;
+                    Log.d(TAG, "Job " + job.id + " status: " + status + " (poll " + job.polls + ")");
+                    
+                    if ("completed".equals(status)) {
+                        job.complete(json);
+                    } else if ("error".equals(status)) {
+                        job.fail("Transcription failed: " + json.optString("error", "Unknown error"));
+                    } else {
+                        if (job.listener != null) {
+                            job.listener.onProgress(job.estimatedProgress(30, 85));
+                        }
+                        long elapsed = System.currentTimeMillis() - job.startedAt;
+                        schedule(job, nextDelayMs(elapsed, job.expectedMs, job.lastDelayMs));
+                    }
+                } catch (IOException | JSONException e) {
+                    retryOrFail(job, "Invalid status response: " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    private void retryOrFail(Job job, String message) {
+        if (++job.consecutiveFailures > MAX_CONSECUTIVE_POLL_FAILURES) {
+            job.fail(message);
+        } else {
+            Log.w(TAG, "Job " + job.id + ": " + message + ", retrying");
+            schedule(job, Math.min(MAX_POLL_DELAY_MS, Math.max(MIN_POLL_DELAY_MS, job.lastDelayMs) * 2));
+        }
+    }
+    
+    public static long expectedProcessingMs(long audioDurationMs) {
+        return Math.max(MIN_EXPECTED_PROCESSING_MS, (long) (audioDurationMs * EXPECTED_PROCESSING_RATIO));
+    }
+    
+    /**
+     * How long a job may take before it is given up on
+     */
+    public static long timeoutMs(long audioDurationMs) {
+        return Math.max(MIN_TIMEOUT_MS, expectedProcessingMs(audioDurationMs) * TIMEOUT_EXPECTED_MULTIPLIER);
+    }
+    
+    /**
+     * Before the ETA, poll at half the remaining time so we land close to completion;
+     * after it, back off geometrically. Always within [MIN_POLL_DELAY_MS, MAX_POLL_DELAY_MS].
+     */
+    public static long nextDelayMs(long elapsedMs, long expectedMs, long previousDelayMs) {
+        long remaining = expectedMs - elapsedMs;
+        long delay = remaining > 0 ? remaining / 2 : (long) (previousDelayMs * OVERDUE_BACKOFF);
+        return Math.max(MIN_POLL_DELAY_MS, Math.min(MAX_POLL_DELAY_MS, delay));
+    }
+}
\ No newline at end of file
@@ -1,21 +1,34 @@
 package ai.intelliswarm.meetingmate.transcription;
 
 import android.content.Context;
+import android.util.Log;
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 public class TranscriptionManager {
     
+    private static final String TAG = "TranscriptionManager";
+    
     private final Context context;
     private final SettingsManager settingsManager;
     private final Map<TranscriptionProvider.ProviderType, TranscriptionProvider> providers;
+    private final SummaryGenerator summaryGenerator;
+    private final TranscriptionCache transcriptionCache;
+    private volatile ProgressiveTranscriber activeProgressive;
+    private volatile boolean cancelled;
     
     public TranscriptionManager(Context context) {
         this.context = context;
         this.settingsManager = SettingsManager.getInstance(context);
         this.providers = new HashMap<>();
+        this.summaryGenerator = new SummaryGenerator(context);
+        this.transcriptionCache = TranscriptionCache.getInstance(context);
         
         initializeProviders();
     }
@@ -60,6 +73,12 @@ public class TranscriptionManager {
     public interface EnhancedTranscriptionCallback extends TranscriptionProvider.TranscriptionCallback {
         void onSummaryGenerated(SummaryGenerator.MeetingSummary summary);
         void onSummaryError(String error);
+        
+        /**
+         * Sections of the summary as they stream in, before onSummaryGenerated
+         */
+        default void onSummaryProgress(SummaryGenerator.MeetingSummary partial) {
+        }
     }
     
     /**
@@ -73,7 +92,7 @@ public class TranscriptionManager {
         }
         
         // First do transcription
-        provider.transcribe(audioFile, new TranscriptionProvider.TranscriptionCallback() {
+        transcribeWithCache(provider, audioFile, new TranscriptionProvider.TranscriptionCallback() {
             @Override
             public void onSuccess(String transcript, String segments) {
                 // Call original callback
@@ -99,6 +118,11 @@ public class TranscriptionManager {
             public void onPartialResult(String partialTranscript) {
                 callback.onPartialResult(partialTranscript);
             }
+            
+            @Override
+            public void onTimeline(TranscriptTimeline timeline) {
+                callback.onTimeline(timeline);
+            }
         });
     }
     
@@ -106,8 +130,6 @@ public class TranscriptionManager {
      * Generate summary for transcript
      */
     private void generateSummaryForTranscript(String transcript, String meetingTitle, EnhancedTranscriptionCallback callback) {
-        SummaryGenerator summaryGenerator = new SummaryGenerator(context);
-        
         summaryGenerator.generateSummary(transcript, meetingTitle, new SummaryGenerator.SummaryCallback() {
             @Override
             public void onSuccess(SummaryGenerator.MeetingSummary summary) {
@@ -118,6 +140,11 @@ public class TranscriptionManager {
             public void onError(String error) {
                 callback.onSummaryError(error);
             }
+            
+            @Override
+            public void onPartialSummary(SummaryGenerator.MeetingSummary partial) {
+                callback.onSummaryProgress(partial);
+            }
         });
     }
     
@@ -141,6 +168,7 @@ public class TranscriptionManager {
      * Transcribe using the current provider
      */
     public void transcribe(File audioFile, TranscriptionProvider.TranscriptionCallback callback) {
+        cancelled = false;
         TranscriptionProvider provider = getCurrentProvider();
         
         if (provider == null) {
@@ -170,24 +198,192 @@ public class TranscriptionManager {
             return;
         }
         
-        // Check file size
+        // Check file size (providers that chunk long recordings handle the limit themselves)
         long fileSizeMB = audioFile.length() / (1024 * 1024);
-        if (fileSizeMB > provider.getMaxFileSizeMB()) {
+        if (fileSizeMB > provider.getMaxFileSizeMB() && !provider.supportsChunkedUpload()) {
             callback.onError("File too large (" + fileSizeMB + "MB). Maximum size: " + provider.getMaxFileSizeMB() + "MB");
             return;
         }
         
-        provider.transcribe(audioFile, callback);
+        transcribeWithCache(provider, audioFile, callback);
     }
     
     /**
-     * Cancel ongoing transcription
+     * Serve repeat transcriptions of the same recording from the on-disk cache,
+     * otherwise run the provider and remember its result
+     */
+    private void transcribeWithCache(TranscriptionProvider provider, File audioFile,
+                                     TranscriptionProvider.TranscriptionCallback callback) {
+        new Thread(() -> {
+            String cacheKey = null;
+            TranscriptionCache.Entry cached = null;
+            try {
+                // Hashing reads the whole file, so this runs off the caller's thread
+                cacheKey = cacheKeyFor(provider, audioFile);
+                cached = transcriptionCache.get(cacheKey);
+            } catch (IOException e) {
+                Log.w(TAG, "Transcription cache unavailable: " + e.getMessage());
+            }
+            
+            // The provider has not started yet, so a cancel during hashing only landed here
+            if (cancelled) {
+                callback.onError("Transcription cancelled");
+                return;
+            }
+            if (cached != null) {
+                Log.d(TAG, "Using cached transcription for " + audioFile.getName());
+                if (cached.timeline != null) {
+                    callback.onTimeline(cached.timeline);
+                }
+                callback.onProgress(100);
+                callback.onSuccess(cached.transcript, cached.segments);
+                return;
+            }
+            
+            provider.transcribe(audioFile, storingInCache(cacheKey, callback));
+            // A cancel between the check above and the provider starting was cleared by it
+            if (cancelled) {
+                provider.cancel();
+            }
+        }).start();
+    }
+    
+    /**
+     * Cache key for a recording transcribed with the current settings. Speaker labels depend on
+     * whether voices are remembered and on the names given to them.
+     */
+    private String cacheKeyFor(TranscriptionProvider provider, File audioFile) throws IOException {
+        String speakerNaming = settingsManager.isRememberVoicesEnabled()
+            ? "voices:" + VoiceprintRegistry.getInstance(context).getNamingVersion()
+            : "anonymous";
+        return transcriptionCache.keyFor(audioFile, provider.getType().name(),
+            settingsManager.getTranscriptLanguage(), provider.getModelId(), speakerNaming);
+    }
+    
+    /**
+     * Wrap a callback so a successful result is stored under key (when there is one)
+     */
+    private TranscriptionProvider.TranscriptionCallback storingInCache(String key,
+                                                                        TranscriptionProvider.TranscriptionCallback callback) {
+        return storingInCache(key, callback, () -> false);
+    }
+    
+    /**
+     * As above, but a result that arrives after cancelled turns true is reported as cancelled
+     * and not stored
+     */
+    private TranscriptionProvider.TranscriptionCallback storingInCache(String key,
+                                                                        TranscriptionProvider.TranscriptionCallback callback,
+                                                                        BooleanSupplier cancelled) {
+        return new TranscriptionProvider.TranscriptionCallback() {
+            // Providers hand the timeline over before the transcript
+            private volatile TranscriptTimeline timeline;
+            
+            @Override
+            public void onSuccess(String transcript, String segments) {
+                if (cancelled.getAsBoolean()) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
+                if (key != null) {
+                    transcriptionCache.put(key, transcript, segments, timeline);
+                }
+                callback.onSuccess(transcript, segments);
+            }
+            
+            @Override
+            public void onProgress(int progressPercent) {
+                callback.onProgress(progressPercent);
+            }
+            
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+            
+            @Override
+            public void onPartialResult(String partialTranscript) {
+                callback.onPartialResult(partialTranscript);
+            }
+            
+            @Override
+            public void onTimeline(TranscriptTimeline timeline) {
+                this.timeline = timeline;
+                callback.onTimeline(timeline);
+            }
+        };
+    }
+    
+    /**
+     * Start transcribing a recording segment by segment while it is being made, or return null
+     * when the current provider cannot; it then transcribes the whole recording once it stops
+     */
+    public ProgressiveTranscriber startProgressive() {
+        TranscriptionProvider provider = getCurrentProvider();
+        if (provider instanceof ProgressiveTranscriber.SegmentTranscriber && provider.isConfigured()) {
+            return new ProgressiveTranscriber((ProgressiveTranscriber.SegmentTranscriber) provider);
+        }
+        return null;
+    }
+    
+    /**
+     * Finish transcribing a recording that was transcribed progressively: wait for the segments
+     * still in flight (normally only the last one), stitch them and run speaker detection over
+     * the whole recording. If a segment failed, the whole recording is transcribed instead.
+     */
+    public void transcribe(File audioFile, ProgressiveTranscriber progressive,
+                           TranscriptionProvider.TranscriptionCallback callback) {
+        if (progressive == null || progressive.getSegmentCount() == 0) {
+            transcribe(audioFile, callback);
+            return;
+        }
+        
+        activeProgressive = progressive;
+        new Thread(() -> {
+            WhisperTranscript stitched;
+            try {
+                stitched = progressive.await((completed, total) -> callback.onProgress(10 + (70 * completed) / total));
+            } catch (IOException e) {
+                progressive.deleteSegments();
+                if (progressive.isCancelled()) {
+                    callback.onError("Transcription cancelled");
+                    return;
+                }
+                Log.w(TAG, "Progressive transcription failed, transcribing the whole recording: " + e.getMessage());
+                transcribe(audioFile, callback);
+                return;
+            }
+            progressive.deleteSegments();
+            callback.onProgress(80);
+            
+            ProgressiveTranscriber.SegmentTranscriber provider = progressive.getProvider();
+            String cacheKey = null;
+            try {
+                cacheKey = cacheKeyFor(provider, audioFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Transcription cache unavailable: " + e.getMessage());
+            }
+            if (progressive.isCancelled()) {
+                callback.onError("Transcription cancelled");
+                return;
+            }
+            provider.deliverStitched(stitched, audioFile, storingInCache(cacheKey, callback, progressive::isCancelled));
+        }).start();
+    }
+    
+    /**
+     * Cancel ongoing transcription, including a progressive one being finished
      */
     public void cancelTranscription() {
+        cancelled = true;
         TranscriptionProvider provider = getCurrentProvider();
         if (provider != null) {
             provider.cancel();
         }
+        ProgressiveTranscriber progressive = activeProgressive;
+        if (progressive != null) {
+            progressive.cancel();
+        }
     }
     
     /**
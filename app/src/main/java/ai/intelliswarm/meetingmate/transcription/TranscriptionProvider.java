@@ -1,5 +1,7 @@
 package ai.intelliswarm.meetingmate.transcription;
 
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+
 import java.io.File;
 
 public interface TranscriptionProvider {
@@ -31,6 +33,9 @@ public interface TranscriptionProvider {
         default void onPartialResult(String partialTranscript) {
             // Optional callback for live transcription
         }
+        default void onTimeline(TranscriptTimeline timeline) {
+            // Optional: columnar segments and speakers, delivered just before onSuccess
+        }
     }
     
     /**
@@ -63,6 +68,20 @@ public interface TranscriptionProvider {
      */
     int getMaxFileSizeMB();
     
+    /**
+     * Identifies the model/configuration producing the transcript, used in cache keys
+     */
+    default String getModelId() {
+        return getType().name();
+    }
+    
+    /**
+     * Whether files above getMaxFileSizeMB() can be split and transcribed in chunks
+     */
+    default boolean supportsChunkedUpload() {
+        return false;
+    }
+    
     /**
      * Cancel ongoing transcription
      */
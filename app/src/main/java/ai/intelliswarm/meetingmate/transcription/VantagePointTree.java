@@ -0,0 +1,167 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import java.util.Arrays;
+
+/**
+ * Vantage-point tree over fixed-length float vectors with Euclidean distance, for k-nearest
+ * lookups among a few hundred to a few thousand points. The tree is implicit in one permuted
+ * index array: the node for range [lo, hi) keeps its vantage point at lo, the points closer
+ * than the median in [lo + 1, mid) and the rest in [mid, hi). Immutable once built.
+ */
+public final class VantagePointTree {
+    
+    private final float[] points;
+    private final int dimensions;
+    private final int size;
+    
+    private final int[] order;        // Point index at each tree position
+    private final float[] insideMax;  // Per vantage position: farthest point of the inside half
+    private final float[] outsideMin; // Per vantage position: nearest point of the outside half
+    
+    /**
+     * Build over n = points.length / dimensions points. The array is copied.
+     */
+    public VantagePointTree(float[] points, int dimensions) {
+        this.points = points.clone();
+        this.dimensions = dimensions;
+        this.size = points.length / dimensions;
+        this.order = new int[size];
+        this.insideMax = new float[size];
+        this.outsideMin = new float[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        build(0, size, new long[size]);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Find up to k nearest points to query, closest first.
+     *
+     * @return number of results written to index and distance
+     */
+    public int nearest(float[] query, int k, int[] index, float[] distance) {
+        k = Math.min(k, size);
+        if (k <= 0) {
+            return 0;
+        }
+        Search search = new Search(k);
+        search(0, size, query, search);
+        System.arraycopy(search.index, 0, index, 0, search.count);
+        System.arraycopy(search.distance, 0, distance, 0, search.count);
+        return search.count;
+    }
+    
+    public float distance(float[] query, int point) {
+        int base = point * dimensions;
+        float sum = 0;
+        for (int d = 0; d < dimensions; d++) {
+            float diff = query[d] - points[base + d];
+            sum += diff * diff;
+        }
+        return (float) Math.sqrt(sum);
+    }
+    
+    private float distanceBetween(int a, int b) {
+        int baseA = a * dimensions;
+        int baseB = b * dimensions;
+        float sum = 0;
+        for (int d = 0; d < dimensions; d++) {
+            float diff = points[baseA + d] - points[baseB + d];
+            sum += diff * diff;
+        }
+        return (float) Math.sqrt(sum);
+    }
+    
+    /**
+     * Arrange order[lo, hi) around the vantage point at lo. The vantage is the middle point of
+     * the range rather than a random one, so the same points always build the same tree.
+     */
+    private void build(int lo, int hi, long[] keys) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        swap(lo, lo + (hi - lo) / 2);
+        int vantage = order[lo];
+        
+        // Sort the rest by distance to the vantage; the index in the low bits keeps ties stable
+        int count = hi - lo - 1;
+        for (int i = 0; i < count; i++) {
+            int point = order[lo + 1 + i];
+            keys[i] = ((long) Float.floatToIntBits(distanceBetween(vantage, point)) << 32) | point;
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++) {
+            order[lo + 1 + i] = (int) keys[i];
+        }
+        
+        int mid = lo + 1 + count / 2;
+        insideMax[lo] = mid > lo + 1 ? Float.intBitsToFloat((int) (keys[mid - lo - 2] >>> 32)) : 0;
+        outsideMin[lo] = Float.intBitsToFloat((int) (keys[mid - lo - 1] >>> 32));
+        
+        build(lo + 1, mid, keys);
+        build(mid, hi, keys);
+    }
+    
+    private void search(int lo, int hi, float[] query, Search search) {
+        if (hi <= lo) {
+            return;
+        }
+        float d = distance(query, order[lo]);
+        search.offer(order[lo], d);
+        if (hi - lo == 1) {
+            return;
+        }
+        
+        int mid = lo + 1 + (hi - lo - 1) / 2;
+        // Closer half first, so the bound tightens before the other half is considered
+        if (d <= insideMax[lo]) {
+            if (d - search.bound() <= insideMax[lo]) search(lo + 1, mid, query, search);
+            if (d + search.bound() >= outsideMin[lo]) search(mid, hi, query, search);
+        } else {
+            if (d + search.bound() >= outsideMin[lo]) search(mid, hi, query, search);
+            if (d - search.bound() <= insideMax[lo]) search(lo + 1, mid, query, search);
+        }
+    }
+    
+    private void swap(int i, int j) {
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+    }
+    
+    /**
+     * k best candidates so far, kept sorted by distance
+     */
+    private static final class Search {
+        final int[] index;
+        final float[] distance;
+        int count;
+        
+        Search(int k) {
+            index = new int[k];
+            distance = new float[k];
+        }
+        
+        float bound() {
+            return count < index.length ? Float.MAX_VALUE : distance[count - 1];
+        }
+        
+        void offer(int point, float d) {
+            if (count == index.length && d >= distance[count - 1]) {
+                return;
+            }
+            int i = count < index.length ? count++ : count - 1;
+            while (i > 0 && distance[i - 1] > d) {
+                index[i] = index[i - 1];
+                distance[i] = distance[i - 1];
+                i--;
+            }
+            index[i] = point;
+            distance[i] = d;
+        }
+    }
+}
\ No newline at end of file
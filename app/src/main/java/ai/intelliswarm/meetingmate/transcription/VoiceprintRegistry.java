@@ -0,0 +1,376 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.content.Context;
+import android.util.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Voiceprints of the people heard in past meetings, kept in the app's private storage. Each
+ * voice is a running centroid of the per-meeting voiceprints matched to it. Speakers of a new
+ * meeting are looked up in a vantage-point tree over the centroids; a match brings back the
+ * voice's label, and speakers with no match are remembered as new voices so they can be
+ * recognised next time. A voice is labelled "Voice 3" until the user names it, and keeps that
+ * label in every meeting.
+ */
+public class VoiceprintRegistry {
+    
+    private static final String TAG = "VoiceprintRegistry";
+    private static final String REGISTRY_FILE = "voiceprints.json";
+    private static final int VERSION = 1;
+    
+    public static final int DIMENSIONS = 17; // MFCC 1-12, log pitch, F1-F3, spectral centroid
+    
+    // Speakers with fewer words than this give too noisy a voiceprint to match or remember
+    public static final int MIN_WORDS = 20;
+    // Largest voiceprint distance still taken as the same person
+    private static final float MATCH_DISTANCE = 2.0f;
+    // Candidates looked at per speaker, so a near-tie can go to the speaker it fits better
+    private static final int CANDIDATES = 3;
+    // Centroid weight stops growing here, so a voice keeps following slow changes (new phone, cold)
+    private static final int MAX_CENTROID_WORDS = 2000;
+    private static final int MAX_VOICES = 500;
+    
+    private static VoiceprintRegistry instance;
+    
+    private final File file;
+    private final List<Voice> voices = new ArrayList<>();
+    private VantagePointTree index; // Over voices in list order, null when stale
+    private int nextNumber = 1;
+    // Changes whenever labels given out before may no longer be the ones given now
+    private int namingVersion = newNamingVersion();
+    
+    /**
+     * One remembered voice
+     */
+    public static class Voice {
+        public final String id;
+        // Order in which voices were first heard; never reused, so labels stay stable
+        public final int number;
+        private String name;
+        private final float[] centroid;
+        private int words;
+        private int meetings;
+        private long lastSeen;
+        
+        Voice(String id, int number, String name, float[] centroid, int words, int meetings, long lastSeen) {
+            this.id = id;
+            this.number = number;
+            this.name = name;
+            this.centroid = centroid;
+            this.words = words;
+            this.meetings = meetings;
+            this.lastSeen = lastSeen;
+        }
+        
+        /**
+         * Name given by the user, or null for a voice that has not been named yet
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * What the voice's speaker is called in transcripts: its name, or "Voice n"
+         */
+        public String getLabel() {
+            return name != null ? name : "Voice " + number;
+        }
+        
+        public int getMeetings() {
+            return meetings;
+        }
+        
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
+    
+    public VoiceprintRegistry(File file) {
+        this.file = file;
+        load();
+    }
+    
+    public static synchronized VoiceprintRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new VoiceprintRegistry(new File(context.getApplicationContext().getFilesDir(), REGISTRY_FILE));
+        }
+        return instance;
+    }
+    
+    public synchronized int size() {
+        return voices.size();
+    }
+    
+    public synchronized List<Voice> getVoices() {
+        return Collections.unmodifiableList(new ArrayList<>(voices));
+    }
+    
+    /**
+     * Changes when a voice is renamed or forgotten, so results that carry voice labels can tell
+     * they are stale. Voices heard for the first time do not change it.
+     */
+    public synchronized int getNamingVersion() {
+        return namingVersion;
+    }
+    
+    /**
+     * Name a voice; the name is used for it in every later meeting
+     */
+    public synchronized boolean setName(String voiceId, String name) {
+        Voice voice = find(voiceId);
+        if (voice == null) {
+            return false;
+        }
+        voice.name = name != null && !name.trim().isEmpty() ? name.trim() : null;
+        namingVersion = newNamingVersion();
+        return save();
+    }
+    
+    public synchronized boolean remove(String voiceId) {
+        Voice voice = find(voiceId);
+        if (voice == null) {
+            return false;
+        }
+        voices.remove(voice);
+        index = null;
+        namingVersion = newNamingVersion();
+        return save();
+    }
+    
+    /**
+     * Forget every voice, deleting the registry file
+     */
+    public synchronized boolean clear() {
+        voices.clear();
+        index = null;
+        nextNumber = 1;
+        namingVersion = newNamingVersion();
+        return !file.exists() || file.delete();
+    }
+    
+    /**
+     * Match the voiceprints of a diarized meeting against the registry. Matched voices lend
+     * their labels to the speakers and absorb the new voiceprint; speakers with enough speech
+     * and no match are added as new voices and labelled with them. Each voice is given to at
+     * most one speaker.
+     *
+     * @return number of speakers recognised from earlier meetings
+     */
+    public synchronized int nameSpeakers(Diarization diarization) {
+        if (!diarization.hasVoiceprints()) {
+            return 0;
+        }
+        int speakers = diarization.speakerCount;
+        Voice[] matched = match(diarization.voiceprints, diarization.voiceprintWords, speakers);
+        
+        long now = System.currentTimeMillis();
+        String[] labels = new String[speakers];
+        int recognised = 0;
+        for (int s = 0; s < speakers; s++) {
+            if (diarization.voiceprintWords[s] < MIN_WORDS) {
+                continue;
+            }
+            float[] voiceprint = Arrays.copyOfRange(diarization.voiceprints, s * DIMENSIONS, (s + 1) * DIMENSIONS);
+            Voice voice = matched[s];
+            if (voice == null) {
+                voice = new Voice(UUID.randomUUID().toString(), nextNumber++, null, voiceprint,
+                    Math.min(diarization.voiceprintWords[s], MAX_CENTROID_WORDS), 1, now);
+                voices.add(voice);
+            } else {
+                absorb(voice, voiceprint, diarization.voiceprintWords[s], now);
+                recognised++;
+            }
+            labels[s] = voice.getLabel();
+        }
+        index = null;
+        evictStaleVoices();
+        save();
+        
+        diarization.speakerNames = labels;
+        Log.d(TAG, "Recognised " + recognised + " of " + speakers + " speakers among " + voices.size() + " voices");
+        return recognised;
+    }
+    
+    /**
+     * Nearest registered voice within MATCH_DISTANCE per speaker. Candidate pairs are taken
+     * closest first, so two speakers never share a voice.
+     */
+    Voice[] match(float[] voiceprints, int[] words, int speakers) {
+        Voice[] matched = new Voice[speakers];
+        if (voices.isEmpty()) {
+            return matched;
+        }
+        VantagePointTree tree = index();
+        
+        int[] neighbor = new int[CANDIDATES];
+        float[] distance = new float[CANDIDATES];
+        float[] query = new float[DIMENSIONS];
+        List<long[]> pairs = new ArrayList<>();
+        for (int s = 0; s < speakers; s++) {
+            if (words[s] < MIN_WORDS) continue;
+            System.arraycopy(voiceprints, s * DIMENSIONS, query, 0, DIMENSIONS);
+            int found = tree.nearest(query, CANDIDATES, neighbor, distance);
+            for (int c = 0; c < found && distance[c] <= MATCH_DISTANCE; c++) {
+                pairs.add(new long[] {Float.floatToIntBits(distance[c]), s, neighbor[c]});
+            }
+        }
+        pairs.sort((a, b) -> Long.compare(a[0], b[0]));
+        
+        boolean[] taken = new boolean[voices.size()];
+        for (long[] pair : pairs) {
+            int speaker = (int) pair[1];
+            int voice = (int) pair[2];
+            if (matched[speaker] == null && !taken[voice]) {
+                matched[speaker] = voices.get(voice);
+                taken[voice] = true;
+            }
+        }
+        return matched;
+    }
+    
+    private VantagePointTree index() {
+        if (index == null) {
+            float[] centroids = new float[voices.size() * DIMENSIONS];
+            for (int v = 0; v < voices.size(); v++) {
+                System.arraycopy(voices.get(v).centroid, 0, centroids, v * DIMENSIONS, DIMENSIONS);
+            }
+            index = new VantagePointTree(centroids, DIMENSIONS);
+        }
+        return index;
+    }
+    
+    /**
+     * Move the centroid toward a new voiceprint in proportion to the words behind each
+     */
+    private static void absorb(Voice voice, float[] voiceprint, int words, long now) {
+        int total = voice.words + words;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            voice.centroid[d] += (voiceprint[d] - voice.centroid[d]) * words / total;
+        }
+        voice.words = Math.min(total, MAX_CENTROID_WORDS);
+        voice.meetings++;
+        voice.lastSeen = now;
+    }
+    
+    /**
+     * Above MAX_VOICES, drop the voices heard longest ago, unnamed ones first
+     */
+    private void evictStaleVoices() {
+        if (voices.size() <= MAX_VOICES) {
+            return;
+        }
+        List<Voice> byAge = new ArrayList<>(voices);
+        byAge.sort((a, b) -> a.name == null && b.name != null ? -1
+            : a.name != null && b.name == null ? 1
+            : Long.compare(a.lastSeen, b.lastSeen));
+        voices.removeAll(byAge.subList(0, voices.size() - MAX_VOICES));
+        index = null;
+        namingVersion = newNamingVersion();
+    }
+    
+    // Random rather than counted, as clear() deletes the file and a count would start over
+    private static int newNamingVersion() {
+        return ThreadLocalRandom.current().nextInt();
+    }
+    
+    private Voice find(String voiceId) {
+        for (Voice voice : voices) {
+            if (voice.id.equals(voiceId)) {
+                return voice;
+            }
+        }
+        return null;
+    }
+    
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            if (root.optInt("version") != VERSION) {
+                Log.w(TAG, "Ignoring voiceprints of version " + root.optInt("version"));
+                return;
+            }
+            JSONArray entries = root.getJSONArray("voices");
+            nextNumber = Math.max(1, root.optInt("nextNumber", 1));
+            if (root.has("namingVersion")) {
+                namingVersion = root.getInt("namingVersion");
+            }
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                JSONArray values = entry.getJSONArray("centroid");
+                if (values.length() != DIMENSIONS) continue;
+                float[] centroid = new float[DIMENSIONS];
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    centroid[d] = (float) values.getDouble(d);
+                }
+                // Registries written before voices were numbered get numbers in the order heard
+                int number = entry.has("number") ? entry.getInt("number") : nextNumber;
+                nextNumber = Math.max(nextNumber, number + 1);
+                voices.add(new Voice(entry.getString("id"), number, entry.has("name") ? entry.getString("name") : null,
+                    centroid, entry.getInt("words"), entry.getInt("meetings"), entry.getLong("lastSeen")));
+            }
+            Log.d(TAG, "Loaded " + voices.size() + " voices");
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Failed to load voiceprints", e);
+            voices.clear();
+        }
+    }
+    
+    /**
+     * Write through a temporary file and a rename, so a crash never leaves half a registry
+     */
+    private boolean save() {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            JSONArray entries = new JSONArray();
+            for (Voice voice : voices) {
+                JSONArray centroid = new JSONArray();
+                for (float value : voice.centroid) {
+                    centroid.put((double) value);
+                }
+                JSONObject entry = new JSONObject()
+                    .put("id", voice.id)
+                    .put("number", voice.number)
+                    .put("words", voice.words)
+                    .put("meetings", voice.meetings)
+                    .put("lastSeen", voice.lastSeen)
+                    .put("centroid", centroid);
+                if (voice.name != null) {
+                    entry.put("name", voice.name);
+                }
+                entries.put(entry);
+            }
+            JSONObject root = new JSONObject().put("version", VERSION).put("nextNumber", nextNumber)
+                .put("namingVersion", namingVersion).put("voices", entries);
+            
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(root.toString().getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not move voiceprints into place: " + file);
+            }
+            return true;
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Failed to save voiceprints", e);
+            temp.delete();
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,400 @@
+package ai.intelliswarm.meetingmate.transcription;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+import ai.intelliswarm.meetingmate.audio.TimeRemap;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * Compact, read-only form of a Whisper verbose_json response. Segments and words are stored
+ * column-wise in primitive arrays and decoded in a single streaming pass, so a long meeting
+ * never needs the response body as a String or a JSONObject tree.
+ */
+public final class WhisperTranscript {
+    
+    public final String text;
+    public final String language;
+    public final double duration;
+    
+    public final int segmentCount;
+    public final float[] segmentStart;
+    public final float[] segmentEnd;
+    public final String[] segmentText;
+    public final float[] segmentAvgLogprob;
+    public final float[] segmentNoSpeechProb;
+    
+    public final int wordCount;
+    public final String[] words;
+    public final float[] wordStart;
+    public final float[] wordEnd;
+    public final float[] wordProbability; // NaN when the provider did not report one
+    
+    // Words of segment i are [segmentFirstWord[i], segmentFirstWord[i + 1])
+    private final int[] segmentFirstWord;
+    
+    private WhisperTranscript(Builder b) {
+        text = b.text != null ? b.text : "";
+        language = b.language;
+        duration = b.duration;
+        
+        segmentCount = b.segmentCount;
+        segmentStart = Arrays.copyOf(b.segmentStart, segmentCount);
+        segmentEnd = Arrays.copyOf(b.segmentEnd, segmentCount);
+        segmentText = Arrays.copyOf(b.segmentText, segmentCount);
+        segmentAvgLogprob = Arrays.copyOf(b.segmentAvgLogprob, segmentCount);
+        segmentNoSpeechProb = Arrays.copyOf(b.segmentNoSpeechProb, segmentCount);
+        
+        wordCount = b.wordCount;
+        words = Arrays.copyOf(b.words, wordCount);
+        wordStart = Arrays.copyOf(b.wordStart, wordCount);
+        wordEnd = Arrays.copyOf(b.wordEnd, wordCount);
+        wordProbability = Arrays.copyOf(b.wordProbability, wordCount);
+        
+        segmentFirstWord = linkWordsToSegments();
+    }
+    
+    public int firstWordOfSegment(int segment) {
+        return segmentFirstWord[segment];
+    }
+    
+    public int endWordOfSegment(int segment) {
+        return segmentFirstWord[segment + 1];
+    }
+    
+    public boolean hasWords() {
+        return wordCount > 0;
+    }
+    
+    /**
+     * Copy with every timestamp mapped through remap, e.g. from a silence-trimmed upload back
+     * to the recording. Returns this transcript when the remap is the identity.
+     */
+    public WhisperTranscript remapTimes(TimeRemap remap) {
+        if (remap.isIdentity()) {
+            return this;
+        }
+        Builder builder = new Builder()
+            .setText(text)
+            .setLanguage(language)
+            .setDuration(remap.toOriginalEndSeconds(duration));
+        for (int i = 0; i < segmentCount; i++) {
+            builder.addSegment((float) remap.toOriginalSeconds(segmentStart[i]), (float) remap.toOriginalEndSeconds(segmentEnd[i]),
+                segmentText[i], segmentAvgLogprob[i], segmentNoSpeechProb[i]);
+        }
+        for (int i = 0; i < wordCount; i++) {
+            builder.addWord(words[i], (float) remap.toOriginalSeconds(wordStart[i]), (float) remap.toOriginalEndSeconds(wordEnd[i]),
+                wordProbability[i]);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Decode a full verbose_json response
+     */
+    public static WhisperTranscript parse(Reader source) throws IOException {
+        Builder builder = new Builder();
+        // Words can come top-level (timestamp_granularities=word) or nested in segments
+        Builder segmentWords = new Builder();
+        
+        try (JsonReader reader = new JsonReader(source)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "text":
+                        builder.text = reader.nextString().trim();
+                        break;
+                    case "language":
+                        builder.language = reader.nextString();
+                        break;
+                    case "duration":
+                        builder.duration = reader.nextDouble();
+                        break;
+                    case "segments":
+                        readSegments(reader, builder, segmentWords);
+                        break;
+                    case "words":
+                        readWords(reader, builder);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed transcription response: " + e.getMessage(), e);
+        }
+        
+        if (builder.wordCount == 0) {
+            builder.adoptWords(segmentWords);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Decode a bare segments array, as produced by toSegmentsJson()
+     */
+    public static WhisperTranscript parseSegments(String segmentsJson) throws IOException {
+        Builder builder = new Builder();
+        Builder segmentWords = new Builder();
+        try (JsonReader reader = new JsonReader(new StringReader(segmentsJson))) {
+            readSegments(reader, builder, segmentWords);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Malformed segments: " + e.getMessage(), e);
+        }
+        builder.adoptWords(segmentWords);
+        
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < builder.segmentCount; i++) {
+            if (text.length() > 0) text.append(' ');
+            text.append(builder.segmentText[i]);
+        }
+        builder.text = text.toString();
+        return builder.build();
+    }
+    
+    private static void readSegments(JsonReader reader, Builder builder, Builder segmentWords) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            float start = 0, end = 0, avgLogprob = 0, noSpeechProb = 0;
+            String segText = "";
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "start":
+                        start = (float) reader.nextDouble();
+                        break;
+                    case "end":
+                        end = (float) reader.nextDouble();
+                        break;
+                    case "text":
+                        segText = reader.nextString().trim();
+                        break;
+                    case "avg_logprob":
+                        avgLogprob = (float) reader.nextDouble();
+                        break;
+                    case "no_speech_prob":
+                        noSpeechProb = (float) reader.nextDouble();
+                        break;
+                    case "words":
+                        readWords(reader, segmentWords);
+                        break;
+                    default:
+                        reader.skipValue(); // id, seek, tokens, temperature, ...
+                }
+            }
+            reader.endObject();
+            
+            builder.addSegment(start, end, segText, avgLogprob, noSpeechProb);
+        }
+        reader.endArray();
+    }
+    
+    private static void readWords(JsonReader reader, Builder builder) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String word = "";
+            float start = 0, end = 0, probability = Float.NaN;
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "word":
+                        word = reader.nextString().trim();
+                        break;
+                    case "start":
+                        start = (float) reader.nextDouble();
+                        break;
+                    case "end":
+                        end = (float) reader.nextDouble();
+                        break;
+                    case "probability":
+                        probability = (float) reader.nextDouble();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            
+            if (!word.isEmpty()) {
+                builder.addWord(word, start, end, probability);
+            }
+        }
+        reader.endArray();
+    }
+    
+    /**
+     * Serialize the segments (with their words nested) in the shape the rest of the app stores.
+     * Floats are boxed so they print as written (0.1, not 0.10000000149011612).
+     */
+    public String toSegmentsJson() {
+        StringWriter out = new StringWriter(segmentCount * 96 + wordCount * 64);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginArray();
+            for (int i = 0; i < segmentCount; i++) {
+                writer.beginObject();
+                writer.name("id").value(i);
+                writer.name("start").value(Float.valueOf(segmentStart[i]));
+                writer.name("end").value(Float.valueOf(segmentEnd[i]));
+                writer.name("text").value(segmentText[i]);
+                writer.name("avg_logprob").value(Float.valueOf(segmentAvgLogprob[i]));
+                writer.name("no_speech_prob").value(Float.valueOf(segmentNoSpeechProb[i]));
+                
+                int from = segmentFirstWord[i];
+                int to = segmentFirstWord[i + 1];
+                if (to > from) {
+                    writer.name("words").beginArray();
+                    for (int w = from; w < to; w++) {
+                        writer.beginObject();
+                        writer.name("word").value(words[w]);
+                        writer.name("start").value(Float.valueOf(wordStart[w]));
+                        writer.name("end").value(Float.valueOf(wordEnd[w]));
+                        if (!Float.isNaN(wordProbability[w])) {
+                            writer.name("probability").value(Float.valueOf(wordProbability[w]));
+                        }
+                        writer.endObject();
+                    }
+                    writer.endArray();
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("StringWriter cannot fail", e);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Assign every word to the last segment starting at or before it (both lists are time-ordered)
+     */
+    private int[] linkWordsToSegments() {
+        int[] first = new int[segmentCount + 1];
+        int w = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            // Small tolerance: word and segment boundaries are rounded independently
+            float boundary = segmentStart[i] - 0.05f;
+            if (i == 0) {
+                boundary = Float.NEGATIVE_INFINITY;
+            }
+            while (w < wordCount && wordStart[w] < boundary) {
+                w++;
+            }
+            first[i] = w;
+        }
+        first[segmentCount] = wordCount;
+        return first;
+    }
+    
+    /**
+     * Accumulates segments and words into growable primitive columns
+     */
+    public static final class Builder {
+        String text;
+        String language;
+        double duration;
+        
+        int segmentCount;
+        float[] segmentStart = new float[64];
+        float[] segmentEnd = new float[64];
+        String[] segmentText = new String[64];
+        float[] segmentAvgLogprob = new float[64];
+        float[] segmentNoSpeechProb = new float[64];
+        
+        int wordCount;
+        String[] words = new String[256];
+        float[] wordStart = new float[256];
+        float[] wordEnd = new float[256];
+        float[] wordProbability = new float[256];
+        
+        public Builder setText(String text) {
+            this.text = text;
+            return this;
+        }
+        
+        public Builder setLanguage(String language) {
+            this.language = language;
+            return this;
+        }
+        
+        public Builder setDuration(double duration) {
+            this.duration = duration;
+            return this;
+        }
+        
+        public Builder addSegment(float start, float end, String text, float avgLogprob, float noSpeechProb) {
+            if (segmentCount == segmentStart.length) {
+                int capacity = segmentCount * 2;
+                segmentStart = Arrays.copyOf(segmentStart, capacity);
+                segmentEnd = Arrays.copyOf(segmentEnd, capacity);
+                segmentText = Arrays.copyOf(segmentText, capacity);
+                segmentAvgLogprob = Arrays.copyOf(segmentAvgLogprob, capacity);
+                segmentNoSpeechProb = Arrays.copyOf(segmentNoSpeechProb, capacity);
+            }
+            segmentStart[segmentCount] = start;
+            segmentEnd[segmentCount] = end;
+            segmentText[segmentCount] = text;
+            segmentAvgLogprob[segmentCount] = avgLogprob;
+            segmentNoSpeechProb[segmentCount] = noSpeechProb;
+            segmentCount++;
+            return this;
+        }
+        
+        public Builder addWord(String word, float start, float end, float probability) {
+            if (wordCount == wordStart.length) {
+                int capacity = wordCount * 2;
+                words = Arrays.copyOf(words, capacity);
+                wordStart = Arrays.copyOf(wordStart, capacity);
+                wordEnd = Arrays.copyOf(wordEnd, capacity);
+                wordProbability = Arrays.copyOf(wordProbability, capacity);
+            }
+            words[wordCount] = word;
+            wordStart[wordCount] = start;
+            wordEnd[wordCount] = end;
+            wordProbability[wordCount] = probability;
+            wordCount++;
+            return this;
+        }
+        
+        /**
+         * End time of the last word added so far, or 0
+         */
+        public float lastWordEnd() {
+            return wordCount > 0 ? wordEnd[wordCount - 1] : 0;
+        }
+        
+        void adoptWords(Builder other) {
+            words = other.words;
+            wordStart = other.wordStart;
+            wordEnd = other.wordEnd;
+            wordProbability = other.wordProbability;
+            wordCount = other.wordCount;
+        }
+        
+        public WhisperTranscript build() {
+            return new WhisperTranscript(this);
+        }
+    }
+}
\ No newline at end of file
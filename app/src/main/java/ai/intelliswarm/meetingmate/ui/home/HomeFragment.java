@@ -36,20 +36,28 @@ import com.karumi.dexter.listener.PermissionRequest;
 import com.karumi.dexter.listener.multi.MultiplePermissionsListener;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import ai.intelliswarm.meetingmate.R;
 import ai.intelliswarm.meetingmate.data.MeetingFileManager;
+import ai.intelliswarm.meetingmate.data.RecordingManifest;
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
 import ai.intelliswarm.meetingmate.databinding.FragmentHomeBinding;
 import ai.intelliswarm.meetingmate.service.AudioRecordingService;
 import ai.intelliswarm.meetingmate.service.CalendarService;
 import ai.intelliswarm.meetingmate.service.OpenAIService;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
+import ai.intelliswarm.meetingmate.transcription.SummaryGenerator;
 import ai.intelliswarm.meetingmate.transcription.TranscriptionManager;
+import ai.intelliswarm.meetingmate.transcription.ProgressiveTranscriber;
 import ai.intelliswarm.meetingmate.analytics.TranscriptionLogger;
 import ai.intelliswarm.meetingmate.transcription.TranscriptionProvider;
 import ai.intelliswarm.meetingmate.transcription.AndroidSpeechProvider;
@@ -58,6 +66,9 @@ import ai.intelliswarm.meetingmate.ui.transcription.TranscriptViewerActivity;
 public class HomeFragment extends Fragment {
     
     private static final String TAG = "HomeFragment";
+    
+    // Interrupted recordings can only come from an earlier process, so look for them once
+    private static boolean recoveryChecked = false;
     private FragmentHomeBinding binding;
     private HomeViewModel homeViewModel;
     private AudioRecordingService recordingService;
@@ -70,6 +81,7 @@ public class HomeFragment extends Fragment {
     private MeetingFileManager fileManager;
     private CalendarService calendarService;
     private OpenAIService openAIService;
+    private SummaryGenerator summaryGenerator;
     private SettingsManager settingsManager;
     private TranscriptionManager transcriptionManager;
     
@@ -80,6 +92,8 @@ public class HomeFragment extends Fragment {
     
     private AndroidSpeechProvider androidSpeechProvider;
     private String liveTranscript = "";
+    // Recordings handed to processRecording(), on the main thread only
+    private final Set<String> processedRecordings = new HashSet<>();
 
     private ServiceConnection serviceConnection = new ServiceConnection() {
         @Override
@@ -105,23 +119,34 @@ public class HomeFragment extends Fragment {
             if (!isRecording) {
                 String filePath = intent.getStringExtra("filePath");
                 long duration = intent.getLongExtra("duration", 0);
-                Log.d(TAG, "📁 Recording stopped - filePath: " + filePath + ", duration: " + duration);
-                
-                // Show recording completed popup
-                showStepPopup("✅ Recording Complete", 
-                    "Audio recording finished!\n" +
-                    "Duration: " + (duration / 1000) + " seconds\n" +
-                    "Starting file processing...", 
-                    false);
+                String error = intent.getStringExtra("error");
+                Log.d(TAG, "📁 Recording stopped - filePath: " + filePath + ", duration: " + duration
+                    + (error != null ? ", error: " + error : ""));
                 
-                if (filePath != null) {
+                if (filePath != null && error != null) {
+                    // Stopped on its own; what was saved up to then is still processed
+                    showStepPopup("⚠️ Recording Stopped", 
+                        error + "\n" +
+                        "The audio saved so far is being processed.", 
+                        true);
+                    
+                    Log.d(TAG, "🔄 Calling processRecording()...");
+                    processRecording(filePath, duration);
+                } else if (filePath != null) {
+                    // Show recording completed popup
+                    showStepPopup("✅ Recording Complete", 
+                        "Audio recording finished!\n" +
+                        "Duration: " + (duration / 1000) + " seconds\n" +
+                        "Starting file processing...", 
+                        false);
+                    
                     Log.d(TAG, "🔄 Calling processRecording()...");
                     processRecording(filePath, duration);
                 } else {
                     Log.e(TAG, "❌ filePath is null - cannot process recording");
                     showStepPopup("❌ Processing Error", 
-                        "Audio file path is missing.\n" +
-                        "Recording may have failed.", 
+                        "No audio was saved.\n" +
+                        (error != null ? error : "The recording was empty or could not be finished."), 
                         true);
                 }
             }
@@ -163,7 +188,9 @@ public class HomeFragment extends Fragment {
             
             if (settingsManager.hasOpenAIApiKey()) {
                 Log.d(TAG, "Initializing OpenAI service with saved API key");
-                openAIService = new OpenAIService(settingsManager.getOpenAIApiKey());
+                summaryGenerator = new SummaryGenerator(requireContext());
+                openAIService = new OpenAIService(settingsManager.getOpenAIApiKey(),
+                    TranscriptionCache.getInstance(requireContext()), summaryGenerator);
             } else {
                 Log.w(TAG, "No OpenAI API key found - OpenAI service not initialized");
             }
@@ -171,6 +198,8 @@ public class HomeFragment extends Fragment {
             setupUI();
             Log.d(TAG, "UI setup completed");
             
+            recoverInterruptedRecordings();
+            
             requestPermissions();
             Log.d(TAG, "Permissions requested");
             
@@ -325,6 +354,39 @@ public class HomeFragment extends Fragment {
             }).check();
     }
 
+    /**
+     * Join the segments of recordings cut short by a crash and process them like a stopped recording
+     */
+    private void recoverInterruptedRecordings() {
+        if (recoveryChecked) {
+            return;
+        }
+        recoveryChecked = true;
+        
+        new Thread(() -> {
+            for (RecordingManifest manifest : fileManager.getInterruptedRecordings()) {
+                File recovered;
+                try {
+                    recovered = fileManager.recoverRecording(manifest);
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not recover " + manifest.recordingId, e);
+                    continue;
+                }
+                long duration = Math.round(manifest.getEndSeconds() * 1000);
+                timerHandler.post(() -> {
+                    if (binding == null || !isAdded()) {
+                        return; // Left in the audio folder
+                    }
+                    showStepPopup("♻️ Recording Recovered", 
+                        "A recording was interrupted and has been recovered.\n" +
+                        "Duration: " + (duration / 1000) + " seconds", 
+                        false);
+                    processRecording(recovered.getAbsolutePath(), duration);
+                });
+            }
+        }).start();
+    }
+
     private void startRecording() {
         // Check if transcription provider is configured
         TranscriptionProvider.ProviderType selectedProvider = settingsManager.getSelectedTranscriptionProvider();
@@ -423,9 +485,10 @@ public class HomeFragment extends Fragment {
             Log.d(TAG, "Calling recordingService.stopRecording()");
             recordingService.stopRecording();
             
-            // Backup mechanism - if broadcast doesn't come within 3 seconds, check directly
+            // Backup mechanism - if broadcast doesn't come within 3 seconds, check directly. While the
+            // service is still joining segments the broadcast is yet to come and there is no path.
             new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-                if (recordingService != null && !recordingService.isRecording()) {
+                if (recordingService != null && !recordingService.isRecording() && !recordingService.isFinishing()) {
                     Log.w(TAG, "⚠️ Broadcast not received - checking service directly");
                     String filePath = recordingService.getLastRecordingPath();
                     long duration = recordingService.getLastRecordingDuration();
@@ -470,6 +533,7 @@ public class HomeFragment extends Fragment {
             binding.buttonRecord.setEnabled(false);
             binding.layoutRecordingControls.setVisibility(View.VISIBLE);
             binding.textRecordingStatus.setText("Recording in progress...");
+            binding.summaryPreviewScroll.setVisibility(View.GONE);
             binding.editMeetingTitle.setEnabled(false);
             binding.checkboxLinkCalendar.setEnabled(false);
             startGradientAnimation();
@@ -488,6 +552,12 @@ public class HomeFragment extends Fragment {
     private void processRecording(String audioFilePath, long duration) {
         Log.d(TAG, "🎯 processRecording() called with audioFilePath: " + audioFilePath + ", duration: " + duration);
         
+        // The broadcast and the backup check can both report the same recording
+        if (audioFilePath != null && !processedRecordings.add(audioFilePath)) {
+            Log.d(TAG, "Recording already processed, skipping: " + audioFilePath);
+            return;
+        }
+        
         String meetingId = fileManager.generateMeetingId();
         String meetingTitle = binding.editMeetingTitle.getText().toString();
         if (meetingTitle.isEmpty()) {
@@ -499,11 +569,16 @@ public class HomeFragment extends Fragment {
         TranscriptionLogger.logRecordingStop(meetingId, audioFilePath, duration);
         TranscriptionLogger.logApiKeyStatus(requireContext());
         
+        // Segments transcribed while recording; only the tail is still in flight
+        ProgressiveTranscriber progressive = recordingService != null
+            ? recordingService.takeProgressiveTranscriber() : null;
+        
         Log.d(TAG, "Processing recording - audioFilePath: " + audioFilePath + ", duration: " + duration);
         
         if (audioFilePath == null || !new File(audioFilePath).exists()) {
             TranscriptionLogger.logFlowFailed(meetingId, "Recording file not found or null: " + audioFilePath);
             Toast.makeText(getContext(), "Recording failed - file not found", Toast.LENGTH_SHORT).show();
+            discardProgressive(progressive);
             return;
         }
         
@@ -517,6 +592,7 @@ public class HomeFragment extends Fragment {
         if (!TranscriptionLogger.validateAudioFile(audioFile)) {
             TranscriptionLogger.logFlowFailed(meetingId, "Audio file validation failed");
             Toast.makeText(getContext(), "Invalid audio file", Toast.LENGTH_SHORT).show();
+            discardProgressive(progressive);
             return;
         }
         
@@ -564,8 +640,9 @@ public class HomeFragment extends Fragment {
             Log.d(TAG, "   Live transcript length: " + liveTranscript.length());
             Log.d(TAG, "   Live transcript content: " + (liveTranscript.isEmpty() ? "EMPTY" : "'" + liveTranscript.substring(0, Math.min(100, liveTranscript.length())) + "...'")); 
             Log.d(TAG, "   AndroidSpeechProvider available: " + (androidSpeechProvider != null ? androidSpeechProvider.isAvailable() : "null"));
-            processWithTranscription(meetingId, meetingTitle, savedAudioFile, selectedEvent);
+            processWithTranscription(meetingId, meetingTitle, savedAudioFile, selectedEvent, progressive);
         } else {
+            discardProgressive(progressive);
             TranscriptionLogger.logFlowFailed(meetingId, "Failed to save audio file");
             Toast.makeText(getContext(), "Failed to save recording", Toast.LENGTH_SHORT).show();
         }
@@ -578,8 +655,18 @@ public class HomeFragment extends Fragment {
             Toast.LENGTH_LONG).show();
     }
 
-    private void processWithTranscription(String meetingId, String meetingTitle, 
-                                        File audioFile, CalendarService.EventInfo calendarEvent) {
+    /**
+     * Stop a progressive transcription whose result will not be used and delete its segments
+     */
+    private void discardProgressive(ProgressiveTranscriber progressive) {
+        if (progressive != null) {
+            progressive.cancel();
+            progressive.deleteSegments();
+        }
+    }
+
+    private void processWithTranscription(String meetingId, String meetingTitle, File audioFile,
+                                        CalendarService.EventInfo calendarEvent, ProgressiveTranscriber progressive) {
         Log.d(TAG, "Starting transcription processing for meeting: " + meetingTitle);
         TranscriptionLogger.logTranscriptionStart(meetingId, 
             settingsManager.getSelectedTranscriptionProvider().toString(), audioFile);
@@ -594,6 +681,7 @@ public class HomeFragment extends Fragment {
         
         // For Android Speech, use the live transcript if available, otherwise fallback to OpenAI
         if (selectedProvider == TranscriptionProvider.ProviderType.ANDROID_SPEECH) {
+            discardProgressive(progressive);
             if (!liveTranscript.isEmpty()) {
                 Log.d(TAG, "Using live transcript from Android Speech Recognition");
                 processTranscriptionResult(meetingId, meetingTitle, liveTranscript, calendarEvent);
@@ -638,7 +726,7 @@ public class HomeFragment extends Fragment {
         }
         
         // Use TranscriptionManager for file-based transcription
-        transcriptionManager.transcribe(audioFile, new TranscriptionProvider.TranscriptionCallback() {
+        transcriptionManager.transcribe(audioFile, progressive, new TranscriptionProvider.TranscriptionCallback() {
             @Override
             public void onSuccess(String transcript, String segments) {
                 Log.d(TAG, "File transcription completed successfully");
@@ -656,6 +744,12 @@ public class HomeFragment extends Fragment {
                 processTranscriptionResult(meetingId, meetingTitle, transcript, calendarEvent);
             }
             
+            @Override
+            public void onTimeline(TranscriptTimeline timeline) {
+                // Delivered before onSuccess, on the provider's background thread
+                fileManager.saveTimeline(meetingId, timeline);
+            }
+            
             @Override
             public void onProgress(int progressPercent) {
                 TranscriptionLogger.logTranscriptionProgress(meetingId, progressPercent);
@@ -709,12 +803,19 @@ public class HomeFragment extends Fragment {
         }
         
         // Generate summary using OpenAI if available and enabled
-        if (openAIService != null && settingsManager.isAutoSummarizeEnabled()) {
+        if (summaryGenerator != null && settingsManager.isAutoSummarizeEnabled()) {
             TranscriptionLogger.logSummaryStart(meetingId);
-            openAIService.generateSummary(transcript, meetingTitle, 
-                new OpenAIService.SummaryCallback() {
+            summaryGenerator.generateSummary(transcript, meetingTitle, 
+                new SummaryGenerator.SummaryCallback() {
                     @Override
-                    public void onSuccess(String summary) {
+                    public void onPartialSummary(SummaryGenerator.MeetingSummary partial) {
+                        showSummaryPreview(partial, false);
+                    }
+                    
+                    @Override
+                    public void onSuccess(SummaryGenerator.MeetingSummary meetingSummary) {
+                        showSummaryPreview(meetingSummary, true);
+                        String summary = meetingSummary.toText();
                         TranscriptionLogger.logSummaryCompleted(meetingId, summary);
                         // Save summary
                         fileManager.saveSummary(meetingId, meetingTitle, summary, meetingDate);
@@ -765,6 +866,21 @@ public class HomeFragment extends Fragment {
         }
     }
     
+    /**
+     * Show the summary as far as it has streamed in; called from the generator's thread
+     */
+    private void showSummaryPreview(SummaryGenerator.MeetingSummary summary, boolean complete) {
+        if (!isAdded() || getActivity() == null) return;
+        
+        String text = summary.toText();
+        requireActivity().runOnUiThread(() -> {
+            if (binding == null || text.isEmpty()) return;
+            binding.textRecordingStatus.setText(complete ? "Summary ready" : "Writing summary...");
+            binding.textSummaryPreview.setText(text);
+            binding.summaryPreviewScroll.setVisibility(View.VISIBLE);
+        });
+    }
+    
     private void saveMeetingWithoutSummary(String meetingId, String meetingTitle, String transcript, 
                                          Date meetingDate, CalendarService.EventInfo calendarEvent) {
         // Save metadata without summary
@@ -890,10 +1006,17 @@ public class HomeFragment extends Fragment {
                 fileManager.saveTranscript(meetingId, meetingTitle, transcript, meetingDate);
                 
                 // Generate summary
-                openAIService.generateSummary(transcript, meetingTitle, 
-                    new OpenAIService.SummaryCallback() {
+                summaryGenerator.generateSummary(transcript, meetingTitle, 
+                    new SummaryGenerator.SummaryCallback() {
+                        @Override
+                        public void onPartialSummary(SummaryGenerator.MeetingSummary partial) {
+                            showSummaryPreview(partial, false);
+                        }
+                        
                         @Override
-                        public void onSuccess(String summary) {
+                        public void onSuccess(SummaryGenerator.MeetingSummary meetingSummary) {
+                            showSummaryPreview(meetingSummary, true);
+                            String summary = meetingSummary.toText();
                             // Save summary
                             fileManager.saveSummary(meetingId, meetingTitle, summary, meetingDate);
                             
@@ -1,5 +1,6 @@
 package ai.intelliswarm.meetingmate.ui.notifications;
 
+import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -7,6 +8,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -20,6 +22,7 @@ import ai.intelliswarm.meetingmate.utils.SettingsManager;
 import ai.intelliswarm.meetingmate.transcription.TranscriptionProvider;
 import ai.intelliswarm.meetingmate.transcription.TranscriptionManager;
 import ai.intelliswarm.meetingmate.transcription.LocalWhisperProvider;
+import ai.intelliswarm.meetingmate.transcription.VoiceprintRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -96,6 +99,12 @@ public class NotificationsFragment extends Fragment {
         binding.checkboxAutoSummarize.setOnCheckedChangeListener((buttonView, isChecked) -> 
             settingsManager.setAutoSummarize(isChecked));
             
+        // Setup voice recognition
+        binding.checkboxRememberVoices.setOnCheckedChangeListener((buttonView, isChecked) -> 
+            settingsManager.setRememberVoices(isChecked));
+        binding.buttonNameVoices.setOnClickListener(v -> showNameVoicesDialog());
+        binding.buttonForgetVoices.setOnClickListener(v -> confirmForgetVoices());
+            
         // Setup audio quality spinner
         setupAudioQualitySpinner();
         
@@ -293,6 +302,7 @@ public class NotificationsFragment extends Fragment {
         // Load checkboxes
         binding.checkboxAutoTranscribe.setChecked(settingsManager.isAutoTranscribeEnabled());
         binding.checkboxAutoSummarize.setChecked(settingsManager.isAutoSummarizeEnabled());
+        binding.checkboxRememberVoices.setChecked(settingsManager.isRememberVoicesEnabled());
         
         // Load audio quality
         SettingsManager.AudioQuality currentQuality = settingsManager.getAudioQuality();
@@ -477,6 +487,66 @@ public class NotificationsFragment extends Fragment {
         }
     }
     
+    private void showNameVoicesDialog() {
+        VoiceprintRegistry registry = VoiceprintRegistry.getInstance(requireContext());
+        List<VoiceprintRegistry.Voice> voices = registry.getVoices();
+        if (voices.isEmpty()) {
+            Toast.makeText(requireContext(), 
+                "No voices remembered yet. Turn on voice recognition and record a meeting.", 
+                Toast.LENGTH_LONG).show();
+            return;
+        }
+        
+        String[] items = new String[voices.size()];
+        for (int i = 0; i < items.length; i++) {
+            VoiceprintRegistry.Voice voice = voices.get(i);
+            items[i] = voice.getLabel() + (voice.getName() != null ? " (Voice " + voice.number + ")" : "")
+                + " · " + voice.getMeetings() + (voice.getMeetings() == 1 ? " meeting" : " meetings");
+        }
+        
+        new AlertDialog.Builder(requireContext())
+            .setTitle("Name Voices")
+            .setItems(items, (dialog, which) -> showRenameVoiceDialog(registry, voices.get(which)))
+            .setNegativeButton("Close", null)
+            .show();
+    }
+    
+    private void showRenameVoiceDialog(VoiceprintRegistry registry, VoiceprintRegistry.Voice voice) {
+        EditText input = new EditText(requireContext());
+        input.setHint("Voice " + voice.number);
+        input.setText(voice.getName());
+        
+        new AlertDialog.Builder(requireContext())
+            .setTitle("Name " + voice.getLabel())
+            .setMessage("This name is used for the speaker in future transcripts. Leave it empty to go back to \"Voice " + voice.number + "\".")
+            .setView(input)
+            .setPositiveButton("Save", (dialog, which) -> {
+                AppLogger.userAction("NotificationsFragment", "voice_named", null);
+                if (!registry.setName(voice.id, input.getText().toString())) {
+                    Toast.makeText(requireContext(), "Failed to save the name", Toast.LENGTH_SHORT).show();
+                }
+            })
+            .setNeutralButton("Forget", (dialog, which) -> registry.remove(voice.id))
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+    
+    private void confirmForgetVoices() {
+        VoiceprintRegistry registry = VoiceprintRegistry.getInstance(requireContext());
+        new AlertDialog.Builder(requireContext())
+            .setTitle("Forget Voices")
+            .setMessage("Delete the " + registry.size() + " voiceprints stored on this device, and the names given to them?")
+            .setPositiveButton("Forget", (dialog, which) -> {
+                AppLogger.userAction("NotificationsFragment", "voices_forgotten", null);
+                boolean cleared = registry.clear();
+                Toast.makeText(requireContext(), 
+                    cleared ? "All voices forgotten" : "Failed to delete voiceprints", 
+                    Toast.LENGTH_SHORT).show();
+            })
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+    
     private void updateSettingsPath() {
         String path = settingsManager.getSettingsFilePath();
         boolean hasSettings = settingsManager.hasExternalSettings();
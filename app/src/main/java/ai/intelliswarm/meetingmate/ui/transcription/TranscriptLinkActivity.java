@@ -23,6 +23,7 @@ import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.textview.MaterialTextView;
 import ai.intelliswarm.meetingmate.R;
 import ai.intelliswarm.meetingmate.data.MeetingFileManager;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
 import ai.intelliswarm.meetingmate.service.AudioRecordingService;
 import ai.intelliswarm.meetingmate.service.OpenAIService;
 import ai.intelliswarm.meetingmate.analytics.AppLogger;
@@ -86,7 +87,7 @@ public class TranscriptLinkActivity extends AppCompatActivity {
         
         // Initialize OpenAI service if API key is available
         if (settingsManager.hasOpenAIApiKey()) {
-            openAIService = new OpenAIService(settingsManager.getOpenAIApiKey());
+            openAIService = new OpenAIService(settingsManager.getOpenAIApiKey(), TranscriptionCache.getInstance(this));
             AppLogger.d(TAG, "OpenAI service initialized");
         } else {
             AppLogger.w(TAG, "OpenAI service not initialized - no API key");
@@ -119,7 +120,7 @@ public class TranscriptLinkActivity extends AppCompatActivity {
         } else {
             // Initialize or reinitialize OpenAI service if API key is now available
             if (openAIService == null && settingsManager.hasOpenAIApiKey()) {
-                openAIService = new OpenAIService(settingsManager.getOpenAIApiKey());
+                openAIService = new OpenAIService(settingsManager.getOpenAIApiKey(), TranscriptionCache.getInstance(this));
                 AppLogger.d(TAG, "OpenAI service reinitialized");
             }
             recordingStatusText.setText("Ready to record");
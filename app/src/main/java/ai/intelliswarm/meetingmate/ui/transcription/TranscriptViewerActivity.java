@@ -10,6 +10,7 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textview.MaterialTextView;
 import ai.intelliswarm.meetingmate.R;
 import ai.intelliswarm.meetingmate.data.MeetingFileManager;
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
 import ai.intelliswarm.meetingmate.export.TranscriptExporter;
 import ai.intelliswarm.meetingmate.analytics.AppLogger;
 import ai.intelliswarm.meetingmate.utils.SettingsManager;
@@ -36,6 +37,7 @@ public class TranscriptViewerActivity extends AppCompatActivity {
     private String meetingId;
     private String meetingTitle;
     private String transcriptContent;
+    private TranscriptTimeline timeline; // Null for meetings transcribed before timelines were saved
     private Date meetingDate;
     private MeetingFileManager meetingFileManager;
     
@@ -103,6 +105,7 @@ public class TranscriptViewerActivity extends AppCompatActivity {
         dateText.setText(dateFormat.format(meetingDate));
         
         transcriptContentText.setText(transcriptContent);
+        timeline = meetingFileManager.getTimeline(meetingId);
         
         // Check if transcript contains speaker information and show summary
         setupSpeakerSummary();
@@ -110,8 +113,22 @@ public class TranscriptViewerActivity extends AppCompatActivity {
     
     private void setupSpeakerSummary() {
         try {
-            // Check if transcript contains speaker labels (formatted by our SpeakerDetection)
-            if (transcriptContent != null && transcriptContent.contains("**Speaker ")) {
+            // Speakers straight from the stored timeline when there is one
+            if (timeline != null && timeline.hasSpeakers()) {
+                if (timeline.speakerCount > 1) {
+                    List<String> speakers = new java.util.ArrayList<>(timeline.speakerCount);
+                    for (int speaker = 1; speaker <= timeline.speakerCount; speaker++) {
+                        speakers.add(timeline.speakerName(speaker));
+                    }
+                    speakerSummaryText.setText(speakers.size() + " speakers detected: " + 
+                        String.join(", ", speakers));
+                    speakerSummaryCard.setVisibility(android.view.View.VISIBLE);
+                    AppLogger.d(TAG, "Speaker summary shown from timeline: " + speakers.size() + " speakers");
+                } else {
+                    speakerSummaryCard.setVisibility(android.view.View.GONE);
+                }
+            } else if (transcriptContent != null && transcriptContent.contains("**Speaker ")) {
+                // Check if transcript contains speaker labels (formatted by our SpeakerDetection)
                 // Extract speaker information from formatted transcript
                 String[] lines = transcriptContent.split("\n");
                 List<String> speakers = new java.util.ArrayList<>();
@@ -165,7 +182,7 @@ public class TranscriptViewerActivity extends AppCompatActivity {
     private void exportTranscript() {
         try {
             TranscriptExporter exporter = new TranscriptExporter(this);
-            boolean success = exporter.exportTranscript(meetingId, meetingTitle, transcriptContent, meetingDate);
+            boolean success = exporter.exportTranscript(meetingId, meetingTitle, transcriptContent, meetingDate, timeline);
             
             if (success) {
                 Toast.makeText(this, "Transcript exported successfully!", Toast.LENGTH_SHORT).show();
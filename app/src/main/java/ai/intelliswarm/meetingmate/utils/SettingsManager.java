@@ -37,6 +37,7 @@ public class SettingsManager {
     private static final String KEY_DEFAULT_CALENDAR_ID = "default_calendar_id";
     private static final String KEY_AUTO_TRANSCRIBE = "auto_transcribe";
     private static final String KEY_AUTO_SUMMARIZE = "auto_summarize";
+    private static final String KEY_REMEMBER_VOICES = "remember_voices";
     private static final String KEY_AUDIO_QUALITY = "audio_quality";
     private static final String KEY_TRANSCRIPT_LANGUAGE = "transcript_language";
     private static final String KEY_APP_LANGUAGE = "app_language";
@@ -168,6 +169,15 @@ public class SettingsManager {
         return sharedPreferences.getBoolean(KEY_AUTO_SUMMARIZE, true);
     }
     
+    // Keep voiceprints of speakers to recognise them in later meetings; off until the user opts in
+    public void setRememberVoices(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_REMEMBER_VOICES, enabled).apply();
+    }
+    
+    public boolean isRememberVoicesEnabled() {
+        return sharedPreferences.getBoolean(KEY_REMEMBER_VOICES, false);
+    }
+    
     // Audio Quality Setting
     public void setAudioQuality(AudioQuality quality) {
         sharedPreferences.edit().putString(KEY_AUDIO_QUALITY, quality.name()).apply();
@@ -348,6 +358,7 @@ public class SettingsManager {
             backupEditor.putString(KEY_TRANSCRIPTION_PROVIDER, getSelectedTranscriptionProvider().name());
             backupEditor.putBoolean(KEY_AUTO_TRANSCRIBE, isAutoTranscribeEnabled());
             backupEditor.putBoolean(KEY_AUTO_SUMMARIZE, isAutoSummarizeEnabled());
+            backupEditor.putBoolean(KEY_REMEMBER_VOICES, isRememberVoicesEnabled());
             backupEditor.putString(KEY_AUDIO_QUALITY, getAudioQuality().name());
             backupEditor.putLong(KEY_DEFAULT_CALENDAR_ID, getDefaultCalendarId());
             backupEditor.putInt(KEY_SETTINGS_VERSION, SETTINGS_VERSION);
@@ -395,6 +406,7 @@ public class SettingsManager {
                 ai.intelliswarm.meetingmate.transcription.TranscriptionProvider.ProviderType.ASSEMBLYAI_SPEAKER.name()));
             editor.putBoolean(KEY_AUTO_TRANSCRIBE, backup.getBoolean(KEY_AUTO_TRANSCRIBE, true));
             editor.putBoolean(KEY_AUTO_SUMMARIZE, backup.getBoolean(KEY_AUTO_SUMMARIZE, true));
+            editor.putBoolean(KEY_REMEMBER_VOICES, backup.getBoolean(KEY_REMEMBER_VOICES, false));
             editor.putString(KEY_AUDIO_QUALITY, backup.getString(KEY_AUDIO_QUALITY, AudioQuality.HIGH.name()));
             editor.putLong(KEY_DEFAULT_CALENDAR_ID, backup.getLong(KEY_DEFAULT_CALENDAR_ID, -1));
             
@@ -429,6 +441,7 @@ public class SettingsManager {
         summary.append("- Transcription Provider: ").append(getSelectedTranscriptionProvider().getDisplayName()).append("\n");
         summary.append("- Auto Transcribe: ").append(isAutoTranscribeEnabled()).append("\n");
         summary.append("- Auto Summarize: ").append(isAutoSummarizeEnabled()).append("\n");
+        summary.append("- Remember Voices: ").append(isRememberVoicesEnabled()).append("\n");
         summary.append("- Audio Quality: ").append(getAudioQuality().name()).append("\n");
         summary.append("- Settings Version: ").append(sharedPreferences.getInt(KEY_SETTINGS_VERSION, 0));
         return summary.toString();
@@ -526,6 +539,7 @@ public class SettingsManager {
             settings.put(KEY_TRANSCRIPTION_PROVIDER, getSelectedTranscriptionProvider().name());
             settings.put(KEY_AUTO_TRANSCRIBE, isAutoTranscribeEnabled());
             settings.put(KEY_AUTO_SUMMARIZE, isAutoSummarizeEnabled());
+            settings.put(KEY_REMEMBER_VOICES, isRememberVoicesEnabled());
             settings.put(KEY_AUDIO_QUALITY, getAudioQuality().name());
             settings.put(KEY_DEFAULT_CALENDAR_ID, getDefaultCalendarId());
             settings.put(KEY_SETTINGS_VERSION, SETTINGS_VERSION);
@@ -735,6 +749,10 @@ public class SettingsManager {
             editor.putBoolean(KEY_AUTO_SUMMARIZE, settings.getBoolean(KEY_AUTO_SUMMARIZE));
         }
         
+        if (settings.has(KEY_REMEMBER_VOICES)) {
+            editor.putBoolean(KEY_REMEMBER_VOICES, settings.getBoolean(KEY_REMEMBER_VOICES));
+        }
+        
         if (settings.has(KEY_AUDIO_QUALITY)) {
             editor.putString(KEY_AUDIO_QUALITY, settings.getString(KEY_AUDIO_QUALITY));
         }
@@ -0,0 +1,215 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.AdvancedSpeakerDetection;
+import ai.intelliswarm.meetingmate.transcription.AdvancedSpeakerDetection.EnhancedSpeakerSegment;
+import ai.intelliswarm.meetingmate.transcription.AdvancedSpeakerDetection.VoiceFeatures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdvancedSpeakerDetectionTest {
+    
+    private static final int SEGMENTS = 500;
+    private static final int SPEAKERS = 8;
+    private static final int FRAGMENTS_PER_SPEAKER = 3;
+    
+    @Test
+    public void testMergesFragmentedSpeakers() {
+        Transcript transcript = new Transcript(new Random(1));
+        
+        int left = AdvancedSpeakerDetection.mergeSimilarSpeakers(transcript.segments, transcript.averages);
+        
+        assertEquals(SPEAKERS, left);
+        assertArrayEquals(transcript.truth, speakerNumbers(transcript.segments));
+        for (EnhancedSpeakerSegment segment : transcript.segments) {
+            assertEquals("Speaker " + segment.speakerId, segment.speakerLabel);
+        }
+    }
+    
+    @Test
+    public void testDistinctSpeakersAreLeftAlone() {
+        Transcript transcript = new Transcript(new Random(2));
+        // Keep only the first fragment of every speaker
+        List<EnhancedSpeakerSegment> segments = new ArrayList<>();
+        for (int i = 0; i < transcript.segments.size(); i++) {
+            if (transcript.fragment[i] == 0) {
+                segments.add(transcript.segments.get(i));
+            }
+        }
+        String[] before = new String[segments.size()];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = segments.get(i).speakerId;
+        }
+        
+        int left = AdvancedSpeakerDetection.mergeSimilarSpeakers(segments, transcript.averages);
+        
+        assertEquals(SPEAKERS, left);
+        for (int i = 0; i < before.length; i++) {
+            assertEquals(before[i], segments.get(i).speakerId);
+        }
+    }
+    
+    @Test
+    public void testPairwiseRelabellingMissesChainedMerges() {
+        Transcript transcript = new Transcript(new Random(3));
+        
+        legacyMerge(transcript.segments, transcript.averages);
+        int legacySpeakers = distinct(transcript.segments);
+        transcript.reset();
+        assertTrue("Legacy left " + legacySpeakers, legacySpeakers > SPEAKERS);
+        
+        AdvancedSpeakerDetection.mergeSimilarSpeakers(transcript.segments, transcript.averages);
+        assertEquals(SPEAKERS, distinct(transcript.segments));
+    }
+    
+    /**
+     * Union-find merging against the previous pairwise relabelling. Timing depends on the
+     * machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkAgainstPairwiseRelabelling() {
+        Transcript transcript = new Transcript(new Random(3));
+        
+        for (int r = 0; r < 2000; r++) {
+            AdvancedSpeakerDetection.mergeSimilarSpeakers(transcript.segments, transcript.averages);
+            transcript.reset();
+            legacyMerge(transcript.segments, transcript.averages);
+            transcript.reset();
+        }
+        
+        int rounds = 5000;
+        long started = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            AdvancedSpeakerDetection.mergeSimilarSpeakers(transcript.segments, transcript.averages);
+            transcript.reset();
+        }
+        long unionFindNanos = System.nanoTime() - started;
+        
+        started = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            legacyMerge(transcript.segments, transcript.averages);
+            transcript.reset();
+        }
+        long legacyNanos = System.nanoTime() - started;
+        
+        double speedup = (double) legacyNanos / unionFindNanos;
+        assertTrue(String.format("mergeSimilarSpeakers %.1f us, pairwise relabelling %.1f us, speedup only %.1fx",
+            unionFindNanos / 1e3 / rounds, legacyNanos / 1e3 / rounds, speedup), speedup > 2);
+    }
+    
+    /**
+     * 500 segments by 8 speakers, where each speaker was split over three detected ids. The
+     * fragments of one speaker drift in pitch, so only neighbouring fragments look alike.
+     */
+    private static class Transcript {
+        final List<EnhancedSpeakerSegment> segments = new ArrayList<>();
+        final Map<String, VoiceFeatures> averages = new HashMap<>();
+        final int[] truth = new int[SEGMENTS];    // Speaker number by first appearance
+        final int[] fragment = new int[SEGMENTS];
+        final String[] originalIds = new String[SEGMENTS];
+        final String[] originalLabels = new String[SEGMENTS];
+        
+        Transcript(Random random) {
+            int[] idOf = new int[SPEAKERS * FRAGMENTS_PER_SPEAKER];
+            int[] numberOf = new int[SPEAKERS];
+            int nextId = 1;
+            int nextNumber = 1;
+            int speaker = random.nextInt(SPEAKERS);
+            int i = 0;
+            while (i < SEGMENTS) {
+                if (numberOf[speaker] == 0) numberOf[speaker] = nextNumber++;
+                for (int turn = 1 + random.nextInt(4); turn > 0 && i < SEGMENTS; turn--, i++) {
+                    int f = random.nextInt(FRAGMENTS_PER_SPEAKER);
+                    int key = speaker * FRAGMENTS_PER_SPEAKER + f;
+                    if (idOf[key] == 0) {
+                        idOf[key] = nextId++;
+                        averages.put(String.valueOf(idOf[key]), voice(speaker, f));
+                    }
+                    String id = String.valueOf(idOf[key]);
+                    String label = "Speaker " + id;
+                    segments.add(new EnhancedSpeakerSegment(id, label, i, i + 1, "text", voice(speaker, f), 0.9));
+                    truth[i] = numberOf[speaker];
+                    fragment[i] = f;
+                    originalIds[i] = id;
+                    originalLabels[i] = label;
+                }
+                speaker = (speaker + 1 + random.nextInt(SPEAKERS - 1)) % SPEAKERS;
+            }
+        }
+        
+        void reset() {
+            for (int i = 0; i < SEGMENTS; i++) {
+                EnhancedSpeakerSegment segment = segments.get(i);
+                segment.speakerId = originalIds[i];
+                segment.speakerLabel = originalLabels[i];
+            }
+        }
+    }
+    
+    /**
+     * Speakers differ by a factor 1.6 in energy, rate and pause; fragments by 1.5 in pitch
+     */
+    private static VoiceFeatures voice(int speaker, int fragment) {
+        VoiceFeatures features = new VoiceFeatures();
+        double scale = Math.pow(1.6, speaker);
+        features.pitch = 100 * Math.pow(1.5, fragment);
+        features.energy = 10 * scale;
+        features.speakingRate = scale;
+        features.pauseRatio = 0.05 * scale;
+        return features;
+    }
+    
+    /**
+     * Speaker ids renumbered by first appearance
+     */
+    private static int[] speakerNumbers(List<EnhancedSpeakerSegment> segments) {
+        Map<String, Integer> numbers = new HashMap<>();
+        int[] result = new int[segments.size()];
+        for (int i = 0; i < result.length; i++) {
+            String id = segments.get(i).speakerId;
+            if (!numbers.containsKey(id)) numbers.put(id, numbers.size() + 1);
+            result[i] = numbers.get(id);
+        }
+        return result;
+    }
+    
+    private static int distinct(List<EnhancedSpeakerSegment> segments) {
+        int max = 0;
+        for (int number : speakerNumbers(segments)) {
+            max = Math.max(max, number);
+        }
+        return max;
+    }
+    
+    /**
+     * The previous mergeSimliarSpeakers: every similar pair rescans all segments to relabel
+     */
+    private static void legacyMerge(List<EnhancedSpeakerSegment> segments, Map<String, VoiceFeatures> averages) {
+        List<String> profileIds = new ArrayList<>(averages.keySet());
+        for (int i = 0; i < profileIds.size() - 1; i++) {
+            for (int j = i + 1; j < profileIds.size(); j++) {
+                VoiceFeatures p1 = averages.get(profileIds.get(i));
+                VoiceFeatures p2 = averages.get(profileIds.get(j));
+                if (p1.calculateSimilarity(p2) > 0.85) {
+                    for (EnhancedSpeakerSegment segment : segments) {
+                        if (segment.speakerId.equals(profileIds.get(j))) {
+                            segment.speakerId = profileIds.get(i);
+                            segment.speakerLabel = "Speaker " + profileIds.get(i);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package ai.intelliswarm.meetingmate;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.network.ChatGateway;
+import ai.intelliswarm.meetingmate.network.HttpClientProvider;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChatGatewayTest {
+    
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final String REPLY = "{\"choices\":[],\"usage\":{\"total_tokens\":12}}";
+    
+    private static Response response(Request request, int code, String... headers) {
+        Response.Builder builder = new Response.Builder()
+            .request(request)
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message("")
+            .body(ResponseBody.create(code == 200 ? REPLY : "{}", JSON));
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        return builder.build();
+    }
+    
+    private static Response response(int code, String... headers) {
+        return response(new Request.Builder().url("https://api.openai.com/v1/chat/completions").build(), code, headers);
+    }
+    
+    private static ChatGateway gateway(Interceptor interceptor) {
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+        return new ChatGateway(profile -> client);
+    }
+    
+    private static JSONObject body(String content) throws JSONException {
+        JSONObject message = new JSONObject().put("role", "user").put("content", content);
+        return new JSONObject().put("model", "test-model").put("messages", new JSONArray().put(message));
+    }
+    
+    @Test
+    public void testRetryAfterMs() {
+        assertEquals(-1, ChatGateway.retryAfterMs(response(429)));
+        assertEquals(1500, ChatGateway.retryAfterMs(response(429, "retry-after-ms", "1500")));
+        assertEquals(2000, ChatGateway.retryAfterMs(response(429, "Retry-After", "2")));
+        assertEquals(500, ChatGateway.retryAfterMs(response(429, "Retry-After", "0.5")));
+        
+        // The millisecond header is the more precise one
+        assertEquals(250, ChatGateway.retryAfterMs(response(429, "retry-after-ms", "250", "Retry-After", "10")));
+        assertEquals(10_000, ChatGateway.retryAfterMs(response(429, "retry-after-ms", "soon", "Retry-After", "10")));
+        
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        long wait = ChatGateway.retryAfterMs(response(429, "Retry-After", date));
+        assertTrue("Waits " + wait, wait > 28_000 && wait <= 30_000);
+        
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(30));
+        assertEquals(0, ChatGateway.retryAfterMs(response(429, "Retry-After", past)));
+        assertEquals(0, ChatGateway.retryAfterMs(response(429, "Retry-After", "-3")));
+        assertEquals(-1, ChatGateway.retryAfterMs(response(429, "Retry-After", "soon")));
+    }
+    
+    @Test
+    public void testIsRetryable() {
+        assertTrue(ChatGateway.isRetryable(429, "{\"error\":{\"code\":\"rate_limit_exceeded\"}}"));
+        assertFalse(ChatGateway.isRetryable(429, "{\"error\":{\"code\":\"insufficient_quota\"}}"));
+        assertTrue(ChatGateway.isRetryable(408, ""));
+        assertTrue(ChatGateway.isRetryable(409, ""));
+        assertTrue(ChatGateway.isRetryable(500, ""));
+        assertTrue(ChatGateway.isRetryable(503, ""));
+        assertFalse(ChatGateway.isRetryable(400, ""));
+        assertFalse(ChatGateway.isRetryable(401, ""));
+        assertFalse(ChatGateway.isRetryable(404, ""));
+    }
+    
+    @Test
+    public void testIdenticalRequestsInFlightShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChatGateway gateway = gateway(chain -> {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return response(chain.request(), 200);
+        });
+        JSONObject body = body("Summarize this");
+        String[] results = new String[2];
+        
+        Thread first = new Thread(() -> results[0] = completeQuietly(gateway, body));
+        first.start();
+        entered.await();
+        Thread second = new Thread(() -> results[1] = completeQuietly(gateway, body));
+        second.start();
+        // Parked either on the first call's result or, wrongly, in a call of its own
+        while (second.getState() != Thread.State.WAITING && second.getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+        release.countDown();
+        first.join();
+        second.join();
+        
+        assertEquals(1, calls.get());
+        assertEquals(REPLY, results[0]);
+        assertEquals(REPLY, results[1]);
+        
+        // Once it is done, the same request goes out again, and a different one never joins
+        gateway.complete("key", body, HttpClientProvider.Profile.CHAT_COMPLETION);
+        gateway.complete("key", body("Something else"), HttpClientProvider.Profile.CHAT_COMPLETION);
+        assertEquals(3, calls.get());
+    }
+    
+    @Test
+    public void testFailuresThatWillNotPassAreNotRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ChatGateway gateway = gateway(chain -> {
+            calls.incrementAndGet();
+            return response(chain.request(), 400);
+        });
+        
+        try {
+            gateway.complete("key", body("Summarize this"), HttpClientProvider.Profile.CHAT_COMPLETION);
+            fail("Expected the 400 to be thrown");
+        } catch (ChatGateway.ApiException e) {
+            assertEquals(400, e.code);
+        }
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    public void testLongRetryAfterFailsFast() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ChatGateway gateway = gateway(chain -> {
+            calls.incrementAndGet();
+            return response(chain.request(), 429, "Retry-After", "3600");
+        });
+        
+        try {
+            gateway.complete("key", body("Summarize this"), HttpClientProvider.Profile.CHAT_COMPLETION);
+            fail("Expected the 429 to be thrown");
+        } catch (ChatGateway.ApiException e) {
+            assertEquals(429, e.code);
+        }
+        assertEquals(1, calls.get()); // Thrown rather than waited out
+    }
+    
+    private static String completeQuietly(ChatGateway gateway, JSONObject body) {
+        try {
+            return gateway.complete("key", body, HttpClientProvider.Profile.CHAT_COMPLETION);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ai.intelliswarm.meetingmate;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.audio.AudioChunker;
+import ai.intelliswarm.meetingmate.transcription.ChunkedTranscriptionEngine;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class ChunkedTranscriptionMergeTest {
+    
+    @Test
+    public void testMergeShiftsTimestampsAndRenumbersSegments() throws Exception {
+        List<AudioChunker.Chunk> chunks = Arrays.asList(
+            new AudioChunker.Chunk(0, new File("part0.m4a"), 0, 600),
+            new AudioChunker.Chunk(1, new File("part1.m4a"), 600, 1200)
+        );
+        
+        WhisperTranscript first = parse(chunkResult("Hello everyone.", 0, 4.5, "en"));
+        WhisperTranscript second = parse(chunkResult("Let's begin.", 1.0, 3.0, "en"));
+        
+        WhisperTranscript merged = ChunkedTranscriptionEngine.mergeResults(chunks, Arrays.asList(first, second));
+        
+        assertEquals("Hello everyone. Let's begin.", merged.text);
+        assertEquals("en", merged.language);
+        assertEquals(1200, merged.duration, 0.001);
+        
+        JSONArray segments = new JSONArray(merged.toSegmentsJson());
+        assertEquals(2, segments.length());
+        assertEquals(0, segments.getJSONObject(0).getInt("id"));
+        assertEquals(1, segments.getJSONObject(1).getInt("id"));
+        assertEquals(601.0, segments.getJSONObject(1).getDouble("start"), 0.001);
+        assertEquals(603.0, segments.getJSONObject(1).getDouble("end"), 0.001);
+    }
+    
+    @Test
+    public void testMergeKeepsWordsMonotonicAcrossCuts() throws Exception {
+        List<AudioChunker.Chunk> chunks = Arrays.asList(
+            new AudioChunker.Chunk(0, new File("part0.m4a"), 0, 10),
+            new AudioChunker.Chunk(1, new File("part1.m4a"), 10, 20)
+        );
+        
+        JSONObject first = new JSONObject()
+            .put("text", "one two")
+            .put("words", new JSONArray()
+                .put(word("one", 8.0, 8.5))
+                .put(word("two", 9.6, 10.3)));
+        // Second chunk re-hears the tail of "two" before the real next word
+        JSONObject second = new JSONObject()
+            .put("text", "two three")
+            .put("words", new JSONArray()
+                .put(word("two", 0.0, 0.2))
+                .put(word("three", 0.5, 0.9)));
+        
+        WhisperTranscript merged = ChunkedTranscriptionEngine.mergeResults(chunks, Arrays.asList(parse(first), parse(second)));
+        
+        assertEquals(3, merged.wordCount);
+        assertEquals("three", merged.words[2]);
+        double previousEnd = 0;
+        for (int i = 0; i < merged.wordCount; i++) {
+            assertTrue(merged.wordStart[i] >= previousEnd);
+            previousEnd = merged.wordEnd[i];
+        }
+    }
+    
+    private static WhisperTranscript parse(JSONObject json) throws Exception {
+        return WhisperTranscript.parse(new StringReader(json.toString()));
+    }
+    
+    private static JSONObject chunkResult(String text, double start, double end, String language) throws Exception {
+        JSONObject segment = new JSONObject()
+            .put("id", 0)
+            .put("start", start)
+            .put("end", end)
+            .put("text", text);
+        return new JSONObject()
+            .put("text", text)
+            .put("language", language)
+            .put("segments", new JSONArray().put(segment));
+    }
+    
+    private static JSONObject word(String text, double start, double end) throws Exception {
+        return new JSONObject().put("word", text).put("start", start).put("end", end);
+    }
+}
\ No newline at end of file
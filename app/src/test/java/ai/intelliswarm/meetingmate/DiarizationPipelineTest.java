@@ -0,0 +1,162 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.AdvancedSpeakerDetection;
+import ai.intelliswarm.meetingmate.transcription.AudioSpeakerAnalyzer;
+import ai.intelliswarm.meetingmate.transcription.Diarization;
+import ai.intelliswarm.meetingmate.transcription.DiarizationPipeline;
+import ai.intelliswarm.meetingmate.transcription.SpeakerDetection;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class DiarizationPipelineTest {
+    
+    @Test
+    public void testFallbackRunsOnlyWhenNothingWasAssigned() {
+        AtomicInteger fallbackRuns = new AtomicInteger();
+        DiarizationPipeline.Stage fallback = (diarization, deadline) -> {
+            fallbackRuns.incrementAndGet();
+            return assign(diarization, 1, 1, 1);
+        };
+        
+        Diarization skipped = new DiarizationPipeline()
+            .addStage("nothing", 100, (diarization, deadline) -> false)
+            .addFallback("fallback", 100, fallback)
+            .run(threeSegments(), "en");
+        assertEquals(1, fallbackRuns.get());
+        assertEquals("fallback", skipped.method);
+        
+        Diarization assigned = new DiarizationPipeline()
+            .addStage("first", 100, (diarization, deadline) -> assign(diarization, 1, 2, 1))
+            .addFallback("fallback", 100, fallback)
+            .run(threeSegments(), "en");
+        assertEquals(1, fallbackRuns.get());
+        assertEquals("first", assigned.method);
+        assertEquals(2, assigned.speakerCount);
+    }
+    
+    @Test
+    public void testSlowOrFailingStagesLeaveAnnotationsUntouched() {
+        Diarization diarization = new DiarizationPipeline()
+            .addStage("first", 100, (d, deadline) -> assign(d, 1, 2, 1))
+            .addStage("slow", 20, (d, deadline) -> {
+                while (!deadline.isExpired()) {
+                    Thread.yield();
+                }
+                return false;
+            })
+            .addStage("broken", 100, (d, deadline) -> {
+                throw new IllegalStateException("boom");
+            })
+            .run(threeSegments(), "en");
+        
+        assertEquals("first", diarization.method);
+        assertArrayEquals(new int[] {1, 2, 1}, diarization.segmentSpeaker);
+    }
+    
+    @Test
+    public void testUndecodableRecordingFallsBackToTextStages() throws IOException {
+        File notAudio = File.createTempFile("not_audio", ".m4a");
+        try (FileOutputStream out = new FileOutputStream(notAudio)) {
+            out.write("definitely not an m4a file".getBytes("UTF-8"));
+        }
+        
+        try {
+            Diarization diarization = new DiarizationPipeline()
+                .addStage("voice-audio", 1000, (d, deadline) -> AudioSpeakerAnalyzer.annotate(notAudio, d, deadline))
+                .addFallback("voice-pattern", 1000, SpeakerDetection::annotate)
+                .run(threeSegments(), "en");
+            
+            assertEquals("voice-pattern", diarization.method);
+        } finally {
+            notAudio.delete();
+        }
+    }
+    
+    @Test
+    public void testRenumbersByFirstAppearanceAndFormatsTurns() {
+        Diarization diarization = new DiarizationPipeline()
+            .addStage("merged", 100, (d, deadline) -> assign(d, 4, 4, 2))
+            .run(threeSegments(), "en");
+        
+        assertArrayEquals(new int[] {1, 1, 2}, diarization.segmentSpeaker);
+        String text = diarization.format();
+        assertTrue(text, text.contains("**Speaker 1** [00:00]"));
+        assertTrue(text, text.contains("Good morning everyone. Shall we start?"));
+        assertTrue(text, text.contains("**Speaker 2** [00:07]"));
+        assertFalse(text, text.contains("Speaker 3"));
+    }
+    
+    @Test
+    public void testFormatsWordLevelSpeakers() {
+        Diarization diarization = new Diarization(threeSegments(), "en");
+        int[] speakers = {1, 1, 1, 1, 2, 2, 1, 1};
+        System.arraycopy(speakers, 0, diarization.wordSpeaker, 0, speakers.length);
+        diarization.renumberSpeakers();
+        
+        String text = diarization.format();
+        assertTrue(text, text.contains("**Speaker 1** [00:00]"));
+        assertTrue(text, text.contains("Good morning everyone. Shall\n\n"));
+        assertTrue(text, text.contains("**Speaker 2** [00:03]"));
+        assertTrue(text, text.endsWith("Yes, please."));
+    }
+    
+    @Test
+    public void testTextStagesMatchTheirListApi() {
+        WhisperTranscript transcript = threeSegments();
+        
+        Diarization diarization = new DiarizationPipeline()
+            .addStage("voice-profile", 1000, AdvancedSpeakerDetection::annotate)
+            .run(transcript, "en");
+        List<AdvancedSpeakerDetection.EnhancedSpeakerSegment> enhanced =
+            AdvancedSpeakerDetection.detectSpeakersAdvanced(transcript, null, "en");
+        assertTrue(diarization.hasSpeakers());
+        for (int i = 0; i < enhanced.size(); i++) {
+            assertEquals(enhanced.get(i).speakerLabel, diarization.speakerLabel(diarization.segmentSpeaker[i]));
+        }
+        
+        Diarization fallback = new DiarizationPipeline()
+            .addStage("voice-pattern", 1000, SpeakerDetection::annotate)
+            .run(transcript, "en");
+        List<SpeakerDetection.SpeakerSegment> basic = SpeakerDetection.detectSpeakers(transcript, "en");
+        assertTrue(fallback.hasSpeakers());
+        for (int i = 0; i < basic.size(); i++) {
+            assertEquals(basic.get(i).speaker, fallback.speakerLabel(fallback.segmentSpeaker[i]));
+        }
+    }
+    
+    private static boolean assign(Diarization diarization, int... speakers) {
+        for (int i = 0; i < speakers.length; i++) {
+            diarization.segmentSpeaker[i] = speakers[i];
+            diarization.segmentConfidence[i] = 0.9f;
+        }
+        diarization.renumberSpeakers();
+        return true;
+    }
+    
+    private static WhisperTranscript threeSegments() {
+        return new WhisperTranscript.Builder()
+            .addSegment(0f, 2.0f, "Good morning everyone.", -0.2f, 0.01f)
+            .addSegment(2.5f, 4.5f, "Shall we start?", -0.3f, 0.01f)
+            .addSegment(7.0f, 8.0f, "Yes, please.", -0.9f, 0.02f)
+            .addWord("Good", 0f, 0.5f, 0.9f)
+            .addWord("morning", 0.5f, 1.2f, 0.9f)
+            .addWord("everyone.", 1.2f, 2.0f, 0.9f)
+            .addWord("Shall", 2.5f, 3.0f, 0.9f)
+            .addWord("we", 3.0f, 3.3f, 0.9f)
+            .addWord("start?", 3.3f, 4.5f, 0.9f)
+            .addWord("Yes,", 7.0f, 7.4f, 0.9f)
+            .addWord("please.", 7.4f, 8.0f, 0.9f)
+            .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.data.DiskLruCache;
+
+import java.io.File;
+
+@RunWith(RobolectricTestRunner.class)
+public class DiskLruCacheTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private static String value(char c) {
+        return new String(new char[100]).replace('\0', c);
+    }
+    
+    @Test
+    public void testHitAndMiss() {
+        DiskLruCache cache = new DiskLruCache(folder.getRoot(), 1000);
+        assertNull(cache.get("a"));
+        
+        cache.put("a", "first");
+        assertEquals("first", cache.get("a"));
+        cache.put("a", "second");
+        assertEquals("second", cache.get("a"));
+        assertEquals(6, cache.size());
+        
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        // Room for three entries
+        DiskLruCache cache = new DiskLruCache(folder.getRoot(), 350);
+        cache.put("a", value('a'));
+        cache.put("b", value('b'));
+        cache.put("c", value('c'));
+        assertNotNull(cache.get("a"));
+        
+        cache.put("d", value('d'));
+        
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        assertEquals(300, cache.size());
+        assertFalse(new File(folder.getRoot(), "b.entry").exists());
+    }
+    
+    @Test
+    public void testAccessOrderSurvivesReopening() {
+        File directory = folder.getRoot();
+        DiskLruCache cache = new DiskLruCache(directory, 350);
+        cache.put("a", value('a'));
+        cache.put("b", value('b'));
+        cache.put("c", value('c'));
+        assertNotNull(cache.get("a"));
+        
+        // Set every file time alike, so only the journal knows the order
+        for (File file : directory.listFiles()) {
+            file.setLastModified(0);
+        }
+        DiskLruCache reopened = new DiskLruCache(directory, 350);
+        assertEquals(300, reopened.size());
+        reopened.put("d", value('d'));
+        
+        assertNull(reopened.get("b"));
+        assertNotNull(reopened.get("a"));
+        assertNotNull(reopened.get("c"));
+    }
+    
+    @Test
+    public void testJournalStaysBounded() {
+        File directory = folder.getRoot();
+        DiskLruCache cache = new DiskLruCache(directory, 1000);
+        cache.put("a", "x");
+        for (int i = 0; i < 5000; i++) {
+            cache.get("a");
+        }
+        
+        assertTrue(new File(directory, "journal").length() < 2000);
+        assertEquals("x", new DiskLruCache(directory, 1000).get("a"));
+    }
+    
+    @Test
+    public void testClearDropsEverything() {
+        DiskLruCache cache = new DiskLruCache(folder.getRoot(), 1000);
+        cache.put("a", "first");
+        cache.put("b", "second");
+        
+        cache.clear();
+        
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertNull(new DiskLruCache(folder.getRoot(), 1000).get("b"));
+    }
+}
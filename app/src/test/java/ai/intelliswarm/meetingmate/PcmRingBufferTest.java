@@ -0,0 +1,143 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.audio.PcmRingBuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PcmRingBufferTest {
+    
+    @Test
+    public void testEveryReaderSeesEverySampleAcrossWraps() {
+        PcmRingBuffer ring = new PcmRingBuffer(1000);
+        assertEquals(1024, ring.capacity());
+        PcmRingBuffer.Reader first = ring.newReader();
+        PcmRingBuffer.Reader second = ring.newReader();
+        
+        short[] block = new short[300];
+        short[] out = new short[512];
+        long expectedFirst = 0;
+        long expectedSecond = 0;
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < block.length; i++) {
+                block[i] = valueAt(round * (long) block.length + i);
+            }
+            ring.write(block, 0, block.length);
+            
+            expectedFirst = drain(first, out, expectedFirst);
+            // The second reader lags a round behind but never by a whole ring
+            if (round % 2 == 1) {
+                expectedSecond = drain(second, out, expectedSecond);
+            }
+        }
+        expectedSecond = drain(second, out, expectedSecond);
+        
+        assertEquals(ring.position(), expectedFirst);
+        assertEquals(ring.position(), expectedSecond);
+        assertEquals(0, first.getOverruns());
+        assertEquals(0, second.getOverruns());
+    }
+    
+    @Test
+    public void testSlowReaderSkipsOverwrittenSamples() {
+        PcmRingBuffer ring = new PcmRingBuffer(256);
+        PcmRingBuffer.Reader reader = ring.newReader();
+        
+        short[] block = new short[100];
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < block.length; i++) {
+                block[i] = valueAt(round * 100L + i);
+            }
+            ring.write(block, 0, block.length);
+        }
+        
+        short[] out = new short[256];
+        int count = reader.read(out, 0, out.length);
+        
+        assertEquals(1, reader.getOverruns());
+        assertEquals(1000 - 256, reader.getDroppedSamples());
+        assertEquals(256, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(valueAt(1000 - 256 + i), out[i]);
+        }
+        assertEquals(0, reader.read(out, 0, out.length));
+    }
+    
+    @Test
+    public void testConcurrentReadersGetContiguousRuns() throws InterruptedException {
+        PcmRingBuffer ring = new PcmRingBuffer(4096);
+        int total = 2_000_000;
+        AtomicBoolean done = new AtomicBoolean();
+        PcmRingBuffer.Reader[] readers = { ring.newReader(), ring.newReader() };
+        String[] errors = new String[readers.length];
+        long[] received = new long[readers.length];
+        
+        Thread[] consumers = new Thread[readers.length];
+        for (int r = 0; r < readers.length; r++) {
+            int id = r;
+            consumers[r] = new Thread(() -> {
+                PcmRingBuffer.Reader reader = readers[id];
+                short[] out = new short[700];
+                while (true) {
+                    long before = reader.position();
+                    int count = reader.read(out, 0, out.length);
+                    if (count == 0) {
+                        if (done.get() && reader.available() == 0) break;
+                        Thread.yield();
+                        continue;
+                    }
+                    // Whatever was kept is the run that ends at the reader's position
+                    long start = reader.position() - count;
+                    if (start < before) {
+                        errors[id] = "reader moved backwards";
+                        return;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        if (out[i] != valueAt(start + i)) {
+                            errors[id] = "torn sample at " + (start + i);
+                            return;
+                        }
+                    }
+                    received[id] += count;
+                }
+            });
+            consumers[r].start();
+        }
+        
+        short[] block = new short[441];
+        long written = 0;
+        while (written < total) {
+            for (int i = 0; i < block.length; i++) {
+                block[i] = valueAt(written + i);
+            }
+            ring.write(block, 0, block.length);
+            written += block.length;
+        }
+        done.set(true);
+        for (Thread consumer : consumers) {
+            consumer.join(10_000);
+        }
+        
+        for (int r = 0; r < readers.length; r++) {
+            assertNull(errors[r], errors[r]);
+            assertEquals(written, received[r] + readers[r].getDroppedSamples());
+        }
+    }
+    
+    private static long drain(PcmRingBuffer.Reader reader, short[] out, long expected) {
+        int count;
+        while ((count = reader.read(out, 0, out.length)) > 0) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(valueAt(expected + i), out[i]);
+            }
+            expected += count;
+        }
+        return expected;
+    }
+    
+    private static short valueAt(long position) {
+        return (short) (position * 7919 % 65521 - 32760);
+    }
+}
@@ -0,0 +1,155 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.audio.PitchTracker;
+
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class PitchTrackerTest {
+    
+    private static final int SAMPLE_RATE = 16000;
+    
+    @Test
+    public void testTracksHarmonicTones() {
+        PitchTracker tracker = new PitchTracker(SAMPLE_RATE);
+        PitchTracker.Contour contour = new PitchTracker.Contour();
+        
+        for (double f0 : new double[] {85, 120, 180, 260, 350}) {
+            short[] tone = harmonicTone(SAMPLE_RATE / 2, f0, 0);
+            tracker.track(tone, 0, tone.length, contour);
+            
+            assertTrue(contour.frameCount > 40);
+            assertEquals("f0 " + f0, contour.frameCount, contour.voicedCount());
+            assertEquals("f0 " + f0, f0, tracker.medianVoicedF0(contour), f0 * 0.02);
+            assertTrue(contour.confidence[contour.frameCount / 2] > 0.85f);
+        }
+    }
+    
+    @Test
+    public void testSilenceAndNoiseAreUnvoiced() {
+        PitchTracker tracker = new PitchTracker(SAMPLE_RATE);
+        PitchTracker.Contour contour = new PitchTracker.Contour();
+        
+        short[] silence = new short[SAMPLE_RATE / 4];
+        tracker.track(silence, 0, silence.length, contour);
+        assertEquals(0, contour.voicedCount());
+        assertEquals(0, tracker.medianVoicedF0(contour), 0);
+        
+        Random random = new Random(11);
+        short[] noise = new short[SAMPLE_RATE / 2];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = (short) (random.nextGaussian() * 3000);
+        }
+        tracker.track(noise, 0, noise.length, contour);
+        assertTrue(contour.voicedCount() < contour.frameCount / 10);
+    }
+    
+    @Test
+    public void testFollowsAPitchGlide() {
+        PitchTracker tracker = new PitchTracker(SAMPLE_RATE);
+        PitchTracker.Contour contour = new PitchTracker.Contour();
+        
+        // 120 Hz rising linearly to 240 Hz over one second
+        short[] glide = new short[SAMPLE_RATE];
+        double phase = 0;
+        for (int i = 0; i < glide.length; i++) {
+            double f0 = 120 + 120.0 * i / glide.length;
+            phase += 2 * Math.PI * f0 / SAMPLE_RATE;
+            glide[i] = (short) (8000 * Math.sin(phase) + 4000 * Math.sin(2 * phase));
+        }
+        tracker.track(glide, 0, glide.length, contour);
+        
+        float early = contour.f0[5];
+        float late = contour.f0[contour.frameCount - 5];
+        assertEquals(127, early, 6);
+        assertEquals(233, late, 8);
+        assertEquals(0.01, contour.hopSeconds, 1e-3);
+    }
+    
+    /**
+     * YIN over twenty words against the old whole-word autocorrelation. Timing depends on the
+     * machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkAgainstNaiveAutocorrelation() {
+        PitchTracker tracker = new PitchTracker(SAMPLE_RATE);
+        PitchTracker.Contour contour = new PitchTracker.Contour();
+        short[][] words = new short[20][];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = harmonicTone(SAMPLE_RATE * 3 / 4, 90 + 10 * i, i); // 750 ms "words"
+        }
+        
+        // Warm up both paths
+        for (int r = 0; r < 3; r++) {
+            for (short[] word : words) {
+                tracker.track(word, 0, word.length, contour);
+                naiveAutocorrelationPitch(word, SAMPLE_RATE);
+            }
+        }
+        
+        long started = System.nanoTime();
+        for (int r = 0; r < 5; r++) {
+            for (short[] word : words) {
+                tracker.track(word, 0, word.length, contour);
+            }
+        }
+        long yinNanos = System.nanoTime() - started;
+        
+        started = System.nanoTime();
+        for (int r = 0; r < 5; r++) {
+            for (short[] word : words) {
+                naiveAutocorrelationPitch(word, SAMPLE_RATE);
+            }
+        }
+        long naiveNanos = System.nanoTime() - started;
+        
+        double speedup = (double) naiveNanos / yinNanos;
+        assertTrue(String.format("PitchTracker %.1f ms, naive autocorrelation %.1f ms, speedup only %.1fx",
+            yinNanos / 1e6, naiveNanos / 1e6, speedup), speedup > 2);
+    }
+    
+    /**
+     * The previous AudioSpeakerAnalyzer.estimatePitch: one autocorrelation over the whole word per lag
+     */
+    private static double naiveAutocorrelationPitch(short[] samples, int sampleRate) {
+        int minPeriod = sampleRate / 400;
+        int maxPeriod = sampleRate / 50;
+        double maxCorr = 0;
+        int bestPeriod = 0;
+        for (int period = minPeriod; period < Math.min(maxPeriod, samples.length / 2); period++) {
+            double corr = 0;
+            for (int i = 0; i < samples.length - period; i++) {
+                corr += samples[i] * samples[i + period];
+            }
+            if (corr > maxCorr) {
+                maxCorr = corr;
+                bestPeriod = period;
+            }
+        }
+        return bestPeriod > 0 ? (double) sampleRate / bestPeriod : 0;
+    }
+    
+    /**
+     * Five harmonics with falling amplitude, like a sustained vowel
+     */
+    private static short[] harmonicTone(int length, double f0, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double value = 0;
+            for (int h = 1; h <= 5; h++) {
+                value += Math.sin(2 * Math.PI * h * f0 * t) / h;
+            }
+            samples[i] = (short) (value * 6000 + random.nextGaussian() * 30);
+        }
+        return samples;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.ProgressiveTranscriber;
+import ai.intelliswarm.meetingmate.transcription.TranscriptionProvider;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(RobolectricTestRunner.class)
+public class ProgressiveTranscriberTest {
+    
+    /**
+     * Transcribes every segment as its file name. Segments named "bad" fail, and with blocking
+     * set the first upload waits until cancel() is called.
+     */
+    private static class FakeTranscriber implements ProgressiveTranscriber.SegmentTranscriber {
+        final List<String> uploads = new CopyOnWriteArrayList<>();
+        final CountDownLatch uploading = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final boolean blocking;
+        
+        FakeTranscriber(boolean blocking) {
+            this.blocking = blocking;
+        }
+        
+        @Override
+        public WhisperTranscript transcribeSegment(File segmentFile) throws IOException {
+            String name = segmentFile.getName();
+            uploads.add(name);
+            uploading.countDown();
+            if (blocking) {
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Canceled");
+            }
+            if (name.equals("bad")) {
+                throw new IOException("Upload of " + name + " failed");
+            }
+            return new WhisperTranscript.Builder()
+                .setText(name)
+                .setDuration(10)
+                .addSegment(1, 9, name, 0, 0)
+                .build();
+        }
+        
+        @Override
+        public void deliverStitched(WhisperTranscript transcript, File recording,
+                                    TranscriptionProvider.TranscriptionCallback callback) {
+            callback.onSuccess(transcript.text, transcript.toSegmentsJson());
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled.countDown();
+        }
+        
+        @Override
+        public ProviderType getType() {
+            return ProviderType.OPENAI_WHISPER;
+        }
+        
+        @Override
+        public boolean isConfigured() {
+            return true;
+        }
+        
+        @Override
+        public String getConfigurationRequirement() {
+            return "";
+        }
+        
+        @Override
+        public void transcribe(File audioFile, TranscriptionCallback callback) {
+            callback.onError("Not used");
+        }
+        
+        @Override
+        public String[] getSupportedFormats() {
+            return new String[] {"m4a"};
+        }
+        
+        @Override
+        public int getMaxFileSizeMB() {
+            return 25;
+        }
+    }
+    
+    @Test
+    public void testStitchesSegmentsInRecordingOrder() throws IOException {
+        FakeTranscriber transcriber = new FakeTranscriber(false);
+        ProgressiveTranscriber progressive = new ProgressiveTranscriber(transcriber);
+        progressive.addSegment(new File("first"), 0, 10);
+        progressive.addSegment(new File("second"), 10, 20);
+        progressive.addSegment(new File("third"), 20, 30);
+        
+        List<int[]> progress = new CopyOnWriteArrayList<>();
+        WhisperTranscript stitched = progressive.await((completed, total) -> progress.add(new int[] {completed, total}));
+        
+        assertEquals("first second third", stitched.text);
+        assertEquals(3, stitched.segmentCount);
+        assertEquals(1, stitched.segmentStart[0], 0.001);
+        assertEquals(11, stitched.segmentStart[1], 0.001);
+        assertEquals(21, stitched.segmentStart[2], 0.001);
+        assertEquals("third", stitched.segmentText[2]);
+        assertEquals(3, progress.size());
+        assertEquals(3, progress.get(2)[0]);
+        assertEquals(3, progress.get(2)[1]);
+    }
+    
+    @Test
+    public void testFailingSegmentIsRetriedOnceThenFailsTheRun() {
+        FakeTranscriber transcriber = new FakeTranscriber(false);
+        ProgressiveTranscriber progressive = new ProgressiveTranscriber(transcriber);
+        progressive.addSegment(new File("first"), 0, 10);
+        progressive.addSegment(new File("bad"), 10, 20);
+        
+        try {
+            progressive.await(null);
+            fail("Expected the failed segment to fail the run");
+        } catch (IOException e) {
+            assertEquals("Upload of bad failed", e.getMessage());
+        }
+        assertEquals(3, transcriber.uploads.size()); // first, bad, bad again
+        assertFalse(progressive.isCancelled());
+    }
+    
+    @Test
+    public void testCancelDuringAwaitEndsIt() throws Exception {
+        FakeTranscriber transcriber = new FakeTranscriber(true);
+        ProgressiveTranscriber progressive = new ProgressiveTranscriber(transcriber);
+        progressive.addSegment(new File("first"), 0, 10);
+        progressive.addSegment(new File("second"), 10, 20);
+        progressive.addSegment(new File("third"), 20, 30);
+        
+        IOException[] failure = new IOException[1];
+        Thread awaiting = new Thread(() -> {
+            try {
+                progressive.await(null);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        awaiting.start();
+        transcriber.uploading.await();
+        
+        progressive.cancel();
+        awaiting.join(10_000);
+        
+        assertFalse("await() still blocked after cancel()", awaiting.isAlive());
+        assertEquals("Transcription cancelled", failure[0].getMessage());
+        // The queued segments never went out, and the cancelled one was not retried
+        assertEquals(1, transcriber.uploads.size());
+        
+        // Segments closed after the cancel are ignored
+        progressive.addSegment(new File("fourth"), 30, 40);
+        assertEquals(3, progressive.getSegmentCount());
+    }
+}
@@ -0,0 +1,79 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.PromptBudgetPlanner;
+import ai.intelliswarm.meetingmate.transcription.TokenCounter;
+
+@RunWith(RobolectricTestRunner.class)
+public class PromptBudgetPlannerTest {
+    
+    private final TokenCounter counter = TokenCounter.getInstance();
+    
+    private static String transcript(int turns) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < turns; i++) {
+            if (text.length() > 0) text.append("\n\n");
+            text.append("🎯 **Speaker ").append(i % 2 + 1).append("** [")
+                .append(String.format("%02d:%02d", i / 60, i % 60)).append("] (normal pace)\n")
+                .append("Um, so the plan is, uh, to finish item ").append(i).append(" before the review.");
+        }
+        return text.toString();
+    }
+    
+    @Test
+    public void testTranscriptThatFitsIsSentAsItIs() {
+        String text = transcript(5);
+        PromptBudgetPlanner planner = new PromptBudgetPlanner(counter, 4096, 1000);
+        
+        PromptBudgetPlanner.Plan plan = planner.plan(text, 200);
+        
+        assertEquals(PromptBudgetPlanner.Strategy.DIRECT, plan.strategy);
+        assertSame(text, plan.text);
+        // Only 85% of what is left, as the counter only estimates
+        assertEquals((int) ((4096 - 1000 - 200) * 0.85), plan.budget);
+    }
+    
+    @Test
+    public void testTranscriptFillingTheWholeContextIsNotSentAsItIs() {
+        String text = transcript(5);
+        int tokens = counter.count(text);
+        // Fits exactly by the estimate, so an undercount would overflow the context
+        PromptBudgetPlanner planner = new PromptBudgetPlanner(counter, tokens + 1000 + 200, 1000);
+        
+        PromptBudgetPlanner.Plan plan = planner.plan(text, 200);
+        
+        assertNotEquals(PromptBudgetPlanner.Strategy.DIRECT, plan.strategy);
+        assertTrue(plan.budget < tokens);
+    }
+    
+    @Test
+    public void testSlightlyTooLongTranscriptIsCompressed() {
+        String text = transcript(40);
+        int tokens = counter.count(text);
+        // Budget a little under the transcript
+        PromptBudgetPlanner planner = new PromptBudgetPlanner(counter, tokens * 9 / 10 + 100, 100);
+        
+        PromptBudgetPlanner.Plan plan = planner.plan(text, 0);
+        
+        assertEquals(PromptBudgetPlanner.Strategy.COMPRESS, plan.strategy);
+        assertTrue(plan.tokens <= plan.budget);
+        assertTrue(plan.text.startsWith("Speaker 1: so the plan is, to finish item 0"));
+        assertFalse(plan.text.contains("🎯"));
+    }
+    
+    @Test
+    public void testFarTooLongTranscriptIsChunked() {
+        String text = transcript(400);
+        PromptBudgetPlanner planner = new PromptBudgetPlanner(counter, 4096, 1000);
+        
+        PromptBudgetPlanner.Plan plan = planner.plan(text, 200);
+        
+        assertEquals(PromptBudgetPlanner.Strategy.CHUNK, plan.strategy);
+        assertSame(text, plan.text);
+        assertTrue(plan.tokens > plan.budget);
+    }
+}
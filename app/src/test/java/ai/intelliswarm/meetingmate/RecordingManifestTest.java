@@ -0,0 +1,113 @@
+package ai.intelliswarm.meetingmate;
+
+import android.content.Context;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.data.MeetingFileManager;
+import ai.intelliswarm.meetingmate.data.RecordingManifest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecordingManifestTest {
+    
+    private MeetingFileManager fileManager;
+    
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        fileManager = new MeetingFileManager(context);
+    }
+    
+    @Test
+    public void testSegmentsArePlacedEndToEnd() throws IOException {
+        RecordingManifest manifest = fileManager.startSegmentedRecording("recording_a", new File("a.m4a"));
+        
+        RecordingManifest.Segment first = manifest.addSegment(new File(manifest.directory, "segment_000.m4a"), 300.5);
+        RecordingManifest.Segment second = manifest.addSegment(new File(manifest.directory, "segment_001.m4a"), 42);
+        
+        assertEquals(0, first.startSeconds, 1e-9);
+        assertEquals(300.5, first.endSeconds, 1e-9);
+        assertEquals(300.5, second.startSeconds, 1e-9);
+        assertEquals(342.5, manifest.getEndSeconds(), 1e-9);
+        assertEquals(new File(manifest.directory, "segment_001.m4a"), manifest.getSegmentFiles().get(1));
+        assertTrue(new File(manifest.directory, "manifest.json").exists());
+        
+        fileManager.deleteSegments(manifest);
+        assertFalse(manifest.directory.exists());
+    }
+    
+    @Test
+    public void testRecordingOfThisProcessIsNotInterrupted() throws IOException {
+        RecordingManifest manifest = fileManager.startSegmentedRecording("recording_b", new File("b.m4a"));
+        manifest.addSegment(new File(manifest.directory, "segment_000.m4a"), 10);
+        
+        assertTrue(fileManager.getInterruptedRecordings().isEmpty());
+        assertTrue(manifest.directory.exists());
+        
+        fileManager.deleteSegments(manifest);
+    }
+    
+    @Test
+    public void testInterruptedRecordingIsFoundWithItsSegments() throws IOException {
+        RecordingManifest manifest = fileManager.startSegmentedRecording("recording_c", new File("c.m4a"));
+        manifest.addSegment(new File(manifest.directory, "segment_000.m4a"), 300);
+        manifest.addSegment(new File(manifest.directory, "segment_001.m4a"), 300);
+        fakeOtherProcess(manifest);
+        
+        List<RecordingManifest> interrupted = fileManager.getInterruptedRecordings();
+        
+        assertEquals(1, interrupted.size());
+        RecordingManifest found = interrupted.get(0);
+        assertEquals("recording_c", found.recordingId);
+        assertEquals(new File("c.m4a").getAbsolutePath(), found.outputPath);
+        assertFalse(found.isComplete());
+        assertEquals(2, found.getSegments().size());
+        assertEquals(600, found.getEndSeconds(), 1e-9);
+        
+        fileManager.deleteSegments(found);
+    }
+    
+    @Test
+    public void testFinishedAndEmptyLeftoversAreDeleted() throws IOException {
+        RecordingManifest complete = fileManager.startSegmentedRecording("recording_d", new File("d.m4a"));
+        complete.addSegment(new File(complete.directory, "segment_000.m4a"), 30);
+        complete.markComplete();
+        fakeOtherProcess(complete);
+        
+        RecordingManifest empty = fileManager.startSegmentedRecording("recording_e", new File("e.m4a"));
+        fakeOtherProcess(empty);
+        
+        assertTrue(fileManager.getInterruptedRecordings().isEmpty());
+        assertFalse(complete.directory.exists());
+        assertFalse(empty.directory.exists());
+    }
+    
+    /**
+     * Rewrite the manifest as if a process that has since died had written it
+     */
+    private static void fakeOtherProcess(RecordingManifest manifest) throws IOException {
+        File file = new File(manifest.directory, "manifest.json");
+        StringBuilder json = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                json.append(line);
+            }
+        }
+        String rewritten = json.toString().replace("\"pid\":" + manifest.pid, "\"pid\":" + (manifest.pid + 1));
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(rewritten);
+        }
+    }
+}
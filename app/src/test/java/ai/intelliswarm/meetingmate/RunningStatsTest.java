@@ -0,0 +1,97 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.RunningStats;
+
+import java.util.Random;
+
+public class RunningStatsTest {
+    
+    @Test
+    public void testMatchesTwoPassMeanAndVariance() {
+        Random random = new Random(1);
+        double[][] samples = new double[1000][];
+        RunningStats stats = new RunningStats(2);
+        for (int i = 0; i < samples.length; i++) {
+            // Pitch in Hz, and a small spread far from zero
+            samples[i] = new double[] {120 + 40 * random.nextGaussian(), 1e6 + random.nextDouble()};
+            stats.add(samples[i]);
+        }
+        
+        for (int d = 0; d < 2; d++) {
+            double mean = 0;
+            for (double[] sample : samples) {
+                mean += sample[d];
+            }
+            mean /= samples.length;
+            double variance = 0;
+            for (double[] sample : samples) {
+                variance += (sample[d] - mean) * (sample[d] - mean);
+            }
+            variance /= samples.length;
+            
+            assertEquals(mean, stats.mean(d), 1e-9 * Math.abs(mean));
+            assertEquals(variance, stats.variance(d), 1e-9 * variance);
+        }
+        assertEquals(1000, stats.count());
+    }
+    
+    @Test
+    public void testVarianceNeedsTwoSamples() {
+        RunningStats stats = new RunningStats(1);
+        assertEquals(0, stats.variance(0), 0);
+        stats.add(new double[] {5});
+        assertEquals(5, stats.mean(0), 0);
+        assertEquals(0, stats.variance(0), 0);
+        stats.add(new double[] {7});
+        assertEquals(6, stats.mean(0), 1e-12);
+        assertEquals(1, stats.variance(0), 1e-12);
+    }
+    
+    @Test
+    public void testDecayWeightsRecentSamples() {
+        double decay = 0.9;
+        Random random = new Random(2);
+        double[] samples = new double[200];
+        RunningStats stats = new RunningStats(1, decay);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (i < 100 ? 100 : 200) + random.nextGaussian();
+            stats.add(new double[] {samples[i]});
+        }
+        
+        // Two passes with the weight of sample i being decay^(n - 1 - i)
+        double weight = 0;
+        double mean = 0;
+        for (int i = 0; i < samples.length; i++) {
+            double w = Math.pow(decay, samples.length - 1 - i);
+            weight += w;
+            mean += w * samples[i];
+        }
+        mean /= weight;
+        double variance = 0;
+        for (int i = 0; i < samples.length; i++) {
+            variance += Math.pow(decay, samples.length - 1 - i) * (samples[i] - mean) * (samples[i] - mean);
+        }
+        variance /= weight;
+        
+        assertEquals(mean, stats.mean(0), 1e-9);
+        assertEquals(variance, stats.variance(0), 1e-9);
+        // The step to 200 is followed, which a plain average would put at 150
+        assertEquals(200, stats.mean(0), 1);
+        assertEquals(200, stats.count());
+    }
+    
+    @Test
+    public void testDecayMustBeInRange() {
+        for (double decay : new double[] {0, -0.5, 1.5}) {
+            try {
+                new RunningStats(1, decay);
+                fail("Accepted decay " + decay);
+            } catch (IllegalArgumentException expected) {
+                // Expected
+            }
+        }
+    }
+}
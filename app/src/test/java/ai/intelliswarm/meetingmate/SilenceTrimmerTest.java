@@ -0,0 +1,203 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.audio.SilenceTrimmer;
+import ai.intelliswarm.meetingmate.audio.TimeRemap;
+import ai.intelliswarm.meetingmate.audio.VoiceActivityDetector;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class SilenceTrimmerTest {
+    
+    private static final int SAMPLE_RATE = 16000;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testCutsLongPausesAndMapsEverySampleBack() {
+        // Speech 2 s, silence 10 s, speech 2 s, pause 1.5 s, speech 2 s, silence 6 s
+        Random random = new Random(1);
+        short[] original = concat(
+            speech(2.0, 150, random), silence(10.0, random),
+            speech(2.0, 210, random), silence(1.5, random),
+            speech(2.0, 120, random), silence(6.0, random));
+        
+        Collector output = new Collector(original.length);
+        SilenceTrimmer trimmer = new SilenceTrimmer(SAMPLE_RATE, output);
+        for (int offset = 0; offset < original.length; offset += 1001) {
+            int count = Math.min(1001, original.length - offset);
+            short[] block = new short[count];
+            System.arraycopy(original, offset, block, 0, count);
+            trimmer.write(block, count);
+        }
+        trimmer.finish();
+        TimeRemap remap = trimmer.getTimeRemap();
+        
+        // The 10 s silence keeps a pad on each side, the trailing one only its first pad
+        double expectedSeconds = 23.5 - (10.0 - 2 * SilenceTrimmer.PAD_SECONDS) - (6.0 - SilenceTrimmer.PAD_SECONDS);
+        assertEquals(expectedSeconds, (double) output.count / SAMPLE_RATE, 0.05);
+        assertEquals(1, remap.cutCount());
+        assertEquals(9.0, remap.removedSeconds(), 0.05);
+        
+        // Every output sample is the original sample the remap points to
+        for (int i = 0; i < output.count; i++) {
+            int source = (int) Math.round(remap.toOriginalSeconds((double) i / SAMPLE_RATE) * SAMPLE_RATE);
+            assertEquals("Output sample " + i, original[source], output.samples[i]);
+        }
+        
+        // Speech before the cut keeps its time, speech after it moves back by the cut
+        assertEquals(1.0, remap.toOriginalSeconds(1.0), 1e-9);
+        assertEquals(13.0, remap.toOriginalSeconds(4.0), 0.05);
+        assertTrue(trimmer.speechRatio() > 0.2 && trimmer.speechRatio() < 0.3);
+    }
+    
+    @Test
+    public void testShortPausesPassThrough() {
+        Random random = new Random(2);
+        short[] original = concat(speech(1.0, 180, random), silence(2.5, random), speech(1.0, 180, random));
+        Collector output = new Collector(original.length);
+        SilenceTrimmer trimmer = new SilenceTrimmer(SAMPLE_RATE, output);
+        trimmer.write(original, original.length);
+        trimmer.finish();
+        
+        assertTrue(trimmer.getTimeRemap().isIdentity());
+        assertEquals(original.length, output.count);
+        for (int i = 0; i < original.length; i++) {
+            assertEquals(original[i], output.samples[i]);
+        }
+    }
+    
+    @Test
+    public void testSteadyNoiseIsNotSpeech() {
+        VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE);
+        Random random = new Random(3);
+        short[] noise = new short[SAMPLE_RATE * 15];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = (short) (random.nextGaussian() * 600);
+        }
+        
+        // The first seconds are kept as speech while the detector learns the room
+        int speechFrames = 0;
+        int frames = 0;
+        for (int offset = 0; offset + detector.frameSize() <= noise.length; offset += detector.frameSize()) {
+            boolean speech = detector.isSpeech(noise, offset);
+            if (offset < SAMPLE_RATE * 6) continue;
+            if (speech) speechFrames++;
+            frames++;
+        }
+        assertTrue(speechFrames + " of " + frames, speechFrames < frames / 20);
+        
+        short[] voice = speech(1.0, 160, random);
+        for (int i = 0; i < voice.length; i++) {
+            voice[i] += (short) (random.nextGaussian() * 600);
+        }
+        speechFrames = 0;
+        for (int offset = 0; offset + detector.frameSize() <= voice.length; offset += detector.frameSize()) {
+            if (detector.isSpeech(voice, offset)) speechFrames++;
+        }
+        assertTrue(speechFrames + " of 50", speechFrames > 45);
+    }
+    
+    @Test
+    public void testRemapRoundTripsAndAppliesToTranscripts() throws IOException {
+        Random random = new Random(4);
+        short[] original = concat(speech(2.0, 150, random), silence(20.0, random), speech(2.0, 150, random));
+        Collector output = new Collector(original.length);
+        SilenceTrimmer trimmer = new SilenceTrimmer(SAMPLE_RATE, output);
+        trimmer.write(original, original.length);
+        trimmer.finish();
+        
+        File file = new File(folder.getRoot(), "meeting_speech.remap");
+        trimmer.getTimeRemap().writeTo(file);
+        TimeRemap remap = TimeRemap.read(file);
+        assertEquals(1, remap.cutCount());
+        
+        // The second utterance starts 3 s into the trimmed audio: 2 s speech + two 0.5 s pads
+        WhisperTranscript trimmed = new WhisperTranscript.Builder()
+            .setText("Hello. Welcome back.")
+            .addSegment(0.1f, 1.9f, "Hello.", -0.2f, 0.01f)
+            .addSegment(3.0f, 4.9f, "Welcome back.", -0.2f, 0.01f)
+            .addWord("Hello.", 0.1f, 1.9f, 0.9f)
+            .addWord("Welcome", 3.0f, 3.6f, 0.9f)
+            .addWord("back.", 3.6f, 4.9f, 0.9f)
+            .build();
+        WhisperTranscript mapped = trimmed.remapTimes(remap);
+        
+        assertEquals(0.1f, mapped.segmentStart[0], 1e-4f);
+        assertEquals(22.0f, mapped.segmentStart[1], 0.03f);
+        assertEquals(23.9f, mapped.wordEnd[2], 0.03f);
+        assertEquals(1, mapped.firstWordOfSegment(1));
+        assertSame(trimmed, trimmed.remapTimes(TimeRemap.identity()));
+        
+        // An end exactly on the cut stays before it
+        double cut = 2.5;
+        assertEquals(cut, remap.toOriginalEndSeconds(cut), 1e-6);
+        assertEquals(21.5, remap.toOriginalSeconds(cut), 0.03);
+    }
+    
+    private static class Collector implements ai.intelliswarm.meetingmate.audio.Resampler.Sink {
+        final short[] samples;
+        int count;
+        
+        Collector(int capacity) {
+            samples = new short[capacity];
+        }
+        
+        @Override
+        public void write(short[] block, int n) {
+            System.arraycopy(block, 0, samples, count, n);
+            count += n;
+        }
+    }
+    
+    /**
+     * Harmonic voice with a 4 Hz syllable rhythm
+     */
+    private static short[] speech(double seconds, double f0, Random random) {
+        short[] samples = new short[(int) (seconds * SAMPLE_RATE)];
+        for (int i = 0; i < samples.length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double envelope = 0.65 + 0.35 * Math.sin(2 * Math.PI * 4 * t);
+            double value = 0;
+            for (int h = 1; h <= 5; h++) {
+                value += Math.sin(2 * Math.PI * h * f0 * t) / h;
+            }
+            samples[i] = (short) (value * envelope * 6000 + random.nextGaussian() * 20);
+        }
+        return samples;
+    }
+    
+    /**
+     * Room tone
+     */
+    private static short[] silence(double seconds, Random random) {
+        short[] samples = new short[(int) (seconds * SAMPLE_RATE)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (random.nextGaussian() * 20);
+        }
+        return samples;
+    }
+    
+    private static short[] concat(short[]... parts) {
+        int length = 0;
+        for (short[] part : parts) length += part.length;
+        short[] all = new short[length];
+        int at = 0;
+        for (short[] part : parts) {
+            System.arraycopy(part, 0, all, at, part.length);
+            at += part.length;
+        }
+        return all;
+    }
+}
\ No newline at end of file
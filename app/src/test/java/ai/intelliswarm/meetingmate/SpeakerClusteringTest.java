@@ -0,0 +1,122 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.SpeakerClustering;
+
+import java.util.Arrays;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class SpeakerClusteringTest {
+    
+    private static final int DIMENSIONS = 17;
+    private static final float MIN_RELATIVE_GAP = 0.2f;
+    
+    @Test
+    public void testSeparatesInterleavedSpeakers() {
+        int[] truth = turns(300, 3, new Random(1));
+        float[] points = speakerPoints(truth, 3, 2.0f, new Random(2));
+        
+        int[] labels = SpeakerClustering.cluster(points, DIMENSIONS, 8, MIN_RELATIVE_GAP);
+        
+        // Labels are numbered by first appearance, and so is the ground truth
+        assertArrayEquals(truth, labels);
+    }
+    
+    @Test
+    public void testSingleSpeakerStaysOneCluster() {
+        int[] truth = new int[250];
+        float[] points = speakerPoints(truth, 1, 0f, new Random(3));
+        
+        int[] labels = SpeakerClustering.cluster(points, DIMENSIONS, 8, MIN_RELATIVE_GAP);
+        
+        for (int label : labels) {
+            assertEquals(0, label);
+        }
+    }
+    
+    @Test
+    public void testDeterministicAndBoundedBySpeakerCap() {
+        int[] truth = turns(400, 6, new Random(4));
+        float[] points = speakerPoints(truth, 6, 2.5f, new Random(5));
+        
+        int[] first = SpeakerClustering.cluster(points, DIMENSIONS, 4, MIN_RELATIVE_GAP);
+        int[] second = SpeakerClustering.cluster(points.clone(), DIMENSIONS, 4, MIN_RELATIVE_GAP);
+        
+        assertArrayEquals(first, second);
+        int max = 0;
+        for (int label : first) {
+            max = Math.max(max, label);
+        }
+        assertTrue(max < 4);
+    }
+    
+    @Test
+    public void testClustersTwoThousandSegments() {
+        int[] truth = turns(2000, 5, new Random(6));
+        float[] points = speakerPoints(truth, 5, 2.0f, new Random(7));
+        
+        assertArrayEquals(truth, SpeakerClustering.cluster(points, DIMENSIONS, 8, MIN_RELATIVE_GAP));
+    }
+    
+    /**
+     * Time to cluster 2000 segments. Timing depends on the machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkTwoThousandSegments() {
+        int[] truth = turns(2000, 5, new Random(6));
+        float[] points = speakerPoints(truth, 5, 2.0f, new Random(7));
+        
+        long started = System.nanoTime();
+        SpeakerClustering.cluster(points, DIMENSIONS, 8, MIN_RELATIVE_GAP);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        
+        assertTrue("Took " + elapsedMs + " ms", elapsedMs < 10_000);
+    }
+    
+    /**
+     * Speaker per segment in conversational turns of 1-8 segments, labelled by first appearance
+     */
+    private static int[] turns(int count, int speakers, Random random) {
+        int[] truth = new int[count];
+        int[] labelOf = new int[speakers];
+        Arrays.fill(labelOf, -1);
+        int next = 0;
+        int i = 0;
+        int speaker = 0;
+        while (i < count) {
+            if (labelOf[speaker] < 0) labelOf[speaker] = next++;
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length && i < count; j++) {
+                truth[i++] = labelOf[speaker];
+            }
+            speaker = speakers > 1 ? (speaker + 1 + random.nextInt(speakers - 1)) % speakers : 0;
+        }
+        return truth;
+    }
+    
+    /**
+     * Unit-variance noise around a per-speaker mean at the given spread from the origin
+     */
+    private static float[] speakerPoints(int[] labels, int speakers, float separation, Random random) {
+        float[][] means = new float[speakers][DIMENSIONS];
+        for (int s = 0; s < speakers; s++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                means[s][d] = (float) (random.nextGaussian() * separation);
+            }
+        }
+        float[] points = new float[labels.length * DIMENSIONS];
+        for (int i = 0; i < labels.length; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                points[i * DIMENSIONS + d] = means[labels[i]][d] + (float) random.nextGaussian();
+            }
+        }
+        return points;
+    }
+}
\ No newline at end of file
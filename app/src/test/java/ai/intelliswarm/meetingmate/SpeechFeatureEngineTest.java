@@ -0,0 +1,155 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.audio.Fft;
+import ai.intelliswarm.meetingmate.audio.SpeechFeatureEngine;
+
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class SpeechFeatureEngineTest {
+    
+    private static final int SAMPLE_RATE = 16000;
+    
+    @Test
+    public void testFftPeaksAtToneBin() {
+        Fft fft = new Fft(512);
+        float[] re = new float[512];
+        float[] im = new float[512];
+        float[] power = new float[257];
+        for (int i = 0; i < 512; i++) {
+            re[i] = (float) Math.sin(2 * Math.PI * 1000 * i / SAMPLE_RATE); // Exactly bin 32
+        }
+        
+        fft.transform(re, im);
+        fft.powerSpectrum(re, im, power);
+        
+        int peak = 0;
+        for (int k = 1; k < power.length; k++) {
+            if (power[k] > power[peak]) peak = k;
+        }
+        assertEquals(32, peak);
+        
+        fft.inverse(re, im);
+        assertEquals(Math.sin(2 * Math.PI * 1000 * 7 / SAMPLE_RATE), re[7], 1e-4);
+    }
+    
+    @Test
+    public void testRealPowerSpectrumMatchesComplexTransform() {
+        Fft fft = new Fft(512);
+        Random random = new Random(7);
+        float[] input = new float[512];
+        float[] re = new float[512];
+        float[] im = new float[512];
+        for (int i = 0; i < 512; i++) {
+            input[i] = (float) random.nextGaussian();
+            re[i] = input[i];
+        }
+        float[] expected = new float[257];
+        float[] actual = new float[257];
+        
+        fft.transform(re, im);
+        fft.powerSpectrum(re, im, expected);
+        fft.realPowerSpectrum(input, actual);
+        
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals("bin " + k, expected[k], actual[k], 1e-3 * Math.max(1, expected[k]));
+        }
+    }
+    
+    @Test
+    public void testFeaturesFollowTheSpectrum() {
+        SpeechFeatureEngine engine = new SpeechFeatureEngine(SAMPLE_RATE, 13);
+        SpeechFeatureEngine.Result low = new SpeechFeatureEngine.Result(13);
+        SpeechFeatureEngine.Result high = new SpeechFeatureEngine.Result(13);
+        SpeechFeatureEngine.Result again = new SpeechFeatureEngine.Result(13);
+        
+        short[] lowVoice = vowel(SAMPLE_RATE / 2, 110, new double[] {500, 1500, 2500}, 1);
+        short[] highVoice = vowel(SAMPLE_RATE / 2, 220, new double[] {900, 2200, 3400}, 2);
+        
+        int frames = engine.analyze(lowVoice, 0, lowVoice.length, low);
+        engine.analyze(highVoice, 0, highVoice.length, high);
+        engine.analyze(lowVoice, 0, lowVoice.length, again);
+        
+        assertEquals(1 + (lowVoice.length - SpeechFeatureEngine.FRAME_SIZE) / SpeechFeatureEngine.HOP_SIZE, frames);
+        assertArrayEquals(low.mfcc, again.mfcc, 1e-9);
+        assertTrue(high.spectralCentroid > low.spectralCentroid);
+        assertTrue(low.voicedFrameCount > 0);
+        assertEquals(500, low.formants[0], 150);
+        assertTrue(high.formants[0] > low.formants[0]);
+        
+        double distance = 0;
+        for (int i = 1; i < 13; i++) {
+            distance += Math.pow(low.mfcc[i] - high.mfcc[i], 2);
+        }
+        assertTrue(distance > 1);
+    }
+    
+    @Test
+    public void testAnalyzesEveryFrameOfAMinute() {
+        SpeechFeatureEngine engine = new SpeechFeatureEngine(SAMPLE_RATE, 13);
+        SpeechFeatureEngine.Result result = new SpeechFeatureEngine.Result(13);
+        short[] minute = vowel(SAMPLE_RATE * 60, 140, new double[] {700, 1200, 2600}, 3);
+        
+        int frames = engine.analyze(minute, 0, minute.length, result);
+        
+        assertEquals((minute.length - SpeechFeatureEngine.FRAME_SIZE) / SpeechFeatureEngine.HOP_SIZE + 1, frames);
+        assertTrue(result.voicedFrameCount > frames / 2);
+    }
+    
+    /**
+     * Frames per second over a minute of audio. Timing depends on the machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkThroughputFramesPerSecond() {
+        SpeechFeatureEngine engine = new SpeechFeatureEngine(SAMPLE_RATE, 13);
+        SpeechFeatureEngine.Result result = new SpeechFeatureEngine.Result(13);
+        short[] minute = vowel(SAMPLE_RATE * 60, 140, new double[] {700, 1200, 2600}, 3);
+        
+        for (int i = 0; i < 3; i++) {
+            engine.analyze(minute, 0, SAMPLE_RATE * 20, result); // Let the JIT compile the frame loop
+        }
+        
+        long started = System.nanoTime();
+        int frames = engine.analyze(minute, 0, minute.length, result);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double framesPerSecond = frames / seconds;
+        double realTimeFactor = framesPerSecond / (SAMPLE_RATE / (double) SpeechFeatureEngine.HOP_SIZE);
+        
+        // A minute of audio should take well under a second
+        assertTrue(String.format("%d frames in %.1f ms, only %.0fx real time", frames, seconds * 1000, realTimeFactor),
+            realTimeFactor > 50);
+    }
+    
+    /**
+     * Harmonics of f0 shaped by formant resonances, plus a little noise
+     */
+    private static short[] vowel(int length, double f0, double[] formants, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[length];
+        int harmonics = (int) (4000 / f0);
+        double[] amplitudes = new double[harmonics + 1];
+        for (int h = 1; h <= harmonics; h++) {
+            double f = h * f0;
+            for (double formant : formants) {
+                double bandwidth = 80 + formant * 0.05;
+                amplitudes[h] += 1 / (1 + Math.pow((f - formant) / bandwidth, 2));
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double value = 0;
+            for (int h = 1; h <= harmonics; h++) {
+                value += amplitudes[h] * Math.sin(2 * Math.PI * h * f0 * t);
+            }
+            samples[i] = (short) Math.max(-32768, Math.min(32767, value * 3000 + random.nextGaussian() * 50));
+        }
+        return samples;
+    }
+}
\ No newline at end of file
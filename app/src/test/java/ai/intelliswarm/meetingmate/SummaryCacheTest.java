@@ -0,0 +1,107 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.SummaryCache;
+import ai.intelliswarm.meetingmate.transcription.SummaryGenerator;
+
+import java.io.File;
+
+@RunWith(RobolectricTestRunner.class)
+public class SummaryCacheTest {
+    
+    private File directory;
+    
+    @Before
+    public void setUp() {
+        directory = new File(RuntimeEnvironment.getApplication().getCacheDir(), "summary_cache_test");
+        new SummaryCache(directory, 1024 * 1024, "setup").clear();
+    }
+    
+    private static SummaryGenerator.MeetingSummary summary(String text) {
+        SummaryGenerator.MeetingSummary summary = new SummaryGenerator.MeetingSummary();
+        summary.summary = text;
+        summary.keyPoints = "• Beta ships in July";
+        summary.actionItems = "• Dana: update the pricing page - Friday";
+        summary.decisions = null;
+        summary.nextSteps = "• Review pricing next week";
+        return summary;
+    }
+    
+    @Test
+    public void testStoredSummaryComesBack() {
+        SummaryCache cache = new SummaryCache(directory, 1024 * 1024, "v1");
+        String key = cache.keyFor("**Speaker 1** [00:01]\nLet's ship it.", "Planning", "gpt-3.5-turbo");
+        assertNull(cache.get(key));
+        
+        cache.put(key, summary("The team agreed to ship the beta."));
+        SummaryGenerator.MeetingSummary cached = cache.get(key);
+        
+        assertEquals("The team agreed to ship the beta.", cached.summary);
+        assertEquals("• Beta ships in July", cached.keyPoints);
+        assertEquals("• Dana: update the pricing page - Friday", cached.actionItems);
+        assertNull(cached.decisions);
+        assertEquals("• Review pricing next week", cached.nextSteps);
+        
+        // Survives reopening with the same template
+        assertNotNull(new SummaryCache(directory, 1024 * 1024, "v1").get(key));
+    }
+    
+    @Test
+    public void testKeyCoversTranscriptTitleAndModel() {
+        SummaryCache cache = new SummaryCache(directory, 1024 * 1024, "v1");
+        String key = cache.keyFor("transcript", "Planning", "gpt-3.5-turbo");
+        
+        assertEquals(key, cache.keyFor("transcript", " Planning ", "gpt-3.5-turbo"));
+        assertNotEquals(key, cache.keyFor("transcript.", "Planning", "gpt-3.5-turbo"));
+        assertNotEquals(key, cache.keyFor("transcript", "Retro", "gpt-3.5-turbo"));
+        assertNotEquals(key, cache.keyFor("transcript", "Planning", "gpt-4o-mini"));
+        assertNotEquals(key, new SummaryCache(directory, 1024 * 1024, "v2").keyFor("transcript", "Planning", "gpt-3.5-turbo"));
+    }
+    
+    @Test
+    public void testNewTemplateDropsOldSummaries() {
+        SummaryCache cache = new SummaryCache(directory, 1024 * 1024, "v1");
+        String key = cache.keyFor("transcript", "Planning", "gpt-3.5-turbo");
+        cache.put(key, summary("Old prompt"));
+        
+        assertEquals(1, directory.listFiles((dir, name) -> name.endsWith(".entry")).length);
+        
+        new SummaryCache(directory, 1024 * 1024, "v2");
+        
+        // Gone from disk, not just unreachable
+        assertEquals(0, directory.listFiles((dir, name) -> name.endsWith(".entry")).length);
+    }
+    
+    @Test
+    public void testEmptySummaryIsNotStored() {
+        SummaryCache cache = new SummaryCache(directory, 1024 * 1024, "v1");
+        String key = cache.keyFor("transcript", "Planning", "gpt-3.5-turbo");
+        
+        cache.put(key, new SummaryGenerator.MeetingSummary());
+        assertNull(cache.get(key));
+    }
+    
+    @Test
+    public void testLeastRecentlyUsedSummaryIsEvicted() {
+        // Room for about two entries
+        SummaryCache cache = new SummaryCache(directory, 500, "v1");
+        String first = cache.keyFor("first", "Planning", "gpt-3.5-turbo");
+        String second = cache.keyFor("second", "Planning", "gpt-3.5-turbo");
+        String third = cache.keyFor("third", "Planning", "gpt-3.5-turbo");
+        
+        cache.put(first, summary("First meeting"));
+        cache.put(second, summary("Second meeting"));
+        assertNotNull(cache.get(first)); // Now the second is the least recently used
+        cache.put(third, summary("Third meeting"));
+        
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(first));
+        assertNotNull(cache.get(third));
+    }
+}
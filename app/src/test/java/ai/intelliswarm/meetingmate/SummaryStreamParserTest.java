@@ -0,0 +1,100 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.SummaryGenerator;
+import ai.intelliswarm.meetingmate.transcription.SummaryStreamParser;
+
+public class SummaryStreamParserTest {
+    
+    private static final String REPLY = "SUMMARY:\nThe team planned the Q3 release.\n\n"
+        + "KEY POINTS:\n• Beta ships in July\n• Pricing stays the same\n\n"
+        + "ACTION ITEMS:\n• Alice: write release notes - Friday\n\n"
+        + "DECISIONS MADE:\n• Drop the legacy importer\n\n"
+        + "NEXT STEPS:\n• Review on Monday\n";
+    
+    @Test
+    public void testSectionsFillAsTheirHeadersArrive() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        
+        parser.append("SUMMARY:\nThe team planned");
+        SummaryGenerator.MeetingSummary partial = parser.snapshot();
+        assertEquals("The team planned", partial.summary);
+        assertNull(partial.keyPoints);
+        assertNull(partial.nextSteps);
+        
+        parser.append(" the Q3 release.\n\nKEY POINTS:\n• Beta ships");
+        partial = parser.snapshot();
+        assertEquals("The team planned the Q3 release.", partial.summary);
+        assertEquals("• Beta ships", partial.keyPoints);
+        assertNull(partial.actionItems);
+        assertEquals(2, parser.getSectionsStarted());
+    }
+    
+    @Test
+    public void testHeaderSplitAcrossDeltasIsNotShownAsContent() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        parser.append("SUMMARY:\nShort meeting.\nKEY PO");
+        
+        SummaryGenerator.MeetingSummary partial = parser.snapshot();
+        assertEquals("Short meeting.", partial.summary);
+        assertNull(partial.keyPoints);
+        
+        parser.append("INTS:\n• One\n");
+        assertEquals("• One", parser.snapshot().keyPoints);
+    }
+    
+    @Test
+    public void testTokenByTokenStreamMatchesTheWholeReply() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        for (int i = 0; i < REPLY.length(); i += 3) {
+            parser.append(REPLY.substring(i, Math.min(REPLY.length(), i + 3)));
+            parser.snapshot();
+        }
+        
+        SummaryGenerator.MeetingSummary summary = parser.finish();
+        assertEquals("The team planned the Q3 release.", summary.summary);
+        assertEquals("• Beta ships in July\n• Pricing stays the same", summary.keyPoints);
+        assertEquals("• Alice: write release notes - Friday", summary.actionItems);
+        assertEquals("• Drop the legacy importer", summary.decisions);
+        assertEquals("• Review on Monday", summary.nextSteps);
+        assertEquals(5, parser.getSectionsStarted());
+    }
+    
+    @Test
+    public void testMarkdownHeadersAndPlaceholdersAreCleaned() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        parser.append("Here is the summary.\n## SUMMARY:\nBudget review.\n**ACTION ITEMS:**\n• [Add more action items as needed]\n• Bob: send figures");
+        
+        SummaryGenerator.MeetingSummary summary = parser.finish();
+        assertEquals("Budget review.", summary.summary);
+        assertEquals("• Bob: send figures", summary.actionItems);
+        assertNull(summary.keyPoints);
+    }
+    
+    @Test
+    public void testReplyWithoutHeadersFallsBackToPlainSummary() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        parser.append("Nothing of note was discussed.");
+        
+        assertEquals("Nothing of note was discussed.", parser.finish().summary);
+    }
+    
+    @Test
+    public void testTextRoundTripsThroughTheParser() {
+        SummaryStreamParser parser = new SummaryStreamParser();
+        parser.append("SUMMARY:\nBudget review.\nACTION ITEMS:\n• Bob: send figures\n");
+        SummaryGenerator.MeetingSummary partial = parser.snapshot();
+        
+        // Sections not written yet are left out rather than shown empty
+        assertEquals("SUMMARY:\nBudget review.\n\nACTION ITEMS:\n• Bob: send figures", partial.toText());
+        
+        SummaryStreamParser again = new SummaryStreamParser();
+        again.append(partial.toText());
+        SummaryGenerator.MeetingSummary parsed = again.finish();
+        assertEquals("Budget review.", parsed.summary);
+        assertEquals("• Bob: send figures", parsed.actionItems);
+        assertNull(parsed.keyPoints);
+    }
+}
@@ -0,0 +1,76 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.network.TokenBucket;
+
+public class TokenBucketTest {
+    
+    @Test
+    public void testBurstThenQueuesAtTheRate() {
+        // 60 a minute, ten seconds of burst: 10 go at once, then one per second
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.reserve(1, 0));
+        }
+        assertEquals(1000, bucket.reserve(1, 0));
+        assertEquals(2000, bucket.reserve(1, 0));
+        
+        // A burst of 100 more drains at exactly the rate, in order
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            long wait = bucket.reserve(1, 0);
+            assertTrue(wait > last);
+            last = wait;
+        }
+        assertEquals(102_000, last);
+    }
+    
+    @Test
+    public void testRefillsOverTime() {
+        TokenBucket bucket = new TokenBucket(60, 10, 0);
+        assertEquals(0, bucket.reserve(10, 0));
+        
+        // Five seconds later five are back, the sixth is a second away
+        assertEquals(0, bucket.reserve(5, 5_000));
+        assertEquals(1000, bucket.reserve(1, 5_000));
+        
+        // Never more than a full bucket, however long it sat idle
+        TokenBucket idle = new TokenBucket(60, 10, 0);
+        assertEquals(0, idle.reserve(10, 3_600_000));
+        assertEquals(1000, idle.reserve(1, 3_600_000));
+    }
+    
+    @Test
+    public void testOversizedReservationTakesAFullBucket() {
+        TokenBucket tokens = new TokenBucket(60_000, 10, 0);
+        assertEquals(10_000, tokens.getCapacity(), 0.001);
+        
+        // Larger than the bucket could ever hold: goes when it is full rather than never
+        assertEquals(0, tokens.reserve(50_000, 0));
+        assertEquals(10_000, tokens.reserve(50_000, 0));
+    }
+    
+    @Test
+    public void testRefundShortensTheQueue() {
+        TokenBucket tokens = new TokenBucket(60_000, 10, 0);
+        assertEquals(0, tokens.reserve(10_000, 0));
+        assertEquals(4_000, tokens.reserve(4_000, 0));
+        
+        // The first call used 3000 of its 10000
+        tokens.refund(7_000);
+        assertEquals(0, tokens.reserve(3_000, 0));
+    }
+    
+    @Test
+    public void testAdoptsLowerLimit() {
+        TokenBucket bucket = new TokenBucket(600, 10, 0);
+        bucket.setPerMinute(60);
+        
+        assertEquals(10, bucket.getCapacity(), 0.001);
+        assertEquals(0, bucket.reserve(10, 0));
+        assertEquals(1000, bucket.reserve(1, 0));
+    }
+}
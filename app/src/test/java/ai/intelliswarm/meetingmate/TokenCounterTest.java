@@ -0,0 +1,110 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.TokenCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TokenCounterTest {
+    
+    @Test
+    public void testPiecesFollowTheCl100kPattern() {
+        // Digits go in groups of three
+        assertEquals(Arrays.asList("123", "45"), TokenCounter.pieces("12345"));
+        assertEquals(Arrays.asList("hello", " world", "'s"), TokenCounter.pieces("hello world's"));
+        assertEquals(0, TokenCounter.getInstance().count(""));
+    }
+    
+    @Test
+    public void testPiecesMatchTheCl100kRegex() {
+        Pattern cl100k = Pattern.compile("(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+            + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+        String[] alphabet = {"a", "Z", "é", "ß", "ω", "中", "😀", "1", "٣", "½", " ", " ", "  ", "\n", "\r\n", "\t",
+            "'", "'s", "'LL", "'re", ".", ",", "**", "[", "-", "🎯", "you", " the", "\u00a0"};
+        Random random = new Random(7);
+        
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            int parts = 1 + random.nextInt(25);
+            for (int i = 0; i < parts; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            
+            List<String> expected = new ArrayList<>();
+            Matcher matcher = cl100k.matcher(text);
+            while (matcher.find()) {
+                expected.add(matcher.group());
+            }
+            assertEquals("Pieces of \"" + text + "\"", expected, TokenCounter.pieces(text));
+        }
+    }
+    
+    @Test
+    public void testEstimatesEnglishCloseToCl100k() {
+        String english = "The team agreed to ship the beta in July and review pricing next week.";
+        int tokens = new TokenCounter().count(english);
+        // cl100k gives 15 tokens for this sentence
+        assertTrue("Estimate " + tokens, tokens >= 14 && tokens <= 20);
+        // Remembered pieces count the same the second time
+        assertEquals(tokens, TokenCounter.getInstance().count(english));
+        assertEquals(tokens, TokenCounter.getInstance().count(english));
+    }
+    
+    @Test
+    public void testEstimatesOtherTextWithinThePlannerMargin() {
+        // cl100k counts from OpenAI's tiktoken examples
+        String[] texts = {"お誕生日おめでとう", "2 + 2 = 4", "Hello, world!", "tiktoken is great!"};
+        int[] cl100k = {9, 7, 4, 6};
+        TokenCounter counter = new TokenCounter();
+        
+        int estimated = 0;
+        int actual = 0;
+        for (int i = 0; i < texts.length; i++) {
+            int tokens = counter.count(texts[i]);
+            assertTrue("Estimate " + tokens + " for \"" + texts[i] + "\", cl100k " + cl100k[i],
+                tokens >= cl100k[i] * 0.75 && tokens <= cl100k[i] * 1.25);
+            estimated += tokens;
+            actual += cl100k[i];
+        }
+        // PromptBudgetPlanner plans with 85% of the context, which has to absorb the undercount
+        assertTrue(estimated / 0.85 >= actual);
+    }
+    
+    /**
+     * Counting must not hold up planning a summary: under 50 ms for a 20,000 word transcript
+     * whose words the counter has not seen. Timing depends on the machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkTwentyThousandWords() {
+        Random random = new Random(11);
+        StringBuilder transcript = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 40 == 0) {
+                transcript.append("\n\n**Speaker ").append(i % 3 + 1).append("** [").append(i / 150).append(":00]\n");
+            }
+            // A few thousand distinct words, as in a long meeting
+            transcript.append("w").append(Integer.toString(random.nextInt(4000), 36)).append(i % 9 == 0 ? ", " : " ");
+        }
+        String text = transcript.toString();
+        
+        // Warm up the JIT on other text, then time a counter with nothing remembered
+        for (int i = 0; i < 5; i++) {
+            new TokenCounter().count(text.replace('w', 'v'));
+        }
+        TokenCounter counter = new TokenCounter();
+        long started = System.nanoTime();
+        counter.count(text);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        
+        assertTrue("Counted 20k words in " + elapsedMs + "ms", elapsedMs < 50);
+    }
+}
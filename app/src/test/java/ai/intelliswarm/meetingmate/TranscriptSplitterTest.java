@@ -0,0 +1,96 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.TranscriptSplitter;
+
+import java.util.List;
+
+public class TranscriptSplitterTest {
+    
+    private static String turn(String speaker, int minute, String text) {
+        return "🗣️ **" + speaker + "** [" + String.format("%02d:00", minute) + "] (normal pace)\n" + text;
+    }
+    
+    private static String sentences(String word, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (text.length() > 0) text.append(' ');
+            text.append("The ").append(word).append(" item number ").append(i).append(" was discussed.");
+        }
+        return text.toString();
+    }
+    
+    @Test
+    public void testShortTranscriptIsOneChunk() {
+        String transcript = turn("Speaker 1", 0, "Hello everyone.") + "\n\n" + turn("Speaker 2", 1, "Hi.");
+        
+        List<String> chunks = TranscriptSplitter.split(transcript, 1000);
+        
+        assertEquals(1, chunks.size());
+        assertEquals(transcript, chunks.get(0));
+    }
+    
+    @Test
+    public void testChunksBreakBetweenTurnsAndFitTheBudget() {
+        StringBuilder transcript = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            if (transcript.length() > 0) transcript.append("\n\n");
+            transcript.append(turn("Speaker " + (i % 3 + 1), i, sentences("budget", 4)));
+        }
+        
+        List<String> chunks = TranscriptSplitter.split(transcript.toString(), 200);
+        
+        assertTrue(chunks.size() > 1);
+        int turns = 0;
+        for (String chunk : chunks) {
+            assertTrue(TranscriptSplitter.estimateTokens(chunk) <= 200);
+            assertTrue("Chunk starts mid-turn: " + chunk, chunk.startsWith("🗣️ **Speaker"));
+            turns += chunk.split("\\*\\* \\[").length - 1;
+        }
+        assertEquals(12, turns);
+    }
+    
+    @Test
+    public void testLongTurnIsCutBetweenSentencesAndKeepsItsSpeaker() {
+        String transcript = turn("Alice", 3, sentences("roadmap", 60));
+        
+        List<String> chunks = TranscriptSplitter.split(transcript, 150);
+        
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(TranscriptSplitter.estimateTokens(chunk) <= 150);
+            assertTrue(chunk.startsWith("🗣️ **Alice** [03:00] (normal pace)\n"));
+            assertTrue("Cut mid-sentence: " + chunk, chunk.endsWith("was discussed."));
+        }
+    }
+    
+    @Test
+    public void testTranscriptWithoutSpeakersSplitsOnParagraphs() {
+        String transcript = sentences("first", 20) + "\n\n" + sentences("second", 20) + "\n\n" + sentences("third", 20);
+        
+        List<String> chunks = TranscriptSplitter.split(transcript, 250);
+        
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.get(1).startsWith("The second item number 0"));
+    }
+    
+    @Test
+    public void testSentenceLongerThanTheBudgetIsCutAtSpaces() {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            sentence.append("word").append(i).append(' ');
+        }
+        
+        List<String> chunks = TranscriptSplitter.split(sentence.toString().trim(), 100);
+        
+        StringBuilder rejoined = new StringBuilder();
+        for (String chunk : chunks) {
+            assertTrue(TranscriptSplitter.estimateTokens(chunk) <= 100);
+            if (rejoined.length() > 0) rejoined.append(' ');
+            rejoined.append(chunk);
+        }
+        assertEquals(sentence.toString().trim(), rejoined.toString());
+    }
+}
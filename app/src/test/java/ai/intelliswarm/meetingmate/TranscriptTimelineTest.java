@@ -0,0 +1,150 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+import ai.intelliswarm.meetingmate.export.TranscriptExporter;
+import ai.intelliswarm.meetingmate.transcription.Diarization;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+@RunWith(RobolectricTestRunner.class)
+public class TranscriptTimelineTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testRepeatedStringsAreStoredOnce() {
+        TranscriptTimeline.Builder builder = new TranscriptTimeline.Builder();
+        int alice = builder.addSpeaker("Alice");
+        builder.addSegment(0f, 1f, alice, "yes yes");
+        builder.addWord(0f, 0.5f, "yes").addWord(0.5f, 1f, "yes");
+        builder.addSegment(1f, 2f, 0, "Alice");
+        builder.addWord(1f, 2f, "Alice");
+        TranscriptTimeline timeline = builder.build();
+        
+        assertEquals(1, alice);
+        assertEquals(3, timeline.stringCount()); // "Alice", "yes yes", "yes"
+        assertEquals(timeline.wordText[0], timeline.wordText[1]);
+        assertEquals("yes", timeline.wordText(1));
+        assertEquals("Alice", timeline.speakerName(timeline.segmentSpeaker[0]));
+        assertNull(timeline.speakerName(timeline.segmentSpeaker[1]));
+        assertEquals(2, timeline.endWordOfSegment(0));
+        assertEquals(2, timeline.firstWordOfSegment(1));
+    }
+    
+    @Test
+    public void testRoundTripsThroughFile() throws IOException {
+        TranscriptTimeline original = largeTimeline(2000, 12);
+        File file = new File(folder.getRoot(), "meeting_timeline.bin");
+        original.writeTo(file);
+        
+        TranscriptTimeline loaded = TranscriptTimeline.read(file);
+        
+        assertEquals(original.segmentCount, loaded.segmentCount);
+        assertEquals(original.wordCount, loaded.wordCount);
+        assertEquals(original.speakerCount, loaded.speakerCount);
+        assertArrayEquals(original.segmentStart, loaded.segmentStart, 0f);
+        assertArrayEquals(original.segmentEnd, loaded.segmentEnd, 0f);
+        assertArrayEquals(original.segmentSpeaker, loaded.segmentSpeaker);
+        assertArrayEquals(original.wordStart, loaded.wordStart, 0f);
+        assertArrayEquals(original.wordText, loaded.wordText);
+        for (int i = 0; i < loaded.segmentCount; i++) {
+            assertEquals(original.segmentText(i), loaded.segmentText(i));
+            assertEquals(original.endWordOfSegment(i), loaded.endWordOfSegment(i));
+        }
+        assertEquals("Sprecherin Müller 3", loaded.speakerName(3));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+    
+    @Test
+    public void testRejectsForeignAndTruncatedFiles() throws IOException {
+        File foreign = folder.newFile("transcript.txt");
+        try (FileOutputStream out = new FileOutputStream(foreign)) {
+            out.write("Meeting: Weekly sync\n\nHello everyone, let's get started.".getBytes("UTF-8"));
+        }
+        assertReadFails(foreign);
+        
+        File truncated = new File(folder.getRoot(), "truncated.bin");
+        largeTimeline(50, 2).writeTo(truncated);
+        try (RandomAccessFile file = new RandomAccessFile(truncated, "rw")) {
+            file.setLength(file.length() - 4);
+        }
+        assertReadFails(truncated);
+    }
+    
+    @Test
+    public void testDiarizationAndExportViews() {
+        WhisperTranscript transcript = new WhisperTranscript.Builder()
+            .addSegment(0f, 2.0f, "Good morning everyone.", -0.2f, 0.01f)
+            .addSegment(2.5f, 4.5f, "Shall we start?", -0.3f, 0.01f)
+            .addWord("Good", 0f, 0.5f, 0.9f)
+            .addWord("morning", 0.5f, 1.2f, 0.9f)
+            .addWord("everyone.", 1.2f, 2.0f, 0.9f)
+            .addWord("Shall", 2.5f, 3.0f, 0.9f)
+            .addWord("we", 3.0f, 3.3f, 0.9f)
+            .addWord("start?", 3.3f, 4.5f, 0.9f)
+            .build();
+        Diarization diarization = new Diarization(transcript, "en");
+        diarization.segmentSpeaker[0] = 2;
+        diarization.segmentSpeaker[1] = 1;
+        diarization.renumberSpeakers();
+        
+        TranscriptTimeline timeline = diarization.toTimeline();
+        
+        assertEquals(2, timeline.speakerCount);
+        assertEquals(6, timeline.wordCount);
+        assertEquals(3, timeline.endWordOfSegment(0));
+        assertEquals("start?", timeline.wordText(5));
+        assertEquals(diarization.speakerLabel(1), timeline.speakerName(timeline.segmentSpeaker[0]));
+        
+        TranscriptExporter.TranscriptSegments segments = new TranscriptExporter.TranscriptSegments(timeline);
+        assertEquals(2, segments.size());
+        assertTrue(segments.hasTimestamps());
+        assertEquals(2500, segments.getStartTime(1));
+        assertEquals("Shall we start?", segments.getText(1));
+        assertEquals(diarization.speakerLabel(2), segments.getSpeakerLabel(1));
+        assertEquals("Shall we start?", segments.getSegments().get(1).getText());
+    }
+    
+    private static void assertReadFails(File file) {
+        try {
+            TranscriptTimeline.read(file);
+            fail("Read " + file.getName());
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+    
+    private static TranscriptTimeline largeTimeline(int segments, int speakers) {
+        String[] vocabulary = {"we", "should", "ship", "the", "release", "on", "Friday", "größer", "okay"};
+        TranscriptTimeline.Builder builder = new TranscriptTimeline.Builder();
+        for (int s = 1; s <= speakers; s++) {
+            builder.addSpeaker("Sprecherin Müller " + s);
+        }
+        float time = 0;
+        for (int i = 0; i < segments; i++) {
+            StringBuilder text = new StringBuilder();
+            int words = 1 + i % 7;
+            for (int w = 0; w < words; w++) {
+                text.append(w > 0 ? " " : "").append(vocabulary[(i + w) % vocabulary.length]);
+            }
+            builder.addSegment(time, time + words * 0.4f, 1 + i % speakers, text.toString());
+            for (int w = 0; w < words; w++) {
+                builder.addWord(time, time + 0.4f, vocabulary[(i + w) % vocabulary.length]);
+                time += 0.4f;
+            }
+        }
+        return builder.build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.data.TranscriptTimeline;
+import ai.intelliswarm.meetingmate.data.TranscriptionCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+@RunWith(RobolectricTestRunner.class)
+public class TranscriptionCacheTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File audio;
+    
+    @Before
+    public void setUp() throws IOException {
+        audio = folder.newFile("meeting.m4a");
+        Files.write(audio.toPath(), new byte[] {1, 2, 3, 4});
+    }
+    
+    @Test
+    public void testStoredTranscriptComesBack() throws IOException {
+        TranscriptionCache cache = new TranscriptionCache(folder.newFolder("cache"), 1024 * 1024);
+        String key = cache.keyFor(audio, "openai", "en", "whisper-1");
+        assertNull(cache.get(key));
+        
+        cache.put(key, "Let's ship it.", "[{\"start\":0}]");
+        TranscriptionCache.Entry entry = cache.get(key);
+        
+        assertEquals("Let's ship it.", entry.transcript);
+        assertEquals("[{\"start\":0}]", entry.segments);
+        
+        cache.put(key, "Without segments", null);
+        assertNull(cache.get(key).segments);
+        assertNull(cache.get(key).timeline);
+    }
+    
+    @Test
+    public void testTimelineIsStoredWithTheTranscript() throws IOException {
+        TranscriptionCache cache = new TranscriptionCache(folder.newFolder("cache"), 1024 * 1024);
+        String key = cache.keyFor(audio, "openai", "en", "whisper-1", "anonymous");
+        TranscriptTimeline.Builder builder = new TranscriptTimeline.Builder();
+        int alice = builder.addSpeaker("Alice");
+        builder.addSegment(0.5f, 2f, alice, "Let's ship it.");
+        builder.addWord(0.5f, 1f, "Let's").addWord(1f, 1.5f, "ship").addWord(1.5f, 2f, "it.");
+        
+        cache.put(key, "**Alice** [00:00]\nLet's ship it.", "[]", builder.build());
+        TranscriptTimeline timeline = cache.get(key).timeline;
+        
+        assertEquals(1, timeline.segmentCount);
+        assertEquals(3, timeline.wordCount);
+        assertEquals(0.5f, timeline.segmentStart[0], 0f);
+        assertEquals("Let's ship it.", timeline.segmentText(0));
+        assertEquals("ship", timeline.wordText(1));
+        assertEquals("Alice", timeline.speakerName(timeline.segmentSpeaker[0]));
+    }
+    
+    @Test
+    public void testKeyCoversContentProviderLanguageModelAndSpeakerNaming() throws IOException {
+        TranscriptionCache cache = new TranscriptionCache(folder.newFolder("cache"), 1024 * 1024);
+        String key = cache.keyFor(audio, "openai", "en", "whisper-1");
+        
+        // Same content under another name is the same recording
+        File copy = folder.newFile("copy.m4a");
+        Files.write(copy.toPath(), new byte[] {1, 2, 3, 4});
+        assertEquals(key, cache.keyFor(copy, "openai", "en", "whisper-1"));
+        
+        assertNotEquals(key, cache.keyFor(audio, "assemblyai", "en", "whisper-1"));
+        assertNotEquals(key, cache.keyFor(audio, "openai", "de", "whisper-1"));
+        assertNotEquals(key, cache.keyFor(audio, "openai", "en", "gpt-4o-transcribe"));
+        
+        // Speaker labels differ with how speakers are named
+        String anonymous = cache.keyFor(audio, "openai", "en", "whisper-1", "anonymous");
+        assertNotEquals(key, anonymous);
+        assertNotEquals(anonymous, cache.keyFor(audio, "openai", "en", "whisper-1", "voices:1"));
+        assertNotEquals(cache.keyFor(audio, "openai", "en", "whisper-1", "voices:1"),
+            cache.keyFor(audio, "openai", "en", "whisper-1", "voices:2"));
+        
+        // No language and an empty one both mean auto-detect
+        assertEquals(cache.keyFor(audio, "openai", null, "whisper-1"), cache.keyFor(audio, "openai", "", "whisper-1"));
+        assertNotEquals(key, cache.keyFor(audio, "openai", null, "whisper-1"));
+        
+        Files.write(audio.toPath(), new byte[] {1, 2, 3, 5});
+        audio.setLastModified(audio.lastModified() + 2000);
+        assertNotEquals(key, cache.keyFor(audio, "openai", "en", "whisper-1"));
+    }
+    
+    @Test
+    public void testEmptyTranscriptIsNotStored() throws IOException {
+        TranscriptionCache cache = new TranscriptionCache(folder.newFolder("cache"), 1024 * 1024);
+        String key = cache.keyFor(audio, "openai", "en", "whisper-1");
+        
+        cache.put(key, "  ", null);
+        assertNull(cache.get(key));
+    }
+    
+    @Test
+    public void testLeastRecentlyUsedTranscriptIsEvicted() throws IOException {
+        // Room for about two entries
+        TranscriptionCache cache = new TranscriptionCache(folder.newFolder("cache"), 150);
+        String first = TranscriptionCache.sha256("first");
+        String second = TranscriptionCache.sha256("second");
+        String third = TranscriptionCache.sha256("third");
+        
+        cache.put(first, "First meeting", null);
+        cache.put(second, "Second meeting", null);
+        assertNotNull(cache.get(first));
+        cache.put(third, "Third meeting", null);
+        
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(first));
+        assertNotNull(cache.get(third));
+    }
+    
+    @Test
+    public void testCorruptEntryIsDiscarded() throws IOException {
+        File directory = folder.newFolder("cache");
+        TranscriptionCache cache = new TranscriptionCache(directory, 1024 * 1024);
+        String key = TranscriptionCache.sha256("meeting");
+        cache.put(key, "Let's ship it.", null);
+        
+        Files.write(new File(directory, key + ".entry").toPath(), "{not json".getBytes("UTF-8"));
+        
+        assertNull(cache.get(key));
+        assertFalse(new File(directory, key + ".entry").exists());
+    }
+}
@@ -0,0 +1,87 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.TranscriptionJobEngine;
+
+public class TranscriptionJobEngineTest {
+    
+    private static final long MIN = TranscriptionJobEngine.MIN_POLL_DELAY_MS;
+    private static final long MAX = TranscriptionJobEngine.MAX_POLL_DELAY_MS;
+    
+    @Test
+    public void testExpectedProcessingScalesWithTheAudio() {
+        // Short or unknown audio still gets the floor
+        assertEquals(15_000, TranscriptionJobEngine.expectedProcessingMs(0));
+        assertEquals(15_000, TranscriptionJobEngine.expectedProcessingMs(30_000));
+        // An hour of audio: 0.3 of it
+        assertEquals(1_080_000, TranscriptionJobEngine.expectedProcessingMs(3_600_000));
+    }
+    
+    @Test
+    public void testFirstPollComesBeforeTheEta() {
+        long shortestEta = TranscriptionJobEngine.expectedProcessingMs(0);
+        
+        assertTrue(TranscriptionJobEngine.FIRST_POLL_DELAY_MS >= MIN);
+        assertTrue(TranscriptionJobEngine.FIRST_POLL_DELAY_MS < TranscriptionJobEngine.nextDelayMs(0, shortestEta, 0));
+    }
+    
+    @Test
+    public void testPollsAtHalfTheRemainingTimeBeforeTheEta() {
+        long expected = TranscriptionJobEngine.expectedProcessingMs(120_000); // 36 s
+        
+        assertEquals(18_000, TranscriptionJobEngine.nextDelayMs(0, expected, 3_000));
+        assertEquals(8_000, TranscriptionJobEngine.nextDelayMs(20_000, expected, 18_000));
+        // The previous delay only matters once overdue
+        assertEquals(8_000, TranscriptionJobEngine.nextDelayMs(20_000, expected, 2_000));
+    }
+    
+    @Test
+    public void testDelayIsClampedToTwoToThirtySeconds() {
+        assertEquals(2_000, MIN);
+        assertEquals(30_000, MAX);
+        
+        // Close to the ETA, half the remainder would be too eager
+        assertEquals(MIN, TranscriptionJobEngine.nextDelayMs(35_000, 36_000, 8_000));
+        // Far from it, half the remainder would leave the user waiting after the job is done
+        long hour = TranscriptionJobEngine.expectedProcessingMs(3_600_000);
+        assertEquals(MAX, TranscriptionJobEngine.nextDelayMs(0, hour, 0));
+        // Overdue with a tiny or huge previous delay
+        assertEquals(MIN, TranscriptionJobEngine.nextDelayMs(40_000, 36_000, 0));
+        assertEquals(MAX, TranscriptionJobEngine.nextDelayMs(40_000, 36_000, 60_000));
+    }
+    
+    @Test
+    public void testBacksOffOnceOverdue() {
+        long expected = 36_000;
+        long delay = TranscriptionJobEngine.nextDelayMs(37_000, expected, 4_000);
+        assertEquals(6_000, delay);
+        
+        // Grows by half each time until it reaches the ceiling, then stays there
+        long elapsed = 37_000 + delay;
+        long previous = delay;
+        for (int i = 0; i < 20; i++) {
+            delay = TranscriptionJobEngine.nextDelayMs(elapsed, expected, previous);
+            assertTrue(delay >= previous);
+            assertTrue(delay <= MAX);
+            elapsed += delay;
+            previous = delay;
+        }
+        assertEquals(MAX, delay);
+    }
+    
+    @Test
+    public void testTimeoutGrowsWithTheAudio() {
+        // Ten minutes at least
+        assertEquals(600_000, TranscriptionJobEngine.timeoutMs(0));
+        assertEquals(600_000, TranscriptionJobEngine.timeoutMs(5 * 60_000));
+        // Four times the expected processing for long recordings
+        assertEquals(4_320_000, TranscriptionJobEngine.timeoutMs(3_600_000));
+        
+        // Always well past the ETA, so a slow but healthy job is not cut off
+        for (long audio = 0; audio <= 4 * 3_600_000; audio += 600_000) {
+            assertTrue(TranscriptionJobEngine.timeoutMs(audio) >= 4 * TranscriptionJobEngine.expectedProcessingMs(audio));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ai.intelliswarm.meetingmate;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.Diarization;
+import ai.intelliswarm.meetingmate.transcription.VantagePointTree;
+import ai.intelliswarm.meetingmate.transcription.VoiceprintRegistry;
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+public class VoiceprintRegistryTest {
+    
+    private static final int DIMENSIONS = VoiceprintRegistry.DIMENSIONS;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testTreeMatchesBruteForce() {
+        Random random = new Random(1);
+        float[] points = randomPoints(2000, random, 3f);
+        VantagePointTree tree = new VantagePointTree(points, DIMENSIONS);
+        int[] index = new int[3];
+        float[] distance = new float[3];
+        
+        for (int q = 0; q < 200; q++) {
+            float[] query = randomPoints(1, random, 3f);
+            int found = tree.nearest(query, 3, index, distance);
+            
+            assertEquals(3, found);
+            int[] expected = bruteForce(points, query, 3);
+            assertArrayEquals(expected, index);
+            assertTrue(distance[0] <= distance[1] && distance[1] <= distance[2]);
+        }
+        
+        assertEquals(0, new VantagePointTree(new float[0], DIMENSIONS).nearest(new float[DIMENSIONS], 3, index, distance));
+        assertEquals(1, new VantagePointTree(new float[DIMENSIONS], DIMENSIONS).nearest(new float[DIMENSIONS], 3, index, distance));
+    }
+    
+    /**
+     * 3-nearest lookups over 500 voices. Timing depends on the machine, so run it by hand.
+     */
+    @Ignore("Benchmark")
+    @Test
+    public void benchmarkLookupIsSubMillisecond() {
+        Random random = new Random(2);
+        VantagePointTree tree = new VantagePointTree(randomPoints(500, random, 3f), DIMENSIONS);
+        float[][] queries = new float[5000][];
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomPoints(1, random, 3f);
+        }
+        int[] index = new int[3];
+        float[] distance = new float[3];
+        for (float[] query : queries) {
+            tree.nearest(query, 3, index, distance); // Warm up
+        }
+        
+        long started = System.nanoTime();
+        for (float[] query : queries) {
+            tree.nearest(query, 3, index, distance);
+        }
+        double microsPerLookup = (System.nanoTime() - started) / 1e3 / queries.length;
+        assertTrue("Took " + microsPerLookup + " us", microsPerLookup < 1000);
+    }
+    
+    @Test
+    public void testRecognisesNamedVoicesInLaterMeetings() {
+        Random random = new Random(3);
+        float[] alice = randomPoints(1, random, 3f);
+        float[] bob = randomPoints(1, random, 3f);
+        File file = new File(folder.getRoot(), "voiceprints.json");
+        
+        // First meeting: both voices are new and get numbered labels
+        VoiceprintRegistry registry = new VoiceprintRegistry(file);
+        Diarization first = meeting(new float[][] {alice, bob}, new int[] {120, 80}, random);
+        assertEquals(0, registry.nameSpeakers(first));
+        assertEquals(2, registry.size());
+        assertEquals("Voice 1", first.speakerLabel(1));
+        assertEquals("Voice 2", first.speakerLabel(2));
+        
+        // Voices are remembered in the order they were first heard
+        List<VoiceprintRegistry.Voice> voices = registry.getVoices();
+        assertNull(voices.get(0).getName());
+        assertTrue(registry.setName(voices.get(0).id, "Alice"));
+        assertTrue(registry.setName(voices.get(1).id, " Bob "));
+        
+        // Later meeting, reloaded from disk: Bob speaks first, plus a stranger and a short interjection
+        VoiceprintRegistry reloaded = new VoiceprintRegistry(file);
+        float[] stranger = randomPoints(1, random, 3f);
+        Diarization later = meeting(new float[][] {bob, stranger, alice, alice}, new int[] {60, 40, 90, 5}, random);
+        assertEquals(2, reloaded.nameSpeakers(later));
+        
+        assertEquals("Bob", later.speakerLabel(1));
+        assertEquals("Voice 3", later.speakerLabel(2));
+        assertEquals("Alice", later.speakerLabel(3));
+        assertEquals("Speaker 4", later.speakerLabel(4));
+        assertEquals(3, reloaded.size());
+        assertEquals(2, reloaded.getVoices().get(0).getMeetings());
+    }
+    
+    @Test
+    public void testUnnamedVoicesKeepTheirLabelAcrossMeetings() {
+        Random random = new Random(5);
+        float[] carol = randomPoints(1, random, 3f);
+        float[] dave = randomPoints(1, random, 3f);
+        File file = new File(folder.getRoot(), "voiceprints.json");
+        
+        VoiceprintRegistry registry = new VoiceprintRegistry(file);
+        registry.nameSpeakers(meeting(new float[][] {carol, dave}, new int[] {50, 50}, random));
+        
+        // Dave speaks first next time, and is still Voice 2 after a reload
+        Diarization later = meeting(new float[][] {dave, carol}, new int[] {50, 50}, random);
+        assertEquals(2, new VoiceprintRegistry(file).nameSpeakers(later));
+        assertEquals("Voice 2", later.speakerLabel(1));
+        assertEquals("Voice 1", later.speakerLabel(2));
+        
+        // Forgetting everything deletes the file and starts numbering over
+        VoiceprintRegistry reloaded = new VoiceprintRegistry(file);
+        assertTrue(reloaded.clear());
+        assertFalse(file.exists());
+        assertEquals(0, reloaded.size());
+        Diarization fresh = meeting(new float[][] {dave}, new int[] {50}, random);
+        assertEquals(0, reloaded.nameSpeakers(fresh));
+        assertEquals("Voice 1", fresh.speakerLabel(1));
+    }
+    
+    @Test
+    public void testNamingVersionChangesWhenLabelsMayChange() {
+        Random random = new Random(6);
+        File file = new File(folder.getRoot(), "voiceprints.json");
+        VoiceprintRegistry registry = new VoiceprintRegistry(file);
+        int version = registry.getNamingVersion();
+        
+        // New voices keep the labels given out so far
+        registry.nameSpeakers(meeting(new float[][] {randomPoints(1, random, 3f), randomPoints(1, random, 3f)},
+            new int[] {50, 50}, random));
+        assertEquals(version, registry.getNamingVersion());
+        assertEquals(version, new VoiceprintRegistry(file).getNamingVersion());
+        
+        List<VoiceprintRegistry.Voice> voices = registry.getVoices();
+        registry.setName(voices.get(0).id, "Erin");
+        int renamed = registry.getNamingVersion();
+        assertNotEquals(version, renamed);
+        assertEquals(renamed, new VoiceprintRegistry(file).getNamingVersion());
+        
+        registry.remove(voices.get(1).id);
+        int removed = registry.getNamingVersion();
+        assertNotEquals(renamed, removed);
+        
+        registry.clear();
+        assertNotEquals(removed, registry.getNamingVersion());
+    }
+    
+    @Test
+    public void testRenumberingKeepsVoiceprintsWithTheirSpeakers() {
+        Random random = new Random(4);
+        float[] a = randomPoints(1, random, 3f);
+        float[] b = randomPoints(1, random, 3f);
+        Diarization diarization = meeting(new float[][] {a, b}, new int[] {30, 40}, random);
+        diarization.speakerNames = new String[] {"Ana", null};
+        
+        // Swap the speaker numbers so renumbering has to swap them back
+        for (int i = 0; i < diarization.segmentSpeaker.length; i++) {
+            diarization.segmentSpeaker[i] = 3 - diarization.segmentSpeaker[i];
+        }
+        float[] voiceprints = diarization.voiceprints.clone();
+        diarization.renumberSpeakers();
+        
+        assertEquals("Speaker 1", diarization.speakerLabel(1));
+        assertEquals("Ana", diarization.speakerLabel(2));
+        assertEquals(40, diarization.voiceprintWords[0]);
+        assertEquals(voiceprints[DIMENSIONS], diarization.voiceprints[0], 0f);
+        
+        diarization.clearVoiceprints();
+        assertFalse(diarization.hasVoiceprints());
+        assertEquals("Speaker 2", diarization.speakerLabel(2));
+    }
+    
+    /**
+     * A diarized meeting with one segment per speaker, each speaker's voiceprint a noisy copy
+     * of the given voice
+     */
+    private static Diarization meeting(float[][] voices, int[] words, Random random) {
+        WhisperTranscript.Builder builder = new WhisperTranscript.Builder();
+        for (int s = 0; s < voices.length; s++) {
+            builder.addSegment(s * 10f, s * 10f + 8f, "Segment " + s, -0.2f, 0.01f);
+        }
+        Diarization diarization = new Diarization(builder.build(), "en");
+        diarization.voiceprints = new float[voices.length * DIMENSIONS];
+        diarization.voiceprintWords = words.clone();
+        for (int s = 0; s < voices.length; s++) {
+            diarization.segmentSpeaker[s] = s + 1;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                diarization.voiceprints[s * DIMENSIONS + d] = voices[s][d] + (float) random.nextGaussian() * 0.1f;
+            }
+        }
+        diarization.speakerCount = voices.length;
+        return diarization;
+    }
+    
+    private static float[] randomPoints(int count, Random random, float spread) {
+        float[] points = new float[count * DIMENSIONS];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) random.nextGaussian() * spread;
+        }
+        return points;
+    }
+    
+    private static int[] bruteForce(float[] points, float[] query, int k) {
+        int n = points.length / DIMENSIONS;
+        int[] best = new int[k];
+        float[] bestDistance = new float[k];
+        Arrays.fill(bestDistance, Float.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            float sum = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                float diff = query[d] - points[i * DIMENSIONS + d];
+                sum += diff * diff;
+            }
+            float distance = (float) Math.sqrt(sum);
+            for (int j = 0; j < k; j++) {
+                if (distance < bestDistance[j]) {
+                    System.arraycopy(best, j, best, j + 1, k - j - 1);
+                    System.arraycopy(bestDistance, j, bestDistance, j + 1, k - j - 1);
+                    best[j] = i;
+                    bestDistance[j] = distance;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
\ No newline at end of file
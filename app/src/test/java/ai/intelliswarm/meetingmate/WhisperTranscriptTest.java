@@ -0,0 +1,69 @@
+package ai.intelliswarm.meetingmate;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import static org.junit.Assert.*;
+
+import ai.intelliswarm.meetingmate.transcription.WhisperTranscript;
+
+import java.io.StringReader;
+
+@RunWith(RobolectricTestRunner.class)
+public class WhisperTranscriptTest {
+    
+    private static final String VERBOSE_JSON = "{"
+        + "\"task\":\"transcribe\",\"language\":\"english\",\"duration\":6.5,"
+        + "\"text\":\" Good morning. Shall we start?\","
+        + "\"segments\":["
+        + "{\"id\":0,\"seek\":0,\"start\":0.0,\"end\":2.0,\"text\":\" Good morning.\",\"tokens\":[1,2,3],"
+        + "\"temperature\":0.0,\"avg_logprob\":-0.25,\"compression_ratio\":1.1,\"no_speech_prob\":0.01},"
+        + "{\"id\":1,\"seek\":0,\"start\":2.5,\"end\":6.5,\"text\":\" Shall we start?\",\"tokens\":[4,5],"
+        + "\"temperature\":0.0,\"avg_logprob\":-0.4,\"compression_ratio\":1.0,\"no_speech_prob\":null}"
+        + "],"
+        + "\"words\":["
+        + "{\"word\":\"Good\",\"start\":0.0,\"end\":0.6},"
+        + "{\"word\":\"morning\",\"start\":0.6,\"end\":1.8},"
+        + "{\"word\":\"Shall\",\"start\":2.52,\"end\":3.0},"
+        + "{\"word\":\"we\",\"start\":3.0,\"end\":3.3},"
+        + "{\"word\":\"start\",\"start\":3.3,\"end\":4.1}"
+        + "]}";
+    
+    @Test
+    public void testParsesSegmentsAndLinksTopLevelWords() throws Exception {
+        WhisperTranscript transcript = WhisperTranscript.parse(new StringReader(VERBOSE_JSON));
+        
+        assertEquals("Good morning. Shall we start?", transcript.text);
+        assertEquals("english", transcript.language);
+        assertEquals(2, transcript.segmentCount);
+        assertEquals("Shall we start?", transcript.segmentText[1]);
+        assertEquals(-0.4f, transcript.segmentAvgLogprob[1], 1e-6);
+        
+        assertEquals(5, transcript.wordCount);
+        assertEquals(0, transcript.firstWordOfSegment(0));
+        assertEquals(2, transcript.endWordOfSegment(0));
+        assertEquals(2, transcript.firstWordOfSegment(1));
+        assertEquals(5, transcript.endWordOfSegment(1));
+        assertTrue(Float.isNaN(transcript.wordProbability[0]));
+    }
+    
+    @Test
+    public void testSegmentsJsonRoundTrip() throws Exception {
+        WhisperTranscript transcript = WhisperTranscript.parse(new StringReader(VERBOSE_JSON));
+        String segmentsJson = transcript.toSegmentsJson();
+        
+        JSONArray segments = new JSONArray(segmentsJson);
+        JSONObject second = segments.getJSONObject(1);
+        assertEquals(2.5, second.getDouble("start"), 1e-6);
+        assertEquals(3, second.getJSONArray("words").length());
+        assertEquals("start", second.getJSONArray("words").getJSONObject(2).getString("word"));
+        
+        WhisperTranscript reparsed = WhisperTranscript.parseSegments(segmentsJson);
+        assertEquals(transcript.segmentCount, reparsed.segmentCount);
+        assertEquals(transcript.wordCount, reparsed.wordCount);
+        assertEquals(transcript.endWordOfSegment(0), reparsed.endWordOfSegment(0));
+        assertEquals(transcript.text, reparsed.text);
+    }
+}
\ No newline at end of file